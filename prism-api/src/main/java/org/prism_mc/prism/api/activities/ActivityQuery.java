@@ -32,6 +32,7 @@ import lombok.ToString;
 import lombok.experimental.SuperBuilder;
 import lombok.experimental.Tolerate;
 import org.prism_mc.prism.api.actions.types.ActionType;
+import org.prism_mc.prism.api.services.pagination.PaginationCursor;
 import org.prism_mc.prism.api.util.Coordinate;
 
 @SuperBuilder(toBuilder = true)
@@ -78,6 +79,28 @@ public class ActivityQuery {
     @Singular
     private Collection<String> causeBlocks;
 
+    /**
+     * Count all matching results for lookups.
+     *
+     * <p>When false, one extra result is fetched to tell whether another page exists.</p>
+     */
+    @Builder.Default
+    private boolean countResults = true;
+
+    /**
+     * Seek to the results after this cursor instead of skipping the offset.
+     *
+     * <p>Only used for ungrouped lookups. The offset is still used for page numbers.</p>
+     */
+    private PaginationCursor cursor;
+
+    /**
+     * Only include activities at or past this timestamp in the sort direction.
+     *
+     * <p>Used to load modifications in chunks without re-reading earlier ones.</p>
+     */
+    private Long fromTimestamp;
+
     /**
      * The named cause.
      */
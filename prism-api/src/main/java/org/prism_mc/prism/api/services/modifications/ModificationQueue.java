@@ -38,6 +38,20 @@ public interface ModificationQueue {
      */
     Object owner();
 
+    /**
+     * The measured throughput of this queue.
+     *
+     * @return Modifications applied per second
+     */
+    double modificationsPerSecond();
+
+    /**
+     * The measured time this queue spends applying modifications per task.
+     *
+     * @return Milliseconds per task
+     */
+    double millisecondsPerTask();
+
     /**
      * The size of the current queue.
      *
@@ -20,7 +20,6 @@
 
 package org.prism_mc.prism.api.services.modifications;
 
-import java.util.List;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NonNull;
@@ -86,7 +85,7 @@ public final class ModificationQueueResult {
      * The modification results.
      */
     @NonNull
-    private List<ModificationResult> results;
+    private ModificationResults results;
 
     /**
      * The count of activities skipped.
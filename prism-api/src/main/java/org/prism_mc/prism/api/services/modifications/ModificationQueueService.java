@@ -27,12 +27,24 @@ import org.prism_mc.prism.api.activities.ActivityQuery;
 
 public interface ModificationQueueService {
     /**
-     * Check if the queue is free. Nicer than trying and getting exceptions.
+     * Check if there's room for another queue. Nicer than trying and getting exceptions.
      *
      * @return True if a new queue can be made.
      */
     boolean queueAvailable();
 
+    /**
+     * Check if a queue can be made for an owner and query.
+     *
+     * <p>Queues run concurrently unless they may touch the same area, so this fails
+     * only when another owner's queue overlaps the query or no room is left.</p>
+     *
+     * @param owner The owner
+     * @param query The query
+     * @return True if a new queue can be made.
+     */
+    boolean queueAvailable(Object owner, ActivityQuery query);
+
     /**
      * Cancel an active queue for a given owner.
      *
@@ -49,11 +61,11 @@ public interface ModificationQueueService {
     void clearEverythingForOwner(Object owner);
 
     /**
-     * The current modification queue.
+     * The current modification queues.
      *
-     * @return The queue
+     * @return The queues
      */
-    ModificationQueue currentQueue();
+    List<ModificationQueue> queues();
 
     /**
      * Get the current queue only if it's owned by a given owner.
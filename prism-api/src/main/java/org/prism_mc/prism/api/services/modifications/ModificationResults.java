@@ -0,0 +1,218 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.prism_mc.prism.api.services.modifications;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.prism_mc.prism.api.activities.Activity;
+
+/**
+ * Modification results stored as columns of primitives rather than result objects.
+ *
+ * <p>Each result keeps its status, reason, activity id and target, so a large modification
+ * doesn't hold on to its activities or their state. Activity details for reports are read
+ * back from storage by id.</p>
+ */
+public final class ModificationResults {
+
+    /**
+     * The activity id stored when an activity has no primary key.
+     */
+    public static final long NO_ID = -1;
+
+    /**
+     * The status ordinals.
+     */
+    private byte[] statuses = new byte[64];
+
+    /**
+     * The partial or skip reason ordinals, depending on the status.
+     */
+    private byte[] reasons = new byte[64];
+
+    /**
+     * The activity ids.
+     */
+    private long[] activityIds = new long[64];
+
+    /**
+     * The target indexes, or -1 when there's no target.
+     */
+    private int[] targets = new int[64];
+
+    /**
+     * The distinct targets.
+     */
+    private final List<String> targetNames = new ArrayList<>();
+
+    /**
+     * The index of each distinct target.
+     */
+    private final Map<String, Integer> targetIndexes = new HashMap<>();
+
+    /**
+     * The count of results per status.
+     */
+    private final int[] counts = new int[ModificationResultStatus.values().length];
+
+    /**
+     * The number of results.
+     */
+    private int size;
+
+    /**
+     * Add a result.
+     *
+     * @param result The modification result
+     */
+    public synchronized void add(ModificationResult result) {
+        if (size == statuses.length) {
+            int capacity = size * 2;
+            statuses = Arrays.copyOf(statuses, capacity);
+            reasons = Arrays.copyOf(reasons, capacity);
+            activityIds = Arrays.copyOf(activityIds, capacity);
+            targets = Arrays.copyOf(targets, capacity);
+        }
+
+        ModificationResultStatus status = result.status();
+        statuses[size] = (byte) status.ordinal();
+        reasons[size] = (byte) (status.equals(ModificationResultStatus.PARTIAL)
+            ? result.partialReason().ordinal()
+            : result.skipReason().ordinal());
+        activityIds[size] = result.activity().primaryKey() instanceof Number primaryKey
+            ? primaryKey.longValue()
+            : NO_ID;
+        targets[size] = result.target() != null
+            ? targetIndexes.computeIfAbsent(result.target(), target -> {
+                targetNames.add(target);
+
+                return targetNames.size() - 1;
+            })
+            : -1;
+
+        counts[status.ordinal()]++;
+        size++;
+    }
+
+    /**
+     * Get the number of results.
+     *
+     * @return The count
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Get the number of results with a status.
+     *
+     * @param status The status
+     * @return The count
+     */
+    public synchronized int count(ModificationResultStatus status) {
+        return counts[status.ordinal()];
+    }
+
+    /**
+     * Get the indexes of all results with a status.
+     *
+     * @param status The status
+     * @return The indexes, in the order they were added
+     */
+    public synchronized int[] indexes(ModificationResultStatus status) {
+        int[] indexes = new int[counts[status.ordinal()]];
+        int found = 0;
+        for (int i = 0; i < size && found < indexes.length; i++) {
+            if (statuses[i] == status.ordinal()) {
+                indexes[found++] = i;
+            }
+        }
+
+        return indexes;
+    }
+
+    /**
+     * Get the activity ids of all results with a status.
+     *
+     * @param status The status
+     * @return The activity ids
+     */
+    public synchronized List<Long> activityIds(ModificationResultStatus status) {
+        List<Long> ids = new ArrayList<>(counts[status.ordinal()]);
+        for (int i = 0; i < size; i++) {
+            if (statuses[i] == status.ordinal() && activityIds[i] != NO_ID) {
+                ids.add(activityIds[i]);
+            }
+        }
+
+        return ids;
+    }
+
+    /**
+     * Get the activity id of a result.
+     *
+     * @param index The result index
+     * @return The activity id, or NO_ID
+     */
+    public synchronized long activityId(int index) {
+        return activityIds[index];
+    }
+
+    /**
+     * Rebuild a result with its activity read back from storage.
+     *
+     * @param index The result index
+     * @param activity The activity
+     * @return The modification result
+     */
+    public synchronized ModificationResult toResult(int index, Activity activity) {
+        ModificationResultStatus status = ModificationResultStatus.values()[statuses[index]];
+        var builder = ModificationResult.builder()
+            .activity(activity)
+            .status(status)
+            .target(targets[index] >= 0 ? targetNames.get(targets[index]) : null);
+
+        if (status.equals(ModificationResultStatus.PARTIAL)) {
+            builder.partialReason(ModificationPartialReason.values()[reasons[index]]);
+        } else {
+            builder.skipReason(ModificationSkipReason.values()[reasons[index]]);
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Forget all results.
+     */
+    public synchronized void clear() {
+        statuses = new byte[64];
+        reasons = new byte[64];
+        activityIds = new long[64];
+        targets = new int[64];
+        targetNames.clear();
+        targetIndexes.clear();
+        Arrays.fill(counts, 0);
+        size = 0;
+    }
+}
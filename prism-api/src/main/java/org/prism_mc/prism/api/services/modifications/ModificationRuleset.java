@@ -49,6 +49,16 @@ public class ModificationRuleset {
      */
     private int maxPerTask;
 
+    /**
+     * The most milliseconds a task may spend applying modifications.
+     */
+    private int maxTickBudget;
+
+    /**
+     * The fewest milliseconds a task may spend applying modifications.
+     */
+    private int minTickBudget;
+
     /**
      * Move entities.
      */
@@ -74,6 +84,11 @@ public class ModificationRuleset {
      */
     private long taskDelay;
 
+    /**
+     * The tick time, in milliseconds, that tasks try to keep the server under.
+     */
+    private double targetMspt;
+
     /**
      * Check strings against the block blacklist.
      *
@@ -21,9 +21,16 @@
 package org.prism_mc.prism.api.services.pagination;
 
 import java.util.List;
+import lombok.Getter;
 
 public class PartialListPaginationResult<T> extends ListPaginationResult<T> {
 
+    /**
+     * The cursor to seek to the next page, if known.
+     */
+    @Getter
+    protected final PaginationCursor nextCursor;
+
     /**
      * Constructor.
      *
@@ -33,7 +40,27 @@ public class PartialListPaginationResult<T> extends ListPaginationResult<T> {
      * @param currentPage The current page
      */
     public PartialListPaginationResult(List<T> results, int totalResults, int perPage, int currentPage) {
+        this(results, totalResults, perPage, currentPage, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param results The partial results
+     * @param totalResults The total result count
+     * @param perPage The per-page limit
+     * @param currentPage The current page
+     * @param nextCursor The cursor to seek to the next page
+     */
+    public PartialListPaginationResult(
+        List<T> results,
+        int totalResults,
+        int perPage,
+        int currentPage,
+        PaginationCursor nextCursor
+    ) {
         super(results, totalResults, perPage, currentPage);
+        this.nextCursor = nextCursor;
     }
 
     @Override
@@ -30,7 +30,7 @@ public class PurgeCycleResult {
     /**
      * Number of records deleted this cycle.
      */
-    int deleted;
+    long deleted;
 
     /**
      * The upper bound primary key used for this cycle.
@@ -41,4 +41,14 @@ public class PurgeCycleResult {
      * The lower bound primary key used for this cycle.
      */
     int minPrimaryKey;
+
+    /**
+     * The delete throughput of this cycle, in records per second.
+     */
+    double rowsPerSecond;
+
+    /**
+     * The primary key window size each connection will delete next cycle.
+     */
+    int windowSize;
 }
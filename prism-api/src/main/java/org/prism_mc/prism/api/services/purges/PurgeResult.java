@@ -30,5 +30,5 @@ public class PurgeResult {
     /**
      * Number of records deleted.
      */
-    int deleted;
+    long deleted;
 }
@@ -20,6 +20,7 @@
 
 package org.prism_mc.prism.api.services.recording;
 
+import java.util.Collection;
 import java.util.concurrent.LinkedBlockingQueue;
 import org.prism_mc.prism.api.activities.Activity;
 
@@ -33,7 +34,24 @@ public interface RecordingService {
     boolean addToQueue(final Activity activity);
 
     /**
-     * Cancels and removes the current recording task.
+     * Add several activities to the recording queue.
+     *
+     * @param activities The activities
+     * @return The number of activities added to the queue
+     */
+    default int addAllToQueue(final Collection<? extends Activity> activities) {
+        int queued = 0;
+        for (Activity activity : activities) {
+            if (addToQueue(activity)) {
+                queued++;
+            }
+        }
+
+        return queued;
+    }
+
+    /**
+     * Stops and removes the recording workers.
      */
     void clearTask();
 
@@ -45,7 +63,7 @@ public interface RecordingService {
     LinkedBlockingQueue<Activity> queue();
 
     /**
-     * Schedule the next recording task.
+     * Schedule a recording worker.
      *
      * @param task The task
      */
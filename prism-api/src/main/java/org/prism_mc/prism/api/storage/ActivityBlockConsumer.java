@@ -0,0 +1,37 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.prism_mc.prism.api.storage;
+
+import java.util.UUID;
+
+@FunctionalInterface
+public interface ActivityBlockConsumer {
+    /**
+     * Accept the location and affected block of a streamed activity.
+     *
+     * @param worldUuid The world uuid
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @param z The z coordinate
+     * @param blockName The affected block name, without namespace
+     */
+    void accept(UUID worldUuid, int x, int y, int z, String blockName);
+}
@@ -0,0 +1,36 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.prism_mc.prism.api.storage;
+
+import java.util.List;
+import org.prism_mc.prism.api.activities.Activity;
+
+/**
+ * A chunk of activities read for world modification.
+ *
+ * <p>Rows that can't be mapped to an activity (e.g. an unregistered action type) are left
+ * out of the activities but still counted, so callers can page by what the query read.</p>
+ *
+ * @param activities The activities
+ * @param rowCount The number of rows read
+ * @param lastTimestamp The timestamp of the last row read, or null if none were read
+ * @param rowsAtLastTimestamp The number of rows read at the last timestamp
+ */
+public record ActivityChunk(List<Activity> activities, int rowCount, Long lastTimestamp, int rowsAtLastTimestamp) {}
@@ -51,6 +51,17 @@ public interface StorageAdapter {
      */
     int deleteActivities(ActivityQuery query, int cycleMinPrimaryKey, int cycleMaxPrimaryKey);
 
+    /**
+     * Drop whole activity partitions covered by a purge query.
+     *
+     * <p>Only applies to time-partitioned storage and queries filtered by time alone.
+     * Anything left at the edges of the range is deleted by the regular purge.</p>
+     *
+     * @param query The query
+     * @return The number of records dropped
+     */
+    long dropActivityPartitions(ActivityQuery query);
+
     /**
      * Get the min/max primary keys for the activities table.
      *
@@ -59,6 +70,28 @@ public interface StorageAdapter {
      */
     Pair<Integer, Integer> getActivitiesPkBounds(ActivityQuery query);
 
+    /**
+     * Create any activity partitions needed ahead of time. Does nothing unless
+     * the storage is time-partitioned.
+     */
+    void maintainActivityPartitions();
+
+    /**
+     * Read a value from the prism meta table.
+     *
+     * @param key The key
+     * @return The value, or null if not set
+     */
+    String getMeta(String key);
+
+    /**
+     * Write a value to the prism meta table.
+     *
+     * @param key The key
+     * @param value The value, or null to remove it
+     */
+    void setMeta(String key, String value);
+
     /**
      * Set the reversed bit for activities.
      *
@@ -76,6 +109,15 @@ public interface StorageAdapter {
      */
     List<Activity> queryActivities(ActivityQuery query) throws Exception;
 
+    /**
+     * Query one chunk of activities for world modification.
+     *
+     * @param query The activity query
+     * @return The chunk
+     * @throws Exception Storage layer exception
+     */
+    ActivityChunk queryActivityChunk(ActivityQuery query) throws Exception;
+
     /**
      * Query activities in a format intended for information display.
      *
@@ -85,6 +127,16 @@ public interface StorageAdapter {
      */
     PartialListPaginationResult<AbstractActivity> queryActivitiesPaginated(ActivityQuery query) throws Exception;
 
+    /**
+     * Stream the location and affected block of every matching activity, in primary key order.
+     *
+     * <p>Reads in pages so large tables can be walked without holding them in memory.</p>
+     *
+     * @param query The activity query
+     * @param consumer The consumer
+     */
+    void streamActivityBlocks(ActivityQuery query, ActivityBlockConsumer consumer);
+
     /**
      * Check whether this storage system is enabled and ready.
      *
@@ -0,0 +1,138 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.prism_mc.prism.benchmarks;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.prism_mc.prism.api.activities.Activity;
+import org.prism_mc.prism.api.storage.ActivityBatch;
+import org.prism_mc.prism.loader.storage.StorageType;
+
+/**
+ * Measures recording a batch of activities, as the recording task does.
+ *
+ * <p>A cold cache forces every player, world, action and block lookup back to the database,
+ * which is what a freshly started server sees. A warm cache shows the steady state.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ActivityBatchBenchmark {
+
+    /**
+     * The cache state before each batch.
+     */
+    public enum CacheState {
+        COLD,
+        WARM,
+    }
+
+    /**
+     * The activities per batch.
+     */
+    @Param({ "100", "500", "1000" })
+    public int batchMax;
+
+    /**
+     * The cache state.
+     */
+    @Param({ "COLD", "WARM" })
+    public CacheState cache;
+
+    /**
+     * The storage type.
+     */
+    @Param({ "H2", "SQLITE" })
+    public StorageType storage;
+
+    /**
+     * The activities recorded in the next batch.
+     */
+    private List<Activity> activities;
+
+    /**
+     * The random source.
+     */
+    private final Random random = new Random(42);
+
+    /**
+     * The benchmark storage.
+     */
+    private BenchmarkStorage benchmarkStorage;
+
+    /**
+     * Open the database.
+     *
+     * @throws Exception If the database can't be opened
+     */
+    @Setup(Level.Trial)
+    public void open() throws Exception {
+        benchmarkStorage = new BenchmarkStorage(storage, "batch");
+    }
+
+    /**
+     * Prepare the next batch, outside the measured time.
+     */
+    @Setup(Level.Invocation)
+    public void prepare() {
+        activities = BenchmarkStorage.activities(random, batchMax, System.currentTimeMillis());
+
+        if (cache == CacheState.COLD) {
+            benchmarkStorage.cacheService().invalidatePrimaryKeys();
+        }
+    }
+
+    /**
+     * Close the database.
+     */
+    @TearDown(Level.Trial)
+    public void close() {
+        benchmarkStorage.close();
+    }
+
+    /**
+     * Record one batch.
+     *
+     * @throws Exception If recording fails
+     */
+    @Benchmark
+    public void recordBatch() throws Exception {
+        ActivityBatch batch = benchmarkStorage.storageAdapter().createActivityBatch();
+        batch.startBatch();
+
+        for (Activity activity : activities) {
+            batch.add(activity);
+        }
+
+        batch.commitBatch();
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.prism_mc.prism.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.jooq.Record;
+import org.jooq.Result;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.prism_mc.prism.api.activities.AbstractActivity;
+import org.prism_mc.prism.api.activities.ActivityQuery;
+import org.prism_mc.prism.core.storage.adapters.sql.AbstractSqlStorageAdapter;
+import org.prism_mc.prism.core.storage.adapters.sql.ActivityMapperProbe;
+import org.prism_mc.prism.loader.storage.StorageType;
+
+/**
+ * Measures mapping query results into activities, without the query.
+ *
+ * <p>Run with {@code -prof gc} to see the allocation rate per mapped page.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ActivityMapperBenchmark {
+
+    /**
+     * Whether results are grouped.
+     */
+    @Param({ "true", "false" })
+    public boolean grouped;
+
+    /**
+     * The page size.
+     */
+    @Param({ "100", "1000" })
+    public int limit;
+
+    /**
+     * The storage type.
+     */
+    @Param({ "H2" })
+    public StorageType storage;
+
+    /**
+     * The benchmark storage.
+     */
+    private BenchmarkStorage benchmarkStorage;
+
+    /**
+     * The mapper probe.
+     */
+    private ActivityMapperProbe probe;
+
+    /**
+     * The query.
+     */
+    private ActivityQuery query;
+
+    /**
+     * The raw records, fetched once.
+     */
+    private Result<Record> result;
+
+    /**
+     * Open and seed the database, then fetch the records to map.
+     *
+     * @throws Exception If the database can't be opened or seeded
+     */
+    @Setup(Level.Trial)
+    public void open() throws Exception {
+        benchmarkStorage = new BenchmarkStorage(storage, "lookup");
+        benchmarkStorage.seed(100_000, 1000);
+
+        probe = new ActivityMapperProbe((AbstractSqlStorageAdapter) benchmarkStorage.storageAdapter());
+        query = ActivityQuery.builder().grouped(grouped).limit(limit).build();
+        result = probe.fetch(query);
+    }
+
+    /**
+     * Close the database.
+     */
+    @TearDown(Level.Trial)
+    public void close() {
+        benchmarkStorage.close();
+    }
+
+    /**
+     * Map one page of records.
+     *
+     * @return The activities
+     */
+    @Benchmark
+    public List<AbstractActivity> map() {
+        return probe.map(result, query);
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.prism_mc.prism.benchmarks;
+
+import org.prism_mc.prism.api.actions.Action;
+import org.prism_mc.prism.api.actions.ActionData;
+import org.prism_mc.prism.api.actions.types.ActionResultType;
+import org.prism_mc.prism.api.actions.types.ActionType;
+
+/**
+ * A block action type that reads activities back into benchmark actions.
+ */
+public class BenchmarkActionType extends ActionType {
+
+    /**
+     * Construct a block action type.
+     *
+     * @param key The action key
+     * @param resultType The result type
+     */
+    public BenchmarkActionType(String key, ActionResultType resultType) {
+        super(key, resultType, true);
+    }
+
+    @Override
+    public Action createAction(ActionData actionData) {
+        BenchmarkBlockContainer replaced = null;
+        if (actionData.replacedBlockName() != null) {
+            replaced = new BenchmarkBlockContainer(
+                actionData.replacedBlockNamespace(),
+                actionData.replacedBlockName(),
+                actionData.replacedBlockData()
+            );
+        }
+
+        return new BenchmarkBlockAction(
+            this,
+            new BenchmarkBlockContainer(actionData.blockNamespace(), actionData.blockName(), actionData.blockData()),
+            replaced
+        );
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.prism_mc.prism.benchmarks;
+
+import net.kyori.adventure.text.Component;
+import org.jetbrains.annotations.Nullable;
+import org.prism_mc.prism.api.actions.BlockAction;
+import org.prism_mc.prism.api.actions.metadata.Metadata;
+import org.prism_mc.prism.api.actions.types.ActionType;
+import org.prism_mc.prism.api.activities.Activity;
+import org.prism_mc.prism.api.containers.BlockContainer;
+import org.prism_mc.prism.api.services.modifications.ModificationQueueMode;
+import org.prism_mc.prism.api.services.modifications.ModificationResult;
+import org.prism_mc.prism.api.services.modifications.ModificationRuleset;
+
+/**
+ * A platform-free block action for synthetic activities. It can be recorded and read
+ * back, but not applied to a world.
+ */
+public class BenchmarkBlockAction implements BlockAction {
+
+    /**
+     * The action type.
+     */
+    private final ActionType type;
+
+    /**
+     * The block.
+     */
+    private final BlockContainer blockContainer;
+
+    /**
+     * The replaced block.
+     */
+    private final BlockContainer replacedBlockContainer;
+
+    /**
+     * Construct a block action.
+     *
+     * @param type The action type
+     * @param blockContainer The block
+     * @param replacedBlockContainer The replaced block
+     */
+    public BenchmarkBlockAction(
+        ActionType type,
+        BlockContainer blockContainer,
+        @Nullable BlockContainer replacedBlockContainer
+    ) {
+        this.type = type;
+        this.blockContainer = blockContainer;
+        this.replacedBlockContainer = replacedBlockContainer;
+    }
+
+    @Override
+    public ModificationResult applyRollback(
+        ModificationRuleset modificationRuleset,
+        Object owner,
+        Activity activityContext,
+        ModificationQueueMode mode
+    ) {
+        throw new UnsupportedOperationException("Benchmark actions can't modify worlds.");
+    }
+
+    @Override
+    public ModificationResult applyRestore(
+        ModificationRuleset modificationRuleset,
+        Object owner,
+        Activity activityContext,
+        ModificationQueueMode mode
+    ) {
+        throw new UnsupportedOperationException("Benchmark actions can't modify worlds.");
+    }
+
+    @Override
+    public BlockContainer blockContainer() {
+        return blockContainer;
+    }
+
+    @Nullable
+    @Override
+    public BlockContainer replacedBlockContainer() {
+        return replacedBlockContainer;
+    }
+
+    @Override
+    public boolean hasCustomData() {
+        return false;
+    }
+
+    @Override
+    public String serializeCustomData() {
+        return null;
+    }
+
+    @Override
+    public String descriptor() {
+        return blockContainer.blockName();
+    }
+
+    @Override
+    public Component descriptorComponent() {
+        return Component.text(descriptor());
+    }
+
+    @Nullable
+    @Override
+    public Metadata metadata() {
+        return null;
+    }
+
+    @Override
+    public String serializeMetadata() {
+        return null;
+    }
+
+    @Override
+    public ActionType type() {
+        return type;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.prism_mc.prism.benchmarks;
+
+import org.prism_mc.prism.api.containers.BlockContainer;
+
+/**
+ * A platform-free block container for synthetic activities.
+ */
+public class BenchmarkBlockContainer implements BlockContainer {
+
+    /**
+     * The block namespace.
+     */
+    private final String namespace;
+
+    /**
+     * The block name.
+     */
+    private final String name;
+
+    /**
+     * The block data.
+     */
+    private final String blockData;
+
+    /**
+     * Construct a block container.
+     *
+     * @param namespace The block namespace
+     * @param name The block name
+     * @param blockData The block data
+     */
+    public BenchmarkBlockContainer(String namespace, String name, String blockData) {
+        this.namespace = namespace;
+        this.name = name;
+        this.blockData = blockData;
+    }
+
+    @Override
+    public String blockNamespace() {
+        return namespace;
+    }
+
+    @Override
+    public String blockName() {
+        return name;
+    }
+
+    @Override
+    public String serializeBlockData() {
+        return blockData;
+    }
+
+    @Override
+    public String translationKey() {
+        return "block." + namespace + "." + name;
+    }
+}
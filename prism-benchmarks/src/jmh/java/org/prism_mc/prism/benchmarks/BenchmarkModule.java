@@ -0,0 +1,135 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.prism_mc.prism.benchmarks;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
+import com.google.inject.Singleton;
+import com.google.inject.assistedinject.FactoryModuleBuilder;
+import com.google.inject.name.Named;
+import java.nio.file.Path;
+import org.prism_mc.prism.api.actions.types.ActionTypeRegistry;
+import org.prism_mc.prism.api.storage.StorageAdapter;
+import org.prism_mc.prism.core.injection.factories.FileSqlActivityQueryBuilderFactory;
+import org.prism_mc.prism.core.injection.factories.SqlActivityQueryBuilderFactory;
+import org.prism_mc.prism.core.services.cache.CacheService;
+import org.prism_mc.prism.core.storage.adapters.h2.H2StorageAdapter;
+import org.prism_mc.prism.core.storage.adapters.mariadb.MariaDbStorageAdapter;
+import org.prism_mc.prism.core.storage.adapters.mysql.MysqlStorageAdapter;
+import org.prism_mc.prism.core.storage.adapters.postgres.PostgresStorageAdapter;
+import org.prism_mc.prism.core.storage.adapters.sql.FileSqlActivityQueryBuilder;
+import org.prism_mc.prism.core.storage.adapters.sql.SqlActivityQueryBuilder;
+import org.prism_mc.prism.core.storage.adapters.sql.SqlSchemaUpdater;
+import org.prism_mc.prism.core.storage.adapters.sqlite.SqliteStorageAdapter;
+import org.prism_mc.prism.loader.services.configuration.ConfigurationService;
+import org.prism_mc.prism.loader.services.logging.LoggingService;
+import org.prism_mc.prism.loader.storage.StorageType;
+
+/**
+ * Wires the storage layer the same way the plugin does, without a server.
+ */
+public class BenchmarkModule extends AbstractModule {
+
+    /**
+     * The data path.
+     */
+    private final Path dataPath;
+
+    /**
+     * The configuration service.
+     */
+    private final ConfigurationService configurationService;
+
+    /**
+     * The logging service.
+     */
+    private final LoggingService loggingService;
+
+    /**
+     * The action type registry.
+     */
+    private final ActionTypeRegistry actionTypeRegistry;
+
+    /**
+     * Construct the module.
+     *
+     * @param dataPath The data path
+     * @param configurationService The configuration service
+     * @param loggingService The logging service
+     * @param actionTypeRegistry The action type registry
+     */
+    public BenchmarkModule(
+        Path dataPath,
+        ConfigurationService configurationService,
+        LoggingService loggingService,
+        ActionTypeRegistry actionTypeRegistry
+    ) {
+        this.dataPath = dataPath;
+        this.configurationService = configurationService;
+        this.loggingService = loggingService;
+        this.actionTypeRegistry = actionTypeRegistry;
+    }
+
+    @Provides
+    @Named("serializerVersion")
+    short serializerVersion() {
+        return 1;
+    }
+
+    @Override
+    public void configure() {
+        bind(Path.class).toInstance(dataPath);
+        bind(ConfigurationService.class).toInstance(configurationService);
+        bind(LoggingService.class).toInstance(loggingService);
+        bind(ActionTypeRegistry.class).toInstance(actionTypeRegistry);
+        bind(CacheService.class).in(Singleton.class);
+        bind(SqlSchemaUpdater.class).in(Singleton.class);
+
+        StorageType storageType = configurationService.storageConfig().primaryStorageType();
+
+        // Install the correct query builder
+        if (storageType.equals(StorageType.SQLITE) || storageType.equals(StorageType.H2)) {
+            install(
+                new FactoryModuleBuilder()
+                    .implement(SqlActivityQueryBuilder.class, FileSqlActivityQueryBuilder.class)
+                    .build(FileSqlActivityQueryBuilderFactory.class)
+            );
+        } else {
+            install(
+                new FactoryModuleBuilder()
+                    .implement(SqlActivityQueryBuilder.class, SqlActivityQueryBuilder.class)
+                    .build(SqlActivityQueryBuilderFactory.class)
+            );
+        }
+
+        // Bind the correct storage adapter
+        switch (storageType) {
+            case H2 -> bind(StorageAdapter.class).to(H2StorageAdapter.class).in(Singleton.class);
+            case MARIADB -> bind(StorageAdapter.class).to(MariaDbStorageAdapter.class).in(Singleton.class);
+            case MYSQL -> bind(StorageAdapter.class).to(MysqlStorageAdapter.class).in(Singleton.class);
+            case POSTGRES -> bind(StorageAdapter.class).to(PostgresStorageAdapter.class).in(Singleton.class);
+            case SQLITE -> bind(StorageAdapter.class).to(SqliteStorageAdapter.class).in(Singleton.class);
+            default -> {
+                // ignored
+            }
+        }
+    }
+}
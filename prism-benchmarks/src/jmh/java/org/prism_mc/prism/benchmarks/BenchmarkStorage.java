@@ -0,0 +1,318 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.prism_mc.prism.benchmarks;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.prism_mc.prism.api.actions.types.ActionResultType;
+import org.prism_mc.prism.api.activities.Activity;
+import org.prism_mc.prism.api.activities.Cause;
+import org.prism_mc.prism.api.containers.PlayerContainer;
+import org.prism_mc.prism.api.storage.ActivityBatch;
+import org.prism_mc.prism.api.storage.StorageAdapter;
+import org.prism_mc.prism.core.actions.types.AbstractActionTypeRegistry;
+import org.prism_mc.prism.core.services.cache.CacheService;
+import org.prism_mc.prism.loader.services.configuration.ConfigurationService;
+import org.prism_mc.prism.loader.services.logging.LoggingService;
+import org.prism_mc.prism.loader.storage.StorageType;
+
+/**
+ * A benchmark database filled with synthetic activities.
+ *
+ * <p>File databases live under the {@code prism.benchmarks.dir} directory. Server databases
+ * (MariaDB, MySQL, Postgres) connect using the {@code prism.benchmarks.host}, {@code port},
+ * {@code database}, {@code username} and {@code password} system properties, and use a table
+ * prefix per dataset so they can share one local database.</p>
+ */
+public class BenchmarkStorage implements AutoCloseable {
+
+    /**
+     * How far synthetic coordinates spread from the origin, in blocks.
+     */
+    public static final int SPREAD = 2000;
+
+    /**
+     * How far back synthetic timestamps spread, in milliseconds.
+     */
+    public static final long HISTORY = 30L * 24 * 60 * 60 * 1000;
+
+    /**
+     * The synthetic player count.
+     */
+    public static final int PLAYERS = 200;
+
+    /**
+     * The synthetic world count.
+     */
+    public static final int WORLDS = 3;
+
+    /**
+     * The synthetic block names.
+     */
+    private static final String[] BLOCKS = {
+        "stone",
+        "dirt",
+        "grass_block",
+        "cobblestone",
+        "oak_log",
+        "oak_planks",
+        "oak_leaves",
+        "sand",
+        "gravel",
+        "glass",
+        "torch",
+        "chest",
+        "furnace",
+        "crafting_table",
+        "iron_ore",
+        "coal_ore",
+        "diamond_ore",
+        "deepslate",
+        "netherrack",
+        "water",
+        "lava",
+        "tnt",
+        "white_wool",
+        "stone_bricks",
+    };
+
+    /**
+     * The break action type.
+     */
+    public static final BenchmarkActionType BLOCK_BREAK = new BenchmarkActionType(
+        "block-break",
+        ActionResultType.REMOVES
+    );
+
+    /**
+     * The place action type.
+     */
+    public static final BenchmarkActionType BLOCK_PLACE = new BenchmarkActionType(
+        "block-place",
+        ActionResultType.CREATES
+    );
+
+    /**
+     * The data path.
+     */
+    private final Path dataPath;
+
+    /**
+     * The cache service.
+     */
+    private final CacheService cacheService;
+
+    /**
+     * The storage adapter.
+     */
+    private final StorageAdapter storageAdapter;
+
+    /**
+     * Open a benchmark database.
+     *
+     * @param storageType The storage type
+     * @param dataset The dataset name, keeping unrelated benchmark data apart
+     * @throws IOException If the data path can't be prepared
+     */
+    public BenchmarkStorage(StorageType storageType, String dataset) throws IOException {
+        String name = storageType.name().toLowerCase(Locale.ENGLISH);
+        this.dataPath = Path.of(System.getProperty("prism.benchmarks.dir", "benchmark-data")).resolve(
+            name + "-" + dataset
+        );
+        Files.createDirectories(dataPath);
+
+        writeStorageConfig(storageType, name, dataset);
+
+        Logger logger = Logger.getLogger("prism-benchmarks");
+        logger.setLevel(Level.WARNING);
+
+        var configurationService = new ConfigurationService(dataPath, logger);
+        var loggingService = new LoggingService(configurationService, logger);
+
+        var actionTypeRegistry = new AbstractActionTypeRegistry();
+        actionTypeRegistry.registerAction(BLOCK_BREAK);
+        actionTypeRegistry.registerAction(BLOCK_PLACE);
+
+        Injector injector = Guice.createInjector(
+            new BenchmarkModule(dataPath, configurationService, loggingService, actionTypeRegistry)
+        );
+
+        this.cacheService = injector.getInstance(CacheService.class);
+        this.storageAdapter = injector.getInstance(StorageAdapter.class);
+
+        if (!storageAdapter.ready()) {
+            throw new IllegalStateException("The " + name + " benchmark database failed to start.");
+        }
+    }
+
+    /**
+     * Write the storage config selecting this database.
+     *
+     * @param storageType The storage type
+     * @param name The storage config section name
+     * @param dataset The dataset name
+     * @throws IOException If the config can't be written
+     */
+    private void writeStorageConfig(StorageType storageType, String name, String dataset) throws IOException {
+        StringBuilder config = new StringBuilder();
+        config.append("primary-storage-type=").append(storageType.name()).append('\n');
+        config.append(name).append(" {\n");
+        config.append("    prefix=\"prism_").append(dataset.replace('-', '_')).append("_\"\n");
+
+        for (String key : List.of("host", "port", "database", "username", "password", "schema")) {
+            String value = System.getProperty("prism.benchmarks." + key);
+            if (value != null) {
+                config.append("    ").append(key).append("=\"").append(value).append("\"\n");
+            }
+        }
+
+        config.append("}\n");
+
+        Files.writeString(dataPath.resolve("storage.conf"), config);
+    }
+
+    /**
+     * Get the cache service.
+     *
+     * @return The cache service
+     */
+    public CacheService cacheService() {
+        return cacheService;
+    }
+
+    /**
+     * Get the storage adapter.
+     *
+     * @return The storage adapter
+     */
+    public StorageAdapter storageAdapter() {
+        return storageAdapter;
+    }
+
+    /**
+     * Fill the database with synthetic activities, unless a previous run already did.
+     *
+     * @param rows The number of activities
+     * @param batchSize The activities per batch
+     * @throws Exception If recording fails
+     */
+    public void seed(long rows, int batchSize) throws Exception {
+        Path marker = dataPath.resolve("seeded-" + rows);
+        if (Files.exists(marker)) {
+            return;
+        }
+
+        Random random = new Random(rows);
+        long now = System.currentTimeMillis();
+        for (long written = 0; written < rows; written += batchSize) {
+            ActivityBatch batch = storageAdapter.createActivityBatch();
+            batch.startBatch();
+
+            for (Activity activity : activities(random, (int) Math.min(batchSize, rows - written), now)) {
+                batch.add(activity);
+            }
+
+            batch.commitBatch();
+        }
+
+        Files.createFile(marker);
+    }
+
+    /**
+     * Create synthetic activities.
+     *
+     * @param random The random source
+     * @param count The number of activities
+     * @param now The newest timestamp
+     * @return The activities
+     */
+    public static List<Activity> activities(Random random, int count, long now) {
+        List<Activity> activities = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            boolean place = random.nextBoolean();
+            var block = new BenchmarkBlockContainer("minecraft", BLOCKS[random.nextInt(BLOCKS.length)], null);
+            var replaced = place ? new BenchmarkBlockContainer("minecraft", "air", null) : null;
+            int player = random.nextInt(PLAYERS);
+            int world = random.nextInt(WORLDS);
+
+            activities.add(
+                Activity.builder()
+                    .action(new BenchmarkBlockAction(place ? BLOCK_PLACE : BLOCK_BREAK, block, replaced))
+                    .world(worldUuid(world), "world_" + world)
+                    .coordinate(
+                        random.nextInt(SPREAD * 2) - SPREAD,
+                        random.nextInt(128),
+                        random.nextInt(SPREAD * 2) - SPREAD
+                    )
+                    .cause(new Cause(new PlayerContainer(playerName(player), playerUuid(player))))
+                    .timestamp(now - (long) (random.nextDouble() * HISTORY))
+                    .build()
+            );
+        }
+
+        return activities;
+    }
+
+    /**
+     * Get a synthetic world uuid.
+     *
+     * @param index The world index
+     * @return The world uuid
+     */
+    public static UUID worldUuid(int index) {
+        return new UUID(0x776f726c64L, index);
+    }
+
+    /**
+     * Get a synthetic player name.
+     *
+     * @param index The player index
+     * @return The player name
+     */
+    public static String playerName(int index) {
+        return "player" + index;
+    }
+
+    /**
+     * Get a synthetic player uuid.
+     *
+     * @param index The player index
+     * @return The player uuid
+     */
+    public static UUID playerUuid(int index) {
+        return new UUID(0x706c61796572L, index);
+    }
+
+    @Override
+    public void close() {
+        storageAdapter.close();
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.prism_mc.prism.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.prism_mc.prism.api.activities.AbstractActivity;
+import org.prism_mc.prism.api.activities.ActivityQuery;
+import org.prism_mc.prism.api.services.pagination.PartialListPaginationResult;
+import org.prism_mc.prism.api.util.Coordinate;
+import org.prism_mc.prism.loader.storage.StorageType;
+
+/**
+ * Measures the common lookup shapes against a seeded database.
+ *
+ * <p>The default dataset keeps a first run short. Run with {@code -p rows=10000000} for
+ * numbers closer to a busy server; seeding happens once per dataset size and is reused.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LookupBenchmark {
+
+    /**
+     * The seeded activity count.
+     */
+    @Param({ "100000" })
+    public long rows;
+
+    /**
+     * The storage type.
+     */
+    @Param({ "H2", "SQLITE" })
+    public StorageType storage;
+
+    /**
+     * The benchmark storage.
+     */
+    private BenchmarkStorage benchmarkStorage;
+
+    /**
+     * Open and seed the database.
+     *
+     * @throws Exception If the database can't be opened or seeded
+     */
+    @Setup(Level.Trial)
+    public void open() throws Exception {
+        benchmarkStorage = new BenchmarkStorage(storage, "lookup");
+        benchmarkStorage.seed(rows, 1000);
+    }
+
+    /**
+     * Close the database.
+     */
+    @TearDown(Level.Trial)
+    public void close() {
+        benchmarkStorage.close();
+    }
+
+    /**
+     * A radius lookup around a point, like the default in-game lookup.
+     *
+     * @return The results
+     * @throws Exception If the query fails
+     */
+    @Benchmark
+    public PartialListPaginationResult<AbstractActivity> radius() throws Exception {
+        var query = ActivityQuery.builder()
+            .worldUuid(BenchmarkStorage.worldUuid(0))
+            .referenceCoordinate(new Coordinate(0, 64, 0))
+            .radius(64)
+            .limit(10)
+            .build();
+
+        return benchmarkStorage.storageAdapter().queryActivitiesPaginated(query);
+    }
+
+    /**
+     * A lookup by player.
+     *
+     * @return The results
+     * @throws Exception If the query fails
+     */
+    @Benchmark
+    public PartialListPaginationResult<AbstractActivity> player() throws Exception {
+        var query = ActivityQuery.builder().causePlayerName(BenchmarkStorage.playerName(7)).limit(10).build();
+
+        return benchmarkStorage.storageAdapter().queryActivitiesPaginated(query);
+    }
+
+    /**
+     * An ungrouped lookup over the last hour.
+     *
+     * @return The results
+     * @throws Exception If the query fails
+     */
+    @Benchmark
+    public PartialListPaginationResult<AbstractActivity> recent() throws Exception {
+        var query = ActivityQuery.builder()
+            .after((System.currentTimeMillis() - 3_600_000) / 1000)
+            .grouped(false)
+            .limit(10)
+            .build();
+
+        return benchmarkStorage.storageAdapter().queryActivitiesPaginated(query);
+    }
+}
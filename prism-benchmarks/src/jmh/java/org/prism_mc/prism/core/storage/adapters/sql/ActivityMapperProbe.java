@@ -0,0 +1,69 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.prism_mc.prism.core.storage.adapters.sql;
+
+import java.util.List;
+import org.jooq.Record;
+import org.jooq.Result;
+import org.prism_mc.prism.api.activities.AbstractActivity;
+import org.prism_mc.prism.api.activities.ActivityQuery;
+
+/**
+ * Reaches the protected result mapping of a sql storage adapter, so benchmarks can measure
+ * mapping apart from the query itself.
+ */
+public class ActivityMapperProbe {
+
+    /**
+     * The storage adapter.
+     */
+    private final AbstractSqlStorageAdapter storageAdapter;
+
+    /**
+     * Construct the probe.
+     *
+     * @param storageAdapter The storage adapter
+     */
+    public ActivityMapperProbe(AbstractSqlStorageAdapter storageAdapter) {
+        this.storageAdapter = storageAdapter;
+    }
+
+    /**
+     * Run a query and keep the raw records.
+     *
+     * @param query The activity query
+     * @return The raw records
+     */
+    public Result<Record> fetch(ActivityQuery query) {
+        return storageAdapter.queryBuilder.queryActivities(query);
+    }
+
+    /**
+     * Map raw records into activities.
+     *
+     * @param result The raw records
+     * @param query The activity query
+     * @return The activities
+     */
+    public List<AbstractActivity> map(Result<Record> result, ActivityQuery query) {
+        return storageAdapter.activityMapper(result, query);
+    }
+}
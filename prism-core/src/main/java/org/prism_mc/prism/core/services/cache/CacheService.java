@@ -27,7 +27,9 @@ import com.google.inject.Singleton;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 import lombok.Getter;
+import org.prism_mc.prism.api.util.Pair;
 import org.prism_mc.prism.loader.services.configuration.ConfigurationService;
 import org.prism_mc.prism.loader.services.configuration.cache.CacheConfiguration;
 import org.prism_mc.prism.loader.services.logging.LoggingService;
@@ -46,13 +48,63 @@ public class CacheService {
      */
     private final Map<String, Cache<?, ?>> primaryKeyCaches = new HashMap<>();
 
+    /**
+     * Action keys by primary key.
+     */
+    private final LongObjectIndex<String> actionsById;
+
+    /**
+     * Blocks by primary key.
+     */
+    private final LongObjectIndex<CachedBlock> blocksById;
+
+    /**
+     * Blocks by a hash of namespace, name and data.
+     */
+    private final LongObjectIndex<CachedBlock> blocksByKeyHash;
+
+    /**
+     * The highest block primary key ever cached. Block keys only grow, so a rise means new blocks exist.
+     */
+    private final AtomicInteger maxBlockId = new AtomicInteger();
+
+    /**
+     * Named causes by primary key.
+     */
+    private final LongObjectIndex<String> causesById;
+
+    /**
+     * Entity types by primary key.
+     */
+    private final LongObjectIndex<CachedEntityType> entityTypesById;
+
+    /**
+     * Items by primary key.
+     */
+    private final LongObjectIndex<CachedItem> itemsById;
+
+    /**
+     * Players by primary key.
+     */
+    private final LongObjectIndex<CachedPlayer> playersById;
+
+    /**
+     * Players by a hash of their uuid.
+     */
+    private final LongObjectIndex<CachedPlayer> playersByUuidHash;
+
+    /**
+     * World uuids and names by primary key.
+     */
+    private final LongObjectIndex<Pair<UUID, String>> worldsById;
+
     /**
      * A cache of action keys to primary keys.
      */
     private final Cache<String, Integer> actionKeyPkMap;
 
     /**
-     * A cache of blocks to primary keys.
+     * A cache of block content hashes to primary keys.
      */
     private final Cache<String, Integer> blockDataPkMap;
 
@@ -62,7 +114,7 @@ public class CacheService {
     private final Cache<String, Integer> entityTypePkMap;
 
     /**
-     * A cache of items to primary keys.
+     * A cache of item content hashes to primary keys.
      */
     private final Cache<String, Integer> itemDataPkMap;
 
@@ -91,6 +143,19 @@ public class CacheService {
     public CacheService(ConfigurationService configurationService, LoggingService loggingService) {
         final CacheConfiguration cacheConfiguration = configurationService.prismConfig().cache();
 
+        // Build the dimension indexes
+        blocksById = new LongObjectIndex<>(cacheConfiguration.dimensionIndex().maxBlocks());
+        blocksByKeyHash = new LongObjectIndex<>(cacheConfiguration.dimensionIndex().maxBlocks());
+        playersById = new LongObjectIndex<>(cacheConfiguration.dimensionIndex().maxPlayers());
+        playersByUuidHash = new LongObjectIndex<>(cacheConfiguration.dimensionIndex().maxPlayers());
+
+        // The smaller dimensions share the limits of their primary key caches
+        actionsById = new LongObjectIndex<>((int) cacheConfiguration.pkCacheActionKey().maxSize());
+        causesById = new LongObjectIndex<>((int) cacheConfiguration.pkCacheNamedCause().maxSize());
+        entityTypesById = new LongObjectIndex<>((int) cacheConfiguration.pkCacheEntityType().maxSize());
+        itemsById = new LongObjectIndex<>((int) cacheConfiguration.pkCacheItemData().maxSize());
+        worldsById = new LongObjectIndex<>((int) cacheConfiguration.pkCacheWorld().maxSize());
+
         // Build the action key cache
         Caffeine<String, Integer> actionBuilder = Caffeine.newBuilder()
             .maximumSize(cacheConfiguration.pkCacheActionKey().maxSize())
@@ -294,4 +359,160 @@ public class CacheService {
         worldUuidPkMap = worldBuilder.build();
         primaryKeyCaches.put("worldUuidPkMap", worldUuidPkMap);
     }
+
+    /**
+     * Get a cached block by primary key.
+     *
+     * @param blockId The primary key
+     * @return The block, or null if not cached
+     */
+    public CachedBlock block(long blockId) {
+        return blocksById.get(blockId);
+    }
+
+    /**
+     * Get the primary key of a cached block, without building a key string.
+     *
+     * @param namespace The namespace
+     * @param name The name
+     * @param data The block data
+     * @return The primary key, or -1 if not cached
+     */
+    public int blockPk(String namespace, String name, String data) {
+        CachedBlock block = blocksByKeyHash.get(blockKeyHash(namespace, name, data));
+        return block != null && block.matches(namespace, name, data) ? block.id() : -1;
+    }
+
+    /**
+     * Cache a block in both directions.
+     *
+     * @param blockId The primary key
+     * @param namespace The namespace
+     * @param name The name
+     * @param data The block data
+     * @param translationKey The translation key
+     * @return False if the index is full
+     */
+    public boolean cacheBlock(int blockId, String namespace, String name, String data, String translationKey) {
+        maxBlockId.accumulateAndGet(blockId, Math::max);
+
+        var block = new CachedBlock(blockId, namespace, name, data, translationKey);
+        if (!blocksById.put(blockId, block)) {
+            return false;
+        }
+
+        blocksByKeyHash.put(blockKeyHash(namespace, name, data), block);
+
+        return true;
+    }
+
+    /**
+     * Get the highest block primary key ever cached.
+     *
+     * @return The primary key, or 0 if no block has been cached
+     */
+    public int maxBlockId() {
+        return maxBlockId.get();
+    }
+
+    /**
+     * Get a cached player by primary key.
+     *
+     * @param playerId The primary key
+     * @return The player, or null if not cached
+     */
+    public CachedPlayer player(long playerId) {
+        return playersById.get(playerId);
+    }
+
+    /**
+     * Get the primary key of a cached player.
+     *
+     * @param uuid The player uuid
+     * @return The primary key, or -1 if not cached
+     */
+    public long playerPk(UUID uuid) {
+        CachedPlayer player = playersByUuidHash.get(uuidHash(uuid));
+        return player != null && player.uuid().equals(uuid) ? player.id() : -1;
+    }
+
+    /**
+     * Cache a player in both directions. Re-caching replaces the name.
+     *
+     * @param playerId The primary key
+     * @param uuid The player uuid
+     * @param name The player name
+     * @return False if the index is full
+     */
+    public boolean cachePlayer(long playerId, UUID uuid, String name) {
+        var player = new CachedPlayer(playerId, uuid, name);
+        if (!playersById.put(playerId, player)) {
+            return false;
+        }
+
+        playersByUuidHash.put(uuidHash(uuid), player);
+
+        return true;
+    }
+
+    /**
+     * Empty every primary key cache and dimension index.
+     */
+    public void invalidatePrimaryKeys() {
+        primaryKeyCaches.values().forEach(Cache::invalidateAll);
+        actionsById.clear();
+        blocksById.clear();
+        blocksByKeyHash.clear();
+        causesById.clear();
+        entityTypesById.clear();
+        itemsById.clear();
+        playersById.clear();
+        playersByUuidHash.clear();
+        worldsById.clear();
+    }
+
+    /**
+     * Hash a block's natural key. Collisions are possible, so hits must be verified.
+     *
+     * @param namespace The namespace
+     * @param name The name
+     * @param data The block data
+     * @return The hash
+     */
+    private static long blockKeyHash(String namespace, String name, String data) {
+        long hash = fnv(0xcbf29ce484222325L, namespace);
+        hash = (hash ^ ':') * 0x100000001b3L;
+        hash = fnv(hash, name);
+        hash = (hash ^ (data == null ? 0 : '[')) * 0x100000001b3L;
+        if (data != null) {
+            hash = fnv(hash, data);
+        }
+
+        return hash;
+    }
+
+    /**
+     * Fold a string into an FNV-1a hash.
+     *
+     * @param hash The hash so far
+     * @param value The string
+     * @return The hash
+     */
+    private static long fnv(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        }
+
+        return hash;
+    }
+
+    /**
+     * Hash a uuid. Collisions are possible, so hits must be verified.
+     *
+     * @param uuid The uuid
+     * @return The hash
+     */
+    private static long uuidHash(UUID uuid) {
+        return uuid.getMostSignificantBits() ^ (uuid.getLeastSignificantBits() * 0x9E3779B97F4A7C15L);
+    }
 }
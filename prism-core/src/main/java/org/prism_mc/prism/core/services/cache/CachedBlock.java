@@ -0,0 +1,48 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.prism_mc.prism.core.services.cache;
+
+/**
+ * A block dimension row held in memory.
+ *
+ * @param id The primary key
+ * @param namespace The namespace
+ * @param name The name
+ * @param data The block data
+ * @param translationKey The translation key
+ */
+public record CachedBlock(int id, String namespace, String name, String data, String translationKey) {
+    /**
+     * Check whether this is the given block.
+     *
+     * @param namespace The namespace
+     * @param name The name
+     * @param data The block data
+     * @return True if all parts match
+     */
+    public boolean matches(String namespace, String name, String data) {
+        return (
+            this.name.equals(name) &&
+            this.namespace.equals(namespace) &&
+            (this.data == null ? data == null : this.data.equals(data))
+        );
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.prism_mc.prism.core.services.cache;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A bounded, open-addressing map of primitive long keys to values.
+ *
+ * <p>Lookups don't box keys or allocate, and nearly always complete without taking a lock.
+ * Entries are never removed individually; once full, new keys are ignored so callers fall
+ * back to their slower path.</p>
+ *
+ * @param <V> The value type
+ */
+public class LongObjectIndex<V> {
+
+    /**
+     * The marker for an empty slot. The zero key is held outside the slots, so callers can use any key.
+     */
+    private static final long EMPTY = 0;
+
+    /**
+     * The lock guarding writes, read optimistically.
+     */
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * The max number of entries.
+     */
+    private final int maxSize;
+
+    /**
+     * The current table.
+     */
+    private volatile Table table;
+
+    /**
+     * The number of entries.
+     */
+    private int size;
+
+    /**
+     * Construct the index.
+     *
+     * @param maxSize The max number of entries
+     */
+    public LongObjectIndex(int maxSize) {
+        this.maxSize = Math.max(0, maxSize);
+        this.table = new Table(16);
+    }
+
+    /**
+     * Get a value.
+     *
+     * @param key The key
+     * @return The value, or null
+     */
+    public V get(long key) {
+        long stamp = lock.tryOptimisticRead();
+        V value = table.find(key);
+        if (lock.validate(stamp)) {
+            return value;
+        }
+
+        stamp = lock.readLock();
+        try {
+            return table.find(key);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Put a value, replacing any value for the same key.
+     *
+     * @param key The key
+     * @param value The value
+     * @return False if the index is full and the key is new
+     */
+    public boolean put(long key, V value) {
+        long stamp = lock.writeLock();
+        try {
+            Table current = table;
+            if (key == EMPTY) {
+                if (!current.hasZeroKey) {
+                    if (size >= maxSize) {
+                        return false;
+                    }
+
+                    current.hasZeroKey = true;
+                    size++;
+                }
+
+                current.zeroKeyValue = value;
+                return true;
+            }
+
+            int slot = current.slot(key);
+            if (current.keys[slot] == key) {
+                current.values[slot] = value;
+                return true;
+            }
+
+            if (size >= maxSize) {
+                return false;
+            }
+
+            // Stay at most half full so probe chains remain short
+            if ((size + 1) * 2 > current.keys.length) {
+                current = current.grow();
+                table = current;
+                slot = current.slot(key);
+            }
+
+            current.values[slot] = value;
+            current.keys[slot] = key;
+            size++;
+
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Remove all entries.
+     */
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            table = new Table(16);
+            size = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Get the number of entries.
+     *
+     * @return The size
+     */
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Parallel key/value arrays with linear probing.
+     */
+    private final class Table {
+
+        /**
+         * The keys.
+         */
+        private final long[] keys;
+
+        /**
+         * The values.
+         */
+        private final Object[] values;
+
+        /**
+         * Whether the zero key, which marks empty slots, has a value.
+         */
+        private boolean hasZeroKey;
+
+        /**
+         * The value of the zero key.
+         */
+        private Object zeroKeyValue;
+
+        /**
+         * Construct a table.
+         *
+         * @param capacity The capacity, a power of two
+         */
+        private Table(int capacity) {
+            this.keys = new long[capacity];
+            this.values = new Object[capacity];
+        }
+
+        /**
+         * Find the slot holding a key, or the empty slot where it belongs.
+         *
+         * @param key The key
+         * @return The slot
+         */
+        private int slot(long key) {
+            int mask = keys.length - 1;
+            int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+
+            return slot;
+        }
+
+        /**
+         * Find a value.
+         *
+         * @param key The key
+         * @return The value, or null
+         */
+        @SuppressWarnings("unchecked")
+        private V find(long key) {
+            if (key == EMPTY) {
+                return hasZeroKey ? (V) zeroKeyValue : null;
+            }
+
+            int slot = slot(key);
+            return keys[slot] == key ? (V) values[slot] : null;
+        }
+
+        /**
+         * Copy entries into a table twice the size.
+         *
+         * @return The new table
+         */
+        private Table grow() {
+            Table grown = new Table(keys.length * 2);
+            grown.hasZeroKey = hasZeroKey;
+            grown.zeroKeyValue = zeroKeyValue;
+
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != EMPTY) {
+                    int slot = grown.slot(keys[i]);
+                    grown.keys[slot] = keys[i];
+                    grown.values[slot] = values[i];
+                }
+            }
+
+            return grown;
+        }
+    }
+}
@@ -40,6 +40,7 @@ import org.jooq.Record;
 import org.jooq.SelectQuery;
 import org.jooq.types.UInteger;
 import org.prism_mc.prism.api.activities.ActivityQuery;
+import org.prism_mc.prism.core.services.cache.CacheService;
 import org.prism_mc.prism.core.storage.adapters.sql.SqlActivityQueryBuilder;
 import org.prism_mc.prism.core.storage.dbo.records.PrismActivitiesRecord;
 import org.prism_mc.prism.loader.services.configuration.ConfigurationService;
@@ -50,11 +51,16 @@ public class H2ActivityQueryBuilder extends SqlActivityQueryBuilder {
      * Construct a new query builder.
      *
      * @param configurationService The configuration service
+     * @param cacheService The cache service
      * @param create The DSL context
      */
     @Inject
-    public H2ActivityQueryBuilder(ConfigurationService configurationService, @Assisted DSLContext create) {
-        super(configurationService, create);
+    public H2ActivityQueryBuilder(
+        ConfigurationService configurationService,
+        CacheService cacheService,
+        @Assisted DSLContext create
+    ) {
+        super(configurationService, cacheService, create);
     }
 
     /**
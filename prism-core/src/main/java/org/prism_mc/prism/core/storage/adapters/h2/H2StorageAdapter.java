@@ -88,6 +88,7 @@ public class H2StorageAdapter extends AbstractSqlStorageAdapter {
                 this.queryBuilder = queryBuilderFactory.create(dslContext);
 
                 prepareSchema();
+                prepareCache();
 
                 ready = true;
             }
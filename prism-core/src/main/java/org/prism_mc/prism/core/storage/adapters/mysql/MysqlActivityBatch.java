@@ -0,0 +1,87 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.prism_mc.prism.core.storage.adapters.mysql;
+
+import static org.prism_mc.prism.core.storage.adapters.sql.AbstractSqlStorageAdapter.PRISM_ACTIVITIES;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.prism_mc.prism.core.services.cache.CacheService;
+import org.prism_mc.prism.core.storage.adapters.sql.SqlActivityBatch;
+import org.prism_mc.prism.core.storage.dbo.records.PrismActivitiesRecord;
+import org.prism_mc.prism.loader.services.logging.LoggingService;
+
+public class MysqlActivityBatch extends SqlActivityBatch {
+
+    /**
+     * The max number of rows per insert. Keeps statements well below the bind parameter
+     * limit and the default max_allowed_packet.
+     */
+    private static final int ROWS_PER_INSERT = 500;
+
+    /**
+     * Construct a new batch handler.
+     *
+     * @param loggingService The logging service
+     * @param dslContext The DSL context
+     * @param serializerVersion The serializer version
+     * @param cacheService The cache service
+     */
+    public MysqlActivityBatch(
+        LoggingService loggingService,
+        DSLContext dslContext,
+        short serializerVersion,
+        CacheService cacheService
+    ) {
+        super(loggingService, dslContext, serializerVersion, cacheService);
+    }
+
+    /**
+     * Write the activity records with multi-row inserts.
+     *
+     * <p>One statement carries hundreds of rows instead of one, and all statements share a
+     * transaction so a failed batch can be retried without duplicates.</p>
+     *
+     * @param records The activity records
+     */
+    @Override
+    protected void insertRecords(List<PrismActivitiesRecord> records) {
+        List<Field<?>> fields = insertFields();
+
+        dslContext.transaction(configuration -> {
+            for (int i = 0; i < records.size(); i += ROWS_PER_INSERT) {
+                var insert = configuration.dsl().insertInto(PRISM_ACTIVITIES).columns(fields);
+                for (var record : records.subList(i, Math.min(i + ROWS_PER_INSERT, records.size()))) {
+                    List<Object> values = new ArrayList<>(fields.size());
+                    for (var field : fields) {
+                        values.add(record.get(field));
+                    }
+
+                    insert = insert.values(values);
+                }
+
+                insert.execute();
+            }
+        });
+    }
+}
@@ -29,6 +29,7 @@ import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import org.jooq.SQLDialect;
@@ -38,6 +39,7 @@ import org.prism_mc.prism.core.injection.factories.SqlActivityQueryBuilderFactor
 import org.prism_mc.prism.core.services.cache.CacheService;
 import org.prism_mc.prism.core.storage.HikariConfigFactories;
 import org.prism_mc.prism.core.storage.adapters.sql.AbstractSqlStorageAdapter;
+import org.prism_mc.prism.core.storage.adapters.sql.ActivityPartition;
 import org.prism_mc.prism.core.storage.adapters.sql.SqlActivityProcedureBatch;
 import org.prism_mc.prism.core.storage.adapters.sql.SqlSchemaUpdater;
 import org.prism_mc.prism.loader.services.configuration.ConfigurationService;
@@ -270,6 +272,76 @@ public class MysqlStorageAdapter extends AbstractSqlStorageAdapter {
         }
     }
 
+    @Override
+    protected void createActivitiesTable() throws Exception {
+        var partitioning = partitionConfiguration();
+        if (partitioning == null || !partitioning.enabled()) {
+            super.createActivitiesTable();
+
+            return;
+        }
+
+        // Partitioned tables can't have foreign keys, so this one is created by hand
+        try (Connection connection = dataSource.getConnection(); Statement stmt = connection.createStatement()) {
+            stmt.execute(loadSqlFromResourceFile("mysql", "prism_create_partitioned_activities", prefix));
+        }
+    }
+
+    @Override
+    protected boolean supportsPartitioning() {
+        return true;
+    }
+
+    @Override
+    protected List<ActivityPartition> activityPartitions() {
+        var rows = dslContext.fetch(
+            "SELECT PARTITION_NAME, PARTITION_DESCRIPTION FROM information_schema.PARTITIONS " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL " +
+            "ORDER BY PARTITION_ORDINAL_POSITION",
+            prefix + "activities"
+        );
+
+        List<ActivityPartition> partitions = new ArrayList<>();
+        long from = 0;
+        for (var row : rows) {
+            var description = row.get(1, String.class);
+            long to = description.equalsIgnoreCase("MAXVALUE")
+                ? ActivityPartition.UNBOUNDED
+                : Long.parseLong(description);
+
+            partitions.add(new ActivityPartition(row.get(0, String.class), from, to));
+            from = to;
+        }
+
+        return partitions;
+    }
+
+    @Override
+    protected void createActivityPartition(ActivityPartition partition) {
+        // Split the new range off the catch-all, which is empty for future time ranges
+        dslContext.execute(
+            String.format(
+                "ALTER TABLE %sactivities REORGANIZE PARTITION pmax INTO " +
+                "(PARTITION %s VALUES LESS THAN (%d), PARTITION pmax VALUES LESS THAN MAXVALUE)",
+                prefix,
+                partition.name(),
+                partition.to()
+            )
+        );
+    }
+
+    @Override
+    protected long countActivityPartition(ActivityPartition partition) {
+        return dslContext
+            .fetchSingle(String.format("SELECT COUNT(*) FROM %sactivities PARTITION (%s)", prefix, partition.name()))
+            .into(Long.class);
+    }
+
+    @Override
+    protected void dropActivityPartition(ActivityPartition partition) {
+        dslContext.execute(String.format("ALTER TABLE %sactivities DROP PARTITION %s", prefix, partition.name()));
+    }
+
     /**
      * Logs an error if the database version is unsupported.
      *
@@ -291,6 +363,10 @@ public class MysqlStorageAdapter extends AbstractSqlStorageAdapter {
 
     @Override
     public ActivityBatch createActivityBatch() {
+        if (dataSourceConfiguration.useBulkInserts()) {
+            return new MysqlActivityBatch(loggingService, dslContext, serializerVersion, cacheService);
+        }
+
         if (dataSourceConfiguration.useStoredProcedures()) {
             return new SqlActivityProcedureBatch(loggingService, dataSource, serializerVersion, prefix);
         }
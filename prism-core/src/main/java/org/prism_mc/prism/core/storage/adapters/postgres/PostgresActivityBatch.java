@@ -0,0 +1,105 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.prism_mc.prism.core.storage.adapters.postgres;
+
+import static org.prism_mc.prism.core.storage.adapters.sql.AbstractSqlStorageAdapter.PRISM_ACTIVITIES;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.impl.DSL;
+import org.postgresql.PGConnection;
+import org.prism_mc.prism.core.services.cache.CacheService;
+import org.prism_mc.prism.core.storage.adapters.sql.SqlActivityBatch;
+import org.prism_mc.prism.core.storage.dbo.records.PrismActivitiesRecord;
+import org.prism_mc.prism.loader.services.logging.LoggingService;
+
+public class PostgresActivityBatch extends SqlActivityBatch {
+
+    /**
+     * Construct a new batch handler.
+     *
+     * @param loggingService The logging service
+     * @param dslContext The DSL context
+     * @param serializerVersion The serializer version
+     * @param cacheService The cache service
+     */
+    public PostgresActivityBatch(
+        LoggingService loggingService,
+        DSLContext dslContext,
+        short serializerVersion,
+        CacheService cacheService
+    ) {
+        super(loggingService, dslContext, serializerVersion, cacheService);
+    }
+
+    /**
+     * Write the activity records with a single COPY.
+     *
+     * <p>Rows are streamed as CSV so the server parses each value into its column type,
+     * whatever integer widths the schema ended up with.</p>
+     *
+     * @param records The activity records
+     */
+    @Override
+    protected void insertRecords(List<PrismActivitiesRecord> records) {
+        List<Field<?>> fields = insertFields();
+
+        String sql = String.format(
+            "COPY %s (%s) FROM STDIN WITH (FORMAT csv)",
+            dslContext.render(PRISM_ACTIVITIES),
+            fields.stream().map(field -> dslContext.render(DSL.name(field.getName()))).collect(Collectors.joining(", "))
+        );
+
+        StringBuilder csv = new StringBuilder(records.size() * 128);
+        for (var record : records) {
+            for (int i = 0; i < fields.size(); i++) {
+                if (i > 0) {
+                    csv.append(',');
+                }
+
+                appendValue(csv, record.get(fields.get(i)));
+            }
+
+            csv.append('\n');
+        }
+
+        dslContext.connection(connection ->
+            connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql, new StringReader(csv.toString()))
+        );
+    }
+
+    /**
+     * Append a CSV value. Unquoted empty values are nulls, everything else is quoted.
+     *
+     * @param csv The csv
+     * @param value The value
+     */
+    private static void appendValue(StringBuilder csv, Object value) {
+        if (value == null) {
+            return;
+        }
+
+        csv.append('"').append(String.valueOf(value).replace("\"", "\"\"")).append('"');
+    }
+}
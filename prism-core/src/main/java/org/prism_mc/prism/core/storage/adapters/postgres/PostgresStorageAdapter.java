@@ -29,13 +29,19 @@ import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Pattern;
 import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
 import org.prism_mc.prism.api.actions.types.ActionTypeRegistry;
 import org.prism_mc.prism.api.storage.ActivityBatch;
 import org.prism_mc.prism.core.injection.factories.SqlActivityQueryBuilderFactory;
 import org.prism_mc.prism.core.services.cache.CacheService;
 import org.prism_mc.prism.core.storage.HikariConfigFactories;
 import org.prism_mc.prism.core.storage.adapters.sql.AbstractSqlStorageAdapter;
+import org.prism_mc.prism.core.storage.adapters.sql.ActivityPartition;
 import org.prism_mc.prism.core.storage.adapters.sql.SqlActivityProcedureBatch;
 import org.prism_mc.prism.core.storage.adapters.sql.SqlSchemaUpdater;
 import org.prism_mc.prism.loader.services.configuration.ConfigurationService;
@@ -44,6 +50,11 @@ import org.prism_mc.prism.loader.services.logging.LoggingService;
 @Singleton
 public class PostgresStorageAdapter extends AbstractSqlStorageAdapter {
 
+    /**
+     * Matches the bounds of a range partition, e.g. FOR VALUES FROM ('1') TO ('2').
+     */
+    private static final Pattern PARTITION_BOUNDS = Pattern.compile("FROM \\('?(-?\\d+)'?\\) TO \\('?(-?\\d+)'?\\)");
+
     /**
      * The schema/table prefix.
      */
@@ -179,8 +190,131 @@ public class PostgresStorageAdapter extends AbstractSqlStorageAdapter {
         }
     }
 
+    @Override
+    protected void createActivitiesTable() throws Exception {
+        var partitioning = partitionConfiguration();
+        if (partitioning == null || !partitioning.enabled()) {
+            super.createActivitiesTable();
+
+            return;
+        }
+
+        try (Connection connection = dataSource.getConnection(); Statement stmt = connection.createStatement()) {
+            stmt.execute(loadSqlFromResourceFile("postgres", "prism_create_partitioned_activities", prefix));
+        }
+    }
+
+    @Override
+    protected boolean supportsPartitioning() {
+        return true;
+    }
+
+    @Override
+    protected List<ActivityPartition> activityPartitions() {
+        var rows = dslContext.fetch(
+            "SELECT child.relname, pg_get_expr(child.relpartbound, child.oid) FROM pg_inherits " +
+            "JOIN pg_class parent ON pg_inherits.inhparent = parent.oid " +
+            "JOIN pg_class child ON pg_inherits.inhrelid = child.oid " +
+            "JOIN pg_namespace ns ON parent.relnamespace = ns.oid " +
+            "WHERE parent.relname = ? AND ns.nspname = ?",
+            prefix + "activities",
+            configurationService.storageConfig().postgres().schema()
+        );
+
+        List<ActivityPartition> partitions = new ArrayList<>();
+        for (var row : rows) {
+            var name = row.get(0, String.class);
+            var bounds = PARTITION_BOUNDS.matcher(row.get(1, String.class));
+
+            if (bounds.find()) {
+                partitions.add(
+                    new ActivityPartition(
+                        name,
+                        Long.parseLong(bounds.group(1)),
+                        Long.parseLong(bounds.group(2))
+                    )
+                );
+            } else {
+                // The DEFAULT partition catches everything else
+                partitions.add(new ActivityPartition(name, 0, ActivityPartition.UNBOUNDED));
+            }
+        }
+
+        partitions.sort(Comparator.comparingLong(ActivityPartition::from));
+
+        return partitions;
+    }
+
+    @Override
+    protected void createActivityPartition(ActivityPartition partition) {
+        var defaultTable = prefix + "activities_default";
+        var range = String.format("\"timestamp\" >= %d AND \"timestamp\" < %d", partition.from(), partition.to());
+        var create = String.format(
+            "CREATE TABLE IF NOT EXISTS %s PARTITION OF %sactivities FOR VALUES FROM (%d) TO (%d)",
+            partitionTable(partition),
+            prefix,
+            partition.from(),
+            partition.to()
+        );
+
+        // If maintenance fell behind, the default partition may already hold rows for this range,
+        // and Postgres won't create a range the default partition has rows for
+        boolean caughtByDefault = dslContext.fetchExists(
+            DSL.selectOne().from(DSL.table(defaultTable)).where(DSL.condition(range))
+        );
+        if (!caughtByDefault) {
+            dslContext.execute(create);
+
+            return;
+        }
+
+        // Move those rows into the new partition while the default partition is detached
+        dslContext.transaction(configuration -> {
+            var ctx = DSL.using(configuration);
+            ctx.execute(String.format("ALTER TABLE %sactivities DETACH PARTITION %s", prefix, defaultTable));
+            ctx.execute(create);
+            ctx.execute(
+                String.format("INSERT INTO %sactivities SELECT * FROM %s WHERE %s", prefix, defaultTable, range)
+            );
+            ctx.execute(String.format("DELETE FROM %s WHERE %s", defaultTable, range));
+            ctx.execute(String.format("ALTER TABLE %sactivities ATTACH PARTITION %s DEFAULT", prefix, defaultTable));
+        });
+
+        loggingService.info(
+            "Moved activities for the new partition {0} out of the default partition",
+            partition.name()
+        );
+    }
+
+    @Override
+    protected long countActivityPartition(ActivityPartition partition) {
+        return dslContext
+            .fetchSingle(String.format("SELECT COUNT(*) FROM %s", partitionTable(partition)))
+            .into(Long.class);
+    }
+
+    @Override
+    protected void dropActivityPartition(ActivityPartition partition) {
+        dslContext.execute(String.format("DROP TABLE %s", partitionTable(partition)));
+    }
+
+    /**
+     * Get the table name of a partition. Partitions found in the database already carry it.
+     *
+     * @param partition The partition
+     * @return The table name
+     */
+    private String partitionTable(ActivityPartition partition) {
+        var tableName = prefix + "activities_";
+        return partition.name().startsWith(tableName) ? partition.name() : tableName + partition.name();
+    }
+
     @Override
     public ActivityBatch createActivityBatch() {
+        if (configurationService.storageConfig().postgres().useBulkInserts()) {
+            return new PostgresActivityBatch(loggingService, dslContext, serializerVersion, cacheService);
+        }
+
         if (configurationService.storageConfig().postgres().useStoredProcedures()) {
             return new SqlActivityProcedureBatch(loggingService, dataSource, serializerVersion, prefix);
         }
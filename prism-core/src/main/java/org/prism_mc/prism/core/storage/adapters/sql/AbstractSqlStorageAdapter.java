@@ -47,12 +47,17 @@ import java.util.Locale;
 import java.util.Properties;
 import java.util.Scanner;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 import org.jooq.DSLContext;
 import org.jooq.Field;
 import org.jooq.Result;
 import org.jooq.SQLDialect;
 import org.jooq.impl.DSL;
+import org.jooq.types.UInteger;
 import org.jooq.types.UShort;
 import org.prism_mc.prism.api.actions.ActionData;
 import org.prism_mc.prism.api.actions.types.ActionTypeRegistry;
@@ -64,13 +69,18 @@ import org.prism_mc.prism.api.activities.GroupedActivity;
 import org.prism_mc.prism.api.containers.PlayerContainer;
 import org.prism_mc.prism.api.containers.StringContainer;
 import org.prism_mc.prism.api.containers.TranslatableContainer;
+import org.prism_mc.prism.api.services.pagination.PaginationCursor;
 import org.prism_mc.prism.api.services.pagination.PartialListPaginationResult;
 import org.prism_mc.prism.api.storage.ActivityBatch;
+import org.prism_mc.prism.api.storage.ActivityBlockConsumer;
+import org.prism_mc.prism.api.storage.ActivityChunk;
 import org.prism_mc.prism.api.storage.StorageAdapter;
 import org.prism_mc.prism.api.util.Coordinate;
 import org.prism_mc.prism.api.util.Pair;
 import org.prism_mc.prism.core.injection.factories.SqlActivityQueryBuilderFactory;
 import org.prism_mc.prism.core.services.cache.CacheService;
+import org.prism_mc.prism.core.services.cache.CachedBlock;
+import org.prism_mc.prism.core.services.cache.CachedEntityType;
 import org.prism_mc.prism.core.storage.HikariConfigFactories;
 import org.prism_mc.prism.core.storage.dbo.DefaultCatalog;
 import org.prism_mc.prism.core.storage.dbo.Indexes;
@@ -88,6 +98,8 @@ import org.prism_mc.prism.core.storage.dbo.tables.PrismMeta;
 import org.prism_mc.prism.core.storage.dbo.tables.PrismPlayers;
 import org.prism_mc.prism.core.storage.dbo.tables.PrismWorlds;
 import org.prism_mc.prism.loader.services.configuration.ConfigurationService;
+import org.prism_mc.prism.loader.services.configuration.storage.PartitionConfiguration;
+import org.prism_mc.prism.loader.services.configuration.storage.SqlDataSourceConfiguration;
 import org.prism_mc.prism.loader.services.logging.LoggingService;
 
 public abstract class AbstractSqlStorageAdapter implements StorageAdapter {
@@ -247,6 +259,16 @@ public abstract class AbstractSqlStorageAdapter implements StorageAdapter {
      */
     protected boolean ready = false;
 
+    /**
+     * Whether the unpartitioned activities table warning has been logged.
+     */
+    private boolean partitionWarningLogged = false;
+
+    /**
+     * Whether the unsupported partitioning warning has been logged.
+     */
+    private boolean partitionUnsupportedLogged = false;
+
     /**
      * Constructor.
      *
@@ -428,7 +450,10 @@ public abstract class AbstractSqlStorageAdapter implements StorageAdapter {
             updateSchemas(schemaVersion);
         } else {
             // Insert the schema version
-            dslContext.insertInto(PRISM_META, PRISM_META.K, PRISM_META.V).values("schema_ver", "400").execute();
+            dslContext
+                .insertInto(PRISM_META, PRISM_META.K, PRISM_META.V)
+                .values("schema_ver", SqlSchemaUpdater.SCHEMA_VERSION)
+                .execute();
         }
 
         // Create the players table
@@ -449,8 +474,8 @@ public abstract class AbstractSqlStorageAdapter implements StorageAdapter {
             .column(PRISM_BLOCKS.NAME)
             .column(PRISM_BLOCKS.DATA)
             .column(PRISM_BLOCKS.TRANSLATION_KEY)
+            .column(PRISM_BLOCKS.DATA_HASH)
             .primaryKey(PRISM_BLOCKS.BLOCK_ID)
-            .unique(PRISM_BLOCKS.NS, PRISM_BLOCKS.NAME, PRISM_BLOCKS.DATA)
             .execute();
 
         // Create the entity types table
@@ -487,6 +512,7 @@ public abstract class AbstractSqlStorageAdapter implements StorageAdapter {
             .column(PRISM_ITEMS.ITEM_ID)
             .column(PRISM_ITEMS.MATERIAL)
             .column(PRISM_ITEMS.DATA)
+            .column(PRISM_ITEMS.DATA_HASH)
             .primaryKey(PRISM_ITEMS.ITEM_ID)
             .execute();
 
@@ -500,79 +526,7 @@ public abstract class AbstractSqlStorageAdapter implements StorageAdapter {
             .unique(PRISM_WORLDS.WORLD_UUID)
             .execute();
 
-        // Create the activities table. This one's the fatso.
-        dslContext
-            .createTableIfNotExists(PRISM_ACTIVITIES)
-            .column(PRISM_ACTIVITIES.ACTIVITY_ID)
-            .column(PRISM_ACTIVITIES.TIMESTAMP)
-            .column(PRISM_ACTIVITIES.WORLD_ID)
-            .column(PRISM_ACTIVITIES.X)
-            .column(PRISM_ACTIVITIES.Y)
-            .column(PRISM_ACTIVITIES.Z)
-            .column(PRISM_ACTIVITIES.ACTION_ID)
-            .column(PRISM_ACTIVITIES.AFFECTED_ITEM_ID)
-            .column(PRISM_ACTIVITIES.AFFECTED_ITEM_QUANTITY)
-            .column(PRISM_ACTIVITIES.AFFECTED_BLOCK_ID)
-            .column(PRISM_ACTIVITIES.REPLACED_BLOCK_ID)
-            .column(PRISM_ACTIVITIES.AFFECTED_ENTITY_TYPE_ID)
-            .column(PRISM_ACTIVITIES.AFFECTED_PLAYER_ID)
-            .column(PRISM_ACTIVITIES.CAUSE_ID)
-            .column(PRISM_ACTIVITIES.CAUSE_PLAYER_ID)
-            .column(PRISM_ACTIVITIES.CAUSE_ENTITY_TYPE_ID)
-            .column(PRISM_ACTIVITIES.CAUSE_BLOCK_ID)
-            .column(PRISM_ACTIVITIES.DESCRIPTOR)
-            .column(PRISM_ACTIVITIES.METADATA)
-            .column(PRISM_ACTIVITIES.SERIALIZER_VERSION)
-            .column(PRISM_ACTIVITIES.SERIALIZED_DATA)
-            .column(PRISM_ACTIVITIES.REVERSED)
-            .primaryKey(PRISM_ACTIVITIES.ACTIVITY_ID)
-            .constraints(
-                constraint(String.format("%s_actionId", prefix))
-                    .foreignKey(PRISM_ACTIVITIES.ACTION_ID)
-                    .references(PRISM_ACTIONS, PRISM_ACTIONS.ACTION_ID)
-                    .onDeleteCascade(),
-                constraint(String.format("%s_affectedEntityTypeId", prefix))
-                    .foreignKey(PRISM_ACTIVITIES.AFFECTED_ENTITY_TYPE_ID)
-                    .references(PRISM_ENTITY_TYPES, PRISM_ENTITY_TYPES.ENTITY_TYPE_ID)
-                    .onDeleteCascade(),
-                constraint(String.format("%s_affectedItemId", prefix))
-                    .foreignKey(PRISM_ACTIVITIES.AFFECTED_ITEM_ID)
-                    .references(PRISM_ITEMS, PRISM_ITEMS.ITEM_ID)
-                    .onDeleteCascade(),
-                constraint(String.format("%s_affectedBlockId", prefix))
-                    .foreignKey(PRISM_ACTIVITIES.AFFECTED_BLOCK_ID)
-                    .references(PRISM_BLOCKS, PRISM_BLOCKS.BLOCK_ID)
-                    .onDeleteCascade(),
-                constraint(String.format("%s_replacedBlockId", prefix))
-                    .foreignKey(PRISM_ACTIVITIES.REPLACED_BLOCK_ID)
-                    .references(PRISM_BLOCKS, PRISM_BLOCKS.BLOCK_ID)
-                    .onDeleteCascade(),
-                constraint(String.format("%s_affectedPlayerId", prefix))
-                    .foreignKey(PRISM_ACTIVITIES.AFFECTED_PLAYER_ID)
-                    .references(PRISM_PLAYERS, PRISM_PLAYERS.PLAYER_ID)
-                    .onDeleteCascade(),
-                constraint(String.format("%s_causeId", prefix))
-                    .foreignKey(PRISM_ACTIVITIES.CAUSE_ID)
-                    .references(PRISM_CAUSES, PRISM_CAUSES.CAUSE_ID)
-                    .onDeleteCascade(),
-                constraint(String.format("%s_causePlayerId", prefix))
-                    .foreignKey(PRISM_ACTIVITIES.CAUSE_PLAYER_ID)
-                    .references(PRISM_PLAYERS, PRISM_PLAYERS.PLAYER_ID)
-                    .onDeleteCascade(),
-                constraint(String.format("%s_causeEntityTypeId", prefix))
-                    .foreignKey(PRISM_ACTIVITIES.CAUSE_ENTITY_TYPE_ID)
-                    .references(PRISM_ENTITY_TYPES, PRISM_ENTITY_TYPES.ENTITY_TYPE_ID)
-                    .onDeleteCascade(),
-                constraint(String.format("%s_causeBlockId", prefix))
-                    .foreignKey(PRISM_ACTIVITIES.CAUSE_BLOCK_ID)
-                    .references(PRISM_BLOCKS, PRISM_BLOCKS.BLOCK_ID)
-                    .onDeleteCascade(),
-                constraint(String.format("%s_worldId", prefix))
-                    .foreignKey(PRISM_ACTIVITIES.WORLD_ID)
-                    .references(PRISM_WORLDS, PRISM_WORLDS.WORLD_ID)
-                    .onDeleteCascade()
-            )
-            .execute();
+        createActivitiesTable();
 
         // Sqlite doesn't support creating indexes inline with create table and IF NOT EXISTS isn't a thing for indexes
         var indexNames = dslContext
@@ -582,6 +536,21 @@ public abstract class AbstractSqlStorageAdapter implements StorageAdapter {
             .map(org.jooq.Named::getName)
             .collect(Collectors.toCollection(ArrayList::new));
 
+        // Blocks and items are looked up by the hash of their content
+        if (!indexNames.contains(Indexes.PRISM_BLOCKS_DATA_HASH.getName())) {
+            dslContext
+                .createUniqueIndex(Indexes.PRISM_BLOCKS_DATA_HASH)
+                .on(PRISM_BLOCKS, PRISM_BLOCKS.DATA_HASH)
+                .execute();
+        }
+
+        if (!indexNames.contains(Indexes.PRISM_ITEMS_DATA_HASH.getName())) {
+            dslContext
+                .createUniqueIndex(Indexes.PRISM_ITEMS_DATA_HASH)
+                .on(PRISM_ITEMS, PRISM_ITEMS.DATA_HASH)
+                .execute();
+        }
+
         if (!indexNames.contains(Indexes.PRISM_ACTIVITIES_ACTION_ID.getName())) {
             dslContext
                 .createIndex(Indexes.PRISM_ACTIVITIES_ACTION_ID)
@@ -673,12 +642,95 @@ public abstract class AbstractSqlStorageAdapter implements StorageAdapter {
                 )
                 .execute();
         }
+
+        maintainActivityPartitions();
+    }
+
+    /**
+     * Create the activities table. This one's the fatso.
+     *
+     * @throws Exception The database exception
+     */
+    protected void createActivitiesTable() throws Exception {
+        dslContext
+            .createTableIfNotExists(PRISM_ACTIVITIES)
+            .column(PRISM_ACTIVITIES.ACTIVITY_ID)
+            .column(PRISM_ACTIVITIES.TIMESTAMP)
+            .column(PRISM_ACTIVITIES.WORLD_ID)
+            .column(PRISM_ACTIVITIES.X)
+            .column(PRISM_ACTIVITIES.Y)
+            .column(PRISM_ACTIVITIES.Z)
+            .column(PRISM_ACTIVITIES.ACTION_ID)
+            .column(PRISM_ACTIVITIES.AFFECTED_ITEM_ID)
+            .column(PRISM_ACTIVITIES.AFFECTED_ITEM_QUANTITY)
+            .column(PRISM_ACTIVITIES.AFFECTED_BLOCK_ID)
+            .column(PRISM_ACTIVITIES.REPLACED_BLOCK_ID)
+            .column(PRISM_ACTIVITIES.AFFECTED_ENTITY_TYPE_ID)
+            .column(PRISM_ACTIVITIES.AFFECTED_PLAYER_ID)
+            .column(PRISM_ACTIVITIES.CAUSE_ID)
+            .column(PRISM_ACTIVITIES.CAUSE_PLAYER_ID)
+            .column(PRISM_ACTIVITIES.CAUSE_ENTITY_TYPE_ID)
+            .column(PRISM_ACTIVITIES.CAUSE_BLOCK_ID)
+            .column(PRISM_ACTIVITIES.DESCRIPTOR)
+            .column(PRISM_ACTIVITIES.METADATA)
+            .column(PRISM_ACTIVITIES.SERIALIZER_VERSION)
+            .column(PRISM_ACTIVITIES.SERIALIZED_DATA)
+            .column(PRISM_ACTIVITIES.REVERSED)
+            .primaryKey(PRISM_ACTIVITIES.ACTIVITY_ID)
+            .constraints(
+                constraint(String.format("%s_actionId", prefix))
+                    .foreignKey(PRISM_ACTIVITIES.ACTION_ID)
+                    .references(PRISM_ACTIONS, PRISM_ACTIONS.ACTION_ID)
+                    .onDeleteCascade(),
+                constraint(String.format("%s_affectedEntityTypeId", prefix))
+                    .foreignKey(PRISM_ACTIVITIES.AFFECTED_ENTITY_TYPE_ID)
+                    .references(PRISM_ENTITY_TYPES, PRISM_ENTITY_TYPES.ENTITY_TYPE_ID)
+                    .onDeleteCascade(),
+                constraint(String.format("%s_affectedItemId", prefix))
+                    .foreignKey(PRISM_ACTIVITIES.AFFECTED_ITEM_ID)
+                    .references(PRISM_ITEMS, PRISM_ITEMS.ITEM_ID)
+                    .onDeleteCascade(),
+                constraint(String.format("%s_affectedBlockId", prefix))
+                    .foreignKey(PRISM_ACTIVITIES.AFFECTED_BLOCK_ID)
+                    .references(PRISM_BLOCKS, PRISM_BLOCKS.BLOCK_ID)
+                    .onDeleteCascade(),
+                constraint(String.format("%s_replacedBlockId", prefix))
+                    .foreignKey(PRISM_ACTIVITIES.REPLACED_BLOCK_ID)
+                    .references(PRISM_BLOCKS, PRISM_BLOCKS.BLOCK_ID)
+                    .onDeleteCascade(),
+                constraint(String.format("%s_affectedPlayerId", prefix))
+                    .foreignKey(PRISM_ACTIVITIES.AFFECTED_PLAYER_ID)
+                    .references(PRISM_PLAYERS, PRISM_PLAYERS.PLAYER_ID)
+                    .onDeleteCascade(),
+                constraint(String.format("%s_causeId", prefix))
+                    .foreignKey(PRISM_ACTIVITIES.CAUSE_ID)
+                    .references(PRISM_CAUSES, PRISM_CAUSES.CAUSE_ID)
+                    .onDeleteCascade(),
+                constraint(String.format("%s_causePlayerId", prefix))
+                    .foreignKey(PRISM_ACTIVITIES.CAUSE_PLAYER_ID)
+                    .references(PRISM_PLAYERS, PRISM_PLAYERS.PLAYER_ID)
+                    .onDeleteCascade(),
+                constraint(String.format("%s_causeEntityTypeId", prefix))
+                    .foreignKey(PRISM_ACTIVITIES.CAUSE_ENTITY_TYPE_ID)
+                    .references(PRISM_ENTITY_TYPES, PRISM_ENTITY_TYPES.ENTITY_TYPE_ID)
+                    .onDeleteCascade(),
+                constraint(String.format("%s_causeBlockId", prefix))
+                    .foreignKey(PRISM_ACTIVITIES.CAUSE_BLOCK_ID)
+                    .references(PRISM_BLOCKS, PRISM_BLOCKS.BLOCK_ID)
+                    .onDeleteCascade(),
+                constraint(String.format("%s_worldId", prefix))
+                    .foreignKey(PRISM_ACTIVITIES.WORLD_ID)
+                    .references(PRISM_WORLDS, PRISM_WORLDS.WORLD_ID)
+                    .onDeleteCascade()
+            )
+            .execute();
     }
 
     /**
      * Caching often-used object->primary-key lookups greatly reduce the number of queries/network requests.
      *
-     * <p>Note: Player UUIDs are cached as needed and removed on disconnect.</p>
+     * <p>Note: Player UUIDs are cached as needed and removed on disconnect. The player and
+     * block dimension indexes are separate and bounded by their own config.</p>
      */
     protected void prepareCache() {
         // Actions
@@ -690,22 +742,37 @@ public abstract class AbstractSqlStorageAdapter implements StorageAdapter {
         for (PrismActionsRecord actionsRecord : actions) {
             int actionId = actionsRecord.getActionId().intValue();
             cacheService.actionKeyPkMap().put(actionsRecord.getAction(), actionId);
+            cacheService.actionsById().put(actionId, actionsRecord.getAction());
         }
 
         // Entity Types
         List<PrismEntityTypesRecord> entityTypes = dslContext
-            .select(PRISM_ENTITY_TYPES.ENTITY_TYPE, PRISM_ENTITY_TYPES.ENTITY_TYPE_ID)
+            .select(
+                PRISM_ENTITY_TYPES.ENTITY_TYPE,
+                PRISM_ENTITY_TYPES.ENTITY_TYPE_ID,
+                PRISM_ENTITY_TYPES.TRANSLATION_KEY
+            )
             .from(PRISM_ENTITY_TYPES)
             .fetchInto(PrismEntityTypesRecord.class);
 
         for (PrismEntityTypesRecord entityTypesRecord : entityTypes) {
             int entityTypeId = entityTypesRecord.getEntityTypeId().intValue();
             cacheService.entityTypePkMap().put(entityTypesRecord.getEntityType(), entityTypeId);
+            cacheService
+                .entityTypesById()
+                .put(
+                    entityTypeId,
+                    new CachedEntityType(
+                        entityTypeId,
+                        entityTypesRecord.getEntityType(),
+                        entityTypesRecord.getTranslationKey()
+                    )
+                );
         }
 
         // World
         List<PrismWorldsRecord> worlds = dslContext
-            .select(PRISM_WORLDS.WORLD_UUID, PRISM_WORLDS.WORLD_ID)
+            .select(PRISM_WORLDS.WORLD_UUID, PRISM_WORLDS.WORLD_ID, PRISM_WORLDS.WORLD)
             .from(PRISM_WORLDS)
             .fetchInto(PrismWorldsRecord.class);
 
@@ -713,6 +780,175 @@ public abstract class AbstractSqlStorageAdapter implements StorageAdapter {
             int worldId = worldsRecord.getWorldId().intValue();
             UUID worldUuid = UUID.fromString(worldsRecord.getWorldUuid());
             cacheService.worldUuidPkMap().put(worldUuid, worldId);
+            cacheService.worldsById().put(worldId, new Pair<>(worldUuid, worldsRecord.getWorld()));
+        }
+
+        var dimensionIndexConfiguration = configurationService.prismConfig().cache().dimensionIndex();
+        if (!dimensionIndexConfiguration.preload()) {
+            return;
+        }
+
+        // Leave a connection free for anything else starting up. File databases may only have one.
+        int threads = Math.max(1, Math.min(4, dataSource.getMaximumPoolSize() - 1));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        long start = System.currentTimeMillis();
+        try {
+            int pageSize = dimensionIndexConfiguration.pageSize();
+            CompletableFuture.allOf(
+                CompletableFuture.runAsync(
+                    () -> preloadBlocks(pageSize, dimensionIndexConfiguration.maxBlocks()),
+                    executor
+                ),
+                CompletableFuture.runAsync(
+                    () -> preloadPlayers(pageSize, dimensionIndexConfiguration.maxPlayers()),
+                    executor
+                ),
+                CompletableFuture.runAsync(() -> preloadItems(pageSize), executor),
+                CompletableFuture.runAsync(() -> preloadCauses(pageSize), executor)
+            ).join();
+
+            loggingService.debug(
+                "Preloaded {0} blocks and {1} players in {2}ms",
+                cacheService.blocksById().size(),
+                cacheService.playersById().size(),
+                System.currentTimeMillis() - start
+            );
+        } catch (CompletionException e) {
+            // A partial preload is fine, anything missing is resolved when first used
+            loggingService.handleException(e);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Preload blocks into the block dimension index, one page at a time.
+     *
+     * @param pageSize The rows per page
+     * @param max The max rows
+     */
+    protected void preloadBlocks(int pageSize, int max) {
+        UInteger lastId = UInteger.valueOf(0);
+        for (int loaded = 0; loaded < max; ) {
+            var page = dslContext
+                .select(
+                    PRISM_BLOCKS.BLOCK_ID,
+                    PRISM_BLOCKS.NS,
+                    PRISM_BLOCKS.NAME,
+                    PRISM_BLOCKS.DATA,
+                    PRISM_BLOCKS.TRANSLATION_KEY
+                )
+                .from(PRISM_BLOCKS)
+                .where(PRISM_BLOCKS.BLOCK_ID.greaterThan(lastId))
+                .orderBy(PRISM_BLOCKS.BLOCK_ID)
+                .limit(Math.min(pageSize, max - loaded))
+                .fetch();
+
+            for (var r : page) {
+                cacheService.cacheBlock(r.value1().intValue(), r.value2(), r.value3(), r.value4(), r.value5());
+            }
+
+            if (page.size() < pageSize) {
+                return;
+            }
+
+            lastId = page.get(page.size() - 1).value1();
+            loaded += page.size();
+        }
+    }
+
+    /**
+     * Preload named causes into their primary key cache, up to its max size.
+     *
+     * @param pageSize The rows per page
+     */
+    protected void preloadCauses(int pageSize) {
+        long max = configurationService.prismConfig().cache().pkCacheNamedCause().maxSize();
+
+        UInteger lastId = UInteger.valueOf(0);
+        for (long loaded = 0; loaded < max; ) {
+            var page = dslContext
+                .select(PRISM_CAUSES.CAUSE_ID, PRISM_CAUSES.CAUSE)
+                .from(PRISM_CAUSES)
+                .where(PRISM_CAUSES.CAUSE_ID.greaterThan(lastId))
+                .orderBy(PRISM_CAUSES.CAUSE_ID)
+                .limit((int) Math.min(pageSize, max - loaded))
+                .fetch();
+
+            for (var r : page) {
+                cacheService.namedCausePkMap().put(r.value2(), r.value1().longValue());
+            }
+
+            if (page.size() < pageSize) {
+                return;
+            }
+
+            lastId = page.get(page.size() - 1).value1();
+            loaded += page.size();
+        }
+    }
+
+    /**
+     * Preload items into their primary key cache, up to its max size.
+     *
+     * @param pageSize The rows per page
+     */
+    protected void preloadItems(int pageSize) {
+        long max = configurationService.prismConfig().cache().pkCacheItemData().maxSize();
+
+        UInteger lastId = UInteger.valueOf(0);
+        for (long loaded = 0; loaded < max; ) {
+            var page = dslContext
+                .select(PRISM_ITEMS.ITEM_ID, PRISM_ITEMS.DATA_HASH)
+                .from(PRISM_ITEMS)
+                .where(PRISM_ITEMS.ITEM_ID.greaterThan(lastId))
+                .orderBy(PRISM_ITEMS.ITEM_ID)
+                .limit((int) Math.min(pageSize, max - loaded))
+                .fetch();
+
+            for (var r : page) {
+                if (r.value2() != null) {
+                    cacheService.itemDataPkMap().put(r.value2(), r.value1().intValue());
+                }
+            }
+
+            if (page.size() < pageSize) {
+                return;
+            }
+
+            lastId = page.get(page.size() - 1).value1();
+            loaded += page.size();
+        }
+    }
+
+    /**
+     * Preload players into the player dimension index, one page at a time.
+     *
+     * @param pageSize The rows per page
+     * @param max The max rows
+     */
+    protected void preloadPlayers(int pageSize, int max) {
+        UInteger lastId = UInteger.valueOf(0);
+        for (int loaded = 0; loaded < max; ) {
+            var page = dslContext
+                .select(PRISM_PLAYERS.PLAYER_ID, PRISM_PLAYERS.PLAYER_UUID, PRISM_PLAYERS.PLAYER)
+                .from(PRISM_PLAYERS)
+                .where(PRISM_PLAYERS.PLAYER_ID.greaterThan(lastId))
+                .orderBy(PRISM_PLAYERS.PLAYER_ID)
+                .limit(Math.min(pageSize, max - loaded))
+                .fetch();
+
+            for (var r : page) {
+                cacheService.cachePlayer(r.value1().longValue(), UUID.fromString(r.value2()), r.value3());
+            }
+
+            if (page.size() < pageSize) {
+                return;
+            }
+
+            lastId = page.get(page.size() - 1).value1();
+            loaded += page.size();
         }
     }
 
@@ -721,7 +957,9 @@ public abstract class AbstractSqlStorageAdapter implements StorageAdapter {
      *
      * @throws SQLException The database exception
      */
-    protected void updateSchemas(String schemaVersion) throws Exception {}
+    protected void updateSchemas(String schemaVersion) throws Exception {
+        schemaUpdater.update(dslContext, schemaVersion);
+    }
 
     @Override
     public List<Activity> queryActivities(ActivityQuery query) throws Exception {
@@ -737,22 +975,63 @@ public abstract class AbstractSqlStorageAdapter implements StorageAdapter {
         return activities;
     }
 
+    @Override
+    public ActivityChunk queryActivityChunk(ActivityQuery query) throws Exception {
+        Result<org.jooq.Record> result = queryBuilder.queryActivities(query);
+
+        List<Activity> activities = new ArrayList<>();
+        for (var mapped : activityMapper(result, query)) {
+            if (mapped instanceof Activity activity) {
+                activities.add(activity);
+            }
+        }
+
+        if (result.isEmpty()) {
+            return new ActivityChunk(activities, 0, null, 0);
+        }
+
+        // Count from the raw rows, some may not have been mapped
+        long lastTimestamp = result.get(result.size() - 1).getValue(PRISM_ACTIVITIES.TIMESTAMP).longValue();
+        int rowsAtLastTimestamp = 0;
+        for (int i = result.size() - 1; i >= 0; i--) {
+            if (result.get(i).getValue(PRISM_ACTIVITIES.TIMESTAMP).longValue() != lastTimestamp) {
+                break;
+            }
+
+            rowsAtLastTimestamp++;
+        }
+
+        return new ActivityChunk(activities, result.size(), lastTimestamp, rowsAtLastTimestamp);
+    }
+
     @Override
     public PartialListPaginationResult<AbstractActivity> queryActivitiesPaginated(ActivityQuery query) {
         Result<org.jooq.Record> result = queryBuilder.queryActivities(query);
 
-        int totalResults = result.size();
-        if (!result.isEmpty()) {
+        // Without a count, the extra row fetched only tells us there's another page
+        int totalResults = query.offset() + result.size();
+        if (query.countResults() && !result.isEmpty()) {
             totalResults = result.get(0).getValue("totalrows", Integer.class);
         }
 
         int currentPage = (query.offset() / query.limit()) + 1;
 
+        // The sort key of the last row on this page lets the next page seek instead of offset
+        PaginationCursor nextCursor = null;
+        if (!query.grouped() && query.limit() > 0 && result.size() >= query.limit()) {
+            var lastRecord = result.get(query.limit() - 1);
+            nextCursor = new PaginationCursor(
+                lastRecord.getValue(PRISM_ACTIVITIES.TIMESTAMP).longValue(),
+                lastRecord.getValue(PRISM_ACTIVITIES.ACTIVITY_ID).longValue()
+            );
+        }
+
         return new PartialListPaginationResult<>(
             activityMapper(result, query),
             totalResults,
             query.limit(),
-            currentPage
+            currentPage,
+            nextCursor
         );
     }
 
@@ -766,8 +1045,15 @@ public abstract class AbstractSqlStorageAdapter implements StorageAdapter {
     protected List<AbstractActivity> activityMapper(Result<org.jooq.Record> result, ActivityQuery query) {
         List<AbstractActivity> activities = new ArrayList<>();
 
+        // Join-free results carry keys, which are resolved here through the dimension caches
+        ActivityDimensions dimensions = queryBuilder.joinFree()
+            ? new ActivityDimensions(dslContext, cacheService, result)
+            : null;
+
         for (org.jooq.Record r : result) {
-            String actionKey = r.getValue(PRISM_ACTIONS.ACTION);
+            String actionKey = dimensions != null
+                ? dimensions.action(r.getValue(PRISM_ACTIVITIES.ACTION_ID))
+                : r.getValue(PRISM_ACTIONS.ACTION);
             var optionalActionType = actionRegistry.actionType(actionKey);
             if (optionalActionType.isEmpty()) {
                 loggingService.warn("Failed to find action type: {0}", actionKey);
@@ -777,8 +1063,13 @@ public abstract class AbstractSqlStorageAdapter implements StorageAdapter {
             var actionType = optionalActionType.get();
 
             // World
-            UUID worldUuid = UUID.fromString(r.getValue(PRISM_WORLDS.WORLD_UUID));
-            var world = new Pair<>(worldUuid, r.getValue(PRISM_WORLDS.WORLD));
+            Pair<UUID, String> world;
+            if (dimensions != null) {
+                world = dimensions.world(r.getValue(PRISM_ACTIVITIES.WORLD_ID));
+            } else {
+                UUID worldUuid = UUID.fromString(r.getValue(PRISM_WORLDS.WORLD_UUID));
+                world = new Pair<>(worldUuid, r.getValue(PRISM_WORLDS.WORLD));
+            }
 
             // Location
             int x = 0;
@@ -798,33 +1089,61 @@ public abstract class AbstractSqlStorageAdapter implements StorageAdapter {
 
             // Entity type
             String entityType = null;
-            String entityTypeName = r.getValue(PRISM_ENTITY_TYPES.ENTITY_TYPE);
+            String entityTypeName;
+            if (dimensions != null) {
+                var cachedEntityType = dimensions.entityType(r.getValue(PRISM_ACTIVITIES.AFFECTED_ENTITY_TYPE_ID));
+                entityTypeName = cachedEntityType != null ? cachedEntityType.entityType() : null;
+            } else {
+                entityTypeName = r.getValue(PRISM_ENTITY_TYPES.ENTITY_TYPE);
+            }
+
             if (entityTypeName != null) {
                 entityType = entityTypeName.toUpperCase(Locale.ENGLISH);
             }
 
             // Material
             String material = null;
-            String materialName = r.getValue(PRISM_ITEMS.MATERIAL);
+            String materialName;
+            String itemData;
+            if (dimensions != null) {
+                var cachedItem = dimensions.item(r.getValue(PRISM_ACTIVITIES.AFFECTED_ITEM_ID));
+                materialName = cachedItem != null ? cachedItem.material() : null;
+                itemData = cachedItem != null ? cachedItem.data() : null;
+            } else {
+                materialName = r.getValue(PRISM_ITEMS.MATERIAL);
+                itemData = ContentCodec.decompress(r.getValue(PRISM_ITEMS.DATA));
+            }
+
             if (materialName != null) {
                 material = materialName.toUpperCase(Locale.ENGLISH);
             }
 
-            String itemData = r.getValue(PRISM_ITEMS.DATA);
-
             // Item quantity
             short itemQuantity = r.getValue(coalesce(PRISM_ACTIVITIES.AFFECTED_ITEM_QUANTITY, DSL.val(0))).shortValue();
 
             // Affected player
-            String affectedPlayerName = r.getValue(AFFECTED_PLAYERS.PLAYER);
+            String affectedPlayerName = null;
             UUID affectedPlayerUuid = null;
-            if (r.getValue(AFFECTED_PLAYERS.PLAYER_UUID) != null) {
-                affectedPlayerUuid = UUID.fromString(r.getValue(AFFECTED_PLAYERS.PLAYER_UUID));
+            if (dimensions != null) {
+                if (query.lookup()) {
+                    var affectedPlayer = dimensions.player(r.getValue(PRISM_ACTIVITIES.AFFECTED_PLAYER_ID));
+                    if (affectedPlayer != null) {
+                        affectedPlayerName = affectedPlayer.name();
+                        affectedPlayerUuid = affectedPlayer.uuid();
+                    }
+                }
+            } else {
+                affectedPlayerName = r.getValue(AFFECTED_PLAYERS.PLAYER);
+                if (r.getValue(AFFECTED_PLAYERS.PLAYER_UUID) != null) {
+                    affectedPlayerUuid = UUID.fromString(r.getValue(AFFECTED_PLAYERS.PLAYER_UUID));
+                }
             }
 
             // Cause
             Cause cause = null;
-            if (query.lookup() && r.getValue(PRISM_CAUSES.CAUSE) != null) {
+            if (dimensions != null) {
+                cause = joinFreeCause(r, query, dimensions);
+            } else if (query.lookup() && r.getValue(PRISM_CAUSES.CAUSE) != null) {
                 cause = new Cause(new StringContainer(r.getValue(PRISM_CAUSES.CAUSE)));
             } else if (r.getValue(PRISM_PLAYERS.PLAYER_UUID) != null) {
                 String playerName = r.getValue(PRISM_PLAYERS.PLAYER);
@@ -840,8 +1159,21 @@ public abstract class AbstractSqlStorageAdapter implements StorageAdapter {
             String descriptor = query.lookup() ? r.getValue(PRISM_ACTIVITIES.DESCRIPTOR) : null;
             String metadata = query.lookup() ? r.getValue(PRISM_ACTIVITIES.METADATA) : null;
 
-            String blockNamespace = r.getValue(PRISM_BLOCKS.NS);
-            String blockName = r.getValue(PRISM_BLOCKS.NAME);
+            // Grouped results still join blocks, so only ungrouped join-free results need resolving
+            CachedBlock block = null;
+            String blockNamespace;
+            String blockName;
+            String translationKey;
+            if (dimensions != null && !query.grouped()) {
+                block = dimensions.block(r.getValue(PRISM_ACTIVITIES.AFFECTED_BLOCK_ID));
+                blockNamespace = block != null ? block.namespace() : null;
+                blockName = block != null ? block.name() : null;
+                translationKey = block != null ? block.translationKey() : null;
+            } else {
+                blockNamespace = r.getValue(PRISM_BLOCKS.NS);
+                blockName = r.getValue(PRISM_BLOCKS.NAME);
+                translationKey = r.getValue(PRISM_BLOCKS.TRANSLATION_KEY);
+            }
 
             long timestamp;
             if (query.grouped()) {
@@ -850,18 +1182,30 @@ public abstract class AbstractSqlStorageAdapter implements StorageAdapter {
                 timestamp = r.getValue(PRISM_ACTIVITIES.TIMESTAMP).longValue();
             }
 
-            String translationKey = r.getValue(PRISM_BLOCKS.TRANSLATION_KEY);
-
             if (!query.grouped() && query.modification()) {
                 long activityId = r.getValue(PRISM_ACTIVITIES.ACTIVITY_ID).longValue();
 
                 String customData = r.getValue(PRISM_ACTIVITIES.SERIALIZED_DATA);
                 UShort customDataVersion = r.getValue(PRISM_ACTIVITIES.SERIALIZER_VERSION);
-                String blockData = r.getValue(PRISM_BLOCKS.DATA);
-                String replacedBlockNamespace = r.getValue(REPLACED_BLOCKS.NS);
-                String replacedBlockName = r.getValue(REPLACED_BLOCKS.NAME);
-                String replacedBlockData = r.getValue(REPLACED_BLOCKS.DATA);
-                String replacedBlockTranslationKey = r.getValue(REPLACED_BLOCKS_TRANSLATION_KEY);
+                String blockData;
+                String replacedBlockNamespace;
+                String replacedBlockName;
+                String replacedBlockData;
+                String replacedBlockTranslationKey;
+                if (dimensions != null) {
+                    var replacedBlock = dimensions.block(r.getValue(PRISM_ACTIVITIES.REPLACED_BLOCK_ID));
+                    blockData = block != null ? block.data() : null;
+                    replacedBlockNamespace = replacedBlock != null ? replacedBlock.namespace() : null;
+                    replacedBlockName = replacedBlock != null ? replacedBlock.name() : null;
+                    replacedBlockData = replacedBlock != null ? replacedBlock.data() : null;
+                    replacedBlockTranslationKey = replacedBlock != null ? replacedBlock.translationKey() : null;
+                } else {
+                    blockData = r.getValue(PRISM_BLOCKS.DATA);
+                    replacedBlockNamespace = r.getValue(REPLACED_BLOCKS.NS);
+                    replacedBlockName = r.getValue(REPLACED_BLOCKS.NAME);
+                    replacedBlockData = r.getValue(REPLACED_BLOCKS.DATA);
+                    replacedBlockTranslationKey = r.getValue(REPLACED_BLOCKS_TRANSLATION_KEY);
+                }
 
                 // Build the action data
                 ActionData actionData = new ActionData(
@@ -990,6 +1334,47 @@ public abstract class AbstractSqlStorageAdapter implements StorageAdapter {
         return activities;
     }
 
+    /**
+     * Build the cause of a join-free result row, in the same precedence as joined rows.
+     *
+     * @param r The record
+     * @param query The activity query
+     * @param dimensions The resolved dimensions
+     * @return The cause, or null
+     */
+    private Cause joinFreeCause(org.jooq.Record r, ActivityQuery query, ActivityDimensions dimensions) {
+        if (query.lookup()) {
+            String namedCause = dimensions.cause(r.getValue(PRISM_ACTIVITIES.CAUSE_ID));
+            if (namedCause != null) {
+                return new Cause(new StringContainer(namedCause));
+            }
+        }
+
+        var player = dimensions.player(r.getValue(PRISM_ACTIVITIES.CAUSE_PLAYER_ID));
+        if (player != null) {
+            return new Cause(new PlayerContainer(player.name(), player.uuid()));
+        }
+
+        if (!query.lookup()) {
+            return null;
+        }
+
+        var entityType = dimensions.entityType(r.getValue(PRISM_ACTIVITIES.CAUSE_ENTITY_TYPE_ID));
+        if (entityType != null && entityType.translationKey() != null) {
+            return new Cause(new TranslatableContainer(entityType.translationKey()));
+        }
+
+        String blockTranslationKey;
+        if (query.grouped()) {
+            blockTranslationKey = r.getValue(CAUSE_BLOCKS_TRANSLATION_KEY);
+        } else {
+            var block = dimensions.block(r.getValue(PRISM_ACTIVITIES.CAUSE_BLOCK_ID));
+            blockTranslationKey = block != null ? block.translationKey() : null;
+        }
+
+        return blockTranslationKey != null ? new Cause(new TranslatableContainer(blockTranslationKey)) : null;
+    }
+
     @Override
     public ActivityBatch createActivityBatch() {
         return new SqlActivityBatch(loggingService, dslContext, serializerVersion, cacheService);
@@ -1005,6 +1390,198 @@ public abstract class AbstractSqlStorageAdapter implements StorageAdapter {
         return queryBuilder.queryActivitiesPkBounds(query);
     }
 
+    @Override
+    public void streamActivityBlocks(ActivityQuery query, ActivityBlockConsumer consumer) {
+        queryBuilder.streamActivityBlocks(query, consumer);
+    }
+
+    @Override
+    public long dropActivityPartitions(ActivityQuery query) {
+        var partitioning = partitionConfiguration();
+        if (
+            partitioning == null ||
+            !partitioning.enabled() ||
+            query.before() == null ||
+            !queryBuilder.timeRangeOnly(query)
+        ) {
+            return 0;
+        }
+
+        long now = System.currentTimeMillis() / 1000;
+        long dropped = 0;
+
+        try {
+            for (var partition : activityPartitions()) {
+                // Never touch the catch-all or anything still being written to
+                if (partition.unbounded() || partition.to() > now) {
+                    continue;
+                }
+
+                // "before" is exclusive on its own but inclusive when paired with "after"
+                long last = partition.to() - 1;
+                boolean coversEnd = query.after() != null ? last <= query.before() : last < query.before();
+                boolean coversStart = query.after() == null || partition.from() >= query.after();
+
+                if (coversEnd && coversStart) {
+                    long count = countActivityPartition(partition);
+                    dropActivityPartition(partition);
+                    dropped += count;
+
+                    loggingService.info("Dropped activity partition {0} ({1} activities)", partition.name(), count);
+                }
+            }
+        } catch (Exception e) {
+            loggingService.handleException(e);
+        }
+
+        return dropped;
+    }
+
+    @Override
+    public void maintainActivityPartitions() {
+        var partitioning = partitionConfiguration();
+        if (partitioning == null || !partitioning.enabled()) {
+            return;
+        }
+
+        try {
+            var partitions = activityPartitions();
+            if (partitions.isEmpty()) {
+                if (!partitionWarningLogged) {
+                    loggingService.warn(
+                        "Activity partitioning is enabled but the activities table isn't partitioned. " +
+                        "Only newly created activities tables are partitioned."
+                    );
+                    partitionWarningLogged = true;
+                }
+
+                return;
+            }
+
+            var interval = partitioning.interval();
+            var current = ActivityPartition.containing(System.currentTimeMillis() / 1000, interval);
+
+            // Always cover the current interval plus at least one ahead so writes never land in the catch-all
+            long horizon = current.to();
+            for (int i = 0; i < Math.max(1, partitioning.premake()); i++) {
+                horizon = ActivityPartition.starting(horizon, interval).to();
+            }
+
+            long next = partitions
+                .stream()
+                .filter(partition -> !partition.unbounded())
+                .mapToLong(ActivityPartition::to)
+                .max()
+                .orElse(current.from());
+
+            while (next < horizon) {
+                var partition = ActivityPartition.starting(next, interval);
+                createActivityPartition(partition);
+                next = partition.to();
+
+                loggingService.debug("Created activity partition {0}", partition.name());
+            }
+        } catch (Exception e) {
+            loggingService.handleException(e);
+        }
+    }
+
+    /**
+     * Get the partitioning config for the primary data source, if it's a sql server.
+     *
+     * <p>Partitioning is treated as disabled for storage types that don't support it.</p>
+     *
+     * @return The partition configuration, or null
+     */
+    protected PartitionConfiguration partitionConfiguration() {
+        if (!(configurationService.storageConfig().primaryDataSource() instanceof SqlDataSourceConfiguration sql)) {
+            return null;
+        }
+
+        if (sql.partitioning().enabled() && !supportsPartitioning()) {
+            if (!partitionUnsupportedLogged) {
+                loggingService.warn(
+                    "Activity partitioning isn't supported by this storage type and has been disabled."
+                );
+                partitionUnsupportedLogged = true;
+            }
+
+            return null;
+        }
+
+        return sql.partitioning();
+    }
+
+    /**
+     * Whether this storage type can partition the activities table.
+     *
+     * @return True if partitioning is supported
+     */
+    protected boolean supportsPartitioning() {
+        return false;
+    }
+
+    /**
+     * List the partitions of the activities table, in order.
+     *
+     * @return The partitions, or an empty list if the table isn't partitioned
+     * @throws Exception The database exception
+     */
+    protected List<ActivityPartition> activityPartitions() throws Exception {
+        return List.of();
+    }
+
+    /**
+     * Create a partition of the activities table.
+     *
+     * @param partition The partition
+     * @throws Exception The database exception
+     */
+    protected void createActivityPartition(ActivityPartition partition) throws Exception {
+        // Unpartitioned storage types have nothing to create
+    }
+
+    /**
+     * Count the activities held by a partition.
+     *
+     * @param partition The partition
+     * @return The number of activities
+     * @throws Exception The database exception
+     */
+    protected long countActivityPartition(ActivityPartition partition) throws Exception {
+        return 0;
+    }
+
+    /**
+     * Drop a partition of the activities table, and every activity in it.
+     *
+     * @param partition The partition
+     * @throws Exception The database exception
+     */
+    protected void dropActivityPartition(ActivityPartition partition) throws Exception {
+        // Unpartitioned storage types have nothing to drop
+    }
+
+    @Override
+    public String getMeta(String key) {
+        return dslContext.select(PRISM_META.V).from(PRISM_META).where(PRISM_META.K.eq(key)).fetchOne(PRISM_META.V);
+    }
+
+    @Override
+    public void setMeta(String key, String value) {
+        if (value == null) {
+            dslContext.deleteFrom(PRISM_META).where(PRISM_META.K.eq(key)).execute();
+
+            return;
+        }
+
+        // Update first, the key is almost always there already
+        int updated = dslContext.update(PRISM_META).set(PRISM_META.V, value).where(PRISM_META.K.eq(key)).execute();
+        if (updated == 0) {
+            dslContext.insertInto(PRISM_META, PRISM_META.K, PRISM_META.V).values(key, value).execute();
+        }
+    }
+
     @Override
     public void markReversed(List<Long> activityIds, boolean reversed) {
         if (activityIds.isEmpty()) {
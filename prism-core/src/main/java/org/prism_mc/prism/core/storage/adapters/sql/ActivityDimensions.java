@@ -0,0 +1,395 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.prism_mc.prism.core.storage.adapters.sql;
+
+import static org.prism_mc.prism.core.storage.adapters.sql.AbstractSqlStorageAdapter.PRISM_ACTIONS;
+import static org.prism_mc.prism.core.storage.adapters.sql.AbstractSqlStorageAdapter.PRISM_ACTIVITIES;
+import static org.prism_mc.prism.core.storage.adapters.sql.AbstractSqlStorageAdapter.PRISM_BLOCKS;
+import static org.prism_mc.prism.core.storage.adapters.sql.AbstractSqlStorageAdapter.PRISM_CAUSES;
+import static org.prism_mc.prism.core.storage.adapters.sql.AbstractSqlStorageAdapter.PRISM_ENTITY_TYPES;
+import static org.prism_mc.prism.core.storage.adapters.sql.AbstractSqlStorageAdapter.PRISM_ITEMS;
+import static org.prism_mc.prism.core.storage.adapters.sql.AbstractSqlStorageAdapter.PRISM_PLAYERS;
+import static org.prism_mc.prism.core.storage.adapters.sql.AbstractSqlStorageAdapter.PRISM_WORLDS;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Predicate;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Result;
+import org.jooq.types.UInteger;
+import org.prism_mc.prism.api.util.Pair;
+import org.prism_mc.prism.core.services.cache.CacheService;
+import org.prism_mc.prism.core.services.cache.CachedBlock;
+import org.prism_mc.prism.core.services.cache.CachedEntityType;
+import org.prism_mc.prism.core.services.cache.CachedItem;
+import org.prism_mc.prism.core.services.cache.CachedPlayer;
+
+/**
+ * Resolves the dimension keys of join-free activity results into names and block data.
+ *
+ * <p>Rows are read from the cache service. Anything missing is fetched with one query per
+ * dimension table and cached; rows that don't fit in a full cache are kept here instead,
+ * for the lifetime of this result.</p>
+ */
+public class ActivityDimensions {
+
+    /**
+     * The max number of keys per dimension query.
+     */
+    private static final int KEYS_PER_QUERY = 500;
+
+    /**
+     * The cache service.
+     */
+    private final CacheService cacheService;
+
+    /**
+     * Action keys that didn't fit the cache.
+     */
+    private final Map<Long, String> actions = new HashMap<>();
+
+    /**
+     * Blocks that didn't fit the cache.
+     */
+    private final Map<Long, CachedBlock> blocks = new HashMap<>();
+
+    /**
+     * Named causes that didn't fit the cache.
+     */
+    private final Map<Long, String> causes = new HashMap<>();
+
+    /**
+     * Entity types that didn't fit the cache.
+     */
+    private final Map<Long, CachedEntityType> entityTypes = new HashMap<>();
+
+    /**
+     * Items that didn't fit the cache.
+     */
+    private final Map<Long, CachedItem> items = new HashMap<>();
+
+    /**
+     * Players that didn't fit the cache.
+     */
+    private final Map<Long, CachedPlayer> players = new HashMap<>();
+
+    /**
+     * Worlds that didn't fit the cache.
+     */
+    private final Map<Long, Pair<UUID, String>> worlds = new HashMap<>();
+
+    /**
+     * Construct the dimensions for a result, fetching anything not yet cached.
+     *
+     * @param dslContext The dsl context
+     * @param cacheService The cache service
+     * @param result The join-free result
+     */
+    public ActivityDimensions(DSLContext dslContext, CacheService cacheService, Result<Record> result) {
+        this.cacheService = cacheService;
+
+        // Actions
+        for (var chunk : missing(result, id -> action(id) == null, PRISM_ACTIVITIES.ACTION_ID)) {
+            dslContext
+                .select(PRISM_ACTIONS.ACTION_ID, PRISM_ACTIONS.ACTION)
+                .from(PRISM_ACTIONS)
+                .where(PRISM_ACTIONS.ACTION_ID.in(chunk))
+                .fetch()
+                .forEach(r -> {
+                    long id = r.value1().longValue();
+                    if (!cacheService.actionsById().put(id, r.value2())) {
+                        actions.put(id, r.value2());
+                    }
+                });
+        }
+
+        // Blocks
+        for (var chunk : missing(
+            result,
+            id -> block(id) == null,
+            PRISM_ACTIVITIES.AFFECTED_BLOCK_ID,
+            PRISM_ACTIVITIES.REPLACED_BLOCK_ID,
+            PRISM_ACTIVITIES.CAUSE_BLOCK_ID
+        )) {
+            dslContext
+                .select(
+                    PRISM_BLOCKS.BLOCK_ID,
+                    PRISM_BLOCKS.NS,
+                    PRISM_BLOCKS.NAME,
+                    PRISM_BLOCKS.DATA,
+                    PRISM_BLOCKS.TRANSLATION_KEY
+                )
+                .from(PRISM_BLOCKS)
+                .where(PRISM_BLOCKS.BLOCK_ID.in(chunk))
+                .fetch()
+                .forEach(r -> {
+                    int id = r.value1().intValue();
+                    if (!cacheService.cacheBlock(id, r.value2(), r.value3(), r.value4(), r.value5())) {
+                        blocks.put((long) id, new CachedBlock(id, r.value2(), r.value3(), r.value4(), r.value5()));
+                    }
+                });
+        }
+
+        // Named causes
+        for (var chunk : missing(result, id -> cause(id) == null, PRISM_ACTIVITIES.CAUSE_ID)) {
+            dslContext
+                .select(PRISM_CAUSES.CAUSE_ID, PRISM_CAUSES.CAUSE)
+                .from(PRISM_CAUSES)
+                .where(PRISM_CAUSES.CAUSE_ID.in(chunk))
+                .fetch()
+                .forEach(r -> {
+                    long id = r.value1().longValue();
+                    if (!cacheService.causesById().put(id, r.value2())) {
+                        causes.put(id, r.value2());
+                    }
+                });
+        }
+
+        // Entity types
+        for (var chunk : missing(
+            result,
+            id -> entityType(id) == null,
+            PRISM_ACTIVITIES.AFFECTED_ENTITY_TYPE_ID,
+            PRISM_ACTIVITIES.CAUSE_ENTITY_TYPE_ID
+        )) {
+            dslContext
+                .select(
+                    PRISM_ENTITY_TYPES.ENTITY_TYPE_ID,
+                    PRISM_ENTITY_TYPES.ENTITY_TYPE,
+                    PRISM_ENTITY_TYPES.TRANSLATION_KEY
+                )
+                .from(PRISM_ENTITY_TYPES)
+                .where(PRISM_ENTITY_TYPES.ENTITY_TYPE_ID.in(chunk))
+                .fetch()
+                .forEach(r -> {
+                    var entityType = new CachedEntityType(r.value1().intValue(), r.value2(), r.value3());
+                    if (!cacheService.entityTypesById().put(entityType.id(), entityType)) {
+                        entityTypes.put((long) entityType.id(), entityType);
+                    }
+                });
+        }
+
+        // Items
+        for (var chunk : missing(result, id -> item(id) == null, PRISM_ACTIVITIES.AFFECTED_ITEM_ID)) {
+            dslContext
+                .select(PRISM_ITEMS.ITEM_ID, PRISM_ITEMS.MATERIAL, PRISM_ITEMS.DATA)
+                .from(PRISM_ITEMS)
+                .where(PRISM_ITEMS.ITEM_ID.in(chunk))
+                .fetch()
+                .forEach(r -> {
+                    var item = new CachedItem(
+                        r.value1().intValue(),
+                        r.value2(),
+                        ContentCodec.decompress(r.value3())
+                    );
+                    if (!cacheService.itemsById().put(item.id(), item)) {
+                        items.put((long) item.id(), item);
+                    }
+                });
+        }
+
+        // Players
+        for (var chunk : missing(
+            result,
+            id -> player(id) == null,
+            PRISM_ACTIVITIES.AFFECTED_PLAYER_ID,
+            PRISM_ACTIVITIES.CAUSE_PLAYER_ID
+        )) {
+            dslContext
+                .select(PRISM_PLAYERS.PLAYER_ID, PRISM_PLAYERS.PLAYER_UUID, PRISM_PLAYERS.PLAYER)
+                .from(PRISM_PLAYERS)
+                .where(PRISM_PLAYERS.PLAYER_ID.in(chunk))
+                .fetch()
+                .forEach(r -> {
+                    long id = r.value1().longValue();
+                    UUID uuid = UUID.fromString(r.value2());
+                    if (!cacheService.cachePlayer(id, uuid, r.value3())) {
+                        players.put(id, new CachedPlayer(id, uuid, r.value3()));
+                    }
+                });
+        }
+
+        // Worlds
+        for (var chunk : missing(result, id -> world(id) == null, PRISM_ACTIVITIES.WORLD_ID)) {
+            dslContext
+                .select(PRISM_WORLDS.WORLD_ID, PRISM_WORLDS.WORLD_UUID, PRISM_WORLDS.WORLD)
+                .from(PRISM_WORLDS)
+                .where(PRISM_WORLDS.WORLD_ID.in(chunk))
+                .fetch()
+                .forEach(r -> {
+                    long id = r.value1().longValue();
+                    var world = new Pair<>(UUID.fromString(r.value2()), r.value3());
+                    if (!cacheService.worldsById().put(id, world)) {
+                        worlds.put(id, world);
+                    }
+                });
+        }
+    }
+
+    /**
+     * Get an action key.
+     *
+     * @param id The primary key, may be null
+     * @return The action key, or null
+     */
+    public String action(UInteger id) {
+        if (id == null) {
+            return null;
+        }
+
+        String action = cacheService.actionsById().get(id.longValue());
+        return action != null ? action : actions.get(id.longValue());
+    }
+
+    /**
+     * Get a block.
+     *
+     * @param id The primary key, may be null
+     * @return The block, or null
+     */
+    public CachedBlock block(UInteger id) {
+        if (id == null) {
+            return null;
+        }
+
+        CachedBlock block = cacheService.block(id.longValue());
+        return block != null ? block : blocks.get(id.longValue());
+    }
+
+    /**
+     * Get a named cause.
+     *
+     * @param id The primary key, may be null
+     * @return The cause, or null
+     */
+    public String cause(UInteger id) {
+        if (id == null) {
+            return null;
+        }
+
+        String cause = cacheService.causesById().get(id.longValue());
+        return cause != null ? cause : causes.get(id.longValue());
+    }
+
+    /**
+     * Get an entity type.
+     *
+     * @param id The primary key, may be null
+     * @return The entity type, or null
+     */
+    public CachedEntityType entityType(UInteger id) {
+        if (id == null) {
+            return null;
+        }
+
+        CachedEntityType entityType = cacheService.entityTypesById().get(id.longValue());
+        return entityType != null ? entityType : entityTypes.get(id.longValue());
+    }
+
+    /**
+     * Get an item.
+     *
+     * @param id The primary key, may be null
+     * @return The item, or null
+     */
+    public CachedItem item(UInteger id) {
+        if (id == null) {
+            return null;
+        }
+
+        CachedItem item = cacheService.itemsById().get(id.longValue());
+        return item != null ? item : items.get(id.longValue());
+    }
+
+    /**
+     * Get a player.
+     *
+     * @param id The primary key, may be null
+     * @return The player, or null
+     */
+    public CachedPlayer player(UInteger id) {
+        if (id == null) {
+            return null;
+        }
+
+        CachedPlayer player = cacheService.player(id.longValue());
+        return player != null ? player : players.get(id.longValue());
+    }
+
+    /**
+     * Get a world uuid and name.
+     *
+     * @param id The primary key, may be null
+     * @return The world, or null
+     */
+    public Pair<UUID, String> world(UInteger id) {
+        if (id == null) {
+            return null;
+        }
+
+        Pair<UUID, String> world = cacheService.worldsById().get(id.longValue());
+        return world != null ? world : worlds.get(id.longValue());
+    }
+
+    /**
+     * Collect the keys in a result that aren't resolved yet, in chunks small enough to query.
+     *
+     * @param result The result
+     * @param unresolved Whether a key still needs fetching
+     * @param foreignKeys The foreign key columns to read, when present in the result
+     * @return The missing keys
+     */
+    @SafeVarargs
+    private static List<List<UInteger>> missing(
+        Result<Record> result,
+        Predicate<UInteger> unresolved,
+        Field<UInteger>... foreignKeys
+    ) {
+        Set<UInteger> missing = new HashSet<>();
+        for (Field<UInteger> foreignKey : foreignKeys) {
+            if (result.field(foreignKey) == null) {
+                continue;
+            }
+
+            for (Record r : result) {
+                UInteger id = r.get(foreignKey);
+                if (id != null && !missing.contains(id) && unresolved.test(id)) {
+                    missing.add(id);
+                }
+            }
+        }
+
+        List<UInteger> ids = new ArrayList<>(missing);
+        List<List<UInteger>> chunks = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += KEYS_PER_QUERY) {
+            chunks.add(ids.subList(i, Math.min(i + KEYS_PER_QUERY, ids.size())));
+        }
+
+        return chunks;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.prism_mc.prism.core.storage.adapters.sql;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import org.prism_mc.prism.loader.services.configuration.storage.PartitionInterval;
+
+/**
+ * A time range partition of the activities table.
+ *
+ * @param name The partition name
+ * @param from The first timestamp (inclusive) held by the partition
+ * @param to The timestamp (exclusive) the partition ends at
+ */
+public record ActivityPartition(String name, long from, long to) {
+    /**
+     * The upper bound used for catch-all partitions.
+     */
+    public static final long UNBOUNDED = Long.MAX_VALUE;
+
+    /**
+     * The date format used in partition names.
+     */
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    /**
+     * Check whether this is a catch-all partition with no upper bound.
+     *
+     * @return True if unbounded
+     */
+    public boolean unbounded() {
+        return to == UNBOUNDED;
+    }
+
+    /**
+     * Get the partition covering the given timestamp.
+     *
+     * @param timestamp The timestamp (in seconds)
+     * @param interval The partition interval
+     * @return The partition
+     */
+    public static ActivityPartition containing(long timestamp, PartitionInterval interval) {
+        var date = LocalDate.ofInstant(Instant.ofEpochSecond(timestamp), ZoneOffset.UTC);
+        if (interval == PartitionInterval.WEEKLY) {
+            date = date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        }
+
+        return starting(date.atStartOfDay(ZoneOffset.UTC).toEpochSecond(), interval);
+    }
+
+    /**
+     * Get the partition starting at the given (interval-aligned) timestamp.
+     *
+     * @param from The first timestamp (in seconds)
+     * @param interval The partition interval
+     * @return The partition
+     */
+    public static ActivityPartition starting(long from, PartitionInterval interval) {
+        var date = LocalDate.ofInstant(Instant.ofEpochSecond(from), ZoneOffset.UTC);
+        var end = interval == PartitionInterval.WEEKLY ? date.plusWeeks(1) : date.plusDays(1);
+
+        return new ActivityPartition(
+            "p" + date.format(NAME_FORMAT),
+            from,
+            end.atStartOfDay(ZoneOffset.UTC).toEpochSecond()
+        );
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.prism_mc.prism.core.storage.adapters.sql;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import lombok.experimental.UtilityClass;
+
+@UtilityClass
+public class ContentCodec {
+
+    /**
+     * The width of every content hash, in characters.
+     */
+    public static final int HASH_LENGTH = 32;
+
+    /**
+     * The byte written between hashed parts.
+     */
+    private static final byte SEPARATOR = 0;
+
+    /**
+     * The byte written for a missing hashed part. It's never part of valid UTF-8.
+     */
+    private static final byte NULL_MARKER = (byte) 0xFF;
+
+    /**
+     * Payloads shorter than this aren't worth deflating.
+     */
+    private static final int MIN_COMPRESS_LENGTH = 64;
+
+    /**
+     * The format byte for payloads stored as plain UTF-8.
+     */
+    private static final byte FORMAT_RAW = 0;
+
+    /**
+     * The format byte for deflated payloads.
+     */
+    private static final byte FORMAT_DEFLATE = 1;
+
+    /**
+     * Hash an item's material and serialized data.
+     *
+     * @param material The material
+     * @param data The serialized item data
+     * @return The content hash
+     */
+    public static String itemHash(String material, String data) {
+        return hash(material, data);
+    }
+
+    /**
+     * Hash a block's namespace, name and serialized block data.
+     *
+     * @param namespace The namespace
+     * @param name The name
+     * @param data The block data
+     * @return The content hash
+     */
+    public static String blockHash(String namespace, String name, String data) {
+        return hash(namespace, name, data);
+    }
+
+    /**
+     * Compress a serialized payload.
+     *
+     * <p>The first byte records the format so small payloads, where deflate only adds
+     * overhead, can be stored as-is.</p>
+     *
+     * @param data The payload
+     * @return The stored bytes
+     */
+    public static byte[] compress(String data) {
+        if (data == null) {
+            return null;
+        }
+
+        byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= MIN_COMPRESS_LENGTH) {
+            Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+            try {
+                deflater.setInput(bytes);
+                deflater.finish();
+
+                ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + 1);
+                out.write(FORMAT_DEFLATE);
+
+                byte[] buffer = new byte[4096];
+                while (!deflater.finished()) {
+                    out.write(buffer, 0, deflater.deflate(buffer));
+                }
+
+                if (out.size() < bytes.length + 1) {
+                    return out.toByteArray();
+                }
+            } finally {
+                deflater.end();
+            }
+        }
+
+        byte[] raw = new byte[bytes.length + 1];
+        raw[0] = FORMAT_RAW;
+        System.arraycopy(bytes, 0, raw, 1, bytes.length);
+
+        return raw;
+    }
+
+    /**
+     * Decompress a stored payload.
+     *
+     * @param stored The stored bytes
+     * @return The payload
+     */
+    public static String decompress(byte[] stored) {
+        if (stored == null || stored.length == 0) {
+            return null;
+        }
+
+        if (stored[0] == FORMAT_RAW) {
+            return new String(stored, 1, stored.length - 1, StandardCharsets.UTF_8);
+        }
+
+        if (stored[0] != FORMAT_DEFLATE) {
+            throw new IllegalArgumentException("Unknown payload format: " + stored[0]);
+        }
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(stored, 1, stored.length - 1);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(stored.length * 4);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Truncated payload");
+                }
+
+                out.write(buffer, 0, length);
+            }
+
+            return out.toString(StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt payload", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Hash the given parts into a fixed-width hex string.
+     *
+     * <p>Parts are separated by a null byte and a missing part is written as a byte that never
+     * occurs in UTF-8, so ("a", null, "b") never collides with ("a", "b", null) or ("a", "", "b").</p>
+     *
+     * @param parts The parts
+     * @return The first 128 bits of the SHA-256 digest, as hex
+     */
+    private static String hash(String... parts) {
+        MessageDigest digest = sha256();
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                digest.update(SEPARATOR);
+            }
+
+            if (parts[i] == null) {
+                digest.update(NULL_MARKER);
+            } else {
+                digest.update(parts[i].getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        return HexFormat.of().formatHex(digest.digest(), 0, HASH_LENGTH / 2);
+    }
+
+    /**
+     * Get a SHA-256 digest.
+     *
+     * @return The digest
+     */
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -38,6 +38,7 @@ import org.jooq.DSLContext;
 import org.jooq.DeleteQuery;
 import org.jooq.types.UInteger;
 import org.prism_mc.prism.api.activities.ActivityQuery;
+import org.prism_mc.prism.core.services.cache.CacheService;
 import org.prism_mc.prism.core.storage.dbo.records.PrismActivitiesRecord;
 import org.prism_mc.prism.loader.services.configuration.ConfigurationService;
 
@@ -47,11 +48,16 @@ public class FileSqlActivityQueryBuilder extends SqlActivityQueryBuilder {
      * Construct a new query builder.
      *
      * @param configurationService The configuration service
+     * @param cacheService The cache service
      * @param create The DSL context
      */
     @Inject
-    public FileSqlActivityQueryBuilder(ConfigurationService configurationService, @Assisted DSLContext create) {
-        super(configurationService, create);
+    public FileSqlActivityQueryBuilder(
+        ConfigurationService configurationService,
+        CacheService cacheService,
+        @Assisted DSLContext create
+    ) {
+        super(configurationService, cacheService, create);
     }
 
     /**
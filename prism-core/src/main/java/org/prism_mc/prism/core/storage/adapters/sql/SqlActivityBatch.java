@@ -31,9 +31,23 @@ import static org.prism_mc.prism.core.storage.adapters.sql.AbstractSqlStorageAda
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Query;
+import org.jooq.exception.DataAccessException;
+import org.jooq.exception.SQLStateClass;
 import org.jooq.types.UInteger;
 import org.jooq.types.UShort;
 import org.prism_mc.prism.api.actions.BlockAction;
@@ -75,9 +89,65 @@ public class SqlActivityBatch implements ActivityBatch {
     protected final DSLContext dslContext;
 
     /**
-     * An array of records to batch insert.
+     * The max number of keys resolved per dimension query. Keeps bind parameter counts
+     * well below what any supported database allows.
      */
-    private List<PrismActivitiesRecord> records = new ArrayList<>();
+    private static final int KEYS_PER_QUERY = 250;
+
+    /**
+     * How many times to insert dimension records that other workers keep creating first.
+     */
+    private static final int MAX_INSERT_ATTEMPTS = 3;
+
+    /**
+     * The activities collected for this batch.
+     */
+    private List<Activity> activities = new ArrayList<>();
+
+    /**
+     * Action keys resolved for this batch.
+     */
+    private final Map<String, Integer> actionIds = new HashMap<>();
+
+    /**
+     * Block content hashes resolved for this batch.
+     */
+    private final Map<String, Integer> blockIds = new HashMap<>();
+
+    /**
+     * Named causes resolved for this batch.
+     */
+    private final Map<String, Long> causeIds = new HashMap<>();
+
+    /**
+     * Entity types resolved for this batch.
+     */
+    private final Map<String, Integer> entityTypeIds = new HashMap<>();
+
+    /**
+     * Item content hashes resolved for this batch.
+     */
+    private final Map<String, Integer> itemIds = new HashMap<>();
+
+    /**
+     * The item content hash of each item activity, so it's only computed once.
+     */
+    private final Map<Activity, String> itemHashes = new IdentityHashMap<>();
+
+    /**
+     * Player uuids resolved for this batch.
+     */
+    private final Map<UUID, Long> playerIds = new HashMap<>();
+
+    /**
+     * Known players whose name has changed, by uuid.
+     */
+    private final Map<UUID, String> renamedPlayers = new HashMap<>();
+
+    /**
+     * World uuids resolved for this batch.
+     */
+    private final Map<UUID, Integer> worldIds = new HashMap<>();
 
     /**
      * Construct a new batch handler.
@@ -101,11 +171,170 @@ public class SqlActivityBatch implements ActivityBatch {
 
     @Override
     public void startBatch() {
-        records = new ArrayList<>();
+        activities = new ArrayList<>();
+        itemHashes.clear();
     }
 
+    /**
+     * Add an activity to the batch.
+     *
+     * <p>Activities are only collected here. All of their dimension keys are resolved
+     * together when the batch is committed.</p>
+     *
+     * @param activity The activity
+     */
     @Override
-    public void add(Activity activity) throws SQLException {
+    public void add(Activity activity) {
+        activities.add(activity);
+    }
+
+    @Override
+    public void commitBatch() throws SQLException {
+        if (activities.isEmpty()) {
+            return;
+        }
+
+        resolveDimensions();
+
+        List<PrismActivitiesRecord> records = new ArrayList<>(activities.size());
+        for (var activity : activities) {
+            records.add(createRecord(activity));
+        }
+
+        insertRecords(records);
+    }
+
+    /**
+     * Write the activity records.
+     *
+     * <p>Adapters override this with their database's native bulk loading.</p>
+     *
+     * @param records The activity records
+     * @throws SQLException The database exception
+     */
+    protected void insertRecords(List<PrismActivitiesRecord> records) throws SQLException {
+        dslContext.batchInsert(records).execute();
+    }
+
+    /**
+     * Get the activity columns written by bulk inserts.
+     *
+     * <p>The primary key is generated and reversed is left to its default.</p>
+     *
+     * @return The fields
+     */
+    protected static List<Field<?>> insertFields() {
+        return Arrays.stream(PRISM_ACTIVITIES.fields())
+            .filter(field -> !field.equals(PRISM_ACTIVITIES.ACTIVITY_ID) && !field.equals(PRISM_ACTIVITIES.REVERSED))
+            .toList();
+    }
+
+    /**
+     * Resolve the primary keys of every action, block, item, entity type, player, world
+     * and cause used by this batch.
+     *
+     * <p>Cached keys are used as-is, everything else is resolved with one select (and if
+     * needed, one multi-row insert) per dimension table instead of per activity.</p>
+     *
+     * @throws SQLException The database exception
+     */
+    protected void resolveDimensions() throws SQLException {
+        Set<String> missingActions = new HashSet<>();
+        Map<String, BlockKey> missingBlocks = new HashMap<>();
+        Set<String> missingCauses = new HashSet<>();
+        Map<String, String> missingEntityTypes = new HashMap<>();
+        Map<String, ItemKey> missingItems = new HashMap<>();
+        Map<UUID, String> missingPlayers = new HashMap<>();
+        Map<UUID, String> missingWorlds = new HashMap<>();
+
+        for (var activity : activities) {
+            var actionKey = activity.action().type().key();
+            if (!actionIds.containsKey(actionKey)) {
+                Integer actionPk = cacheService.actionKeyPkMap().getIfPresent(actionKey);
+                if (actionPk != null) {
+                    actionIds.put(actionKey, actionPk);
+                } else {
+                    missingActions.add(actionKey);
+                }
+            }
+
+            if (activity.action() instanceof EntityAction entityAction) {
+                collectEntityType(entityAction.entityContainer(), missingEntityTypes);
+            }
+
+            if (activity.action() instanceof ItemAction itemAction) {
+                var material = itemAction.serializeMaterial();
+                var data = itemAction.serializeItemData();
+                var hash = ContentCodec.itemHash(material, data);
+                itemHashes.put(activity, hash);
+
+                if (!itemIds.containsKey(hash)) {
+                    Integer itemPk = cacheService.itemDataPkMap().getIfPresent(hash);
+                    if (itemPk != null) {
+                        itemIds.put(hash, itemPk);
+                    } else {
+                        missingItems.put(hash, new ItemKey(material, data));
+                    }
+                }
+            }
+
+            if (activity.action() instanceof BlockAction blockAction) {
+                collectBlock(blockAction.blockContainer(), missingBlocks);
+
+                if (blockAction.replacedBlockContainer() != null) {
+                    collectBlock(blockAction.replacedBlockContainer(), missingBlocks);
+                }
+            }
+
+            if (!worldIds.containsKey(activity.world().key())) {
+                Integer worldPk = cacheService.worldUuidPkMap().getIfPresent(activity.world().key());
+                if (worldPk != null) {
+                    worldIds.put(activity.world().key(), worldPk);
+                } else {
+                    missingWorlds.put(activity.world().key(), activity.world().value());
+                }
+            }
+
+            if (activity.action() instanceof PlayerAction playerAction) {
+                collectPlayer(playerAction.playerContainer(), missingPlayers);
+            }
+
+            if (activity.cause().container() instanceof PlayerContainer playerContainer) {
+                collectPlayer(playerContainer, missingPlayers);
+            } else if (activity.cause().container() instanceof BlockContainer blockContainer) {
+                collectBlock(blockContainer, missingBlocks);
+            } else if (activity.cause().container() instanceof EntityContainer entityContainer) {
+                collectEntityType(entityContainer, missingEntityTypes);
+            } else if (
+                activity.cause().container() instanceof StringContainer stringContainer &&
+                !causeIds.containsKey(stringContainer.value())
+            ) {
+                Long causePk = cacheService.namedCausePkMap().getIfPresent(stringContainer.value());
+                if (causePk != null) {
+                    causeIds.put(stringContainer.value(), causePk);
+                } else {
+                    missingCauses.add(stringContainer.value());
+                }
+            }
+        }
+
+        resolveActionIds(missingActions);
+        resolveBlockIds(missingBlocks);
+        resolveCauseIds(missingCauses);
+        resolveEntityTypeIds(missingEntityTypes);
+        resolveItemIds(missingItems);
+        resolvePlayerIds(missingPlayers);
+        updatePlayerNames();
+        resolveWorldIds(missingWorlds);
+    }
+
+    /**
+     * Build the activity record using the keys resolved for this batch.
+     *
+     * @param activity The activity
+     * @return The record
+     */
+    protected PrismActivitiesRecord createRecord(Activity activity) {
         var record = dslContext.newRecord(PRISM_ACTIVITIES);
 
         record.setTimestamp(UInteger.valueOf(activity.timestamp() / 1000));
@@ -114,91 +343,47 @@ public class SqlActivityBatch implements ActivityBatch {
         record.setZ(activity.coordinate().intZ());
 
         // Set the action relationship
-        record.setActionId(UInteger.valueOf(getOrCreateActionId(activity.action().type().key())));
+        record.setActionId(UInteger.valueOf(actionIds.get(activity.action().type().key())));
 
         // Set the entity relationship
         if (activity.action() instanceof EntityAction entityAction) {
-            var entityTypeId = UInteger.valueOf(
-                getOrCreateEntityTypeId(
-                    entityAction.entityContainer().serializeEntityType(),
-                    entityAction.entityContainer().translationKey()
-                )
+            record.setEntityTypeId(
+                UInteger.valueOf(entityTypeIds.get(entityAction.entityContainer().serializeEntityType()))
             );
-            record.setEntityTypeId(entityTypeId);
         }
 
         // Set the item relationship
         if (activity.action() instanceof ItemAction itemAction) {
-            record.setItemId(
-                UInteger.valueOf(getOrCreateItemId(itemAction.serializeMaterial(), itemAction.serializeItemData()))
-            );
+            record.setItemId(UInteger.valueOf(itemIds.get(itemHashes.get(activity))));
             record.setItemQuantity(UShort.valueOf(itemAction.quantity()));
         }
 
         // Set the block relationship
-        UInteger blockId = null;
         if (activity.action() instanceof BlockAction blockAction) {
-            blockId = UInteger.valueOf(
-                getOrCreateBlockId(
-                    blockAction.blockContainer().blockNamespace(),
-                    blockAction.blockContainer().blockName(),
-                    blockAction.blockContainer().serializeBlockData(),
-                    blockAction.blockContainer().translationKey()
-                )
-            );
-
-            record.setBlockId(blockId);
+            record.setBlockId(UInteger.valueOf(blockId(blockAction.blockContainer())));
 
             if (blockAction.replacedBlockContainer() != null) {
-                record.setReplacedBlockId(
-                    UInteger.valueOf(
-                        getOrCreateBlockId(
-                            blockAction.replacedBlockContainer().blockNamespace(),
-                            blockAction.replacedBlockContainer().blockName(),
-                            blockAction.replacedBlockContainer().serializeBlockData(),
-                            blockAction.replacedBlockContainer().translationKey()
-                        )
-                    )
-                );
+                record.setReplacedBlockId(UInteger.valueOf(blockId(blockAction.replacedBlockContainer())));
             }
         }
 
         // Set the world relationship
-        record.setWorldId(UInteger.valueOf(getOrCreateWorldId(activity.world().key(), activity.world().value())));
+        record.setWorldId(UInteger.valueOf(worldIds.get(activity.world().key())));
 
         // Set the affected player relationship
         if (activity.action() instanceof PlayerAction playerAction) {
-            record.setAffectedPlayerId(
-                UInteger.valueOf(
-                    getOrCreatePlayerId(playerAction.playerContainer().uuid(), playerAction.playerContainer().name())
-                )
-            );
+            record.setAffectedPlayerId(UInteger.valueOf(playerId(playerAction.playerContainer().uuid())));
         }
 
         // Set the cause
         if (activity.cause().container() instanceof PlayerContainer playerContainer) {
-            record.setCausePlayerId(
-                UInteger.valueOf(getOrCreatePlayerId(playerContainer.uuid(), playerContainer.name()))
-            );
+            record.setCausePlayerId(UInteger.valueOf(playerId(playerContainer.uuid())));
         } else if (activity.cause().container() instanceof BlockContainer blockContainer) {
-            record.setCauseBlockId(
-                UInteger.valueOf(
-                    getOrCreateBlockId(
-                        blockContainer.blockNamespace(),
-                        blockContainer.blockName(),
-                        blockContainer.serializeBlockData(),
-                        blockContainer.translationKey()
-                    )
-                )
-            );
+            record.setCauseBlockId(UInteger.valueOf(blockId(blockContainer)));
         } else if (activity.cause().container() instanceof EntityContainer entityContainer) {
-            record.setCauseEntityTypeId(
-                UInteger.valueOf(
-                    getOrCreateEntityTypeId(entityContainer.serializeEntityType(), entityContainer.translationKey())
-                )
-            );
+            record.setCauseEntityTypeId(UInteger.valueOf(entityTypeIds.get(entityContainer.serializeEntityType())));
         } else if (activity.cause().container() instanceof StringContainer stringContainer) {
-            record.setCauseId(UInteger.valueOf(getOrCreateCauseId(stringContainer.value())));
+            record.setCauseId(UInteger.valueOf(causeIds.get(stringContainer.value())));
         }
 
         // Set the descriptor
@@ -220,343 +405,674 @@ public class SqlActivityBatch implements ActivityBatch {
             }
         }
 
-        records.add(record);
+        return record;
     }
 
     /**
-     * Get or create the action record and return the primary key.
+     * Collect a block for resolution unless its key is already known.
      *
-     * @param actionKey The action key
-     * @return The primary key
-     * @throws SQLException The database exception
+     * @param blockContainer The block container
+     * @param missingBlocks The missing blocks
      */
-    private int getOrCreateActionId(String actionKey) throws SQLException {
-        Integer actionKeyPk = cacheService.actionKeyPkMap().getIfPresent(actionKey);
-        if (actionKeyPk != null) {
-            return actionKeyPk;
+    private void collectBlock(BlockContainer blockContainer, Map<String, BlockKey> missingBlocks) {
+        String namespace = blockContainer.blockNamespace();
+        String name = blockContainer.blockName();
+        String blockData = blockContainer.serializeBlockData();
+        if (cacheService.blockPk(namespace, name, blockData) > 0) {
+            return;
         }
 
-        int primaryKey;
+        String hash = ContentCodec.blockHash(namespace, name, blockData);
+        if (blockIds.containsKey(hash) || missingBlocks.containsKey(hash)) {
+            return;
+        }
 
-        // Select any existing record
-        UInteger intPk = dslContext
-            .select(PRISM_ACTIONS.ACTION_ID)
-            .from(PRISM_ACTIONS)
-            .where(PRISM_ACTIONS.ACTION.equal(actionKey))
-            .fetchOne(PRISM_ACTIONS.ACTION_ID);
+        Integer blockPk = cacheService.blockDataPkMap().getIfPresent(hash);
+        if (blockPk != null) {
+            blockIds.put(hash, blockPk);
+        } else {
+            missingBlocks.put(hash, new BlockKey(namespace, name, blockData, blockContainer.translationKey()));
+        }
+    }
 
-        if (intPk != null) {
-            primaryKey = intPk.intValue();
+    /**
+     * Collect an entity type for resolution unless its key is already known.
+     *
+     * @param entityContainer The entity container
+     * @param missingEntityTypes The missing entity types
+     */
+    private void collectEntityType(EntityContainer entityContainer, Map<String, String> missingEntityTypes) {
+        String entityType = entityContainer.serializeEntityType();
+        if (entityTypeIds.containsKey(entityType) || missingEntityTypes.containsKey(entityType)) {
+            return;
+        }
+
+        Integer entityPk = cacheService.entityTypePkMap().getIfPresent(entityType);
+        if (entityPk != null) {
+            entityTypeIds.put(entityType, entityPk);
         } else {
-            // Create the record
-            intPk = dslContext
-                .insertInto(PRISM_ACTIONS, PRISM_ACTIONS.ACTION)
-                .values(actionKey)
-                .returningResult(PRISM_ACTIONS.ACTION_ID)
-                .fetchOne(PRISM_ACTIONS.ACTION_ID);
-
-            if (intPk != null) {
-                primaryKey = intPk.intValue();
-            } else {
+            missingEntityTypes.put(entityType, entityContainer.translationKey());
+        }
+    }
+
+    /**
+     * Collect a player for resolution unless its key is already known.
+     *
+     * @param playerContainer The player container
+     * @param missingPlayers The missing players
+     */
+    private void collectPlayer(PlayerContainer playerContainer, Map<UUID, String> missingPlayers) {
+        UUID uuid = playerContainer.uuid();
+        if (playerIds.containsKey(uuid)) {
+            return;
+        }
+
+        long playerPk = cacheService.playerPk(uuid);
+        if (playerPk <= 0) {
+            Long cachedPk = cacheService.playerUuidPkMap().getIfPresent(uuid);
+            if (cachedPk == null) {
+                missingPlayers.put(uuid, playerContainer.name());
+
+                return;
+            }
+
+            playerPk = cachedPk;
+        }
+
+        playerIds.put(uuid, playerPk);
+
+        // Known players skip the select, so a rename has to be caught here
+        var cachedPlayer = cacheService.player(playerPk);
+        if (
+            playerContainer.name() != null &&
+            cachedPlayer != null &&
+            !playerContainer.name().equals(cachedPlayer.name())
+        ) {
+            renamedPlayers.put(uuid, playerContainer.name());
+        }
+    }
+
+    /**
+     * Resolve (and create when needed) action records.
+     *
+     * @param actionKeys The action keys
+     * @throws SQLException The database exception
+     */
+    private void resolveActionIds(Set<String> actionKeys) throws SQLException {
+        if (actionKeys.isEmpty()) {
+            return;
+        }
+
+        selectActionIds(actionKeys);
+
+        insertMissing(
+            actionKeys,
+            actionIds::containsKey,
+            chunk -> {
+                var insert = dslContext.insertInto(PRISM_ACTIONS, PRISM_ACTIONS.ACTION);
+                for (var actionKey : chunk) {
+                    insert = insert.values(actionKey);
+                }
+
+                return insert;
+            },
+            this::selectActionIds,
+            "action"
+        );
+
+        for (var actionKey : actionKeys) {
+            Integer actionPk = actionIds.get(actionKey);
+            if (actionPk == null) {
                 throw new SQLException(
                     String.format("Failed to get or create an action record. Action: %s", actionKey)
                 );
             }
-        }
 
-        cacheService.actionKeyPkMap().put(actionKey, primaryKey);
+            cacheService.actionKeyPkMap().put(actionKey, actionPk);
+        }
+    }
 
-        return primaryKey;
+    /**
+     * Select existing action records.
+     *
+     * @param actionKeys The action keys
+     */
+    private void selectActionIds(Collection<String> actionKeys) {
+        for (var chunk : chunk(actionKeys)) {
+            dslContext
+                .select(PRISM_ACTIONS.ACTION, PRISM_ACTIONS.ACTION_ID)
+                .from(PRISM_ACTIONS)
+                .where(PRISM_ACTIONS.ACTION.in(chunk))
+                .fetch()
+                .forEach(r -> actionIds.put(r.value1(), r.value2().intValue()));
+        }
     }
 
     /**
-     * Get or create the block data record and return the primary key.
+     * Resolve (and create when needed) block records.
      *
-     * @param blockData The block data
-     * @return The primary key
+     * @param blocks The blocks, by content hash
      * @throws SQLException The database exception
      */
-    private int getOrCreateBlockId(String namespace, String name, String blockData, String translationKey)
-        throws SQLException {
-        String blockKey = namespace + ":" + name + (blockData == null ? "" : blockData);
-        Integer blockPk = cacheService.blockDataPkMap().getIfPresent(blockKey);
-        if (blockPk != null) {
-            return blockPk;
+    private void resolveBlockIds(Map<String, BlockKey> blocks) throws SQLException {
+        if (blocks.isEmpty()) {
+            return;
         }
 
-        int primaryKey;
+        selectBlockIds(blocks.keySet());
 
-        // Select the existing block
-        UInteger intPk = dslContext
-            .select(PRISM_BLOCKS.BLOCK_ID)
-            .from(PRISM_BLOCKS)
-            .where(PRISM_BLOCKS.NS.equal(namespace), PRISM_BLOCKS.NAME.equal(name), PRISM_BLOCKS.DATA.equal(blockData))
-            .fetchOne(PRISM_BLOCKS.BLOCK_ID);
-
-        if (intPk != null) {
-            primaryKey = intPk.intValue();
-        } else {
-            // Create the record
-            intPk = dslContext
-                .insertInto(
+        insertMissing(
+            blocks.keySet(),
+            blockIds::containsKey,
+            chunk -> {
+                var insert = dslContext.insertInto(
                     PRISM_BLOCKS,
                     PRISM_BLOCKS.NS,
                     PRISM_BLOCKS.NAME,
                     PRISM_BLOCKS.DATA,
-                    PRISM_BLOCKS.TRANSLATION_KEY
-                )
-                .values(namespace, name, blockData, translationKey)
-                .returningResult(PRISM_BLOCKS.BLOCK_ID)
-                .fetchOne(PRISM_BLOCKS.BLOCK_ID);
-
-            if (intPk != null) {
-                primaryKey = intPk.intValue();
-            } else {
+                    PRISM_BLOCKS.TRANSLATION_KEY,
+                    PRISM_BLOCKS.DATA_HASH
+                );
+                for (var hash : chunk) {
+                    var block = blocks.get(hash);
+                    insert = insert.values(
+                        block.namespace(),
+                        block.name(),
+                        block.data(),
+                        block.translationKey(),
+                        hash
+                    );
+                }
+
+                return insert;
+            },
+            this::selectBlockIds,
+            "block"
+        );
+
+        for (var entry : blocks.entrySet()) {
+            Integer blockPk = blockIds.get(entry.getKey());
+            if (blockPk == null) {
+                var block = entry.getValue();
                 throw new SQLException(
-                    String.format("Failed to get or create a block record. Block: %s:%s %s", namespace, name, blockData)
+                    String.format(
+                        "Failed to get or create a block record. Block: %s:%s %s",
+                        block.namespace(),
+                        block.name(),
+                        block.data()
+                    )
                 );
             }
-        }
 
-        cacheService.blockDataPkMap().put(blockKey, primaryKey);
+            var block = entry.getValue();
+            cacheService.blockDataPkMap().put(entry.getKey(), blockPk);
+            cacheService.cacheBlock(blockPk, block.namespace(), block.name(), block.data(), block.translationKey());
+        }
+    }
 
-        return primaryKey;
+    /**
+     * Select existing block records.
+     *
+     * @param hashes The block content hashes
+     */
+    private void selectBlockIds(Collection<String> hashes) {
+        for (var chunk : chunk(hashes)) {
+            dslContext
+                .select(PRISM_BLOCKS.DATA_HASH, PRISM_BLOCKS.BLOCK_ID)
+                .from(PRISM_BLOCKS)
+                .where(PRISM_BLOCKS.DATA_HASH.in(chunk))
+                .fetch()
+                .forEach(r -> blockIds.put(r.value1(), r.value2().intValue()));
+        }
     }
 
     /**
-     * Get or create the cause record and return the primary key.
+     * Resolve (and create when needed) named cause records.
      *
-     * @param causeName The cause name
-     * @return The primary key
+     * @param causes The cause names
      * @throws SQLException The database exception
      */
-    private long getOrCreateCauseId(String causeName) throws SQLException {
-        Long causePk = cacheService.namedCausePkMap().getIfPresent(causeName);
-        if (causePk != null) {
-            return causePk;
+    private void resolveCauseIds(Set<String> causes) throws SQLException {
+        if (causes.isEmpty()) {
+            return;
         }
 
-        long primaryKey;
-
-        UInteger intPk = dslContext
-            .select(PRISM_CAUSES.CAUSE_ID)
-            .from(PRISM_CAUSES)
-            .where(PRISM_CAUSES.CAUSE.equal(causeName))
-            .fetchOne(PRISM_CAUSES.CAUSE_ID);
-
-        if (intPk != null) {
-            primaryKey = intPk.longValue();
-        } else {
-            // Create the record
-            intPk = dslContext
-                .insertInto(PRISM_CAUSES)
-                .set(PRISM_CAUSES.CAUSE, causeName)
-                .returningResult(PRISM_CAUSES.CAUSE_ID)
-                .fetchOne(PRISM_CAUSES.CAUSE_ID);
-
-            if (intPk != null) {
-                primaryKey = intPk.longValue();
-            } else {
+        selectCauseIds(causes);
+
+        insertMissing(
+            causes,
+            causeIds::containsKey,
+            chunk -> {
+                var insert = dslContext.insertInto(PRISM_CAUSES, PRISM_CAUSES.CAUSE);
+                for (var cause : chunk) {
+                    insert = insert.values(cause);
+                }
+
+                return insert;
+            },
+            this::selectCauseIds,
+            "cause"
+        );
+
+        for (var cause : causes) {
+            Long causePk = causeIds.get(cause);
+            if (causePk == null) {
                 throw new SQLException(
-                    String.format("Failed to get or create a named cause record. Cause name: %s", causeName)
+                    String.format("Failed to get or create a named cause record. Cause name: %s", cause)
                 );
             }
-        }
 
-        cacheService.namedCausePkMap().put(causeName, primaryKey);
+            cacheService.namedCausePkMap().put(cause, causePk);
+        }
+    }
 
-        return primaryKey;
+    /**
+     * Select existing named cause records.
+     *
+     * @param causes The cause names
+     */
+    private void selectCauseIds(Collection<String> causes) {
+        for (var chunk : chunk(causes)) {
+            dslContext
+                .select(PRISM_CAUSES.CAUSE, PRISM_CAUSES.CAUSE_ID)
+                .from(PRISM_CAUSES)
+                .where(PRISM_CAUSES.CAUSE.in(chunk))
+                .fetch()
+                .forEach(r -> causeIds.put(r.value1(), r.value2().longValue()));
+        }
     }
 
     /**
-     * Get or create the entity type record and return the primary key.
+     * Resolve (and create when needed) entity type records.
      *
-     * @param entityType The entity type
-     * @param translationKey The translation key
-     * @return The primary key
+     * @param entityTypes The entity types, mapped to their translation keys
      * @throws SQLException The database exception
      */
-    private int getOrCreateEntityTypeId(String entityType, String translationKey) throws SQLException {
-        Integer entityPk = cacheService.entityTypePkMap().getIfPresent(entityType);
-        if (entityPk != null) {
-            return entityPk;
+    private void resolveEntityTypeIds(Map<String, String> entityTypes) throws SQLException {
+        if (entityTypes.isEmpty()) {
+            return;
         }
 
-        int primaryKey;
-
-        // Select the existing record
-        UInteger intPk = dslContext
-            .select(PRISM_ENTITY_TYPES.ENTITY_TYPE_ID)
-            .from(PRISM_ENTITY_TYPES)
-            .where(PRISM_ENTITY_TYPES.ENTITY_TYPE.equal(entityType))
-            .fetchOne(PRISM_ENTITY_TYPES.ENTITY_TYPE_ID);
+        selectEntityTypeIds(entityTypes.keySet());
 
-        if (intPk != null) {
-            primaryKey = intPk.intValue();
-        } else {
-            // Create the record
-            intPk = dslContext
-                .insertInto(PRISM_ENTITY_TYPES, PRISM_ENTITY_TYPES.ENTITY_TYPE, PRISM_ENTITY_TYPES.TRANSLATION_KEY)
-                .values(entityType, translationKey)
-                .returningResult(PRISM_ENTITY_TYPES.ENTITY_TYPE_ID)
-                .fetchOne(PRISM_ENTITY_TYPES.ENTITY_TYPE_ID);
-
-            if (intPk != null) {
-                primaryKey = intPk.intValue();
-            } else {
+        insertMissing(
+            entityTypes.keySet(),
+            entityTypeIds::containsKey,
+            chunk -> {
+                var insert = dslContext.insertInto(
+                    PRISM_ENTITY_TYPES,
+                    PRISM_ENTITY_TYPES.ENTITY_TYPE,
+                    PRISM_ENTITY_TYPES.TRANSLATION_KEY
+                );
+                for (var entityType : chunk) {
+                    insert = insert.values(entityType, entityTypes.get(entityType));
+                }
+
+                return insert;
+            },
+            this::selectEntityTypeIds,
+            "entity type"
+        );
+
+        for (var entityType : entityTypes.keySet()) {
+            Integer entityPk = entityTypeIds.get(entityType);
+            if (entityPk == null) {
                 throw new SQLException(
                     String.format("Failed to get or create a entity type record. Material: %s", entityType)
                 );
             }
-        }
 
-        cacheService.entityTypePkMap().put(entityType, primaryKey);
+            cacheService.entityTypePkMap().put(entityType, entityPk);
+        }
+    }
 
-        return primaryKey;
+    /**
+     * Select existing entity type records.
+     *
+     * @param entityTypes The entity types
+     */
+    private void selectEntityTypeIds(Collection<String> entityTypes) {
+        for (var chunk : chunk(entityTypes)) {
+            dslContext
+                .select(PRISM_ENTITY_TYPES.ENTITY_TYPE, PRISM_ENTITY_TYPES.ENTITY_TYPE_ID)
+                .from(PRISM_ENTITY_TYPES)
+                .where(PRISM_ENTITY_TYPES.ENTITY_TYPE.in(chunk))
+                .fetch()
+                .forEach(r -> entityTypeIds.put(r.value1(), r.value2().intValue()));
+        }
     }
 
     /**
-     * Get or create the item record and return the primary key.
+     * Resolve (and create when needed) item records.
      *
-     * @param material The material
-     * @param data The item data
-     * @return The primary key
+     * @param items The items, by content hash
      * @throws SQLException The database exception
      */
-    private int getOrCreateItemId(String material, String data) throws SQLException {
-        Integer itemPk = cacheService.itemDataPkMap().getIfPresent(data);
-        if (itemPk != null) {
-            return itemPk;
+    private void resolveItemIds(Map<String, ItemKey> items) throws SQLException {
+        if (items.isEmpty()) {
+            return;
         }
 
-        int primaryKey;
-
-        // Select the existing item
-        UInteger intPk = dslContext
-            .select(PRISM_ITEMS.ITEM_ID)
-            .from(PRISM_ITEMS)
-            .where(PRISM_ITEMS.MATERIAL.equal(material), PRISM_ITEMS.DATA.equal(data))
-            .fetchOne(PRISM_ITEMS.ITEM_ID);
-
-        if (intPk != null) {
-            primaryKey = intPk.intValue();
-        } else {
-            // Create the record
-            intPk = dslContext
-                .insertInto(PRISM_ITEMS, PRISM_ITEMS.MATERIAL, PRISM_ITEMS.DATA)
-                .values(material, data)
-                .returningResult(PRISM_ITEMS.ITEM_ID)
-                .fetchOne(PRISM_ITEMS.ITEM_ID);
-
-            if (intPk != null) {
-                primaryKey = intPk.intValue();
-            } else {
-                throw new SQLException(String.format("Failed to get or create an item record. Material: %s", material));
+        selectItemIds(items.keySet());
+
+        insertMissing(
+            items.keySet(),
+            itemIds::containsKey,
+            chunk -> {
+                var insert = dslContext.insertInto(
+                    PRISM_ITEMS,
+                    PRISM_ITEMS.MATERIAL,
+                    PRISM_ITEMS.DATA,
+                    PRISM_ITEMS.DATA_HASH
+                );
+                for (var hash : chunk) {
+                    var item = items.get(hash);
+                    insert = insert.values(item.material(), ContentCodec.compress(item.data()), hash);
+                }
+
+                return insert;
+            },
+            this::selectItemIds,
+            "item"
+        );
+
+        for (var entry : items.entrySet()) {
+            Integer itemPk = itemIds.get(entry.getKey());
+            if (itemPk == null) {
+                throw new SQLException(
+                    String.format("Failed to get or create an item record. Material: %s", entry.getValue().material())
+                );
             }
-        }
 
-        cacheService.itemDataPkMap().put(data, primaryKey);
+            cacheService.itemDataPkMap().put(entry.getKey(), itemPk);
+        }
+    }
 
-        return primaryKey;
+    /**
+     * Select existing item records.
+     *
+     * @param hashes The item content hashes
+     */
+    private void selectItemIds(Collection<String> hashes) {
+        for (var chunk : chunk(hashes)) {
+            dslContext
+                .select(PRISM_ITEMS.DATA_HASH, PRISM_ITEMS.ITEM_ID)
+                .from(PRISM_ITEMS)
+                .where(PRISM_ITEMS.DATA_HASH.in(chunk))
+                .fetch()
+                .forEach(r -> itemIds.put(r.value1(), r.value2().intValue()));
+        }
     }
 
     /**
-     * Get or create the player record and return the primary key.
+     * Resolve (and create when needed) player records.
      *
      * <p>Note: This will update the player name.</p>
      *
-     * @param playerUuid The player uuid
-     * @param playerName The player name
-     * @return The primary key
+     * @param players The player names, by uuid
      * @throws SQLException The database exception
      */
-    private long getOrCreatePlayerId(UUID playerUuid, String playerName) throws SQLException {
-        Long playerPk = cacheService.playerUuidPkMap().getIfPresent(playerUuid);
-        if (playerPk != null) {
-            return playerPk;
+    private void resolvePlayerIds(Map<UUID, String> players) throws SQLException {
+        if (players.isEmpty()) {
+            return;
         }
 
-        long primaryKey;
+        selectPlayerIds(players);
+
+        insertMissing(
+            players.keySet(),
+            playerIds::containsKey,
+            chunk -> {
+                var insert = dslContext.insertInto(PRISM_PLAYERS, PRISM_PLAYERS.PLAYER_UUID, PRISM_PLAYERS.PLAYER);
+                for (var uuid : chunk) {
+                    insert = insert.values(uuid.toString(), players.get(uuid));
+                }
+
+                return insert;
+            },
+            uuids -> selectPlayerIds(players),
+            "player"
+        );
+
+        for (var uuid : players.keySet()) {
+            Long playerPk = playerIds.get(uuid);
+            if (playerPk == null) {
+                throw new SQLException(String.format("Failed to get or create a player record. Player: %s", uuid));
+            }
 
-        // Create the player or update the name
-        dslContext
-            .insertInto(PRISM_PLAYERS, PRISM_PLAYERS.PLAYER_UUID, PRISM_PLAYERS.PLAYER)
-            .values(playerUuid.toString(), playerName)
-            .onConflict(PRISM_PLAYERS.PLAYER_UUID)
-            .doUpdate()
-            .set(PRISM_PLAYERS.PLAYER, playerName)
-            .execute();
-
-        // Get the primary key.
-        // Every but postgres needs a second query to get the pk, so we just do this for everyone.
-        var result = dslContext
-            .select(PRISM_PLAYERS.PLAYER_ID)
-            .from(PRISM_PLAYERS)
-            .where(PRISM_PLAYERS.PLAYER_UUID.eq(playerUuid.toString()))
-            .fetchOne();
-
-        if (result != null) {
-            primaryKey = result.value1().longValue();
-        } else {
-            throw new SQLException(String.format("Failed to get or create a player record. Player: %s", playerUuid));
+            cacheService.playerUuidPkMap().put(uuid, playerPk);
+            cacheService.cachePlayer(playerPk, uuid, players.get(uuid));
         }
+    }
 
-        cacheService.playerUuidPkMap().put(playerUuid, primaryKey);
+    /**
+     * Update the names of known players that have been renamed.
+     */
+    private void updatePlayerNames() {
+        for (var entry : renamedPlayers.entrySet()) {
+            long playerPk = playerIds.get(entry.getKey());
+            dslContext
+                .update(PRISM_PLAYERS)
+                .set(PRISM_PLAYERS.PLAYER, entry.getValue())
+                .where(PRISM_PLAYERS.PLAYER_ID.equal(UInteger.valueOf(playerPk)))
+                .execute();
+
+            cacheService.cachePlayer(playerPk, entry.getKey(), entry.getValue());
+        }
 
-        return primaryKey;
+        renamedPlayers.clear();
     }
 
     /**
-     * Get or create the world record and return the primary key.
+     * Select existing player records, updating any player whose name has changed.
      *
-     * <p>Note: This will update the world name.</p>
+     * @param players The player names, by uuid
+     */
+    private void selectPlayerIds(Map<UUID, String> players) {
+        List<String> unresolved = players
+            .keySet()
+            .stream()
+            .filter(uuid -> !playerIds.containsKey(uuid))
+            .map(UUID::toString)
+            .toList();
+        for (var chunk : chunk(unresolved)) {
+            var result = dslContext
+                .select(PRISM_PLAYERS.PLAYER_UUID, PRISM_PLAYERS.PLAYER, PRISM_PLAYERS.PLAYER_ID)
+                .from(PRISM_PLAYERS)
+                .where(PRISM_PLAYERS.PLAYER_UUID.in(chunk))
+                .fetch();
+
+            for (var r : result) {
+                UUID uuid = UUID.fromString(r.value1());
+                String playerName = players.get(uuid);
+                if (playerName != null && !playerName.equals(r.value2())) {
+                    dslContext
+                        .update(PRISM_PLAYERS)
+                        .set(PRISM_PLAYERS.PLAYER, playerName)
+                        .where(PRISM_PLAYERS.PLAYER_ID.equal(r.value3()))
+                        .execute();
+                }
+
+                playerIds.put(uuid, r.value3().longValue());
+            }
+        }
+    }
+
+    /**
+     * Resolve (and create when needed) world records.
      *
-     * @param worldUuid The world uuid
-     * @param worldName The world name
-     * @return The primary key
+     * @param worlds The world names, by uuid
      * @throws SQLException The database exception
      */
-    private int getOrCreateWorldId(UUID worldUuid, String worldName) throws SQLException {
-        Integer worldPk = cacheService.worldUuidPkMap().getIfPresent(worldUuid);
-        if (worldPk != null) {
-            return worldPk;
+    private void resolveWorldIds(Map<UUID, String> worlds) throws SQLException {
+        if (worlds.isEmpty()) {
+            return;
         }
 
-        int primaryKey;
-
-        // Select any existing record
         // Note: We check *then* insert instead of using on duplicate key because ODK would
         // generate a new auto-increment primary key and update it every time, leading to ballooning PKs
-        UInteger intPk = dslContext
-            .select(PRISM_WORLDS.WORLD_ID)
+        selectWorldIds(worlds.keySet());
+
+        insertMissing(
+            worlds.keySet(),
+            worldIds::containsKey,
+            chunk -> {
+                var insert = dslContext.insertInto(PRISM_WORLDS, PRISM_WORLDS.WORLD_UUID, PRISM_WORLDS.WORLD);
+                for (var uuid : chunk) {
+                    insert = insert.values(uuid.toString(), worlds.get(uuid));
+                }
+
+                return insert;
+            },
+            this::selectWorldIds,
+            "world"
+        );
+
+        for (var uuid : worlds.keySet()) {
+            Integer worldPk = worldIds.get(uuid);
+            if (worldPk == null) {
+                throw new SQLException(String.format("Failed to get or create a world record. World: %s", uuid));
+            }
+
+            cacheService.worldUuidPkMap().put(uuid, worldPk);
+        }
+    }
+
+    /**
+     * Select existing world records.
+     *
+     * @param worldUuids The world uuids
+     */
+    private void selectWorldIds(Collection<UUID> worldUuids) {
+        dslContext
+            .select(PRISM_WORLDS.WORLD_UUID, PRISM_WORLDS.WORLD_ID)
             .from(PRISM_WORLDS)
-            .where(PRISM_WORLDS.WORLD_UUID.equal(worldUuid.toString()))
-            .fetchOne(PRISM_WORLDS.WORLD_ID);
+            .where(PRISM_WORLDS.WORLD_UUID.in(worldUuids.stream().map(UUID::toString).toList()))
+            .fetch()
+            .forEach(r -> worldIds.put(UUID.fromString(r.value1()), r.value2().intValue()));
+    }
 
-        if (intPk != null) {
-            primaryKey = intPk.intValue();
-        } else {
-            // Create the record
-            intPk = dslContext
-                .insertInto(PRISM_WORLDS, PRISM_WORLDS.WORLD_UUID, PRISM_WORLDS.WORLD)
-                .values(worldUuid.toString(), worldName)
-                .returningResult(PRISM_WORLDS.WORLD_ID)
-                .fetchOne(PRISM_WORLDS.WORLD_ID);
-
-            if (intPk != null) {
-                primaryKey = intPk.intValue();
-            } else {
-                throw new SQLException(String.format("Failed to get or create a world record. World: %s", worldUuid));
+    /**
+     * Insert the dimension records that don't exist yet, then select their primary keys.
+     *
+     * <p>Another worker may insert some of the same keys first, failing the whole insert on a
+     * duplicate key. The keys it created are then selected and only the rest are inserted again.</p>
+     *
+     * @param keys The keys the batch needs
+     * @param resolved Whether a key's primary key is known
+     * @param insert Builds the insert for a chunk of keys
+     * @param select Selects the primary keys of existing keys
+     * @param dimension The dimension name, for logging
+     * @param <K> The key type
+     */
+    private <K> void insertMissing(
+        Collection<K> keys,
+        Predicate<K> resolved,
+        Function<List<K>, Query> insert,
+        Consumer<List<K>> select,
+        String dimension
+    ) {
+        List<K> missing = keys.stream().filter(resolved.negate()).toList();
+        for (int attempt = 0; attempt < MAX_INSERT_ATTEMPTS && !missing.isEmpty(); attempt++) {
+            boolean conflicted = false;
+            for (var chunk : chunk(missing)) {
+                conflicted |= !executeInsert(insert.apply(chunk), dimension);
+            }
+
+            select.accept(missing);
+            missing = missing.stream().filter(resolved.negate()).toList();
+
+            if (!conflicted) {
+                break;
             }
         }
+    }
 
-        cacheService.worldUuidPkMap().put(worldUuid, primaryKey);
+    /**
+     * Execute a multi-row dimension insert.
+     *
+     * <p>Only duplicate keys are expected, since another worker may create the same records.
+     * Anything else is logged, and the keys are left unresolved so the batch fails.</p>
+     *
+     * @param insert The insert
+     * @param dimension The dimension name, for logging
+     * @return False if the insert hit a duplicate key and should be retried
+     */
+    private boolean executeInsert(Query insert, String dimension) {
+        try {
+            insert.execute();
+        } catch (DataAccessException e) {
+            if (e.sqlStateClass() == SQLStateClass.C23_INTEGRITY_CONSTRAINT_VIOLATION) {
+                loggingService.debug("Recorder: Duplicate {0} records, re-selecting: {1}", dimension, e.getMessage());
+
+                return false;
+            }
 
-        return primaryKey;
+            loggingService.handleException(e);
+        }
+
+        return true;
     }
 
-    @Override
-    public void commitBatch() {
-        dslContext.batchInsert(records).execute();
+    /**
+     * Get the primary key of a block resolved for this batch.
+     *
+     * @param blockContainer The block container
+     * @return The primary key
+     */
+    private int blockId(BlockContainer blockContainer) {
+        String namespace = blockContainer.blockNamespace();
+        String name = blockContainer.blockName();
+        String blockData = blockContainer.serializeBlockData();
+
+        int blockPk = cacheService.blockPk(namespace, name, blockData);
+        return blockPk > 0 ? blockPk : blockIds.get(ContentCodec.blockHash(namespace, name, blockData));
     }
+
+    /**
+     * Get the primary key of a player resolved for this batch.
+     *
+     * @param uuid The player uuid
+     * @return The primary key
+     */
+    private long playerId(UUID uuid) {
+        long playerPk = cacheService.playerPk(uuid);
+        return playerPk > 0 ? playerPk : playerIds.get(uuid);
+    }
+
+    /**
+     * Split values into chunks small enough for a single statement.
+     *
+     * @param values The values
+     * @param <T> The value type
+     * @return The chunks
+     */
+    private static <T> List<List<T>> chunk(Collection<T> values) {
+        List<T> list = values instanceof List<T> l ? l : new ArrayList<>(values);
+
+        List<List<T>> chunks = new ArrayList<>();
+        for (int i = 0; i < list.size(); i += KEYS_PER_QUERY) {
+            chunks.add(list.subList(i, Math.min(i + KEYS_PER_QUERY, list.size())));
+        }
+
+        return chunks;
+    }
+
+    /**
+     * A block's natural key.
+     *
+     * @param namespace The namespace
+     * @param name The name
+     * @param data The block data
+     * @param translationKey The translation key
+     */
+    private record BlockKey(String namespace, String name, String data, String translationKey) {}
+
+    /**
+     * An item's natural key.
+     *
+     * @param material The material
+     * @param data The serialized item data
+     */
+    private record ItemKey(String material, String data) {}
 }
@@ -97,7 +97,7 @@ public class SqlActivityProcedureBatch implements ActivityBatch {
 
         statement = connection.prepareCall(
             String.format(
-                "{ CALL %screate_activity(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) }",
+                "{ CALL %screate_activity(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) }",
                 prefix
             )
         );
@@ -115,31 +115,35 @@ public class SqlActivityProcedureBatch implements ActivityBatch {
         int affectedItemMaterialIndex = 8;
         int affectedItemQuantityIndex = 9;
         int affectedItemDataIndex = 10;
-        int affectedBlockNamespaceIndex = 11;
-        int affectedBlockNameIndex = 12;
-        int affectedBlockDataIndex = 13;
-        int affectedBlockTranslationKeyIndex = 14;
-        int replacedBlockNamespaceIndex = 15;
-        int replacedBlockNameIndex = 16;
-        int replacedBlockDataIndex = 17;
-        int replacedBlockTranslationKeyIndex = 18;
-        int affectedEntityTypeIndex = 19;
-        int affectedEntityTypeTranslationKeyIndex = 20;
-        int affectedPlayerNameIndex = 21;
-        int affectedPlayerUuidIndex = 22;
-        int causeNameIndex = 23;
-        int causePlayerNameIndex = 24;
-        int causePlayerUuidIndex = 25;
-        int causeEntityTypeIndex = 26;
-        int causeEntityTypeTranslationKeyIndex = 27;
-        int causeBlockNamespaceIndex = 28;
-        int causeBlockNameIndex = 29;
-        int causeBlockDataIndex = 30;
-        int causeBlockTranslationKeyIndex = 31;
-        int serializerVersionIndex = 32;
-        int serializedDataIndex = 33;
-        int descriptorIndex = 34;
-        int metadataIndex = 35;
+        int affectedItemHashIndex = 11;
+        int affectedBlockNamespaceIndex = 12;
+        int affectedBlockNameIndex = 13;
+        int affectedBlockDataIndex = 14;
+        int affectedBlockTranslationKeyIndex = 15;
+        int affectedBlockHashIndex = 16;
+        int replacedBlockNamespaceIndex = 17;
+        int replacedBlockNameIndex = 18;
+        int replacedBlockDataIndex = 19;
+        int replacedBlockTranslationKeyIndex = 20;
+        int replacedBlockHashIndex = 21;
+        int affectedEntityTypeIndex = 22;
+        int affectedEntityTypeTranslationKeyIndex = 23;
+        int affectedPlayerNameIndex = 24;
+        int affectedPlayerUuidIndex = 25;
+        int causeNameIndex = 26;
+        int causePlayerNameIndex = 27;
+        int causePlayerUuidIndex = 28;
+        int causeEntityTypeIndex = 29;
+        int causeEntityTypeTranslationKeyIndex = 30;
+        int causeBlockNamespaceIndex = 31;
+        int causeBlockNameIndex = 32;
+        int causeBlockDataIndex = 33;
+        int causeBlockTranslationKeyIndex = 34;
+        int causeBlockHashIndex = 35;
+        int serializerVersionIndex = 36;
+        int serializedDataIndex = 37;
+        int descriptorIndex = 38;
+        int metadataIndex = 39;
 
         statement.setLong(timestampIndex, activity.timestamp() / 1000);
         statement.setInt(xIndex, activity.coordinate().intX());
@@ -166,6 +170,7 @@ public class SqlActivityProcedureBatch implements ActivityBatch {
         statement.setNull(causeBlockNameIndex, Types.VARCHAR);
         statement.setNull(causeBlockDataIndex, Types.VARCHAR);
         statement.setNull(causeBlockTranslationKeyIndex, Types.VARCHAR);
+        statement.setNull(causeBlockHashIndex, Types.CHAR);
 
         if (activity.cause().container() instanceof StringContainer stringContainer) {
             statement.setString(causeNameIndex, stringContainer.value());
@@ -180,6 +185,7 @@ public class SqlActivityProcedureBatch implements ActivityBatch {
             statement.setString(causeBlockNameIndex, blockContainer.blockName());
             statement.setString(causeBlockDataIndex, blockContainer.serializeBlockData());
             statement.setString(causeBlockTranslationKeyIndex, blockContainer.translationKey());
+            statement.setString(causeBlockHashIndex, blockHash(blockContainer));
         }
 
         // Entity
@@ -193,13 +199,17 @@ public class SqlActivityProcedureBatch implements ActivityBatch {
 
         // Material
         if (activity.action() instanceof ItemAction itemAction) {
-            statement.setString(affectedItemMaterialIndex, itemAction.serializeMaterial());
+            String material = itemAction.serializeMaterial();
+            String data = itemAction.serializeItemData();
+            statement.setString(affectedItemMaterialIndex, material);
             statement.setShort(affectedItemQuantityIndex, (short) itemAction.quantity());
-            statement.setString(affectedItemDataIndex, itemAction.serializeItemData());
+            statement.setBytes(affectedItemDataIndex, ContentCodec.compress(data));
+            statement.setString(affectedItemHashIndex, ContentCodec.itemHash(material, data));
         } else {
             statement.setNull(affectedItemMaterialIndex, Types.VARCHAR);
             statement.setNull(affectedItemQuantityIndex, Types.SMALLINT);
-            statement.setNull(affectedItemDataIndex, Types.VARCHAR);
+            statement.setNull(affectedItemDataIndex, Types.VARBINARY);
+            statement.setNull(affectedItemHashIndex, Types.CHAR);
         }
 
         // Block data
@@ -208,11 +218,13 @@ public class SqlActivityProcedureBatch implements ActivityBatch {
             statement.setString(affectedBlockNameIndex, blockAction.blockContainer().blockName());
             statement.setString(affectedBlockDataIndex, blockAction.blockContainer().serializeBlockData());
             statement.setString(affectedBlockTranslationKeyIndex, blockAction.blockContainer().translationKey());
+            statement.setString(affectedBlockHashIndex, blockHash(blockAction.blockContainer()));
         } else {
             statement.setNull(affectedBlockNamespaceIndex, Types.VARCHAR);
             statement.setNull(affectedBlockNameIndex, Types.VARCHAR);
             statement.setNull(affectedBlockDataIndex, Types.VARCHAR);
             statement.setNull(affectedBlockTranslationKeyIndex, Types.VARCHAR);
+            statement.setNull(affectedBlockHashIndex, Types.CHAR);
         }
 
         // Replaced block data
@@ -224,11 +236,13 @@ public class SqlActivityProcedureBatch implements ActivityBatch {
                 replacedBlockTranslationKeyIndex,
                 blockAction.replacedBlockContainer().translationKey()
             );
+            statement.setString(replacedBlockHashIndex, blockHash(blockAction.replacedBlockContainer()));
         } else {
             statement.setNull(replacedBlockNamespaceIndex, Types.VARCHAR);
             statement.setNull(replacedBlockNameIndex, Types.VARCHAR);
             statement.setNull(replacedBlockDataIndex, Types.VARCHAR);
             statement.setNull(replacedBlockTranslationKeyIndex, Types.VARCHAR);
+            statement.setNull(replacedBlockHashIndex, Types.CHAR);
         }
 
         // World
@@ -277,4 +291,18 @@ public class SqlActivityProcedureBatch implements ActivityBatch {
             connection.close();
         }
     }
+
+    /**
+     * Hash a block's content.
+     *
+     * @param blockContainer The block container
+     * @return The content hash
+     */
+    private static String blockHash(BlockContainer blockContainer) {
+        return ContentCodec.blockHash(
+            blockContainer.blockNamespace(),
+            blockContainer.blockName(),
+            blockContainer.serializeBlockData()
+        );
+    }
 }
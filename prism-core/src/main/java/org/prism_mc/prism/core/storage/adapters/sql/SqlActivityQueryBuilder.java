@@ -44,18 +44,30 @@ import static org.prism_mc.prism.core.storage.adapters.sql.AbstractSqlStorageAda
 import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import org.jooq.Condition;
 import org.jooq.DSLContext;
 import org.jooq.DeleteQuery;
+import org.jooq.Field;
 import org.jooq.JoinType;
 import org.jooq.Record;
+import org.jooq.Record1;
 import org.jooq.Result;
+import org.jooq.Select;
 import org.jooq.SelectQuery;
+import org.jooq.TableField;
 import org.jooq.impl.DSL;
 import org.jooq.types.UInteger;
 import org.prism_mc.prism.api.activities.ActivityQuery;
+import org.prism_mc.prism.api.storage.ActivityBlockConsumer;
 import org.prism_mc.prism.api.util.Pair;
+import org.prism_mc.prism.core.services.cache.CacheService;
 import org.prism_mc.prism.core.storage.dbo.records.PrismActivitiesRecord;
 import org.prism_mc.prism.loader.services.configuration.ConfigurationService;
 import org.prism_mc.prism.loader.services.configuration.storage.StorageConfiguration;
@@ -77,19 +89,82 @@ public class SqlActivityQueryBuilder {
      */
     protected final DSLContext dslContext;
 
+    /**
+     * The cache service.
+     */
+    protected final CacheService cacheService;
+
+    /**
+     * The max number of keys inlined into a join-free filter. Past this, a subquery is used.
+     */
+    private static final int MAX_INLINE_KEYS = 1000;
+
+    /**
+     * The number of rows read per page when streaming activities.
+     */
+    private static final int STREAM_PAGE_SIZE = 10000;
+
+    /**
+     * Blocks with special ordering during modifications.
+     */
+    private static final List<String> HANGING_BLOCKS = List.of(
+        "cave_vines",
+        "cave_vines_plant",
+        "pointed_dripstone",
+        "vine",
+        "weeping_vines",
+        "weeping_vines_plant"
+    );
+
+    /**
+     * The hanging block keys by name, reloaded only once new blocks have been cached.
+     */
+    private volatile Map<String, List<UInteger>> hangingBlockIds;
+
+    /**
+     * The highest cached block key when the hanging block keys were loaded.
+     */
+    private volatile int hangingBlockIdsLoadedAt = -1;
+
     /**
      * Construct a new query builder.
      *
      * @param configurationService The configuration service
+     * @param cacheService The cache service
      * @param dslContext The DSL context
      */
     @Inject
-    public SqlActivityQueryBuilder(ConfigurationService configurationService, @Assisted DSLContext dslContext) {
+    public SqlActivityQueryBuilder(
+        ConfigurationService configurationService,
+        CacheService cacheService,
+        @Assisted DSLContext dslContext
+    ) {
         this.configurationService = configurationService;
         storageConfiguration = configurationService.storageConfig();
+        this.cacheService = cacheService;
         this.dslContext = dslContext;
     }
 
+    /**
+     * Check whether queries filter and select on foreign keys only, leaving names and
+     * block data to be resolved from the dimension caches.
+     *
+     * @return True if join-free
+     */
+    public boolean joinFree() {
+        return storageConfiguration.joinFreeQueries();
+    }
+
+    /**
+     * Check whether a query filters on nothing but its before/after time range.
+     *
+     * @param query The activity query
+     * @return True if only bounded by time
+     */
+    public boolean timeRangeOnly(ActivityQuery query) {
+        return conditions(query.toBuilder().before(null).after(null).build()).isEmpty();
+    }
+
     /**
      * Delete records from the activities table.
      *
@@ -101,6 +176,18 @@ public class SqlActivityQueryBuilder {
     public int deleteActivities(ActivityQuery query, int cycleMinPrimaryKey, int cycleMaxPrimaryKey) {
         DeleteQuery<PrismActivitiesRecord> queryBuilder = dslContext.deleteQuery(PRISM_ACTIVITIES);
 
+        if (joinFree()) {
+            queryBuilder.addConditions(conditions(query));
+            queryBuilder.addConditions(
+                PRISM_ACTIVITIES.ACTIVITY_ID.between(
+                    UInteger.valueOf(cycleMinPrimaryKey),
+                    UInteger.valueOf(cycleMaxPrimaryKey)
+                )
+            );
+
+            return queryBuilder.execute();
+        }
+
         if (!query.actionTypes().isEmpty() || !query.actionTypeKeys().isEmpty()) {
             queryBuilder.addUsing(PRISM_ACTIONS);
             queryBuilder.addConditions(PRISM_ACTIVITIES.ACTION_ID.equal(PRISM_ACTIONS.ACTION_ID));
@@ -183,6 +270,10 @@ public class SqlActivityQueryBuilder {
     public Result<Record> queryActivities(ActivityQuery query) {
         SelectQuery<Record> queryBuilder = dslContext.selectQuery();
 
+        if (joinFree()) {
+            return queryActivitiesJoinFree(queryBuilder, query);
+        }
+
         // Add fields useful for all query types
         queryBuilder.addSelect(
             PRISM_WORLDS.WORLD_UUID,
@@ -208,7 +299,10 @@ public class SqlActivityQueryBuilder {
             queryBuilder.addSelect(CAUSE_ENTITY_TYPES_TRANSLATION_KEY);
             queryBuilder.addSelect(CAUSE_BLOCKS_TRANSLATION_KEY);
             queryBuilder.addSelect(PRISM_CAUSES.CAUSE);
-            queryBuilder.addSelect(count().over().as("totalrows"));
+
+            if (query.countResults()) {
+                queryBuilder.addSelect(count().over().as("totalrows"));
+            }
         }
 
         if (query.grouped()) {
@@ -258,6 +352,8 @@ public class SqlActivityQueryBuilder {
 
         queryBuilder.addConditions(conditions(query));
 
+        boolean seek = seek(queryBuilder, query);
+
         if (query.grouped()) {
             queryBuilder.addGroupBy(
                 PRISM_ACTIONS.ACTION,
@@ -283,6 +379,159 @@ public class SqlActivityQueryBuilder {
             );
         }
 
+        order(queryBuilder, query, seek);
+
+        return queryBuilder.fetch();
+    }
+
+    /**
+     * Query the activities table selecting foreign keys instead of joined names.
+     *
+     * <p>Grouped lookups still join the block tables, because several block keys (one per
+     * block data) share a name and must stay in the same group.</p>
+     *
+     * @param queryBuilder The query builder
+     * @param query The activity query
+     * @return The results
+     */
+    protected Result<Record> queryActivitiesJoinFree(SelectQuery<Record> queryBuilder, ActivityQuery query) {
+        // Add fields useful for all query types
+        queryBuilder.addSelect(
+            PRISM_ACTIVITIES.ACTION_ID,
+            PRISM_ACTIVITIES.WORLD_ID,
+            PRISM_ACTIVITIES.AFFECTED_ITEM_ID,
+            coalesce(PRISM_ACTIVITIES.AFFECTED_ITEM_QUANTITY, DSL.val(0)),
+            PRISM_ACTIVITIES.AFFECTED_ENTITY_TYPE_ID,
+            PRISM_ACTIVITIES.CAUSE_PLAYER_ID,
+            PRISM_ACTIVITIES.DESCRIPTOR
+        );
+
+        // Add fields useful only for lookups
+        if (query.lookup()) {
+            queryBuilder.addSelect(
+                PRISM_ACTIVITIES.METADATA,
+                PRISM_ACTIVITIES.AFFECTED_PLAYER_ID,
+                PRISM_ACTIVITIES.CAUSE_ENTITY_TYPE_ID,
+                PRISM_ACTIVITIES.CAUSE_ID
+            );
+
+            if (query.countResults()) {
+                queryBuilder.addSelect(count().over().as("totalrows"));
+            }
+        }
+
+        if (query.grouped()) {
+            // Add fields for grouped queries
+            queryBuilder.addSelect(PRISM_BLOCKS.NS, PRISM_BLOCKS.NAME, PRISM_BLOCKS.TRANSLATION_KEY);
+
+            if (query.lookup()) {
+                queryBuilder.addSelect(CAUSE_BLOCKS_TRANSLATION_KEY);
+            }
+
+            queryBuilder.addSelect(
+                avg(PRISM_ACTIVITIES.X),
+                avg(PRISM_ACTIVITIES.Y),
+                avg(PRISM_ACTIVITIES.Z),
+                avg(PRISM_ACTIVITIES.TIMESTAMP),
+                count().as("groupcount")
+            );
+        } else {
+            // Add fields for non-grouped queries
+            queryBuilder.addSelect(
+                PRISM_ACTIVITIES.AFFECTED_BLOCK_ID,
+                PRISM_ACTIVITIES.ACTIVITY_ID,
+                PRISM_ACTIVITIES.TIMESTAMP,
+                PRISM_ACTIVITIES.X,
+                PRISM_ACTIVITIES.Y,
+                PRISM_ACTIVITIES.Z
+            );
+
+            if (query.lookup()) {
+                queryBuilder.addSelect(PRISM_ACTIVITIES.CAUSE_BLOCK_ID);
+            }
+        }
+
+        // Add fields only needed for modifications
+        if (query.modification()) {
+            queryBuilder.addSelect(
+                PRISM_ACTIVITIES.REPLACED_BLOCK_ID,
+                PRISM_ACTIVITIES.SERIALIZED_DATA,
+                coalesce(PRISM_ACTIVITIES.SERIALIZER_VERSION, 1).as("serializer_version")
+            );
+        }
+
+        queryBuilder.addFrom(PRISM_ACTIVITIES);
+
+        if (query.grouped()) {
+            queryBuilder.addJoin(
+                PRISM_BLOCKS,
+                JoinType.LEFT_OUTER_JOIN,
+                PRISM_BLOCKS.BLOCK_ID.equal(PRISM_ACTIVITIES.AFFECTED_BLOCK_ID)
+            );
+
+            if (query.lookup()) {
+                queryBuilder.addJoin(
+                    CAUSE_BLOCKS,
+                    JoinType.LEFT_OUTER_JOIN,
+                    CAUSE_BLOCKS.BLOCK_ID.equal(PRISM_ACTIVITIES.CAUSE_BLOCK_ID)
+                );
+            }
+        }
+
+        queryBuilder.addConditions(conditions(query));
+
+        boolean seek = seek(queryBuilder, query);
+
+        if (query.grouped()) {
+            queryBuilder.addGroupBy(
+                PRISM_ACTIVITIES.ACTION_ID,
+                PRISM_ACTIVITIES.WORLD_ID,
+                PRISM_ACTIVITIES.AFFECTED_ITEM_ID,
+                PRISM_ACTIVITIES.AFFECTED_ITEM_QUANTITY,
+                PRISM_BLOCKS.NS,
+                PRISM_BLOCKS.NAME,
+                PRISM_BLOCKS.TRANSLATION_KEY,
+                PRISM_ACTIVITIES.AFFECTED_ENTITY_TYPE_ID,
+                PRISM_ACTIVITIES.AFFECTED_PLAYER_ID,
+                PRISM_ACTIVITIES.CAUSE_ID,
+                PRISM_ACTIVITIES.CAUSE_PLAYER_ID,
+                PRISM_ACTIVITIES.DESCRIPTOR,
+                PRISM_ACTIVITIES.METADATA,
+                PRISM_ACTIVITIES.CAUSE_ENTITY_TYPE_ID,
+                CAUSE_BLOCKS_TRANSLATION_KEY
+            );
+        }
+
+        order(queryBuilder, query, seek);
+
+        return queryBuilder.fetch();
+    }
+
+    /**
+     * Add the seek condition, if this query continues from a cursor.
+     *
+     * @param queryBuilder The query builder
+     * @param query The activity query
+     * @return True if seeking instead of using an offset
+     */
+    protected boolean seek(SelectQuery<Record> queryBuilder, ActivityQuery query) {
+        // Seek past the previous page rather than skipping an offset
+        boolean seek = seekable(query) && query.cursor() != null;
+        if (seek) {
+            queryBuilder.addConditions(seekCondition(query));
+        }
+
+        return seek;
+    }
+
+    /**
+     * Add the sort order and limits.
+     *
+     * @param queryBuilder The query builder
+     * @param query The activity query
+     * @param seek Whether the query seeks instead of using an offset
+     */
+    protected void order(SelectQuery<Record> queryBuilder, ActivityQuery query, boolean seek) {
         // Order by
         if (query.lookup() && query.grouped()) {
             if (query.sort().equals(ActivityQuery.Sort.ASCENDING)) {
@@ -298,46 +547,224 @@ public class SqlActivityQueryBuilder {
             }
         }
 
+        // Break timestamp ties so seek pagination never skips or repeats rows
+        if (seekable(query)) {
+            if (query.sort().equals(ActivityQuery.Sort.ASCENDING)) {
+                queryBuilder.addOrderBy(PRISM_ACTIVITIES.ACTIVITY_ID.asc());
+            } else {
+                queryBuilder.addOrderBy(PRISM_ACTIVITIES.ACTIVITY_ID.desc());
+            }
+        }
+
         if (query.modification()) {
             // Most rollbacks "build up" but some hanging blocks need to be "built down" or they just break.
             // In order to do this, we tell hanging blocks to sort *after* everything else,
             // then we sort everything by `y asc` and sort these hanging blocks by `y desc`.
             // cave_vines are sorted to come after cave_vines_plant so the plant is rebuilt first.
+            var ids = joinFree() ? hangingBlockIds() : null;
+
             queryBuilder.addOrderBy(
-                DSL.decode().when(PRISM_BLOCKS.NAME.in("cave_vines", "weeping_vines"), 1).else_(-1).asc()
+                DSL.decode().when(blockNameIn(ids, false, "cave_vines", "weeping_vines"), 1).else_(-1).asc()
             );
             queryBuilder.addOrderBy(
-                DSL.decode().when(PRISM_BLOCKS.NAME.in("cave_vines_plant", "weeping_vines_plant"), 1).else_(-1).asc()
+                DSL.decode()
+                    .when(blockNameIn(ids, false, "cave_vines_plant", "weeping_vines_plant"), 1)
+                    .else_(-1)
+                    .asc()
             );
             queryBuilder.addOrderBy(
-                DSL.decode().when(PRISM_BLOCKS.NAME.in("vine", "pointed_dripstone"), 1).else_(-1).asc()
+                DSL.decode().when(blockNameIn(ids, false, "vine", "pointed_dripstone"), 1).else_(-1).asc()
             );
 
             queryBuilder.addOrderBy(PRISM_ACTIVITIES.X.asc());
             queryBuilder.addOrderBy(PRISM_ACTIVITIES.Z.asc());
 
-            List<String> blocksToBuildUp = List.of(
-                "pointed_dripstone",
-                "cave_vines_plant",
-                "weeping_vines_plant",
-                "vine"
-            );
+            String[] blocksToBuildUp = { "pointed_dripstone", "cave_vines_plant", "weeping_vines_plant", "vine" };
 
             queryBuilder.addOrderBy(
-                DSL.decode().when(PRISM_BLOCKS.NAME.in(blocksToBuildUp), PRISM_ACTIVITIES.Y).desc()
+                DSL.decode().when(blockNameIn(ids, false, blocksToBuildUp), PRISM_ACTIVITIES.Y).desc()
             );
 
             queryBuilder.addOrderBy(
-                DSL.decode().when(PRISM_BLOCKS.NAME.notIn(blocksToBuildUp), PRISM_ACTIVITIES.Y).asc()
+                DSL.decode().when(blockNameIn(ids, true, blocksToBuildUp), PRISM_ACTIVITIES.Y).asc()
             );
+
+            // Keep the order stable so modifications can be loaded in chunks
+            queryBuilder.addOrderBy(PRISM_ACTIVITIES.ACTIVITY_ID.asc());
         }
 
         // Limits
         if (query.limit() > 0) {
-            queryBuilder.addLimit(query.offset(), query.limit());
+            // Without a total count, fetch one extra row to know if there's another page
+            int limit = query.lookup() && !query.countResults() ? query.limit() + 1 : query.limit();
+
+            queryBuilder.addLimit(seek ? 0 : query.offset(), limit);
         }
 
-        return queryBuilder.fetch();
+    }
+
+    /**
+     * Build a condition matching the affected block name, by key when join-free.
+     *
+     * @param blockIdsByName The block keys by name, or null to compare joined names
+     * @param negate Whether to match blocks not named
+     * @param names The block names
+     * @return The condition
+     */
+    protected Condition blockNameIn(Map<String, List<UInteger>> blockIdsByName, boolean negate, String... names) {
+        if (blockIdsByName == null) {
+            return negate ? PRISM_BLOCKS.NAME.notIn(names) : PRISM_BLOCKS.NAME.in(names);
+        }
+
+        List<UInteger> ids = new ArrayList<>();
+        for (String name : names) {
+            ids.addAll(blockIdsByName.getOrDefault(name, List.of()));
+        }
+
+        // Rows without a block never match either way, like a null name wouldn't
+        return PRISM_ACTIVITIES.AFFECTED_BLOCK_ID.isNotNull().and(
+            negate ? PRISM_ACTIVITIES.AFFECTED_BLOCK_ID.notIn(ids) : PRISM_ACTIVITIES.AFFECTED_BLOCK_ID.in(ids)
+        );
+    }
+
+    /**
+     * Get the hanging block keys by name.
+     *
+     * <p>Block keys never change, so the lookup is kept until a block newer than the
+     * last load has been cached, which is when another vine or dripstone state may exist.</p>
+     *
+     * @return The hanging block keys by name
+     */
+    protected Map<String, List<UInteger>> hangingBlockIds() {
+        int maxBlockId = cacheService.maxBlockId();
+        if (hangingBlockIds == null || maxBlockId > hangingBlockIdsLoadedAt) {
+            hangingBlockIds = blockIdsByName(HANGING_BLOCKS);
+            hangingBlockIdsLoadedAt = maxBlockId;
+        }
+
+        return hangingBlockIds;
+    }
+
+    /**
+     * Find the block keys for block names.
+     *
+     * @param names The block names
+     * @return The block keys by name
+     */
+    protected Map<String, List<UInteger>> blockIdsByName(Collection<String> names) {
+        return keysByName(PRISM_BLOCKS.NAME, PRISM_BLOCKS.BLOCK_ID, names);
+    }
+
+    /**
+     * Find the dimension keys for names in one round-trip.
+     *
+     * @param name The name column
+     * @param key The key column
+     * @param names The names
+     * @return The keys by name
+     */
+    protected Map<String, List<UInteger>> keysByName(
+        TableField<?, String> name,
+        Field<UInteger> key,
+        Collection<String> names
+    ) {
+        Map<String, List<UInteger>> keys = new HashMap<>();
+        dslContext
+            .select(name, key)
+            .from(name.getTable())
+            .where(name.in(names))
+            .fetch()
+            .forEach(r -> keys.computeIfAbsent(r.value1(), k -> new ArrayList<>()).add(r.value2()));
+
+        return keys;
+    }
+
+    /**
+     * Match a foreign key against keys already resolved by name.
+     *
+     * <p>Huge key sets are left as a subquery instead of a giant in-list.</p>
+     *
+     * @param foreignKey The foreign key column
+     * @param keysByName The resolved keys by name
+     * @param names The names to match
+     * @param keys The dimension query for the names
+     * @return The condition
+     */
+    protected Condition foreignKeyIn(
+        Field<UInteger> foreignKey,
+        Map<String, List<UInteger>> keysByName,
+        Collection<String> names,
+        Select<? extends Record1<UInteger>> keys
+    ) {
+        Set<UInteger> ids = new HashSet<>();
+        for (String name : names) {
+            ids.addAll(keysByName.getOrDefault(name, List.of()));
+        }
+
+        return ids.size() > MAX_INLINE_KEYS ? foreignKey.in(keys) : foreignKey.in(ids);
+    }
+
+    /**
+     * Match a foreign key against the keys found by a dimension query.
+     *
+     * <p>The keys are fetched up front so the activities table is filtered on its own
+     * columns. Huge key sets are left as a subquery instead of a giant in-list.</p>
+     *
+     * @param foreignKey The foreign key column
+     * @param cached Keys already known from a cache
+     * @param keys The dimension query for everything else, or null if all keys were cached
+     * @return The condition
+     */
+    protected Condition foreignKeyIn(
+        Field<UInteger> foreignKey,
+        Collection<UInteger> cached,
+        Select<? extends Record1<UInteger>> keys
+    ) {
+        Set<UInteger> ids = new HashSet<>(cached);
+        if (keys != null) {
+            Result<? extends Record1<UInteger>> fetched = dslContext.fetch(keys);
+            if (fetched.size() > MAX_INLINE_KEYS) {
+                return cached.isEmpty() ? foreignKey.in(keys) : foreignKey.in(cached).or(foreignKey.in(keys));
+            }
+
+            fetched.forEach(r -> ids.add(r.value1()));
+        }
+
+        return foreignKey.in(ids);
+    }
+
+    /**
+     * Check whether a query can be paginated with a cursor.
+     *
+     * <p>Only ungrouped lookups have a unique sort key of (timestamp, activity_id).</p>
+     *
+     * @param query The activity query
+     * @return True if seekable
+     */
+    protected boolean seekable(ActivityQuery query) {
+        return query.lookup() && !query.grouped();
+    }
+
+    /**
+     * Build the condition selecting rows after the query cursor.
+     *
+     * @param query The activity query
+     * @return The condition
+     */
+    protected Condition seekCondition(ActivityQuery query) {
+        UInteger timestamp = UInteger.valueOf(query.cursor().timestamp());
+        UInteger activityId = UInteger.valueOf(query.cursor().primaryKey());
+
+        // Expanded rather than a row comparison so every database can use the timestamp index
+        if (query.sort().equals(ActivityQuery.Sort.ASCENDING)) {
+            return PRISM_ACTIVITIES.TIMESTAMP.ge(timestamp).and(
+                PRISM_ACTIVITIES.TIMESTAMP.gt(timestamp).or(PRISM_ACTIVITIES.ACTIVITY_ID.gt(activityId))
+            );
+        }
+
+        return PRISM_ACTIVITIES.TIMESTAMP.le(timestamp).and(
+            PRISM_ACTIVITIES.TIMESTAMP.lt(timestamp).or(PRISM_ACTIVITIES.ACTIVITY_ID.lt(activityId))
+        );
     }
 
     /**
@@ -356,7 +783,9 @@ public class SqlActivityQueryBuilder {
 
         queryBuilder.addFrom(PRISM_ACTIVITIES);
 
-        joins(queryBuilder, query);
+        if (!joinFree()) {
+            joins(queryBuilder, query);
+        }
 
         queryBuilder.addConditions(conditions(query));
 
@@ -367,6 +796,64 @@ public class SqlActivityQueryBuilder {
         return new Pair<>(minPk, maxPk);
     }
 
+    /**
+     * Stream the location and affected block of every matching activity.
+     *
+     * @param query The query
+     * @param consumer The consumer
+     */
+    public void streamActivityBlocks(ActivityQuery query, ActivityBlockConsumer consumer) {
+        UInteger lastId = UInteger.valueOf(0);
+
+        while (true) {
+            var queryBuilder = dslContext.selectQuery();
+
+            queryBuilder.addSelect(
+                PRISM_ACTIVITIES.ACTIVITY_ID,
+                PRISM_WORLDS.WORLD_UUID,
+                PRISM_ACTIVITIES.X,
+                PRISM_ACTIVITIES.Y,
+                PRISM_ACTIVITIES.Z,
+                PRISM_BLOCKS.NAME
+            );
+
+            queryBuilder.addFrom(PRISM_ACTIVITIES);
+
+            if (joinFree()) {
+                queryBuilder.addJoin(PRISM_WORLDS, PRISM_WORLDS.WORLD_ID.equal(PRISM_ACTIVITIES.WORLD_ID));
+                queryBuilder.addJoin(
+                    PRISM_BLOCKS,
+                    JoinType.LEFT_OUTER_JOIN,
+                    PRISM_BLOCKS.BLOCK_ID.equal(PRISM_ACTIVITIES.AFFECTED_BLOCK_ID)
+                );
+            } else {
+                joins(queryBuilder, query);
+            }
+
+            queryBuilder.addConditions(conditions(query));
+            queryBuilder.addConditions(PRISM_ACTIVITIES.ACTIVITY_ID.gt(lastId));
+            queryBuilder.addOrderBy(PRISM_ACTIVITIES.ACTIVITY_ID.asc());
+            queryBuilder.addLimit(STREAM_PAGE_SIZE);
+
+            var results = queryBuilder.fetch();
+            for (var r : results) {
+                consumer.accept(
+                    UUID.fromString(r.get(PRISM_WORLDS.WORLD_UUID)),
+                    r.get(PRISM_ACTIVITIES.X),
+                    r.get(PRISM_ACTIVITIES.Y),
+                    r.get(PRISM_ACTIVITIES.Z),
+                    r.get(PRISM_BLOCKS.NAME)
+                );
+            }
+
+            if (results.size() < STREAM_PAGE_SIZE) {
+                return;
+            }
+
+            lastId = results.get(results.size() - 1).get(PRISM_ACTIVITIES.ACTIVITY_ID);
+        }
+    }
+
     /**
      * A convenience method to add all joins needed for a lookup.
      *
@@ -450,6 +937,10 @@ public class SqlActivityQueryBuilder {
      * @return All conditions
      */
     protected List<Condition> conditions(ActivityQuery query) {
+        if (joinFree()) {
+            return joinFreeConditions(query);
+        }
+
         List<Condition> conditions = new ArrayList<>();
 
         // Action Types
@@ -467,11 +958,6 @@ public class SqlActivityQueryBuilder {
             conditions.add(PRISM_ACTIONS.ACTION.in(query.actionTypeKeys()));
         }
 
-        // Activity IDs
-        if (query.activityIds() != null && !query.activityIds().isEmpty()) {
-            conditions.add(PRISM_ACTIVITIES.ACTIVITY_ID.in(query.activityIds()));
-        }
-
         // Affected Blocks
         if (!query.affectedBlocks().isEmpty()) {
             conditions.add(PRISM_BLOCKS.NAME.in(query.affectedBlocks()));
@@ -497,17 +983,6 @@ public class SqlActivityQueryBuilder {
             conditions.add(PRISM_CAUSES.CAUSE.equal(query.namedCause()));
         }
 
-        // Locations
-        if (query.coordinate() != null) {
-            conditions.add(PRISM_ACTIVITIES.X.equal(query.coordinate().intX()));
-            conditions.add(PRISM_ACTIVITIES.Y.equal(query.coordinate().intY()));
-            conditions.add(PRISM_ACTIVITIES.Z.equal(query.coordinate().intZ()));
-        } else if (query.minCoordinate() != null && query.maxCoordinate() != null) {
-            conditions.add(PRISM_ACTIVITIES.X.between(query.minCoordinate().intX(), query.maxCoordinate().intX()));
-            conditions.add(PRISM_ACTIVITIES.Y.between(query.minCoordinate().intY(), query.maxCoordinate().intY()));
-            conditions.add(PRISM_ACTIVITIES.Z.between(query.minCoordinate().intZ(), query.maxCoordinate().intZ()));
-        }
-
         // Materials
         if (!query.affectedMaterials().isEmpty()) {
             conditions.add(PRISM_ITEMS.MATERIAL.in(query.affectedMaterials()));
@@ -526,6 +1001,41 @@ public class SqlActivityQueryBuilder {
             conditions.add(PRISM_PLAYERS.PLAYER.in(query.causePlayerNames()));
         }
 
+        // World
+        if (query.worldUuid() != null) {
+            conditions.add(PRISM_WORLDS.WORLD_UUID.equal(query.worldUuid().toString()));
+        }
+
+        conditions.addAll(activityConditions(query));
+
+        return conditions;
+    }
+
+    /**
+     * Get the conditions on the activities table's own columns.
+     *
+     * @param query The query
+     * @return The conditions
+     */
+    protected List<Condition> activityConditions(ActivityQuery query) {
+        List<Condition> conditions = new ArrayList<>();
+
+        // Activity IDs
+        if (query.activityIds() != null && !query.activityIds().isEmpty()) {
+            conditions.add(PRISM_ACTIVITIES.ACTIVITY_ID.in(query.activityIds()));
+        }
+
+        // Locations
+        if (query.coordinate() != null) {
+            conditions.add(PRISM_ACTIVITIES.X.equal(query.coordinate().intX()));
+            conditions.add(PRISM_ACTIVITIES.Y.equal(query.coordinate().intY()));
+            conditions.add(PRISM_ACTIVITIES.Z.equal(query.coordinate().intZ()));
+        } else if (query.minCoordinate() != null && query.maxCoordinate() != null) {
+            conditions.add(PRISM_ACTIVITIES.X.between(query.minCoordinate().intX(), query.maxCoordinate().intX()));
+            conditions.add(PRISM_ACTIVITIES.Y.between(query.minCoordinate().intY(), query.maxCoordinate().intY()));
+            conditions.add(PRISM_ACTIVITIES.Z.between(query.minCoordinate().intZ(), query.maxCoordinate().intZ()));
+        }
+
         // Query
         if (query.descriptor() != null) {
             conditions.add(PRISM_ACTIVITIES.DESCRIPTOR.likeIgnoreCase(String.format("%%%s%%", query.descriptor())));
@@ -547,11 +1057,216 @@ public class SqlActivityQueryBuilder {
             conditions.add(PRISM_ACTIVITIES.TIMESTAMP.lessThan(UInteger.valueOf(query.before())));
         }
 
+        // Chunk boundary
+        if (query.fromTimestamp() != null) {
+            UInteger fromTimestamp = UInteger.valueOf(query.fromTimestamp());
+
+            if (query.sort().equals(ActivityQuery.Sort.ASCENDING)) {
+                conditions.add(PRISM_ACTIVITIES.TIMESTAMP.greaterOrEqual(fromTimestamp));
+            } else {
+                conditions.add(PRISM_ACTIVITIES.TIMESTAMP.lessOrEqual(fromTimestamp));
+            }
+        }
+
+        return conditions;
+    }
+
+    /**
+     * Get all conditions for the query, comparing foreign keys instead of joined names.
+     *
+     * @param query The query
+     * @return All conditions
+     */
+    protected List<Condition> joinFreeConditions(ActivityQuery query) {
+        List<Condition> conditions = new ArrayList<>();
+
+        // Action Types + Keys
+        var actionTypeKeys = query.allActionTypeKeys();
+        if (!actionTypeKeys.isEmpty()) {
+            List<UInteger> cached = new ArrayList<>();
+            List<String> missing = new ArrayList<>();
+            for (String actionTypeKey : actionTypeKeys) {
+                Integer actionPk = cacheService.actionKeyPkMap().getIfPresent(actionTypeKey);
+                if (actionPk != null) {
+                    cached.add(UInteger.valueOf(actionPk));
+                } else {
+                    missing.add(actionTypeKey);
+                }
+            }
+
+            conditions.add(
+                foreignKeyIn(
+                    PRISM_ACTIVITIES.ACTION_ID,
+                    cached,
+                    missing.isEmpty()
+                        ? null
+                        : DSL.select(PRISM_ACTIONS.ACTION_ID)
+                            .from(PRISM_ACTIONS)
+                            .where(PRISM_ACTIONS.ACTION.in(missing))
+                )
+            );
+        }
+
+        // Affected + Cause Blocks, resolved together
+        if (!query.affectedBlocks().isEmpty() || !query.causeBlocks().isEmpty()) {
+            Set<String> blockNames = new HashSet<>(query.affectedBlocks());
+            blockNames.addAll(query.causeBlocks());
+            var blockIds = blockIdsByName(blockNames);
+
+            if (!query.affectedBlocks().isEmpty()) {
+                conditions.add(
+                    foreignKeyIn(
+                        PRISM_ACTIVITIES.AFFECTED_BLOCK_ID,
+                        blockIds,
+                        query.affectedBlocks(),
+                        DSL.select(PRISM_BLOCKS.BLOCK_ID)
+                            .from(PRISM_BLOCKS)
+                            .where(PRISM_BLOCKS.NAME.in(query.affectedBlocks()))
+                    )
+                );
+            }
+
+            if (!query.causeBlocks().isEmpty()) {
+                conditions.add(
+                    foreignKeyIn(
+                        PRISM_ACTIVITIES.CAUSE_BLOCK_ID,
+                        blockIds,
+                        query.causeBlocks(),
+                        DSL.select(PRISM_BLOCKS.BLOCK_ID)
+                            .from(PRISM_BLOCKS)
+                            .where(PRISM_BLOCKS.NAME.in(query.causeBlocks()))
+                    )
+                );
+            }
+        }
+
+        // Affected Entity Types
+        if (!query.affectedEntityTypes().isEmpty()) {
+            conditions.add(entityTypeIn(PRISM_ACTIVITIES.AFFECTED_ENTITY_TYPE_ID, query.affectedEntityTypes()));
+        }
+
+        // Cause Entity Types
+        if (!query.causeEntityTypes().isEmpty()) {
+            conditions.add(entityTypeIn(PRISM_ACTIVITIES.CAUSE_ENTITY_TYPE_ID, query.causeEntityTypes()));
+        }
+
+        // Named Causes
+        if (query.namedCause() != null) {
+            Long causePk = cacheService.namedCausePkMap().getIfPresent(query.namedCause());
+            conditions.add(
+                foreignKeyIn(
+                    PRISM_ACTIVITIES.CAUSE_ID,
+                    causePk != null ? List.of(UInteger.valueOf(causePk)) : List.of(),
+                    causePk != null
+                        ? null
+                        : DSL.select(PRISM_CAUSES.CAUSE_ID)
+                            .from(PRISM_CAUSES)
+                            .where(PRISM_CAUSES.CAUSE.eq(query.namedCause()))
+                )
+            );
+        }
+
+        // Materials
+        if (!query.affectedMaterials().isEmpty()) {
+            conditions.add(
+                foreignKeyIn(
+                    PRISM_ACTIVITIES.AFFECTED_ITEM_ID,
+                    List.of(),
+                    DSL.select(PRISM_ITEMS.ITEM_ID)
+                        .from(PRISM_ITEMS)
+                        .where(PRISM_ITEMS.MATERIAL.in(query.affectedMaterials()))
+                )
+            );
+        }
+
+        // Players, resolved together
+        Map<String, List<UInteger>> playerIds = Map.of();
+        if (!query.affectedPlayerNames().isEmpty() || !query.causePlayerNames().isEmpty()) {
+            Set<String> playerNames = new HashSet<>(query.affectedPlayerNames());
+            playerNames.addAll(query.causePlayerNames());
+            playerIds = keysByName(PRISM_PLAYERS.PLAYER, PRISM_PLAYERS.PLAYER_ID, playerNames);
+        }
+
+        Condition affectedPlayers = null;
+        if (!query.affectedPlayerNames().isEmpty()) {
+            affectedPlayers = foreignKeyIn(
+                PRISM_ACTIVITIES.AFFECTED_PLAYER_ID,
+                playerIds,
+                query.affectedPlayerNames(),
+                DSL.select(PRISM_PLAYERS.PLAYER_ID)
+                    .from(PRISM_PLAYERS)
+                    .where(PRISM_PLAYERS.PLAYER.in(query.affectedPlayerNames()))
+            );
+        }
+
+        Condition causePlayers = null;
+        if (!query.causePlayerNames().isEmpty()) {
+            causePlayers = foreignKeyIn(
+                PRISM_ACTIVITIES.CAUSE_PLAYER_ID,
+                playerIds,
+                query.causePlayerNames(),
+                DSL.select(PRISM_PLAYERS.PLAYER_ID)
+                    .from(PRISM_PLAYERS)
+                    .where(PRISM_PLAYERS.PLAYER.in(query.causePlayerNames()))
+            );
+        }
+
+        if (affectedPlayers != null && causePlayers != null) {
+            conditions.add(affectedPlayers.or(causePlayers));
+        } else if (affectedPlayers != null) {
+            conditions.add(affectedPlayers);
+        } else if (causePlayers != null) {
+            conditions.add(causePlayers);
+        }
+
         // World
         if (query.worldUuid() != null) {
-            conditions.add(PRISM_WORLDS.WORLD_UUID.equal(query.worldUuid().toString()));
+            Integer worldPk = cacheService.worldUuidPkMap().getIfPresent(query.worldUuid());
+            conditions.add(
+                foreignKeyIn(
+                    PRISM_ACTIVITIES.WORLD_ID,
+                    worldPk != null ? List.of(UInteger.valueOf(worldPk)) : List.of(),
+                    worldPk != null
+                        ? null
+                        : DSL.select(PRISM_WORLDS.WORLD_ID)
+                            .from(PRISM_WORLDS)
+                            .where(PRISM_WORLDS.WORLD_UUID.eq(query.worldUuid().toString()))
+                )
+            );
         }
 
+        conditions.addAll(activityConditions(query));
+
         return conditions;
     }
+
+    /**
+     * Build a condition matching entity types, using cached keys where possible.
+     *
+     * @param foreignKey The foreign key column
+     * @param entityTypes The entity types
+     * @return The condition
+     */
+    protected Condition entityTypeIn(Field<UInteger> foreignKey, Collection<String> entityTypes) {
+        List<UInteger> cached = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+        for (String entityType : entityTypes) {
+            Integer entityTypePk = cacheService.entityTypePkMap().getIfPresent(entityType);
+            if (entityTypePk != null) {
+                cached.add(UInteger.valueOf(entityTypePk));
+            } else {
+                missing.add(entityType);
+            }
+        }
+
+        return foreignKeyIn(
+            foreignKey,
+            cached,
+            missing.isEmpty()
+                ? null
+                : DSL.select(PRISM_ENTITY_TYPES.ENTITY_TYPE_ID)
+                    .from(PRISM_ENTITY_TYPES)
+                    .where(PRISM_ENTITY_TYPES.ENTITY_TYPE.in(missing))
+        );
+    }
 }
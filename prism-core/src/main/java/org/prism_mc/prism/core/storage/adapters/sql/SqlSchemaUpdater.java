@@ -20,13 +20,41 @@
 
 package org.prism_mc.prism.core.storage.adapters.sql;
 
+import static org.prism_mc.prism.core.storage.adapters.sql.AbstractSqlStorageAdapter.PRISM_ACTIVITIES;
+import static org.prism_mc.prism.core.storage.adapters.sql.AbstractSqlStorageAdapter.PRISM_BLOCKS;
+import static org.prism_mc.prism.core.storage.adapters.sql.AbstractSqlStorageAdapter.PRISM_ITEMS;
+import static org.prism_mc.prism.core.storage.adapters.sql.AbstractSqlStorageAdapter.PRISM_META;
+
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import java.util.ArrayList;
+import java.util.List;
+import org.jooq.DSLContext;
+import org.jooq.DataType;
+import org.jooq.Field;
+import org.jooq.Query;
+import org.jooq.Table;
+import org.jooq.TableField;
+import org.jooq.exception.DataAccessException;
+import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
+import org.jooq.types.UInteger;
+import org.prism_mc.prism.core.storage.dbo.records.PrismActivitiesRecord;
 import org.prism_mc.prism.loader.services.logging.LoggingService;
 
 @Singleton
 public class SqlSchemaUpdater {
 
+    /**
+     * The current schema version.
+     */
+    public static final String SCHEMA_VERSION = "401";
+
+    /**
+     * The rows migrated per page.
+     */
+    private static final int PAGE_SIZE = 1000;
+
     /**
      * The logger.
      */
@@ -41,4 +69,210 @@ public class SqlSchemaUpdater {
     public SqlSchemaUpdater(LoggingService loggingService) {
         this.loggingService = loggingService;
     }
+
+    /**
+     * Apply every update newer than the given schema version.
+     *
+     * @param dslContext The DSL context
+     * @param schemaVersion The current schema version
+     */
+    public void update(DSLContext dslContext, String schemaVersion) {
+        if (schemaVersion.equals("400")) {
+            update400To401(dslContext);
+            schemaVersion = "401";
+        }
+
+        dslContext.update(PRISM_META).set(PRISM_META.V, schemaVersion).where(PRISM_META.K.eq("schema_ver")).execute();
+    }
+
+    /**
+     * Add content hashes to blocks and items and compress item data.
+     *
+     * <p>Rows with identical content are merged into the lowest primary key so the
+     * unique hash indexes can be created afterward.</p>
+     *
+     * <p>Most dialects commit DDL implicitly, so instead of a transaction every step checks
+     * whether it's already been done. An update interrupted part-way through resumes on
+     * the next start.</p>
+     *
+     * @param dslContext The DSL context
+     */
+    protected void update400To401(DSLContext dslContext) {
+        loggingService.info("Updating schema to 401. Hashing blocks and compressing item data...");
+
+        if (columnType(dslContext, PRISM_BLOCKS, PRISM_BLOCKS.DATA_HASH.getName()) == null) {
+            dslContext.alterTable(PRISM_BLOCKS).addColumn(PRISM_BLOCKS.DATA_HASH).execute();
+        }
+
+        UInteger lastId = UInteger.valueOf(0);
+        while (true) {
+            var page = dslContext
+                .select(PRISM_BLOCKS.BLOCK_ID, PRISM_BLOCKS.NS, PRISM_BLOCKS.NAME, PRISM_BLOCKS.DATA)
+                .from(PRISM_BLOCKS)
+                .where(PRISM_BLOCKS.BLOCK_ID.greaterThan(lastId))
+                .and(PRISM_BLOCKS.DATA_HASH.isNull())
+                .orderBy(PRISM_BLOCKS.BLOCK_ID)
+                .limit(PAGE_SIZE)
+                .fetch();
+
+            List<Query> updates = new ArrayList<>(page.size());
+            for (var r : page) {
+                updates.add(
+                    dslContext
+                        .update(PRISM_BLOCKS)
+                        .set(PRISM_BLOCKS.DATA_HASH, ContentCodec.blockHash(r.value2(), r.value3(), r.value4()))
+                        .where(PRISM_BLOCKS.BLOCK_ID.equal(r.value1()))
+                );
+            }
+
+            dslContext.batch(updates).execute();
+
+            if (page.size() < PAGE_SIZE) {
+                break;
+            }
+
+            lastId = page.get(page.size() - 1).value1();
+        }
+
+        mergeDuplicates(
+            dslContext,
+            PRISM_BLOCKS,
+            PRISM_BLOCKS.BLOCK_ID,
+            PRISM_BLOCKS.DATA_HASH,
+            List.of(
+                PRISM_ACTIVITIES.AFFECTED_BLOCK_ID,
+                PRISM_ACTIVITIES.REPLACED_BLOCK_ID,
+                PRISM_ACTIVITIES.CAUSE_BLOCK_ID
+            )
+        );
+
+        // Item data changes type, so it's copied into a new column which then replaces the old one
+        Field<String> legacyData = DSL.field(DSL.name("data"), SQLDataType.CLOB);
+        Field<byte[]> compressedData = DSL.field(DSL.name("compressed_data"), SQLDataType.BLOB);
+
+        if (columnType(dslContext, PRISM_ITEMS, PRISM_ITEMS.DATA_HASH.getName()) == null) {
+            dslContext.alterTable(PRISM_ITEMS).addColumn(PRISM_ITEMS.DATA_HASH).execute();
+        }
+
+        // A binary data column means the legacy column has already been replaced
+        DataType<?> dataType = columnType(dslContext, PRISM_ITEMS, legacyData.getName());
+        boolean hasCompressedData = columnType(dslContext, PRISM_ITEMS, compressedData.getName()) != null;
+        if (dataType != null && !dataType.isBinary()) {
+            if (!hasCompressedData) {
+                dslContext.alterTable(PRISM_ITEMS).addColumn(compressedData).execute();
+            }
+
+            lastId = UInteger.valueOf(0);
+            while (true) {
+                var page = dslContext
+                    .select(PRISM_ITEMS.ITEM_ID, PRISM_ITEMS.MATERIAL, legacyData)
+                    .from(PRISM_ITEMS)
+                    .where(PRISM_ITEMS.ITEM_ID.greaterThan(lastId))
+                    .and(PRISM_ITEMS.DATA_HASH.isNull())
+                    .orderBy(PRISM_ITEMS.ITEM_ID)
+                    .limit(PAGE_SIZE)
+                    .fetch();
+
+                List<Query> updates = new ArrayList<>(page.size());
+                for (var r : page) {
+                    updates.add(
+                        dslContext
+                            .update(PRISM_ITEMS)
+                            .set(PRISM_ITEMS.DATA_HASH, ContentCodec.itemHash(r.value2(), r.value3()))
+                            .set(compressedData, ContentCodec.compress(r.value3()))
+                            .where(PRISM_ITEMS.ITEM_ID.equal(r.value1()))
+                    );
+                }
+
+                dslContext.batch(updates).execute();
+
+                if (page.size() < PAGE_SIZE) {
+                    break;
+                }
+
+                lastId = page.get(page.size() - 1).value1();
+            }
+
+            dslContext.alterTable(PRISM_ITEMS).dropColumn(legacyData).execute();
+            dslContext.alterTable(PRISM_ITEMS).renameColumn(compressedData).to(PRISM_ITEMS.DATA).execute();
+        } else if (hasCompressedData) {
+            // An earlier attempt dropped the legacy column but didn't get to the rename
+            dslContext.alterTable(PRISM_ITEMS).renameColumn(compressedData).to(PRISM_ITEMS.DATA).execute();
+        }
+
+        mergeDuplicates(
+            dslContext,
+            PRISM_ITEMS,
+            PRISM_ITEMS.ITEM_ID,
+            PRISM_ITEMS.DATA_HASH,
+            List.of(PRISM_ACTIVITIES.AFFECTED_ITEM_ID)
+        );
+    }
+
+    /**
+     * Get the type of a column as reported by the database.
+     *
+     * @param dslContext The DSL context
+     * @param table The table
+     * @param column The column name
+     * @return The data type, or null if the column doesn't exist
+     */
+    protected DataType<?> columnType(DSLContext dslContext, Table<?> table, String column) {
+        try {
+            return dslContext
+                .resultQuery("SELECT {0} FROM {1} WHERE 1 = 0", DSL.name(column), table)
+                .fetch()
+                .field(0)
+                .getDataType();
+        } catch (DataAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Merge rows sharing a content hash into the row with the lowest primary key.
+     *
+     * @param dslContext The DSL context
+     * @param table The dimension table
+     * @param idField The primary key field
+     * @param hashField The hash field
+     * @param references The activity columns referencing the table
+     */
+    protected void mergeDuplicates(
+        DSLContext dslContext,
+        Table<?> table,
+        TableField<?, UInteger> idField,
+        TableField<?, String> hashField,
+        List<TableField<PrismActivitiesRecord, UInteger>> references
+    ) {
+        var duplicates = dslContext
+            .select(hashField, DSL.min(idField))
+            .from(table)
+            .groupBy(hashField)
+            .having(DSL.count().greaterThan(1))
+            .fetch();
+
+        for (var duplicate : duplicates) {
+            var ids = dslContext
+                .select(idField)
+                .from(table)
+                .where(hashField.equal(duplicate.value1()))
+                .and(idField.notEqual(duplicate.value2()))
+                .fetch(idField);
+
+            for (var reference : references) {
+                dslContext
+                    .update(PRISM_ACTIVITIES)
+                    .set(reference, duplicate.value2())
+                    .where(reference.in(ids))
+                    .execute();
+            }
+
+            dslContext.deleteFrom(table).where(idField.in(ids)).execute();
+        }
+
+        if (!duplicates.isEmpty()) {
+            loggingService.info("Merged {0} duplicate {1} rows.", duplicates.size(), table.getName());
+        }
+    }
 }
@@ -88,6 +88,7 @@ public class SqliteStorageAdapter extends AbstractSqlStorageAdapter {
                 this.queryBuilder = queryBuilderFactory.create(dslContext);
 
                 prepareSchema();
+                prepareCache();
 
                 ready = true;
             }
@@ -21,6 +21,8 @@
 package org.prism_mc.prism.core.storage.dbo;
 
 import static org.prism_mc.prism.core.storage.adapters.sql.AbstractSqlStorageAdapter.PRISM_ACTIVITIES;
+import static org.prism_mc.prism.core.storage.adapters.sql.AbstractSqlStorageAdapter.PRISM_BLOCKS;
+import static org.prism_mc.prism.core.storage.adapters.sql.AbstractSqlStorageAdapter.PRISM_ITEMS;
 
 import org.jooq.Index;
 import org.jooq.OrderField;
@@ -113,4 +115,18 @@ public class Indexes {
         new OrderField[] { PRISM_ACTIVITIES.WORLD_ID },
         false
     );
+
+    public static final Index PRISM_BLOCKS_DATA_HASH = Internal.createIndex(
+        DSL.name("idx_prism_blocksDataHash"),
+        PRISM_BLOCKS,
+        new OrderField[] { PRISM_BLOCKS.DATA_HASH },
+        true
+    );
+
+    public static final Index PRISM_ITEMS_DATA_HASH = Internal.createIndex(
+        DSL.name("idx_prism_itemsDataHash"),
+        PRISM_ITEMS,
+        new OrderField[] { PRISM_ITEMS.DATA_HASH },
+        true
+    );
 }
@@ -78,6 +78,12 @@ public class Keys {
         new TableField[] { PRISM_BLOCKS.NS, PRISM_BLOCKS.NAME },
         true
     );
+    public static final UniqueKey<PrismBlocksRecord> KEY_PRISM_BLOCKS_DATA_HASH = Internal.createUniqueKey(
+        PRISM_BLOCKS,
+        DSL.name("KEY_prism_blocks_data_hash"),
+        new TableField[] { PRISM_BLOCKS.DATA_HASH },
+        true
+    );
     public static final UniqueKey<PrismCausesRecord> KEY_PRISM_CAUSES_CAUSE = Internal.createUniqueKey(
         PRISM_CAUSES,
         DSL.name("KEY_prism_causes_cause"),
@@ -108,6 +114,12 @@ public class Keys {
         new TableField[] { PRISM_ITEMS.ITEM_ID },
         true
     );
+    public static final UniqueKey<PrismItemsRecord> KEY_PRISM_ITEMS_DATA_HASH = Internal.createUniqueKey(
+        PRISM_ITEMS,
+        DSL.name("KEY_prism_items_data_hash"),
+        new TableField[] { PRISM_ITEMS.DATA_HASH },
+        true
+    );
     public static final UniqueKey<PrismMetaRecord> KEY_PRISM_META_K = Internal.createUniqueKey(
         PRISM_META,
         DSL.name("KEY_prism_meta_k"),
@@ -24,15 +24,15 @@ import static org.prism_mc.prism.core.storage.adapters.sql.AbstractSqlStorageAda
 
 import org.jooq.Field;
 import org.jooq.Record1;
-import org.jooq.Record5;
-import org.jooq.Row5;
+import org.jooq.Record6;
+import org.jooq.Row6;
 import org.jooq.impl.UpdatableRecordImpl;
 import org.jooq.types.UInteger;
 
 @SuppressWarnings({ "all", "unchecked", "rawtypes" })
 public class PrismBlocksRecord
     extends UpdatableRecordImpl<PrismBlocksRecord>
-    implements Record5<UInteger, String, String, String, String> {
+    implements Record6<UInteger, String, String, String, String, String> {
 
     private static final long serialVersionUID = 1L;
 
@@ -66,13 +66,6 @@ public class PrismBlocksRecord
         return (String) get(1);
     }
 
-    /**
-     * Getter for <code>prism_blocks.name</code>.
-     */
-    public String getName() {
-        return (String) get(2);
-    }
-
     /**
      * Setter for <code>prism_blocks.name</code>.
      */
@@ -81,6 +74,13 @@ public class PrismBlocksRecord
         return this;
     }
 
+    /**
+     * Getter for <code>prism_blocks.name</code>.
+     */
+    public String getName() {
+        return (String) get(2);
+    }
+
     /**
      * Setter for <code>prism_blocks.data</code>.
      */
@@ -97,32 +97,32 @@ public class PrismBlocksRecord
     }
 
     /**
-     * Setter for <code>prism_blocks.nbt</code>.
+     * Setter for <code>prism_blocks.translation_key</code>.
      */
-    public PrismBlocksRecord setNbt(String value) {
+    public PrismBlocksRecord setTranslationKey(String value) {
         set(4, value);
         return this;
     }
 
     /**
-     * Getter for <code>prism_blocks.nbt</code>.
+     * Getter for <code>prism_blocks.translation_key</code>.
      */
-    public String getNbt() {
+    public String getTranslationKey() {
         return (String) get(4);
     }
 
     /**
-     * Setter for <code>prism_blocks.translation_key</code>.
+     * Setter for <code>prism_blocks.data_hash</code>.
      */
-    public PrismBlocksRecord setTranslationKey(String value) {
+    public PrismBlocksRecord setDataHash(String value) {
         set(5, value);
         return this;
     }
 
     /**
-     * Getter for <code>prism_blocks.translation_key</code>.
+     * Getter for <code>prism_blocks.data_hash</code>.
      */
-    public String getTranslationKey() {
+    public String getDataHash() {
         return (String) get(5);
     }
 
@@ -140,13 +140,13 @@ public class PrismBlocksRecord
     // -------------------------------------------------------------------------
 
     @Override
-    public Row5<UInteger, String, String, String, String> fieldsRow() {
-        return (Row5) super.fieldsRow();
+    public Row6<UInteger, String, String, String, String, String> fieldsRow() {
+        return (Row6) super.fieldsRow();
     }
 
     @Override
-    public Row5<UInteger, String, String, String, String> valuesRow() {
-        return (Row5) super.valuesRow();
+    public Row6<UInteger, String, String, String, String, String> valuesRow() {
+        return (Row6) super.valuesRow();
     }
 
     @Override
@@ -174,6 +174,11 @@ public class PrismBlocksRecord
         return PRISM_BLOCKS.TRANSLATION_KEY;
     }
 
+    @Override
+    public Field<String> field6() {
+        return PRISM_BLOCKS.DATA_HASH;
+    }
+
     @Override
     public UInteger component1() {
         return getBlockId();
@@ -199,6 +204,11 @@ public class PrismBlocksRecord
         return getTranslationKey();
     }
 
+    @Override
+    public String component6() {
+        return getDataHash();
+    }
+
     @Override
     public UInteger value1() {
         return getBlockId();
@@ -255,12 +265,31 @@ public class PrismBlocksRecord
     }
 
     @Override
-    public PrismBlocksRecord values(UInteger value1, String value2, String value3, String value4, String value5) {
+    public String value6() {
+        return getDataHash();
+    }
+
+    @Override
+    public PrismBlocksRecord value6(String value) {
+        setDataHash(value);
+        return this;
+    }
+
+    @Override
+    public PrismBlocksRecord values(
+        UInteger value1,
+        String value2,
+        String value3,
+        String value4,
+        String value5,
+        String value6
+    ) {
         value1(value1);
         value2(value2);
         value3(value3);
         value4(value4);
         value5(value5);
+        value6(value6);
         return this;
     }
 
@@ -278,12 +307,20 @@ public class PrismBlocksRecord
     /**
      * Create a detached, initialised PrismBlocksRecord.
      */
-    public PrismBlocksRecord(UInteger blockId, String ns, String name, String data, String translationKey) {
+    public PrismBlocksRecord(
+        UInteger blockId,
+        String ns,
+        String name,
+        String data,
+        String translationKey,
+        String dataHash
+    ) {
         super(PRISM_BLOCKS);
         setBlockId(blockId);
         setNs(ns);
         setName(name);
         setData(data);
         setTranslationKey(translationKey);
+        setDataHash(dataHash);
     }
 }
@@ -24,8 +24,8 @@ import static org.prism_mc.prism.core.storage.adapters.sql.AbstractSqlStorageAda
 
 import org.jooq.Field;
 import org.jooq.Record1;
-import org.jooq.Record3;
-import org.jooq.Row3;
+import org.jooq.Record4;
+import org.jooq.Row4;
 import org.jooq.impl.UpdatableRecordImpl;
 import org.jooq.types.UInteger;
 import org.jooq.types.UShort;
@@ -33,7 +33,7 @@ import org.jooq.types.UShort;
 @SuppressWarnings({ "all", "unchecked", "rawtypes" })
 public class PrismItemsRecord
     extends UpdatableRecordImpl<PrismItemsRecord>
-    implements Record3<UInteger, String, String> {
+    implements Record4<UInteger, String, byte[], String> {
 
     private static final long serialVersionUID = 1L;
 
@@ -70,7 +70,7 @@ public class PrismItemsRecord
     /**
      * Setter for <code>prism_items.data</code>.
      */
-    public PrismItemsRecord setData(String value) {
+    public PrismItemsRecord setData(byte[] value) {
         set(2, value);
         return this;
     }
@@ -78,8 +78,23 @@ public class PrismItemsRecord
     /**
      * Getter for <code>prism_items.data</code>.
      */
-    public String getData() {
-        return (String) get(2);
+    public byte[] getData() {
+        return (byte[]) get(2);
+    }
+
+    /**
+     * Setter for <code>prism_items.data_hash</code>.
+     */
+    public PrismItemsRecord setDataHash(String value) {
+        set(3, value);
+        return this;
+    }
+
+    /**
+     * Getter for <code>prism_items.data_hash</code>.
+     */
+    public String getDataHash() {
+        return (String) get(3);
     }
 
     // -------------------------------------------------------------------------
@@ -92,17 +107,17 @@ public class PrismItemsRecord
     }
 
     // -------------------------------------------------------------------------
-    // Record3 type implementation
+    // Record4 type implementation
     // -------------------------------------------------------------------------
 
     @Override
-    public Row3<UInteger, String, String> fieldsRow() {
-        return (Row3) super.fieldsRow();
+    public Row4<UInteger, String, byte[], String> fieldsRow() {
+        return (Row4) super.fieldsRow();
     }
 
     @Override
-    public Row3<UInteger, String, String> valuesRow() {
-        return (Row3) super.valuesRow();
+    public Row4<UInteger, String, byte[], String> valuesRow() {
+        return (Row4) super.valuesRow();
     }
 
     @Override
@@ -116,10 +131,15 @@ public class PrismItemsRecord
     }
 
     @Override
-    public Field<String> field3() {
+    public Field<byte[]> field3() {
         return PRISM_ITEMS.DATA;
     }
 
+    @Override
+    public Field<String> field4() {
+        return PRISM_ITEMS.DATA_HASH;
+    }
+
     @Override
     public UInteger component1() {
         return getItemId();
@@ -131,10 +151,15 @@ public class PrismItemsRecord
     }
 
     @Override
-    public String component3() {
+    public byte[] component3() {
         return getData();
     }
 
+    @Override
+    public String component4() {
+        return getDataHash();
+    }
+
     @Override
     public UInteger value1() {
         return getItemId();
@@ -158,21 +183,33 @@ public class PrismItemsRecord
     }
 
     @Override
-    public String value3() {
+    public byte[] value3() {
         return getData();
     }
 
     @Override
-    public PrismItemsRecord value3(String value) {
+    public PrismItemsRecord value3(byte[] value) {
         setData(value);
         return this;
     }
 
     @Override
-    public PrismItemsRecord values(UInteger value1, String value2, String value3) {
+    public String value4() {
+        return getDataHash();
+    }
+
+    @Override
+    public PrismItemsRecord value4(String value) {
+        setDataHash(value);
+        return this;
+    }
+
+    @Override
+    public PrismItemsRecord values(UInteger value1, String value2, byte[] value3, String value4) {
         value1(value1);
         value2(value2);
         value3(value3);
+        value4(value4);
         return this;
     }
 
@@ -190,10 +227,11 @@ public class PrismItemsRecord
     /**
      * Create a detached, initialised PrismItemsRecord.
      */
-    public PrismItemsRecord(UInteger itemId, String material, String data) {
+    public PrismItemsRecord(UInteger itemId, String material, byte[] data, String dataHash) {
         super(PRISM_ITEMS);
         setItemId(itemId);
         setMaterial(material);
         setData(data);
+        setDataHash(dataHash);
     }
 }
@@ -30,7 +30,7 @@ import org.jooq.ForeignKey;
 import org.jooq.Identity;
 import org.jooq.Name;
 import org.jooq.Record;
-import org.jooq.Row5;
+import org.jooq.Row6;
 import org.jooq.Schema;
 import org.jooq.Table;
 import org.jooq.TableField;
@@ -112,6 +112,16 @@ public class PrismBlocks extends TableImpl<PrismBlocksRecord> {
         ""
     );
 
+    /**
+     * The column <code>prism_blocks.data_hash</code>.
+     */
+    public final TableField<PrismBlocksRecord, String> DATA_HASH = createField(
+        DSL.name("data_hash"),
+        SQLDataType.CHAR(32),
+        this,
+        ""
+    );
+
     private PrismBlocks(String prefix, Name alias, Table<PrismBlocksRecord> aliased) {
         this(prefix, alias, aliased, null);
     }
@@ -160,7 +170,7 @@ public class PrismBlocks extends TableImpl<PrismBlocksRecord> {
 
     @Override
     public List<UniqueKey<PrismBlocksRecord>> getUniqueKeys() {
-        return Arrays.asList(Keys.KEY_PRISM_BLOCKS_BLOCK);
+        return Arrays.asList(Keys.KEY_PRISM_BLOCKS_DATA_HASH);
     }
 
     @Override
@@ -184,7 +194,7 @@ public class PrismBlocks extends TableImpl<PrismBlocksRecord> {
     }
 
     @Override
-    public Row5<UInteger, String, String, String, String> fieldsRow() {
-        return (Row5) super.fieldsRow();
+    public Row6<UInteger, String, String, String, String, String> fieldsRow() {
+        return (Row6) super.fieldsRow();
     }
 }
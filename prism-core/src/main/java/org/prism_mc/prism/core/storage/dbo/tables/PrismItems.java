@@ -23,12 +23,14 @@ package org.prism_mc.prism.core.storage.dbo.tables;
 import static org.prism_mc.prism.core.storage.adapters.sql.AbstractSqlStorageAdapter.PRISM_DATABASE;
 import static org.prism_mc.prism.core.storage.adapters.sql.AbstractSqlStorageAdapter.PRISM_ITEMS;
 
+import java.util.Arrays;
+import java.util.List;
 import org.jooq.Field;
 import org.jooq.ForeignKey;
 import org.jooq.Identity;
 import org.jooq.Name;
 import org.jooq.Record;
-import org.jooq.Row3;
+import org.jooq.Row4;
 import org.jooq.Schema;
 import org.jooq.Table;
 import org.jooq.TableField;
@@ -83,7 +85,17 @@ public class PrismItems extends TableImpl<PrismItemsRecord> {
     /**
      * The column <code>prism_items.data</code>.
      */
-    public final TableField<PrismItemsRecord, String> DATA = createField(DSL.name("data"), SQLDataType.CLOB, this, "");
+    public final TableField<PrismItemsRecord, byte[]> DATA = createField(DSL.name("data"), SQLDataType.BLOB, this, "");
+
+    /**
+     * The column <code>prism_items.data_hash</code>.
+     */
+    public final TableField<PrismItemsRecord, String> DATA_HASH = createField(
+        DSL.name("data_hash"),
+        SQLDataType.CHAR(32),
+        this,
+        ""
+    );
 
     private PrismItems(String prefix, Name alias, Table<PrismItemsRecord> aliased) {
         this(prefix, alias, aliased, null);
@@ -131,6 +143,11 @@ public class PrismItems extends TableImpl<PrismItemsRecord> {
         return Keys.KEY_PRISM_ITEMS_PRIMARY;
     }
 
+    @Override
+    public List<UniqueKey<PrismItemsRecord>> getUniqueKeys() {
+        return Arrays.asList(Keys.KEY_PRISM_ITEMS_DATA_HASH);
+    }
+
     @Override
     public PrismItems as(String alias) {
         return new PrismItems(prefix, DSL.name(alias), this);
@@ -152,7 +169,7 @@ public class PrismItems extends TableImpl<PrismItemsRecord> {
     }
 
     @Override
-    public Row3<UShort, String, String> fieldsRow() {
-        return (Row3) super.fieldsRow();
+    public Row4<UShort, String, byte[], String> fieldsRow() {
+        return (Row4) super.fieldsRow();
     }
 }
@@ -8,15 +8,18 @@ CREATE PROCEDURE %prefix%create_activity (
     IN `p_action` VARCHAR(25),
     IN `p_affectedItemMaterial` VARCHAR(45),
     IN `p_affectedItemQuantity` SMALLINT,
-    IN `p_affectedItemData` TEXT,
+    IN `p_affectedItemData` LONGBLOB,
+    IN `p_affectedItemHash` CHAR(32),
     IN `p_affectedBlockNamespace` VARCHAR(55),
     IN `p_affectedBlockName` VARCHAR(55),
     IN `p_affectedBlockData` VARCHAR(255),
     IN `p_affectedBlockTranslationKey` VARCHAR(155),
+    IN `p_affectedBlockHash` CHAR(32),
     IN `p_replacedBlockNamespace` VARCHAR(55),
     IN `p_replacedBlockName` VARCHAR(55),
     IN `p_replacedBlockData` VARCHAR(255),
     IN `p_replacedBlockTranslationKey` VARCHAR(155),
+    IN `p_replacedBlockHash` CHAR(32),
     IN `p_affectedEntityType` VARCHAR(25),
     IN `p_affectedEntityTypeTranslationKey` VARCHAR(155),
     IN `p_affectedPlayerName` VARCHAR(32),
@@ -30,6 +33,7 @@ CREATE PROCEDURE %prefix%create_activity (
     IN `p_causeBlockName` VARCHAR(55),
     IN `p_causeBlockData` VARCHAR(255),
     IN `p_causeBlockTranslationKey` VARCHAR(155),
+    IN `p_causeBlockHash` CHAR(32),
     IN `p_serializerVersion` SMALLINT,
     IN `p_serializedData` TEXT,
     IN `p_descriptor` VARCHAR(255),
@@ -53,17 +57,17 @@ BEGIN
 
     -- Create the affected item
     IF `p_affectedItemMaterial` IS NOT NULL THEN
-        CALL %prefix%get_or_create_item(p_affectedItemMaterial, p_affectedItemData, v_affectedItemId);
+        CALL %prefix%get_or_create_item(p_affectedItemMaterial, p_affectedItemData, p_affectedItemHash, v_affectedItemId);
     END IF;
 
     -- Create the affected block
     IF `p_affectedBlockName` IS NOT NULL THEN
-        CALL %prefix%get_or_create_block(p_affectedBlockNamespace, p_affectedBlockName, p_affectedBlockData, p_affectedBlockTranslationKey, v_affectedBlockId);
+        CALL %prefix%get_or_create_block(p_affectedBlockNamespace, p_affectedBlockName, p_affectedBlockData, p_affectedBlockTranslationKey, p_affectedBlockHash, v_affectedBlockId);
     END IF;
 
     -- Create the replaced block
     IF `p_replacedBlockName` IS NOT NULL THEN
-        CALL %prefix%get_or_create_block(p_replacedBlockNamespace, p_replacedBlockName, p_replacedBlockData, p_replacedBlockTranslationKey, v_replacedBlockId);
+        CALL %prefix%get_or_create_block(p_replacedBlockNamespace, p_replacedBlockName, p_replacedBlockData, p_replacedBlockTranslationKey, p_replacedBlockHash, v_replacedBlockId);
     END IF;
 
     -- Create the affected entity type
@@ -93,7 +97,7 @@ BEGIN
 
     -- Create the block cause
     IF `p_causeBlockName` IS NOT NULL THEN
-        CALL %prefix%get_or_create_block(p_causeBlockNamespace, p_causeBlockName, p_causeBlockData, p_causeBlockTranslationKey, v_causeBlockId);
+        CALL %prefix%get_or_create_block(p_causeBlockNamespace, p_causeBlockName, p_causeBlockData, p_causeBlockTranslationKey, p_causeBlockHash, v_causeBlockId);
     END IF;
 
     -- Create the world
@@ -0,0 +1,28 @@
+CREATE TABLE IF NOT EXISTS %prefix%activities (
+    activity_id int unsigned NOT NULL AUTO_INCREMENT,
+    `timestamp` int unsigned NOT NULL,
+    world_id int unsigned NOT NULL,
+    x int NOT NULL,
+    y int NOT NULL,
+    z int NOT NULL,
+    action_id int unsigned NOT NULL,
+    affected_item_id int unsigned NULL,
+    affected_item_quantity smallint unsigned NULL,
+    affected_block_id int unsigned NULL,
+    replaced_block_id int unsigned NULL,
+    affected_entity_type_id int unsigned NULL,
+    affected_player_id int unsigned NULL,
+    cause_id int unsigned NULL,
+    cause_player_id int unsigned NULL,
+    cause_entity_type_id int unsigned NULL,
+    cause_block_id int unsigned NULL,
+    descriptor varchar(255) NULL,
+    metadata varchar(255) NULL,
+    serializer_version smallint unsigned NULL,
+    serialized_data longtext NULL,
+    reversed bit(1) NOT NULL DEFAULT 0,
+    PRIMARY KEY (activity_id, `timestamp`)
+)
+PARTITION BY RANGE (`timestamp`) (
+    PARTITION pmax VALUES LESS THAN MAXVALUE
+)
@@ -1,11 +1,11 @@
 CREATE PROCEDURE %prefix%get_or_create_item
-(IN `materialKey` VARCHAR(45), IN `data` TEXT, OUT `itemId` INT)
+(IN `materialKey` VARCHAR(45), IN `data` LONGBLOB, IN `dataHash` CHAR(32), OUT `itemId` INT)
 BEGIN
     SELECT item_id INTO `itemId` FROM
-        %prefix%items WHERE material = `materialKey` AND data = `data`;
+        %prefix%items WHERE data_hash = `dataHash`;
 
     IF `itemId` IS NULL THEN
-        INSERT INTO %prefix%items (`material`, `data`) VALUES (`materialKey`, `data`);
+        INSERT INTO %prefix%items (`material`, `data`, `data_hash`) VALUES (`materialKey`, `data`, `dataHash`);
 
         SET `itemId` = LAST_INSERT_ID();
     END IF;
@@ -8,15 +8,18 @@ CREATE OR REPLACE FUNCTION %prefix%create_activity (
     p_action VARCHAR(25),
     p_affectedItemMaterial VARCHAR(45),
     p_affectedItemQuantity INTEGER,
-    p_affectedItemData TEXT,
+    p_affectedItemData BYTEA,
+    p_affectedItemHash CHAR(32),
     p_affectedBlockNamespace VARCHAR(55),
     p_affectedBlockName VARCHAR(55),
     p_affectedBlockData VARCHAR(255),
     p_affectedBlockTranslationKey VARCHAR(155),
+    p_affectedBlockHash CHAR(32),
     p_replacedBlockNamespace VARCHAR(55),
     p_replacedBlockName VARCHAR(55),
     p_replacedBlockData VARCHAR(255),
     p_replacedBlockTranslationKey VARCHAR(155),
+    p_replacedBlockHash CHAR(32),
     p_affectedEntityType VARCHAR(25),
     p_affectedEntityTypeTranslationKey VARCHAR(155),
     p_affectedPlayerName VARCHAR(32),
@@ -30,6 +33,7 @@ CREATE OR REPLACE FUNCTION %prefix%create_activity (
     p_causeBlockName VARCHAR(55),
     p_causeBlockData VARCHAR(255),
     p_causeTranslationKey VARCHAR(155),
+    p_causeBlockHash CHAR(32),
     p_serializerVersion INTEGER,
     p_serializedData TEXT,
     p_descriptor VARCHAR(255),
@@ -55,17 +59,17 @@ BEGIN
 
      -- Get or create affected item
     IF p_affectedItemMaterial IS NOT NULL THEN
-        SELECT %prefix%get_or_create_item(p_affectedItemMaterial, p_affectedItemData) INTO v_affectedItemId;
+        SELECT %prefix%get_or_create_item(p_affectedItemMaterial, p_affectedItemData, p_affectedItemHash) INTO v_affectedItemId;
     END IF;
 
     -- Get or create affected block
     IF p_affectedBlockName IS NOT NULL THEN
-        SELECT %prefix%get_or_create_block(p_affectedBlockNamespace, p_affectedBlockName, p_affectedBlockData, p_affectedBlockTranslationKey) INTO v_affectedBlockId;
+        SELECT %prefix%get_or_create_block(p_affectedBlockNamespace, p_affectedBlockName, p_affectedBlockData, p_affectedBlockTranslationKey, p_affectedBlockHash) INTO v_affectedBlockId;
     END IF;
 
     -- Get or create replaced block
     IF p_replacedBlockName IS NOT NULL THEN
-        SELECT %prefix%get_or_create_block(p_replacedBlockNamespace, p_replacedBlockName, p_replacedBlockData, p_replacedBlockTranslationKey)
+        SELECT %prefix%get_or_create_block(p_replacedBlockNamespace, p_replacedBlockName, p_replacedBlockData, p_replacedBlockTranslationKey, p_replacedBlockHash)
         INTO v_replacedBlockId;
     END IF;
 
@@ -96,7 +100,7 @@ BEGIN
 
     -- Get or create cause block id
     IF p_causeBlockName IS NOT NULL THEN
-        SELECT %prefix%get_or_create_block(p_causeBlockNamespace, p_causeBlockName, p_causeBlockData, p_causeTranslationKey) INTO v_causeBlockId;
+        SELECT %prefix%get_or_create_block(p_causeBlockNamespace, p_causeBlockName, p_causeBlockData, p_causeTranslationKey, p_causeBlockHash) INTO v_causeBlockId;
     END IF;
 
     -- Get or create world
@@ -0,0 +1,27 @@
+CREATE TABLE IF NOT EXISTS %prefix%activities (
+    activity_id BIGSERIAL NOT NULL,
+    "timestamp" BIGINT NOT NULL,
+    world_id BIGINT NOT NULL REFERENCES %prefix%worlds (world_id) ON DELETE CASCADE,
+    x INTEGER NOT NULL,
+    y INTEGER NOT NULL,
+    z INTEGER NOT NULL,
+    action_id BIGINT NOT NULL REFERENCES %prefix%actions (action_id) ON DELETE CASCADE,
+    affected_item_id BIGINT NULL REFERENCES %prefix%items (item_id) ON DELETE CASCADE,
+    affected_item_quantity INTEGER NULL,
+    affected_block_id BIGINT NULL REFERENCES %prefix%blocks (block_id) ON DELETE CASCADE,
+    replaced_block_id BIGINT NULL REFERENCES %prefix%blocks (block_id) ON DELETE CASCADE,
+    affected_entity_type_id BIGINT NULL REFERENCES %prefix%entity_types (entity_type_id) ON DELETE CASCADE,
+    affected_player_id BIGINT NULL REFERENCES %prefix%players (player_id) ON DELETE CASCADE,
+    cause_id BIGINT NULL REFERENCES %prefix%causes (cause_id) ON DELETE CASCADE,
+    cause_player_id BIGINT NULL REFERENCES %prefix%players (player_id) ON DELETE CASCADE,
+    cause_entity_type_id BIGINT NULL REFERENCES %prefix%entity_types (entity_type_id) ON DELETE CASCADE,
+    cause_block_id BIGINT NULL REFERENCES %prefix%blocks (block_id) ON DELETE CASCADE,
+    descriptor VARCHAR(255) NULL,
+    metadata VARCHAR(255) NULL,
+    serializer_version INTEGER NULL,
+    serialized_data TEXT NULL,
+    reversed BOOLEAN NOT NULL DEFAULT FALSE,
+    PRIMARY KEY (activity_id, "timestamp")
+) PARTITION BY RANGE ("timestamp");
+
+CREATE TABLE IF NOT EXISTS %prefix%activities_default PARTITION OF %prefix%activities DEFAULT;
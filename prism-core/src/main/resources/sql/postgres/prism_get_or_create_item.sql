@@ -1,14 +1,14 @@
-CREATE OR REPLACE FUNCTION %prefix%get_or_create_item(materialKey VARCHAR(45), itemData TEXT)
+CREATE OR REPLACE FUNCTION %prefix%get_or_create_item(materialKey VARCHAR(45), itemData BYTEA, itemHash CHAR(32))
 RETURNS INTEGER AS $$
 DECLARE
     itemId INTEGER;
 BEGIN
     SELECT item_id INTO itemId FROM
-    %prefix%items WHERE material = materialKey AND data = itemData;
+    %prefix%items WHERE data_hash = itemHash;
 
     IF itemId IS NULL THEN
-        INSERT INTO %prefix%items (material, data)
-        VALUES (materialKey, itemData) RETURNING item_id INTO itemId;
+        INSERT INTO %prefix%items (material, data, data_hash)
+        VALUES (materialKey, itemData, itemHash) RETURNING item_id INTO itemId;
     END IF;
 
     RETURN itemId;
@@ -20,6 +20,8 @@
 
 package org.prism_mc.prism.loader.services.configuration;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import lombok.Getter;
 import org.spongepowered.configurate.objectmapping.ConfigSerializable;
 import org.spongepowered.configurate.objectmapping.meta.Comment;
@@ -28,6 +30,17 @@ import org.spongepowered.configurate.objectmapping.meta.Comment;
 @Getter
 public class ActionsConfiguration {
 
+    @Comment(
+        """
+        Coalesce repeated, identical activities into one. Activities with the same action,
+        location, cause, and item or block change (new and replaced block) that happen within
+        a window (in milliseconds) of the first are recorded once, with item quantities summed
+        up to a full stack. Repeated block changes aren't counted, only the first is kept.
+        Lookups and rollbacks see aggregated activities once their window closes.
+        Remove an action or set it to 0 to record every occurrence."""
+    )
+    private Map<String, Integer> aggregationWindows = new LinkedHashMap<>();
+
     @Comment("bed-enter is when a player or entity gets into bed.")
     private boolean bedEnter = false;
 
@@ -232,4 +245,13 @@ public class ActionsConfiguration {
 
     @Comment("xp-pickup is when a player picks up XP orbs.")
     private boolean xpPickup = false;
+
+    /**
+     * Constructor.
+     */
+    public ActionsConfiguration() {
+        aggregationWindows.put("fluid-flow", 5000);
+        aggregationWindows.put("hopper-insert", 5000);
+        aggregationWindows.put("hopper-remove", 5000);
+    }
 }
@@ -65,6 +65,14 @@ public class CommandsConfiguration {
     )
     private List<String> entityTypeTagWhitelist = new ArrayList<>();
 
+    @Comment(
+        """
+        Count every matching activity for lookups so the total number of pages is known.
+        Counting is slow on very large databases. When disabled, lookups only check
+        whether another page exists and the total grows as you page forward."""
+    )
+    private boolean exactLookupCounts = true;
+
     @Comment("Enable the item tag whitelist. If disabled, values will be ignored.")
     private boolean itemTagWhitelistEnabled = false;
 
@@ -96,6 +96,10 @@ public class ConfigurationService {
             new PrismConfiguration()
         );
 
+        if (prismConfiguration.modifications().normalizeTickBudget()) {
+            logger.warning("modifications.min-tick-budget is greater than max-tick-budget, they've been swapped.");
+        }
+
         File storageConfigFile = new File(dataPath.toFile(), "storage.conf");
         storageConfiguration = getOrWriteConfiguration(
             StorageConfiguration.class,
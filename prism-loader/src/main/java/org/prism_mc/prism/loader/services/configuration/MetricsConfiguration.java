@@ -0,0 +1,45 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.prism_mc.prism.loader.services.configuration;
+
+import lombok.Getter;
+import org.spongepowered.configurate.objectmapping.ConfigSerializable;
+import org.spongepowered.configurate.objectmapping.meta.Comment;
+
+@ConfigSerializable
+@Getter
+public class MetricsConfiguration {
+
+    @Comment(
+        """
+        How often (in minutes) to write metrics.json and metrics.prom (Prometheus text format)
+        to the plugin folder. Set to 0 to disable."""
+    )
+    private int dumpInterval = 5;
+
+    @Comment(
+        """
+        Measure the time prism spends on the main thread, per listener and action type,
+        along with queue, filter and database write statistics. View them with /pr metrics.
+        Changes require a restart."""
+    )
+    private boolean enabled = false;
+}
@@ -34,20 +34,42 @@ public class ModificationConfiguration {
     @Comment("List materials that should be excluded from modifications.")
     private List<String> blockBlacklist = new ArrayList<>();
 
+    @Comment(
+        """
+        How many activities a rollback or restore loads from the database at a time.
+        The next chunk is loaded in the background while the current one is applied,
+        so memory use stays flat no matter how large the modification is."""
+    )
+    private int chunkSize = 5000;
+
     @Comment("Enables draining lava from the modification area.")
     private boolean drainLava = true;
 
     @Comment("List entities that should be excluded from modifications.")
     private List<String> entityBlacklist = new ArrayList<>();
 
+    @Comment(
+        """
+        How many rollbacks, restores, and previews may run at once. Queues only run
+        together when their areas don't overlap, and they share each tick's time budget."""
+    )
+    private int maxConcurrentQueues = 4;
+
     @Comment(
         """
         Set a maximum number of modifications per task. Splitting up world changes
         can help avoid overloading individual ticks and causing lag.
-        This can also reduce client lag as fewer changes are sent to clients at once."""
+        This can also reduce client lag as fewer changes are sent to clients at once.
+        Tasks are also limited by time, see target-mspt."""
     )
     private int maxPerTask = 1000;
 
+    @Comment("The most milliseconds a task may spend applying modifications, however idle the server is.")
+    private int maxTickBudget = 25;
+
+    @Comment("The fewest milliseconds a task may spend applying modifications, however busy the server is.")
+    private int minTickBudget = 2;
+
     @Comment("Teleport entities out of the way.")
     private boolean moveEntities = true;
 
@@ -57,6 +79,14 @@ public class ModificationConfiguration {
     @Comment("Enables clearing item/xp drops from a modification area.")
     private boolean removeDrops = true;
 
+    @Comment(
+        """
+        The tick time (in milliseconds) modification tasks try to keep the server under.
+        Each task spends what's left of it given the current average tick time, and
+        the measured cost of recent modifications decides how many fit."""
+    )
+    private double targetMspt = 45;
+
     @Comment("The delay in ticks between modification tasks.")
     private long taskDelay = 5;
 
@@ -77,6 +107,23 @@ public class ModificationConfiguration {
         removeBlocks.add("fire");
     }
 
+    /**
+     * Swap the tick budget bounds if the minimum is above the maximum.
+     *
+     * @return True if the bounds were swapped
+     */
+    public boolean normalizeTickBudget() {
+        if (minTickBudget <= maxTickBudget) {
+            return false;
+        }
+
+        int min = maxTickBudget;
+        maxTickBudget = minTickBudget;
+        minTickBudget = min;
+
+        return true;
+    }
+
     /**
      * Create a modification ruleset builder based on this configuration.
      *
@@ -88,9 +135,12 @@ public class ModificationConfiguration {
             .drainLava(drainLava)
             .entityBlacklist(entityBlacklist)
             .maxPerTask(maxPerTask)
+            .maxTickBudget(maxTickBudget)
+            .minTickBudget(minTickBudget)
             .moveEntities(moveEntities)
             .removeBlocks(removeBlocks)
             .removeDrops(removeDrops)
+            .targetMspt(targetMspt)
             .taskDelay(taskDelay);
     }
 }
@@ -74,6 +74,9 @@ public class PrismConfiguration {
     )
     private List<FilterConfiguration> filters = new ArrayList<>();
 
+    @Comment("Configure performance metrics.")
+    private MetricsConfiguration metrics = new MetricsConfiguration();
+
     @Comment("Configure rules for modifications (rollbacks/restores).")
     private ModificationConfiguration modifications = new ModificationConfiguration();
 
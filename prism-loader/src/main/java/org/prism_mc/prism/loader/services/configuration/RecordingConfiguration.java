@@ -20,6 +20,8 @@
 
 package org.prism_mc.prism.loader.services.configuration;
 
+import java.util.ArrayList;
+import java.util.List;
 import lombok.Getter;
 import org.spongepowered.configurate.objectmapping.ConfigSerializable;
 import org.spongepowered.configurate.objectmapping.meta.Comment;
@@ -28,6 +30,51 @@ import org.spongepowered.configurate.objectmapping.meta.Comment;
 @Getter
 public class RecordingConfiguration {
 
-    @Comment("The delay (in ticks) between queued data being commit to the DB.")
+    @Comment(
+        """
+        The delay (in ticks) a recording worker waits after emptying the queue.
+        Workers that fill an entire batch keep writing without waiting."""
+    )
     private long delay = 10;
+
+    @Comment(
+        """
+        Actions considered low priority. With the DROP_LOW_PRIORITY overflow policy,
+        these are dropped once the queue is nearly full, keeping the rest of it for everything else."""
+    )
+    private List<String> lowPriorityActions = new ArrayList<>();
+
+    @Comment(
+        """
+        What to do when the queue is full. The server thread never waits for room.
+        DROP - Activities that don't fit are dropped.
+        DROP_LOW_PRIORITY - Low priority actions are dropped once the queue is 90% full,
+        everything else once it's full.
+        SPILL - Activities are written to the on-disk spool until the queue has room."""
+    )
+    private RecordingOverflowPolicy overflowPolicy = RecordingOverflowPolicy.DROP_LOW_PRIORITY;
+
+    @Comment("The max number of activities held in memory waiting to be written to the database.")
+    private int queueCapacity = 100000;
+
+    @Comment("Settings for the on-disk activity spool.")
+    private RecordingSpoolConfiguration spool = new RecordingSpoolConfiguration();
+
+    @Comment(
+        """
+        The number of recording workers. Each worker writes its own batches using its own
+        database connection. File-based databases (H2, SQLite) and the enabled spool
+        always use one worker."""
+    )
+    private int workers = 2;
+
+    /**
+     * Constructor.
+     */
+    public RecordingConfiguration() {
+        lowPriorityActions.add("block-spread");
+        lowPriorityActions.add("fluid-flow");
+        lowPriorityActions.add("hopper-insert");
+        lowPriorityActions.add("hopper-remove");
+    }
 }
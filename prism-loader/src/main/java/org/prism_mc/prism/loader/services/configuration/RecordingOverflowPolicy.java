@@ -0,0 +1,35 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.prism_mc.prism.loader.services.configuration;
+
+public enum RecordingOverflowPolicy {
+    DROP,
+    DROP_LOW_PRIORITY,
+    SPILL,
+
+    /**
+     * The server thread no longer waits for room in the queue, so this behaves like DROP.
+     *
+     * @deprecated Use DROP, DROP_LOW_PRIORITY or SPILL
+     */
+    @Deprecated
+    BLOCK,
+}
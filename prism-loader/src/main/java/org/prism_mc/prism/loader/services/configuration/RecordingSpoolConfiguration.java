@@ -0,0 +1,45 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.prism_mc.prism.loader.services.configuration;
+
+import lombok.Getter;
+import org.spongepowered.configurate.objectmapping.ConfigSerializable;
+import org.spongepowered.configurate.objectmapping.meta.Comment;
+
+@ConfigSerializable
+@Getter
+public class RecordingSpoolConfiguration {
+
+    @Comment(
+        """
+        Write every activity to an append-only file on disk before it's recorded.
+        Activities survive crashes and database outages, are replayed after a restart,
+        and shutdown no longer waits for the queue to be written to the database.
+        Trade-offs: activities are serialized on the server thread as they're spooled,
+        and the spool is read by one recording worker at a time, so extra workers only
+        help with the overflow queue.
+        The spool is also used by the SPILL overflow policy, even when disabled here."""
+    )
+    private boolean enabled = false;
+
+    @Comment("The size (in megabytes) of each spool segment file.")
+    private int segmentSize = 16;
+}
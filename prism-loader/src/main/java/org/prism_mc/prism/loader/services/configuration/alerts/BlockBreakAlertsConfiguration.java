@@ -39,6 +39,9 @@ public class BlockBreakAlertsConfiguration {
     @Comment("Set the minimum light level that triggers the alert.")
     private int minLightLevel = 0;
 
+    @Comment("Configure the in-memory filter of player-placed blocks.")
+    private PlacedBlockFilterConfiguration placedBlockFilter = new PlacedBlockFilterConfiguration();
+
     /**
      * Alert configurations.
      */
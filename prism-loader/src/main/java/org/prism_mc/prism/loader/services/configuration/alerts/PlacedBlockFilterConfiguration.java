@@ -0,0 +1,52 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.prism_mc.prism.loader.services.configuration.alerts;
+
+import lombok.Getter;
+import org.spongepowered.configurate.objectmapping.ConfigSerializable;
+import org.spongepowered.configurate.objectmapping.meta.Comment;
+
+@ConfigSerializable
+@Getter
+public class PlacedBlockFilterConfiguration {
+
+    @Comment(
+        """
+        Answer most "was this block placed by a player?" checks for block break alerts
+        in memory, only querying the database when a block may have been placed.
+        The filter is rebuilt from the database on startup and saved on shutdown."""
+    )
+    private boolean enabled = true;
+
+    @Comment(
+        """
+        The number of placements each world's filter is first sized for.
+        Filters grow automatically once this is exceeded."""
+    )
+    private int expectedPlacements = 100000;
+
+    @Comment(
+        """
+        The chance a block never placed by a player still needs a database check.
+        Lower values use more memory."""
+    )
+    private double falsePositiveRate = 0.01;
+}
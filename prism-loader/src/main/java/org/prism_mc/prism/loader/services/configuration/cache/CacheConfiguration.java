@@ -44,6 +44,9 @@ public class CacheConfiguration {
         new DurationConfiguration(5, TimeUnit.MINUTES)
     );
 
+    @Comment("In-memory indexes of dimension tables, shared by recording and lookups.")
+    private DimensionIndexConfiguration dimensionIndex = new DimensionIndexConfiguration();
+
     @Comment("Activity queries (lookups) are cached so that they can be re-used or paginated.")
     private CacheBuilderConfiguration lookupExpiration = new CacheBuilderConfiguration(
         3,
@@ -88,4 +91,7 @@ public class CacheConfiguration {
 
     @Comment("Cache settings for world/primary keys.")
     private CacheBuilderConfiguration pkCacheWorld = new CacheBuilderConfiguration(20);
+
+    @Comment("An in-memory index of recently recorded activities, used by inspections and alerts.")
+    private RecentActivityIndexConfiguration recentActivities = new RecentActivityIndexConfiguration();
 }
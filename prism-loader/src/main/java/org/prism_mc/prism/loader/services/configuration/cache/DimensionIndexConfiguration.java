@@ -0,0 +1,54 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.prism_mc.prism.loader.services.configuration.cache;
+
+import lombok.Getter;
+import org.spongepowered.configurate.objectmapping.ConfigSerializable;
+import org.spongepowered.configurate.objectmapping.meta.Comment;
+
+@ConfigSerializable
+@Getter
+public class DimensionIndexConfiguration {
+
+    @Comment(
+        """
+        The max number of blocks kept in memory, by primary key and by namespace/name/data.
+        Blocks past this limit are still resolved, just through the database."""
+    )
+    private int maxBlocks = 100000;
+
+    @Comment(
+        """
+        The max number of players kept in memory, by primary key and by uuid.
+        Players past this limit are still resolved, just through the database."""
+    )
+    private int maxPlayers = 50000;
+
+    @Comment("The number of rows read per query while preloading.")
+    private int pageSize = 5000;
+
+    @Comment(
+        """
+        Load blocks, items, named causes and players into memory when storage starts,
+        so recording and lookups rarely need to query them one at a time."""
+    )
+    private boolean preload = true;
+}
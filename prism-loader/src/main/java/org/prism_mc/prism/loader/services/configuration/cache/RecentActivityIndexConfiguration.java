@@ -0,0 +1,52 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.prism_mc.prism.loader.services.configuration.cache;
+
+import java.util.concurrent.TimeUnit;
+import lombok.Getter;
+import org.spongepowered.configurate.objectmapping.ConfigSerializable;
+import org.spongepowered.configurate.objectmapping.meta.Comment;
+
+@ConfigSerializable
+@Getter
+public class RecentActivityIndexConfiguration {
+
+    @Comment(
+        """
+        Keep recently recorded activities in memory, by world and chunk. Inspections, alerts
+        and small-radius lookups read recent history from here (including activities still
+        waiting to be written) and only ask the database for anything older."""
+    )
+    private boolean enabled = true;
+
+    @Comment("How long activities are kept in memory.")
+    private DurationConfiguration retention = new DurationConfiguration(10, TimeUnit.MINUTES);
+
+    @Comment(
+        """
+        The max number of activities kept per chunk. Busy chunks fall back to the
+        database for anything older than what's still held."""
+    )
+    private int maxPerChunk = 1000;
+
+    @Comment("Radius lookups spanning more chunks than this (in each direction) always use the database.")
+    private int maxChunkRadius = 4;
+}
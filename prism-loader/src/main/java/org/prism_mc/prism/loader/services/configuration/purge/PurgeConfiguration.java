@@ -51,6 +51,26 @@ public class PurgeConfiguration {
     )
     private DurationConfiguration cycleDelay = new DurationConfiguration(2, TimeUnit.SECONDS);
 
+    @Comment(
+        """
+        How many purge batches to delete at once, each on its own database connection.
+        Every batch covers a separate primary key range so they don't compete for rows.
+        """
+    )
+    private int parallelism = 2;
+
+    @Comment(
+        """
+        The time (in milliseconds) each purge batch should take. Batches grow when deletes
+        finish faster and shrink when they're slower, starting from the limit above.
+        Set to 0 to always use the limit.
+        """
+    )
+    private int targetBatchTime = 500;
+
+    @Comment("The largest a purge batch is allowed to grow to.")
+    private int maxLimit = 50000;
+
     private List<CommandScheduleConfiguration> commandSchedules = new ArrayList<>();
 
     /**
@@ -28,6 +28,14 @@ import org.spongepowered.configurate.objectmapping.meta.Comment;
 @Getter
 public class MysqlDataSourceConfiguration extends SqlDataSourceConfiguration {
 
+    @Comment(
+        """
+        Record activities with multi-row inserts, hundreds of rows per statement.
+        This is much faster than one stored procedure call per activity, so it's used
+        for recording even when stored procedures are enabled."""
+    )
+    private boolean useBulkInserts = true;
+
     @Comment(
         """
         Toggle recommended Hikari datasource optimizations.
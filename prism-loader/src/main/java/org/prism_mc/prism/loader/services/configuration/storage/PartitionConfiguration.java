@@ -0,0 +1,46 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.prism_mc.prism.loader.services.configuration.storage;
+
+import lombok.Getter;
+import org.spongepowered.configurate.objectmapping.ConfigSerializable;
+import org.spongepowered.configurate.objectmapping.meta.Comment;
+
+@ConfigSerializable
+@Getter
+public class PartitionConfiguration {
+
+    @Comment(
+        """
+        Create the activities table partitioned by time. Purges that cover whole partitions
+        drop them instantly instead of deleting rows one window at a time.
+        This only applies when the activities table is first created; existing tables
+        are not converted. MySQL/MariaDB don't support foreign keys on partitioned tables,
+        so the activities table is created without them."""
+    )
+    private boolean enabled = false;
+
+    @Comment("The span of time each partition covers. DAILY or WEEKLY.")
+    private PartitionInterval interval = PartitionInterval.DAILY;
+
+    @Comment("How many partitions to create ahead of time. Checked at startup and hourly.")
+    private int premake = 7;
+}
@@ -36,6 +36,14 @@ public class PostgresDataSourceConfiguration extends SqlDataSourceConfiguration
     )
     public String schema = "prism";
 
+    @Comment(
+        """
+        Record activities with COPY, streaming a whole batch in one command.
+        This is much faster than one stored procedure call per activity, so it's used
+        for recording even when stored procedures are enabled."""
+    )
+    private boolean useBulkInserts = true;
+
     @Comment(
         """
         Enable stored procedures. Stored procedures allow Prism to modify database records
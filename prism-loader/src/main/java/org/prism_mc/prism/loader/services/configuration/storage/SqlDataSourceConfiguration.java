@@ -31,6 +31,9 @@ public class SqlDataSourceConfiguration extends DataSourceConfiguration {
     @Comment("Configure the hostname.")
     private String host = "localhost";
 
+    @Comment("Configure time-partitioned activity storage.")
+    private PartitionConfiguration partitioning = new PartitionConfiguration();
+
     @Comment("Enter the password, if the selected datasource uses authentication.")
     private String password = "";
 
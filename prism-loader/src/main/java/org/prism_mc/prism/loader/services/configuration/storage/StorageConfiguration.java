@@ -45,6 +45,14 @@ public class StorageConfiguration {
     )
     private StorageType primaryStorageType = StorageType.SQLITE;
 
+    @Comment(
+        """
+        Filter activities on primary keys and read names/block data from memory instead
+        of joining every dimension table. Much faster on large tables, especially MySQL.
+        Disable to fall back to joined queries."""
+    )
+    private boolean joinFreeQueries = true;
+
     @Comment(
         """
         Settings for H2 file-based databases. File-based databases aren't generally
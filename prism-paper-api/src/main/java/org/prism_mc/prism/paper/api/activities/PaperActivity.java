@@ -27,6 +27,7 @@ import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockState;
+import org.bukkit.block.data.BlockData;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.EntityType;
 import org.bukkit.entity.Player;
@@ -86,9 +87,14 @@ public class PaperActivity extends Activity {
         } else if (cause instanceof EntityType causeEntityType) {
             return new Cause(new PaperEntityContainer(causeEntityType));
         } else if (cause instanceof Block block) {
-            return new Cause(new PaperBlockContainer(block.getState()));
+            // Causes only need the block data, not a full state snapshot
+            return new Cause(new PaperBlockContainer(block.getBlockData(), block.getType().getBlockTranslationKey()));
         } else if (cause instanceof BlockState causeBlockState) {
             return new Cause(new PaperBlockContainer(causeBlockState));
+        } else if (cause instanceof BlockData causeBlockData) {
+            return new Cause(
+                new PaperBlockContainer(causeBlockData, causeBlockData.getMaterial().getBlockTranslationKey())
+            );
         } else if (cause instanceof BlockIgniteEvent.IgniteCause igniteCause) {
             return new Cause(new StringContainer(enumNameToString(igniteCause.name())));
         } else if (cause instanceof EntityDamageEvent.DamageCause damageCause) {
@@ -71,15 +71,10 @@ public class PaperBlockContainer extends TranslatableContainer implements BlockC
         super(translationKey);
         this.blockData = blockData;
 
-        // Removes all block data and splits the namespaced key into namespace/block name
-        var segments = this.blockData.getAsString().replaceAll("\\[.*$", "").split(":");
-        if (segments.length > 1) {
-            this.blockNamespace = segments[0];
-            this.blockName = segments[1];
-        } else {
-            this.blockNamespace = "";
-            this.blockName = segments[0];
-        }
+        // The material key matches the block data string without its states, without building it
+        var key = blockData.getMaterial().getKey();
+        this.blockNamespace = key.getNamespace();
+        this.blockName = key.getKey();
     }
 
     /**
@@ -34,6 +34,7 @@ import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import lombok.Getter;
 import org.bukkit.Bukkit;
@@ -65,6 +66,7 @@ import org.prism_mc.prism.paper.commands.DrainCommand;
 import org.prism_mc.prism.paper.commands.ExtinguishCommand;
 import org.prism_mc.prism.paper.commands.HelpCommand;
 import org.prism_mc.prism.paper.commands.LookupCommand;
+import org.prism_mc.prism.paper.commands.MetricsCommand;
 import org.prism_mc.prism.paper.commands.NearCommand;
 import org.prism_mc.prism.paper.commands.PageCommand;
 import org.prism_mc.prism.paper.commands.PreviewCommand;
@@ -135,7 +137,9 @@ import org.prism_mc.prism.paper.listeners.vehicle.VehicleDestroyListener;
 import org.prism_mc.prism.paper.listeners.vehicle.VehicleEnterListener;
 import org.prism_mc.prism.paper.listeners.vehicle.VehicleExitListener;
 import org.prism_mc.prism.paper.providers.InjectorProvider;
+import org.prism_mc.prism.paper.services.alerts.PlacedBlockFilter;
 import org.prism_mc.prism.paper.services.messages.MessageService;
+import org.prism_mc.prism.paper.services.metrics.MetricsService;
 import org.prism_mc.prism.paper.services.purge.PurgeService;
 import org.prism_mc.prism.paper.services.recording.PaperRecordingService;
 import org.prism_mc.prism.paper.services.scheduling.SchedulingService;
@@ -284,6 +288,16 @@ public class PrismPaper implements Prism {
             recordingService = injectorProvider.injector().getInstance(PaperRecordingService.class);
             purgeService = injectorProvider.injector().getInstance(PurgeService.class);
             injectorProvider.injector().getInstance(SchedulingService.class);
+
+            // Keep activity partitions created ahead of time (a no-op unless partitioning is enabled)
+            Bukkit.getAsyncScheduler()
+                .runAtFixedRate(
+                    loaderPlugin(),
+                    task -> storageAdapter.maintainActivityPartitions(),
+                    1,
+                    1,
+                    TimeUnit.HOURS
+                );
             
             long servicesTime = System.currentTimeMillis() - servicesStart;
             
@@ -394,14 +408,14 @@ public class PrismPaper implements Prism {
         };
         
         // Cache frequently accessed objects
-        var pluginManager = loaderPlugin().getServer().getPluginManager();
         var injector = injectorProvider.injector();
+        var metricsService = injector.getInstance(MetricsService.class);
         var plugin = loaderPlugin();
         
-        // Register all listeners
+        // Register all listeners, timed when metrics are enabled
         for (Class<? extends Listener> listenerClass : listeners) {
             Listener listener = injector.getInstance(listenerClass);
-            pluginManager.registerEvents(listener, plugin);
+            metricsService.registerListener(listener, plugin);
         }
     }
     
@@ -713,6 +727,7 @@ public class PrismPaper implements Prism {
             commandManager.registerCommand(injectorProvider.injector().getInstance(ExtinguishCommand.class));
             commandManager.registerCommand(injectorProvider.injector().getInstance(HelpCommand.class));
             commandManager.registerCommand(injectorProvider.injector().getInstance(LookupCommand.class));
+            commandManager.registerCommand(injectorProvider.injector().getInstance(MetricsCommand.class));
             commandManager.registerCommand(injectorProvider.injector().getInstance(NearCommand.class));
             commandManager.registerCommand(injectorProvider.injector().getInstance(PageCommand.class));
             commandManager.registerCommand(injectorProvider.injector().getInstance(VaultCommand.class));
@@ -777,6 +792,12 @@ public class PrismPaper implements Prism {
      */
     public void onDisable() {
         if (recordingService != null) {
+            // Stopping moves queued activities to the spool when one is in use
+            recordingService.stop();
+
+            // Saved after recording stops so every placement is included
+            injectorProvider.injector().getInstance(PlacedBlockFilter.class).save();
+
             if (!recordingService.queue().isEmpty()) {
                 loader()
                     .loggingService()
@@ -785,8 +806,6 @@ public class PrismPaper implements Prism {
                         recordingService.queue().size()
                     );
             }
-
-            recordingService.stop();
         }
 
         if (purgeService != null && !purgeService.queueFree()) {
@@ -22,6 +22,7 @@ package org.prism_mc.prism.paper.actions;
 
 import de.tr7zw.nbtapi.NBT;
 import de.tr7zw.nbtapi.iface.ReadWriteNBT;
+import java.util.Optional;
 import java.util.UUID;
 import lombok.Getter;
 import net.kyori.adventure.text.Component;
@@ -45,13 +46,17 @@ import org.prism_mc.prism.api.actions.metadata.Metadata;
 import org.prism_mc.prism.api.actions.types.ActionResultType;
 import org.prism_mc.prism.api.actions.types.ActionType;
 import org.prism_mc.prism.api.activities.Activity;
+import org.prism_mc.prism.api.services.modifications.ModificationQueue;
 import org.prism_mc.prism.api.services.modifications.ModificationQueueMode;
+import org.prism_mc.prism.api.services.modifications.ModificationQueueService;
 import org.prism_mc.prism.api.services.modifications.ModificationResult;
 import org.prism_mc.prism.api.services.modifications.ModificationRuleset;
 import org.prism_mc.prism.api.services.modifications.ModificationSkipReason;
 import org.prism_mc.prism.api.services.modifications.StateChange;
 import org.prism_mc.prism.api.util.Coordinate;
+import org.prism_mc.prism.paper.PrismPaper;
 import org.prism_mc.prism.paper.api.containers.PaperBlockContainer;
+import org.prism_mc.prism.paper.services.modifications.AbstractWorldModificationQueue;
 import org.prism_mc.prism.paper.services.modifications.state.BlockStateChange;
 
 public class PaperBlockAction extends PaperAction implements BlockAction {
@@ -65,7 +70,7 @@ public class PaperBlockAction extends PaperAction implements BlockAction {
     /**
      * The read/write nbt.
      */
-    private ReadWriteNBT readWriteNbt;
+    private volatile ReadWriteNBT readWriteNbt;
 
     /**
      * Construct a block state action.
@@ -133,6 +138,8 @@ public class PaperBlockAction extends PaperAction implements BlockAction {
             replacedBlockState != null ? replacedBlockState.getBlockData() : null,
             replacedBlockTranslationKey
         );
+        // NBT-API reads tile nbt from the world, so it's copied here on the main thread.
+        // Only converting the copy to a string is left to the recording workers.
         if (blockState instanceof TileState) {
             readWriteNbt = NBT.createNBTObject();
             NBT.get(blockState, readWriteNbt::mergeCompound);
@@ -411,8 +418,9 @@ public class PaperBlockAction extends PaperAction implements BlockAction {
         Object owner,
         ModificationQueueMode mode
     ) {
-        // Capture existing state for reporting/reversing needs
-        final BlockState oldState = block.getState();
+        // Capture existing state for reporting/reversing needs, previews are reverted from the world instead
+        final boolean planning = mode.equals(ModificationQueueMode.PLANNING);
+        final BlockState oldState = planning ? null : block.getState();
 
         if (mode.equals(ModificationQueueMode.COMPLETING)) {
             // Set the bed head part before applying the root block change
@@ -429,8 +437,8 @@ public class PaperBlockAction extends PaperAction implements BlockAction {
         }
 
         // Send block change or change world
-        if (mode.equals(ModificationQueueMode.PLANNING) && owner instanceof Player player) {
-            player.sendBlockChange(location, newBlockData);
+        if (planning && owner instanceof Player player) {
+            preview(player, location, newBlockData);
         } else if (mode.equals(ModificationQueueMode.COMPLETING)) {
             block.setBlockData(newBlockData);
         }
@@ -442,9 +450,38 @@ public class PaperBlockAction extends PaperAction implements BlockAction {
             });
         }
 
+        if (planning) {
+            return null;
+        }
+
         return new BlockStateChange(oldState, block.getState());
     }
 
+    /**
+     * Show a fake block to a player.
+     *
+     * <p>Blocks are added to the preview of the player's queue, which sends them in batches.</p>
+     *
+     * @param player The player
+     * @param location The location
+     * @param blockData The block data
+     */
+    protected void preview(Player player, Location location, BlockData blockData) {
+        Optional<ModificationQueue> queue = PrismPaper.instance()
+            .injectorProvider()
+            .injector()
+            .getInstance(ModificationQueueService.class)
+            .currentQueueForOwner(player);
+
+        if (queue.isPresent() && queue.get() instanceof AbstractWorldModificationQueue worldQueue) {
+            worldQueue
+                .blockPreview()
+                .add(location.getWorld(), location.getBlockX(), location.getBlockY(), location.getBlockZ(), blockData);
+        } else {
+            player.sendBlockChange(location, blockData);
+        }
+    }
+
     /**
      * Set the HEAD part of a bed.
      *
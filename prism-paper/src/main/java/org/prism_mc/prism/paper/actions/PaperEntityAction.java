@@ -53,7 +53,12 @@ public class PaperEntityAction extends PaperAction implements EntityAction {
     /**
      * The read/write nbt.
      */
-    private final ReadWriteNBT readWriteNbt;
+    private volatile ReadWriteNBT readWriteNbt;
+
+    /**
+     * The captured entity nbt, until it's trimmed.
+     */
+    private volatile NbtService.CapturedEntityNbt capturedNbt;
 
     /**
      * Construct a new entity action.
@@ -77,10 +82,8 @@ public class PaperEntityAction extends PaperAction implements EntityAction {
         super(type);
         this.entityContainer = new PaperEntityContainer(entity.getType());
 
-        readWriteNbt = NBT.createNBTObject();
-
-        var nbtService = PrismPaper.instance().injectorProvider().injector().getInstance(NbtService.class);
-        nbtService.processEntityNbt(entity, readWriteNbt::mergeCompound);
+        // Only the copy is taken here, trimming the defaults is left to the recording workers
+        this.capturedNbt = nbtService().captureEntityNbt(entity);
     }
 
     /**
@@ -102,14 +105,37 @@ public class PaperEntityAction extends PaperAction implements EntityAction {
         return Component.translatable(entityContainer.translationKey());
     }
 
+    /**
+     * Get the entity nbt, trimming the captured nbt the first time.
+     *
+     * @return The nbt
+     */
+    protected synchronized ReadWriteNBT customData() {
+        if (capturedNbt != null) {
+            readWriteNbt = nbtService().trimEntityNbt(capturedNbt.key(), capturedNbt.nbt(), capturedNbt.defaultNbt());
+            capturedNbt = null;
+        }
+
+        return readWriteNbt;
+    }
+
+    /**
+     * Get the nbt service.
+     *
+     * @return The nbt service
+     */
+    private static NbtService nbtService() {
+        return PrismPaper.instance().injectorProvider().injector().getInstance(NbtService.class);
+    }
+
     @Override
     public boolean hasCustomData() {
-        return this.readWriteNbt != null;
+        return this.capturedNbt != null || this.readWriteNbt != null;
     }
 
     @Override
     public @Nullable String serializeCustomData() {
-        return readWriteNbt.toString();
+        return customData().toString();
     }
 
     @Override
@@ -169,14 +195,14 @@ public class PaperEntityAction extends PaperAction implements EntityAction {
 
                 world.spawn(loc, entityContainer.entityType().getEntityClass(), entity -> {
                     NBT.modify(entity, nbt -> {
-                        nbt.mergeCompound(readWriteNbt);
+                        nbt.mergeCompound(customData());
                     });
                 });
 
                 return ModificationResult.builder().activity(activityContext).applied().build();
             }
         } else {
-            UUID uuid = readWriteNbt.getUUID("UUID");
+            UUID uuid = customData().getUUID("UUID");
             if (uuid != null) {
                 Entity entity = world.getEntity(uuid);
                 if (entity != null) {
@@ -186,7 +212,7 @@ public class PaperEntityAction extends PaperAction implements EntityAction {
                         return ModificationResult.builder().activity(activityContext).applied().build();
                     } else if (type().resultType().equals(ActionResultType.REPLACES)) {
                         NBT.modify(entity, nbt -> {
-                            nbt.mergeCompound(readWriteNbt);
+                            nbt.mergeCompound(customData());
                         });
 
                         return ModificationResult.builder().activity(activityContext).applied().build();
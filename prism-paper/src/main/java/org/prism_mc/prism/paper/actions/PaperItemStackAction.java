@@ -62,9 +62,9 @@ public class PaperItemStackAction extends PaperMaterialAction implements ItemAct
     private final ItemStack itemStack;
 
     /**
-     * The read/write nbt.
+     * The read/write nbt, converted from the item stack by the recording workers.
      */
-    private final ReadWriteNBT readWriteNbt;
+    private volatile ReadWriteNBT readWriteNbt;
 
     /**
      * Construct a new item stack action.
@@ -87,12 +87,13 @@ public class PaperItemStackAction extends PaperMaterialAction implements ItemAct
      */
     public PaperItemStackAction(ActionType type, ItemStack itemStack, int quantity, String descriptor) {
         super(type, itemStack.getType(), descriptor);
-        this.itemStack = itemStack;
-        this.readWriteNbt = NBT.itemStackToNBT(itemStack);
-        this.readWriteNbt.removeKey("count");
 
-        if (quantity <= itemStack.getMaxStackSize()) {
-            itemStack.setAmount(Integer.max(quantity, 1));
+        // Callers may pass a live stack that changes after the event, and the recording
+        // workers read this one off the main thread
+        this.itemStack = itemStack.clone();
+
+        if (quantity <= this.itemStack.getMaxStackSize()) {
+            this.itemStack.setAmount(Integer.max(quantity, 1));
         }
     }
 
@@ -146,7 +147,12 @@ public class PaperItemStackAction extends PaperMaterialAction implements ItemAct
     }
 
     @Override
-    public String serializeItemData() {
+    public synchronized String serializeItemData() {
+        if (readWriteNbt == null) {
+            readWriteNbt = NBT.itemStackToNBT(itemStack);
+            readWriteNbt.removeKey("count");
+        }
+
         return readWriteNbt.toString();
     }
 
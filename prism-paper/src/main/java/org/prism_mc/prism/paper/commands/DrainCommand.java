@@ -31,7 +31,6 @@ import org.bukkit.util.BoundingBox;
 import org.prism_mc.prism.loader.services.configuration.ConfigurationService;
 import org.prism_mc.prism.paper.services.confirmation.ConfirmationService;
 import org.prism_mc.prism.paper.services.messages.MessageService;
-import org.prism_mc.prism.paper.services.modifications.state.BlockStateChange;
 import org.prism_mc.prism.paper.utils.BlockUtils;
 
 @Command(value = "prism", alias = { "pr" })
@@ -104,18 +103,15 @@ public class DrainCommand {
                 "排除熔岩",
                 scopeInfo,
                 () -> {
-                    List<BlockStateChange> changes = BlockUtils.removeBlocksByMaterial(
-                        player.getWorld(),
-                        boundingBox,
-                        List.of(Material.LAVA)
-                    );
-                    int removalCount = changes.size();
-
-                    if (removalCount > 0) {
-                        messageService.modificationsRemovedBlocks(player, removalCount);
-                    } else {
-                        messageService.errorNoBlocksRemoved(player);
-                    }
+                    BlockUtils
+                        .removeBlocksByMaterial(player.getWorld(), boundingBox, List.of(Material.LAVA))
+                        .thenAccept(removalCount -> {
+                            if (removalCount > 0) {
+                                messageService.modificationsRemovedBlocks(player, removalCount);
+                            } else {
+                                messageService.errorNoBlocksRemoved(player);
+                            }
+                        });
                 }
             );
         }
@@ -150,18 +146,15 @@ public class DrainCommand {
                 "排除水",
                 scopeInfo,
                 () -> {
-                    List<BlockStateChange> changes = BlockUtils.removeBlocksByMaterial(
-                        player.getWorld(),
-                        boundingBox,
-                        List.of(Material.WATER)
-                    );
-                    int removalCount = changes.size();
-
-                    if (removalCount > 0) {
-                        messageService.modificationsRemovedBlocks(player, removalCount);
-                    } else {
-                        messageService.errorNoBlocksRemoved(player);
-                    }
+                    BlockUtils
+                        .removeBlocksByMaterial(player.getWorld(), boundingBox, List.of(Material.WATER))
+                        .thenAccept(removalCount -> {
+                            if (removalCount > 0) {
+                                messageService.modificationsRemovedBlocks(player, removalCount);
+                            } else {
+                                messageService.errorNoBlocksRemoved(player);
+                            }
+                        });
                 }
             );
         }
@@ -31,7 +31,6 @@ import org.bukkit.util.BoundingBox;
 import org.prism_mc.prism.loader.services.configuration.ConfigurationService;
 import org.prism_mc.prism.paper.services.confirmation.ConfirmationService;
 import org.prism_mc.prism.paper.services.messages.MessageService;
-import org.prism_mc.prism.paper.services.modifications.state.BlockStateChange;
 import org.prism_mc.prism.paper.utils.BlockUtils;
 
 @Command(value = "prism", alias = { "pr" })
@@ -101,18 +100,15 @@ public class ExtinguishCommand {
             "扑灭火焰",
             scopeInfo,
             () -> {
-                List<BlockStateChange> changes = BlockUtils.removeBlocksByMaterial(
-                    player.getWorld(),
-                    boundingBox,
-                    List.of(Material.FIRE)
-                );
-                int removalCount = changes.size();
-
-                if (removalCount > 0) {
-                    messageService.modificationsRemovedBlocks(player, removalCount);
-                } else {
-                    messageService.errorNoBlocksRemoved(player);
-                }
+                BlockUtils
+                    .removeBlocksByMaterial(player.getWorld(), boundingBox, List.of(Material.FIRE))
+                    .thenAccept(removalCount -> {
+                        if (removalCount > 0) {
+                            messageService.modificationsRemovedBlocks(player, removalCount);
+                        } else {
+                            messageService.errorNoBlocksRemoved(player);
+                        }
+                    });
             }
         );
     }
@@ -0,0 +1,162 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.prism_mc.prism.paper.commands;
+
+import com.google.inject.Inject;
+import dev.triumphteam.cmd.bukkit.annotation.Permission;
+import dev.triumphteam.cmd.core.annotations.Command;
+import java.util.List;
+import java.util.Locale;
+import org.bukkit.command.CommandSender;
+import org.prism_mc.prism.paper.services.messages.MessageService;
+import org.prism_mc.prism.paper.services.metrics.LatencyHistogram;
+import org.prism_mc.prism.paper.services.metrics.MetricsService;
+
+@Command(value = "prism", alias = { "pr" })
+public class MetricsCommand {
+
+    /**
+     * The max number of listeners and actions to show.
+     */
+    private static final int LIMIT = 10;
+
+    /**
+     * The message service.
+     */
+    private final MessageService messageService;
+
+    /**
+     * The metrics service.
+     */
+    private final MetricsService metricsService;
+
+    /**
+     * Constructor.
+     *
+     * @param messageService The message service
+     * @param metricsService The metrics service
+     */
+    @Inject
+    public MetricsCommand(MessageService messageService, MetricsService metricsService) {
+        this.messageService = messageService;
+        this.metricsService = metricsService;
+    }
+
+    @Command("metrics")
+    @Permission("prism.admin")
+    public class MetricsSubCommand {
+
+        /**
+         * Run the command.
+         *
+         * @param sender The command sender
+         */
+        @Command
+        public void onMetrics(final CommandSender sender) {
+            if (!metricsService.enabled()) {
+                messageService.errorMetricsDisabled(sender);
+
+                return;
+            }
+
+            int ticks = metricsService.elapsedTicks();
+            double seconds = metricsService.elapsedSeconds();
+
+            messageService.metricsHeader(sender, (long) seconds);
+
+            messageService.metricsSection(sender, "Listeners");
+            List<LatencyHistogram.Snapshot> listeners = metricsService.listenerSnapshots();
+            for (var snapshot : listeners.subList(0, Math.min(LIMIT, listeners.size()))) {
+                messageService.metricsEntry(
+                    sender,
+                    snapshot.name(),
+                    snapshot.count(),
+                    duration(snapshot.total() / ticks),
+                    duration(snapshot.p50()),
+                    duration(snapshot.p99()),
+                    duration(snapshot.max())
+                );
+            }
+
+            messageService.metricsSection(sender, "Actions");
+            List<MetricsService.ActionSnapshot> actions = metricsService.actionSnapshots();
+            for (var snapshot : actions.subList(0, Math.min(LIMIT, actions.size()))) {
+                messageService.metricsActionEntry(
+                    sender,
+                    snapshot.timer().name(),
+                    snapshot.timer().count(),
+                    duration(snapshot.timer().total() / ticks),
+                    duration(snapshot.timer().p50()),
+                    duration(snapshot.timer().p99()),
+                    duration(snapshot.timer().max()),
+                    snapshot.rejected()
+                );
+            }
+
+            long queued = metricsService.queuedCount();
+            messageService.metricsQueue(
+                sender,
+                metricsService.queueDepth(),
+                queued,
+                String.format(Locale.ROOT, "%.1f", queued / seconds),
+                metricsService.droppedCount()
+            );
+
+            LatencyHistogram.Snapshot batches = metricsService.batchSnapshot();
+            messageService.metricsBatches(
+                sender,
+                batches.count(),
+                metricsService.batchedActivities(),
+                duration(batches.p50()),
+                duration(batches.p99()),
+                duration(batches.max())
+            );
+        }
+
+        /**
+         * Run the reset command.
+         *
+         * @param sender The command sender
+         */
+        @Command("reset")
+        public void onReset(final CommandSender sender) {
+            if (!metricsService.enabled()) {
+                messageService.errorMetricsDisabled(sender);
+
+                return;
+            }
+
+            metricsService.reset();
+
+            messageService.metricsReset(sender);
+        }
+    }
+
+    /**
+     * Format nanoseconds as milliseconds.
+     *
+     * @param nanos The nanoseconds
+     * @return The formatted duration
+     */
+    private static String duration(long nanos) {
+        return String.format(Locale.ROOT, "%.3fms", nanos / 1_000_000d);
+    }
+}
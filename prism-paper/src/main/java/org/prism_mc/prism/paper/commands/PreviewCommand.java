@@ -33,10 +33,10 @@ import org.prism_mc.prism.api.activities.ActivityQuery;
 import org.prism_mc.prism.api.services.modifications.ModificationQueue;
 import org.prism_mc.prism.api.services.modifications.ModificationRuleset;
 import org.prism_mc.prism.api.services.modifications.Previewable;
-import org.prism_mc.prism.api.storage.StorageAdapter;
 import org.prism_mc.prism.loader.services.logging.LoggingService;
 import org.prism_mc.prism.paper.providers.TaskChainProvider;
 import org.prism_mc.prism.paper.services.messages.MessageService;
+import org.prism_mc.prism.paper.services.modifications.ModificationChunkLoader;
 import org.prism_mc.prism.paper.services.modifications.PaperModificationQueueService;
 import org.prism_mc.prism.paper.services.modifications.PaperRestore;
 import org.prism_mc.prism.paper.services.modifications.PaperRollback;
@@ -45,11 +45,6 @@ import org.prism_mc.prism.paper.services.query.QueryService;
 @Command(value = "prism", alias = { "pr" })
 public class PreviewCommand {
 
-    /**
-     * The storage adapter.
-     */
-    private final StorageAdapter storageAdapter;
-
     /**
      * The message service.
      */
@@ -78,7 +73,6 @@ public class PreviewCommand {
     /**
      * Construct the rollback command.
      *
-     * @param storageAdapter The storage adapter
      * @param messageService The message service
      * @param modificationQueueService The modification queue service
      * @param queryService The query service
@@ -87,14 +81,12 @@ public class PreviewCommand {
      */
     @Inject
     public PreviewCommand(
-        StorageAdapter storageAdapter,
         MessageService messageService,
         PaperModificationQueueService modificationQueueService,
         QueryService queryService,
         TaskChainProvider taskChainProvider,
         LoggingService loggingService
     ) {
-        this.storageAdapter = storageAdapter;
         this.messageService = messageService;
         this.modificationQueueService = modificationQueueService;
         this.queryService = queryService;
@@ -197,18 +189,21 @@ public class PreviewCommand {
         final ActivityQuery query,
         final ModificationRuleset modificationRuleset
     ) {
-        // Ensure a queue is free
-        if (!modificationQueueService.queueAvailable()) {
+        // Ensure no queue is modifying the same area
+        if (!modificationQueueService.queueAvailable(player, query)) {
             messageService.errorQueueNotFree(player);
 
             return;
         }
 
+        // Modifications are loaded in chunks, starting with the first
+        final ModificationChunkLoader chunkLoader = modificationQueueService.newChunkLoader(query);
+
         taskChainProvider
             .newChain()
             .asyncFirst(() -> {
                 try {
-                    return storageAdapter.queryActivities(query);
+                    return chunkLoader.load();
                 } catch (Exception e) {
                     messageService.errorQueryExec(player);
                     loggingService.handleException(e);
@@ -224,12 +219,20 @@ public class PreviewCommand {
                     return null;
                 }
 
+                // Another queue may have claimed the area while loading
+                if (!modificationQueueService.queueAvailable(player, query)) {
+                    messageService.errorQueueNotFree(player);
+
+                    return null;
+                }
+
                 ModificationQueue queue = modificationQueueService.newQueue(
                     clazz,
                     modificationRuleset,
                     player,
                     query,
-                    results
+                    results,
+                    chunkLoader
                 );
                 if (queue instanceof Previewable previewable) {
                     previewable.preview();
@@ -23,15 +23,26 @@ package org.prism_mc.prism.paper.commands;
 import com.google.inject.Inject;
 import dev.triumphteam.cmd.bukkit.annotation.Permission;
 import dev.triumphteam.cmd.core.annotations.Command;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
+import org.prism_mc.prism.api.activities.Activity;
+import org.prism_mc.prism.api.activities.ActivityQuery;
 import org.prism_mc.prism.api.services.modifications.ModificationQueueResult;
 import org.prism_mc.prism.api.services.modifications.ModificationQueueService;
+import org.prism_mc.prism.api.services.modifications.ModificationResult;
 import org.prism_mc.prism.api.services.modifications.ModificationResultStatus;
-import org.prism_mc.prism.api.services.pagination.ListPaginationResult;
+import org.prism_mc.prism.api.services.modifications.ModificationResults;
 import org.prism_mc.prism.api.services.pagination.PaginationHandler;
+import org.prism_mc.prism.api.services.pagination.PartialListPaginationResult;
+import org.prism_mc.prism.api.storage.StorageAdapter;
 import org.prism_mc.prism.loader.services.configuration.ConfigurationService;
+import org.prism_mc.prism.loader.services.logging.LoggingService;
+import org.prism_mc.prism.paper.providers.TaskChainProvider;
 import org.prism_mc.prism.paper.services.messages.MessageService;
 import org.prism_mc.prism.paper.services.pagination.PaginationService;
 
@@ -40,6 +51,11 @@ public class ReportCommand {
 
     private final ConfigurationService configurationService;
 
+    /**
+     * The logging service.
+     */
+    private final LoggingService loggingService;
+
     /**
      * The message service.
      */
@@ -55,25 +71,44 @@ public class ReportCommand {
      */
     private final PaginationService paginationService;
 
+    /**
+     * The storage adapter.
+     */
+    private final StorageAdapter storageAdapter;
+
+    /**
+     * The task chain provider.
+     */
+    private final TaskChainProvider taskChainProvider;
+
     /**
      * Construct the command.
      *
      * @param configurationService The configuration service
+     * @param loggingService The logging service
      * @param messageService The message service
      * @param modificationQueueService The modification queue service
      * @param paginationService The pagination service
+     * @param storageAdapter The storage adapter
+     * @param taskChainProvider The task chain provider
      */
     @Inject
     public ReportCommand(
         ConfigurationService configurationService,
+        LoggingService loggingService,
         MessageService messageService,
         ModificationQueueService modificationQueueService,
-        PaginationService paginationService
+        PaginationService paginationService,
+        StorageAdapter storageAdapter,
+        TaskChainProvider taskChainProvider
     ) {
         this.configurationService = configurationService;
+        this.loggingService = loggingService;
         this.messageService = messageService;
         this.modificationQueueService = modificationQueueService;
         this.paginationService = paginationService;
+        this.storageAdapter = storageAdapter;
+        this.taskChainProvider = taskChainProvider;
     }
 
     @Command("report")
@@ -87,23 +122,28 @@ public class ReportCommand {
          */
         @Command("modification-queue")
         public void onModificationQueueReport(final CommandSender sender) {
-            if (modificationQueueService.currentQueue() == null) {
+            var queues = modificationQueueService.queues();
+            if (queues.isEmpty()) {
                 messageService.errorQueueReportEmpty(sender);
 
                 return;
             }
 
-            var owner = "console";
-            if (modificationQueueService.currentQueue().owner() instanceof Player player) {
-                owner = player.getName();
-            }
-
             messageService.modificationsReportQueueHeader(sender);
-            messageService.modificationsReportQueueEntry(
-                sender,
-                modificationQueueService.currentQueue().queueSize(),
-                owner
-            );
+
+            for (var queue : queues) {
+                var owner = "console";
+                if (queue.owner() instanceof Player player) {
+                    owner = player.getName();
+                }
+
+                messageService.modificationsReportQueueEntry(sender, queue.queueSize(), owner);
+                messageService.modificationsReportQueueThroughput(
+                    sender,
+                    String.format("%.0f", queue.modificationsPerSecond()),
+                    String.format("%.2f", queue.millisecondsPerTask())
+                );
+            }
         }
 
         /**
@@ -124,29 +164,8 @@ public class ReportCommand {
 
             messageService.modificationsReportPartialHeader(sender);
 
-            var partialResults = queueResult
-                .results()
-                .stream()
-                .filter(result -> result.status().equals(ModificationResultStatus.PARTIAL))
-                .toList();
-
-            var paginationResult = new ListPaginationResult<>(
-                partialResults,
-                configurationService.prismConfig().defaults().perPage()
-            );
-
-            var paginationHandler = new PaginationHandler<>(
-                paginationResult,
-                page -> {
-                    paginationResult.currentPage(page);
-                    paginationService.show(sender);
-                },
-                (result -> {
-                        messageService.modificationsReportSkippedActivity(sender, result.activity(), result);
-                    })
-            );
-
-            paginationService.show(sender, paginationHandler);
+            ModificationResults results = queueResult.results();
+            showResults(sender, results, results.indexes(ModificationResultStatus.PARTIAL), 1);
         }
 
         /**
@@ -167,29 +186,75 @@ public class ReportCommand {
 
             messageService.modificationsReportSkippedHeader(sender);
 
-            var skippedResults = queueResult
-                .results()
-                .stream()
-                .filter(result -> result.status().equals(ModificationResultStatus.SKIPPED))
-                .toList();
-
-            var paginationResult = new ListPaginationResult<>(
-                skippedResults,
-                configurationService.prismConfig().defaults().perPage()
-            );
-
-            var paginationHandler = new PaginationHandler<>(
-                paginationResult,
-                page -> {
-                    paginationResult.currentPage(page);
-                    paginationService.show(sender);
-                },
-                (result -> {
-                        messageService.modificationsReportSkippedActivity(sender, result.activity(), result);
-                    })
-            );
-
-            paginationService.show(sender, paginationHandler);
+            ModificationResults results = queueResult.results();
+            showResults(sender, results, results.indexes(ModificationResultStatus.SKIPPED), 1);
         }
     }
+
+    /**
+     * Show a page of modification results, reading their activities back from storage.
+     *
+     * <p>Results only keep activity ids, so each page queries the activities it shows.</p>
+     *
+     * @param sender The command sender
+     * @param results The modification results
+     * @param indexes The indexes of the results to paginate
+     * @param page The page
+     */
+    protected void showResults(CommandSender sender, ModificationResults results, int[] indexes, int page) {
+        int perPage = configurationService.prismConfig().defaults().perPage();
+        int start = Math.min(indexes.length, Math.max(0, (page - 1) * perPage));
+        int end = Math.min(indexes.length, start + perPage);
+
+        taskChainProvider
+            .newChain()
+            .async(() -> {
+                try {
+                    List<Integer> activityIds = new ArrayList<>();
+                    for (int i = start; i < end; i++) {
+                        long activityId = results.activityId(indexes[i]);
+                        if (activityId != ModificationResults.NO_ID) {
+                            activityIds.add((int) activityId);
+                        }
+                    }
+
+                    Map<Long, Activity> activities = new HashMap<>();
+                    if (!activityIds.isEmpty()) {
+                        var query = ActivityQuery.builder()
+                            .activityIds(activityIds)
+                            .lookup(false)
+                            .grouped(false)
+                            .limit(activityIds.size())
+                            .build();
+
+                        for (Activity activity : storageAdapter.queryActivities(query)) {
+                            activities.put(((Number) activity.primaryKey()).longValue(), activity);
+                        }
+                    }
+
+                    // Activities purged since the modification can't be shown
+                    List<ModificationResult> pageResults = new ArrayList<>();
+                    for (int i = start; i < end; i++) {
+                        Activity activity = activities.get(results.activityId(indexes[i]));
+                        if (activity != null) {
+                            pageResults.add(results.toResult(indexes[i], activity));
+                        }
+                    }
+
+                    var paginationHandler = new PaginationHandler<>(
+                        new PartialListPaginationResult<>(pageResults, indexes.length, perPage, page),
+                        nextPage -> showResults(sender, results, indexes, nextPage),
+                        (result -> {
+                                messageService.modificationsReportSkippedActivity(sender, result.activity(), result);
+                            })
+                    );
+
+                    paginationService.show(sender, paginationHandler);
+                } catch (Exception e) {
+                    messageService.errorQueryExec(sender);
+                    loggingService.handleException(e);
+                }
+            })
+            .execute();
+    }
 }
@@ -28,22 +28,18 @@ import dev.triumphteam.cmd.core.annotations.NamedArguments;
 import dev.triumphteam.cmd.core.argument.keyed.Arguments;
 import org.bukkit.command.CommandSender;
 import org.prism_mc.prism.api.activities.ActivityQuery;
-import org.prism_mc.prism.api.storage.StorageAdapter;
 import org.prism_mc.prism.loader.services.logging.LoggingService;
 import org.prism_mc.prism.paper.providers.TaskChainProvider;
 import org.prism_mc.prism.paper.services.confirmation.ConfirmationService;
 import org.prism_mc.prism.paper.services.messages.MessageService;
+import org.prism_mc.prism.paper.services.modifications.ModificationChunkLoader;
 import org.prism_mc.prism.paper.services.modifications.PaperModificationQueueService;
+import org.prism_mc.prism.paper.services.modifications.PaperRollback;
 import org.prism_mc.prism.paper.services.query.QueryService;
 
 @Command(value = "prism", alias = { "pr" })
 public class RollbackCommand {
 
-    /**
-     * The storage adapter.
-     */
-    private final StorageAdapter storageAdapter;
-
     /**
      * The message service.
      */
@@ -82,7 +78,6 @@ public class RollbackCommand {
     /**
      * Construct the rollback command.
      *
-     * @param storageAdapter The storage adapter
      * @param messageService The message service
      * @param modificationQueueService The modification queue service
      * @param queryService The query service
@@ -93,7 +88,6 @@ public class RollbackCommand {
      */
     @Inject
     public RollbackCommand(
-        StorageAdapter storageAdapter,
         MessageService messageService,
         PaperModificationQueueService modificationQueueService,
         QueryService queryService,
@@ -102,7 +96,6 @@ public class RollbackCommand {
         HelpCommand helpCommand,
         ConfirmationService confirmationService
     ) {
-        this.storageAdapter = storageAdapter;
         this.messageService = messageService;
         this.modificationQueueService = modificationQueueService;
         this.queryService = queryService;
@@ -131,13 +124,6 @@ public class RollbackCommand {
             return;
         }
 
-        // Ensure a queue is free
-        if (!modificationQueueService.queueAvailable()) {
-            messageService.errorQueueNotFree(sender);
-
-            return;
-        }
-
         var builder = queryService.queryFromArguments(sender, arguments);
         if (builder.isEmpty()) {
             // Parameter parsing failed, show error and help
@@ -154,12 +140,22 @@ public class RollbackCommand {
             helpCommand.onHelp(sender, "rollback");
             return;
         }
+
+        // Ensure no queue is modifying the same area
+        if (!modificationQueueService.queueAvailable(sender, query)) {
+            messageService.errorQueueNotFree(sender);
+
+            return;
+        }
         
+        // Modifications are loaded in chunks, starting with the first
+        final ModificationChunkLoader chunkLoader = modificationQueueService.newChunkLoader(query);
+
         taskChainProvider
             .newChain()
             .asyncFirst(() -> {
                 try {
-                    return storageAdapter.queryActivities(query);
+                    return chunkLoader.load();
                 } catch (Exception e) {
                     messageService.errorQueryExec(sender);
                     loggingService.handleException(e);
@@ -181,7 +177,7 @@ public class RollbackCommand {
                     .build();
 
                 // Build scope info for confirmation
-                String scopeInfo = buildScopeInfo(query, modifications.size());
+                String scopeInfo = buildScopeInfo(query, modifications.size(), chunkLoader.hasMore());
 
                 // Request confirmation before applying
                 confirmationService.requestConfirmation(
@@ -189,8 +185,22 @@ public class RollbackCommand {
                     "回滚操作",
                     scopeInfo,
                     () -> {
+                        // Another queue may have claimed the area while waiting for confirmation
+                        if (!modificationQueueService.queueAvailable(sender, query)) {
+                            messageService.errorQueueNotFree(sender);
+
+                            return;
+                        }
+
                         modificationQueueService
-                            .newRollbackQueue(modificationRuleset, sender, query, modifications)
+                            .newQueue(
+                                PaperRollback.class,
+                                modificationRuleset,
+                                sender,
+                                query,
+                                modifications,
+                                chunkLoader
+                            )
                             .apply();
                     }
                 );
@@ -203,12 +213,13 @@ public class RollbackCommand {
      *
      * @param query The activity query
      * @param modificationCount The number of modifications
+     * @param more Whether more modifications follow the counted ones
      * @return The scope information string
      */
-    private String buildScopeInfo(ActivityQuery query, int modificationCount) {
+    private String buildScopeInfo(ActivityQuery query, int modificationCount, boolean more) {
         StringBuilder scope = new StringBuilder();
         
-        scope.append("将回滚 ").append(modificationCount).append(" 个修改");
+        scope.append("将回滚 ").append(modificationCount).append(more ? "+" : "").append(" 个修改");
         
         if (query.causePlayerNames() != null && !query.causePlayerNames().isEmpty()) {
             scope.append(" | 玩家: ").append(String.join(", ", query.causePlayerNames()));
@@ -45,6 +45,7 @@ import org.prism_mc.prism.paper.actions.PaperItemStackAction;
 import org.prism_mc.prism.paper.actions.types.PaperActionTypeRegistry;
 import org.prism_mc.prism.paper.providers.TaskChainProvider;
 import org.prism_mc.prism.paper.services.lookup.LookupService;
+import org.prism_mc.prism.paper.services.lookup.RecentActivityIndex;
 import org.prism_mc.prism.paper.services.messages.MessageService;
 import org.prism_mc.prism.paper.services.query.QueryService;
 import org.prism_mc.prism.paper.services.translation.PaperTranslationService;
@@ -77,6 +78,11 @@ public class VaultCommand {
      */
     private final QueryService queryService;
 
+    /**
+     * The recent activity index.
+     */
+    private final RecentActivityIndex recentActivityIndex;
+
     /**
      * Keys reversed while the gui is open.
      */
@@ -105,6 +111,7 @@ public class VaultCommand {
      * @param lookupService The lookup service
      * @param messageService The message service
      * @param queryService The query service
+     * @param recentActivityIndex The recent activity index
      * @param storageAdapter The storage adapter
      * @param taskChainProvider The task chain provider
      * @param translationService The translation service
@@ -116,6 +123,7 @@ public class VaultCommand {
         LookupService lookupService,
         MessageService messageService,
         QueryService queryService,
+        RecentActivityIndex recentActivityIndex,
         StorageAdapter storageAdapter,
         TaskChainProvider taskChainProvider,
         PaperTranslationService translationService
@@ -125,6 +133,7 @@ public class VaultCommand {
         this.lookupService = lookupService;
         this.messageService = messageService;
         this.queryService = queryService;
+        this.recentActivityIndex = recentActivityIndex;
         this.storageAdapter = storageAdapter;
         this.taskChainProvider = taskChainProvider;
         this.translationService = translationService;
@@ -251,6 +260,11 @@ public class VaultCommand {
                                     .execute();
 
                                 reversedKeys.clear();
+
+                                // Recent activities held in memory don't know they've been reversed
+                                if (!keys.isEmpty()) {
+                                    recentActivityIndex.invalidate(query);
+                                }
                             });
                         });
                 }
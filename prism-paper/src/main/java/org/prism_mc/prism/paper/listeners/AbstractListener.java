@@ -21,7 +21,9 @@
 package org.prism_mc.prism.paper.listeners;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import org.bukkit.Location;
 import org.bukkit.block.Block;
 import org.bukkit.block.data.Bisected;
@@ -37,6 +39,7 @@ import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.InventoryHolder;
 import org.bukkit.inventory.ItemStack;
 import org.prism_mc.prism.api.actions.types.ActionType;
+import org.prism_mc.prism.api.activities.Activity;
 import org.prism_mc.prism.loader.services.configuration.ConfigurationService;
 import org.prism_mc.prism.paper.actions.PaperBlockAction;
 import org.prism_mc.prism.paper.actions.PaperEntityAction;
@@ -104,13 +107,14 @@ public class AbstractListener {
             return;
         }
 
-        // Record all blocks that will detach
-        for (Block detachable : BlockUtils.detachables(new ArrayList<>(), block)) {
-            recordBlockBreakAction(detachable, cause);
-        }
+        // Record all blocks that will detach, and this block
+        Set<Long> visited = new HashSet<>();
+        visited.add(block.getBlockKey());
+
+        List<Block> brokenBlocks = BlockUtils.detachables(new ArrayList<>(), visited, block);
+        brokenBlocks.add(block);
 
-        // Record this block
-        recordBlockBreakAction(block, cause);
+        recordBlockBreakActions(brokenBlocks, cause);
     }
 
     /**
@@ -126,33 +130,36 @@ public class AbstractListener {
      * @param cause The cause
      */
     protected void processExplosion(List<Block> affectedBlocks, Object cause) {
-        if (configurationService.prismConfig().actions().blockBreak()) {
-            for (Block affectedBlock : affectedBlocks) {
-                // Ignore the tops of bisected blocks or heads of beds
-                if (
-                    (affectedBlock.getBlockData() instanceof Bisected bisected &&
-                        bisected.getHalf().equals(Bisected.Half.TOP) &&
-                        !(bisected instanceof Stairs) &&
-                        !(bisected instanceof TrapDoor)) ||
-                    (affectedBlock.getBlockData() instanceof Bed bed && bed.getPart().equals(Bed.Part.HEAD))
-                ) {
-                    continue;
-                }
-
-                // Record all blocks that will fall
-                for (Block faller : BlockUtils.gravityAffectedBlocksAbove(new ArrayList<>(), affectedBlock)) {
-                    // Skip blocks already in the affected block list
-                    if (affectedBlocks.contains(faller)) {
-                        continue;
-                    }
+        if (!configurationService.prismConfig().actions().blockBreak()) {
+            return;
+        }
 
-                    recordBlockBreakAction(faller, cause);
-                }
+        // Every affected block is already accounted for, so fallers are only recorded once
+        // no matter how many affected blocks they sit above
+        Set<Long> visited = new HashSet<>(affectedBlocks.size() * 2);
+        for (Block affectedBlock : affectedBlocks) {
+            visited.add(affectedBlock.getBlockKey());
+        }
 
-                // Record this block
-                recordBlockBreakAction(affectedBlock, cause);
+        List<Block> brokenBlocks = new ArrayList<>(affectedBlocks.size());
+        for (Block affectedBlock : affectedBlocks) {
+            // Ignore the tops of bisected blocks or heads of beds
+            if (
+                (affectedBlock.getBlockData() instanceof Bisected bisected &&
+                    bisected.getHalf().equals(Bisected.Half.TOP) &&
+                    !(bisected instanceof Stairs) &&
+                    !(bisected instanceof TrapDoor)) ||
+                (affectedBlock.getBlockData() instanceof Bed bed && bed.getPart().equals(Bed.Part.HEAD))
+            ) {
+                continue;
             }
+
+            // Record all blocks that will fall, and this block
+            BlockUtils.gravityAffectedBlocksAbove(brokenBlocks, visited, affectedBlock);
+            brokenBlocks.add(affectedBlock);
         }
+
+        recordBlockBreakActions(brokenBlocks, cause);
     }
 
     /**
@@ -162,14 +169,43 @@ public class AbstractListener {
      * @param cause The cause
      */
     protected void recordBlockBreakAction(Block block, Object cause) {
-        var action = new PaperBlockAction(PaperActionTypeRegistry.BLOCK_BREAK, block.getState());
-
-        var builder = PaperActivity.builder().action(action).location(block.getLocation()).cause(cause);
-        recordingService.addToQueue(builder.build());
+        recordingService.addToQueue(blockBreakActivity(block, cause));
 
         recordItemDropFromBlockContents(block);
     }
 
+    /**
+     * Record block break actions for several blocks, queueing the activities together.
+     *
+     * @param blocks The blocks
+     * @param cause The cause
+     */
+    protected void recordBlockBreakActions(List<Block> blocks, Object cause) {
+        List<Activity> activities = new ArrayList<>(blocks.size());
+        for (Block block : blocks) {
+            activities.add(blockBreakActivity(block, cause));
+        }
+
+        recordingService.addAllToQueue(activities);
+
+        for (Block block : blocks) {
+            recordItemDropFromBlockContents(block);
+        }
+    }
+
+    /**
+     * Build a block break activity.
+     *
+     * @param block The block
+     * @param cause The cause
+     * @return The activity
+     */
+    protected Activity blockBreakActivity(Block block, Object cause) {
+        var action = new PaperBlockAction(PaperActionTypeRegistry.BLOCK_BREAK, block.getState());
+
+        return PaperActivity.builder().action(action).location(block.getLocation()).cause(cause).build();
+    }
+
     /**
      * Record a hanging entity break.
      *
@@ -22,7 +22,7 @@ package org.prism_mc.prism.paper.listeners.block;
 
 import com.google.inject.Inject;
 import org.bukkit.block.Block;
-import org.bukkit.block.BlockState;
+import org.bukkit.block.data.BlockData;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
@@ -61,22 +61,22 @@ public class BlockFromToListener extends AbstractListener implements Listener {
      */
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onBlockFromTo(final BlockFromToEvent event) {
-        final BlockState fromState = event.getBlock().getState();
-        final BlockState toState = event.getToBlock().getState();
+        final Block block = event.getBlock();
+        final Block toBlock = event.getToBlock();
 
         // If the liquid is flowing to a detachable block, log it
-        if (TagLib.FLUID_BREAKABLE.isTagged(toState.getType())) {
+        if (TagLib.FLUID_BREAKABLE.isTagged(toBlock.getType())) {
             // Ignore if this event is disabled
             if (!configurationService.prismConfig().actions().blockBreak()) {
                 return;
             }
 
-            final Block block = event.getBlock();
-            var action = new PaperBlockAction(PaperActionTypeRegistry.BLOCK_BREAK, toState);
+            // Detachables may hold tile data, so take a full snapshot
+            var action = new PaperBlockAction(PaperActionTypeRegistry.BLOCK_BREAK, toBlock.getState());
 
             var activity = PaperActivity.builder()
                 .action(action)
-                .cause(fromState)
+                .cause(block.getBlockData())
                 .location(block.getLocation())
                 .build();
 
@@ -90,12 +90,20 @@ public class BlockFromToListener extends AbstractListener implements Listener {
             return;
         }
 
-        var action = new PaperBlockAction(PaperActionTypeRegistry.FLUID_FLOW, toState);
+        // Fluids and what they flow into have no tile data, so the block data is all that's needed
+        final BlockData toBlockData = toBlock.getBlockData();
+        var action = new PaperBlockAction(
+            PaperActionTypeRegistry.FLUID_FLOW,
+            toBlockData,
+            toBlockData.getMaterial().getBlockTranslationKey(),
+            null,
+            null
+        );
 
         var activity = PaperActivity.builder()
             .action(action)
-            .cause(fromState)
-            .location(fromState.getLocation())
+            .cause(block.getBlockData())
+            .location(block.getLocation())
             .build();
 
         recordingService.addToQueue(activity);
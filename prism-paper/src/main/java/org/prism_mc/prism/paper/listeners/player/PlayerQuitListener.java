@@ -34,6 +34,7 @@ import org.prism_mc.prism.paper.actions.types.PaperActionTypeRegistry;
 import org.prism_mc.prism.paper.api.activities.PaperActivity;
 import org.prism_mc.prism.paper.listeners.AbstractListener;
 import org.prism_mc.prism.paper.services.expectations.ExpectationService;
+import org.prism_mc.prism.paper.services.filters.PaperFilterService;
 import org.prism_mc.prism.paper.services.recording.PaperRecordingService;
 import org.prism_mc.prism.paper.services.wands.WandService;
 
@@ -54,6 +55,11 @@ public class PlayerQuitListener extends AbstractListener implements Listener {
      */
     private final CacheService cacheService;
 
+    /**
+     * The filter service.
+     */
+    private final PaperFilterService filterService;
+
     /**
      * Construct the listener.
      *
@@ -62,6 +68,8 @@ public class PlayerQuitListener extends AbstractListener implements Listener {
      * @param recordingService The recording service
      * @param wandService The wand service
      * @param modificationQueueService The modification queue service
+     * @param cacheService The cache service
+     * @param filterService The filter service
      */
     @Inject
     public PlayerQuitListener(
@@ -70,12 +78,14 @@ public class PlayerQuitListener extends AbstractListener implements Listener {
         PaperRecordingService recordingService,
         WandService wandService,
         ModificationQueueService modificationQueueService,
-        CacheService cacheService
+        CacheService cacheService,
+        PaperFilterService filterService
     ) {
         super(configurationService, expectationService, recordingService);
         this.wandService = wandService;
         this.modificationQueueService = modificationQueueService;
         this.cacheService = cacheService;
+        this.filterService = filterService;
     }
 
     /**
@@ -107,5 +117,8 @@ public class PlayerQuitListener extends AbstractListener implements Listener {
             // Remove the player's UUID -> PK from the cache
             cacheService.playerUuidPkMap().invalidate(event.getPlayer().getUniqueId());
         }
+
+        // Permissions may have changed by the time they're back
+        filterService.invalidatePermissions(player.getUniqueId());
     }
 }
@@ -25,8 +25,10 @@ import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 import net.kyori.adventure.key.Key;
 import net.kyori.adventure.text.format.TextColor;
 import org.bukkit.Bukkit;
@@ -36,6 +38,7 @@ import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
 import org.bukkit.Tag;
 import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
@@ -94,6 +97,11 @@ public class PaperAlertService {
      */
     private final MessageService messageService;
 
+    /**
+     * The placed block filter.
+     */
+    private final PlacedBlockFilter placedBlockFilter;
+
     /**
      * Cache alerts and their counts.
      */
@@ -112,6 +120,7 @@ public class PaperAlertService {
      * @param loggingService The logging service
      * @param lookupService The lookup service
      * @param messageService The message service
+     * @param placedBlockFilter The placed block filter
      */
     @Inject
     public PaperAlertService(
@@ -119,12 +128,14 @@ public class PaperAlertService {
         ConfigurationService configurationService,
         LoggingService loggingService,
         LookupService lookupService,
-        MessageService messageService
+        MessageService messageService,
+        PlacedBlockFilter placedBlockFilter
     ) {
         this.configurationService = configurationService;
         this.loggingService = loggingService;
         this.lookupService = lookupService;
         this.messageService = messageService;
+        this.placedBlockFilter = placedBlockFilter;
 
         CacheConfiguration cacheConfiguration = configurationService.prismConfig().cache();
 
@@ -210,57 +221,77 @@ public class PaperAlertService {
 
         // Cache the block state as it's being changed
         var blockState = block.getState();
-        String blockTranslationKey = blockState.getType().getBlockTranslationKey();
+        String blockName = blockState.getType().getKey().getKey();
+
+        // Blocks that were definitely never placed by a player don't need the database
+        var worldUuid = block.getWorld().getUID();
+        if (!placedBlockFilter.mightBePlaced(worldUuid, block.getX(), block.getY(), block.getZ(), blockName)) {
+            alertVein(blockState, alert, player, lightLevel);
+
+            return;
+        }
 
         var query = PaperActivityQuery.builder()
             .grouped(false)
             .actionType(PaperActionTypeRegistry.BLOCK_PLACE)
-            .affectedMaterial(blockState.getType().toString().toLowerCase(Locale.ENGLISH))
+            .affectedBlock(blockName)
             .location(blockState.getLocation())
             .limit(1)
             .build();
 
         lookupService.lookup(query, results -> {
-            if (!results.isEmpty()) {
-                return;
+            if (results.isEmpty()) {
+                alertVein(blockState, alert, player, lightLevel);
             }
+        });
+    }
 
-            VeinScanner veinScanner = new VeinScanner(blockState, alert.materialTag(), alert.config().maxScanCount());
-            List<Location> vein = veinScanner.scan();
+    /**
+     * Scan the vein a broken block belongs to and alert receivers.
+     *
+     * @param blockState The broken block's state
+     * @param alert The alert
+     * @param player The player
+     * @param lightLevel The light level at the block
+     */
+    protected void alertVein(BlockState blockState, BlockBreakAlert alert, Player player, int lightLevel) {
+        String blockTranslationKey = blockState.getType().getBlockTranslationKey();
 
-            // Cache the vein locations
-            for (var blockLocation : vein) {
-                locations.put(blockLocation, player);
-            }
+        VeinScanner veinScanner = new VeinScanner(blockState, alert.materialTag(), alert.config().maxScanCount());
+        List<Location> vein = veinScanner.scan();
 
-            TextColor color = TextColor.fromCSSHexString(alert.config().hexColor());
-            String count = vein.size() + (vein.size() >= alert.config().maxScanCount() ? "+" : "");
+        // Cache the vein locations
+        for (var blockLocation : vein) {
+            locations.put(blockLocation, player);
+        }
 
-            boolean usingNightVision = false;
-            for (PotionEffect effect : player.getActivePotionEffects()) {
-                if (effect.getType().equals(PotionEffectType.NIGHT_VISION)) {
-                    usingNightVision = true;
-                    break;
-                }
+        TextColor color = TextColor.fromCSSHexString(alert.config().hexColor());
+        String count = vein.size() + (vein.size() >= alert.config().maxScanCount() ? "+" : "");
+
+        boolean usingNightVision = false;
+        for (PotionEffect effect : player.getActivePotionEffects()) {
+            if (effect.getType().equals(PotionEffectType.NIGHT_VISION)) {
+                usingNightVision = true;
+                break;
             }
+        }
 
-            var data = new BlockBreakAlertData(
-                player.getName(),
-                blockTranslationKey,
-                color,
-                count,
-                lightLevel,
-                Key.key(blockState.getType().getKey().toString())
-            );
+        var data = new BlockBreakAlertData(
+            player.getName(),
+            blockTranslationKey,
+            color,
+            count,
+            lightLevel,
+            Key.key(blockState.getType().getKey().toString())
+        );
 
-            for (CommandSender receiver : getReceivers(player)) {
-                if (usingNightVision) {
-                    messageService.alertBlockBreakNightVision(receiver, data);
-                } else {
-                    messageService.alertBlockBreak(receiver, data);
-                }
+        for (CommandSender receiver : getReceivers(player)) {
+            if (usingNightVision) {
+                messageService.alertBlockBreakNightVision(receiver, data);
+            } else {
+                messageService.alertBlockBreak(receiver, data);
             }
-        });
+        }
     }
 
     /**
@@ -352,6 +383,18 @@ public class PaperAlertService {
             }
         }
 
+        // Track placements of every block type a break alert watches
+        Set<String> placedBlockNames = new HashSet<>();
+        for (var alert : blockBreakAlerts) {
+            for (var material : alert.materialTag().getValues()) {
+                if (material.isBlock()) {
+                    placedBlockNames.add(material.getKey().getKey());
+                }
+            }
+        }
+
+        placedBlockFilter.track(placedBlockNames);
+
         if (configurationService.prismConfig().alerts().blockPlaceAlerts().enabled()) {
             for (var config : configurationService.prismConfig().alerts().blockPlaceAlerts().alerts()) {
                 blockPlaceAlerts.add(new BlockAlert(config, loadMaterialTags(config)));
@@ -0,0 +1,394 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.prism_mc.prism.paper.services.alerts;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import org.bukkit.Bukkit;
+import org.prism_mc.prism.api.actions.BlockAction;
+import org.prism_mc.prism.api.activities.Activity;
+import org.prism_mc.prism.api.storage.StorageAdapter;
+import org.prism_mc.prism.loader.services.configuration.ConfigurationService;
+import org.prism_mc.prism.loader.services.configuration.alerts.PlacedBlockFilterConfiguration;
+import org.prism_mc.prism.loader.services.logging.LoggingService;
+import org.prism_mc.prism.paper.PrismPaper;
+import org.prism_mc.prism.paper.actions.types.PaperActionTypeRegistry;
+import org.prism_mc.prism.paper.api.activities.PaperActivityQuery;
+
+/**
+ * Per-world bloom filters of the blocks players have placed, for the block types alerts watch.
+ *
+ * <p>A block the filter has never seen definitely wasn't placed by a player, so block break
+ * alerts only need the database for possible positives. Until the filters are built every
+ * block is a possible positive.</p>
+ */
+@Singleton
+public class PlacedBlockFilter {
+
+    /**
+     * The file the filters are saved to.
+     */
+    private static final String FILE_NAME = "placed-blocks.bin";
+
+    /**
+     * The file magic number.
+     */
+    private static final int MAGIC = 0x50424c46;
+
+    /**
+     * The file format version.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The configuration service.
+     */
+    private final ConfigurationService configurationService;
+
+    /**
+     * The logging service.
+     */
+    private final LoggingService loggingService;
+
+    /**
+     * The storage adapter.
+     */
+    private final StorageAdapter storageAdapter;
+
+    /**
+     * The path of the saved filters.
+     */
+    private final Path filePath;
+
+    /**
+     * The filter of each world.
+     */
+    private final Map<UUID, ScalableBloomFilter> filters = new HashMap<>();
+
+    /**
+     * The block names being tracked.
+     */
+    private Set<String> trackedBlocks = Set.of();
+
+    /**
+     * Incremented for each rebuild, so stale rebuilds are ignored.
+     */
+    private int generation = 0;
+
+    /**
+     * Whether the filters are complete.
+     */
+    private boolean ready = false;
+
+    /**
+     * Constructor.
+     *
+     * @param configurationService The configuration service
+     * @param loggingService The logging service
+     * @param storageAdapter The storage adapter
+     * @param dataPath The data path
+     */
+    @Inject
+    public PlacedBlockFilter(
+        ConfigurationService configurationService,
+        LoggingService loggingService,
+        StorageAdapter storageAdapter,
+        Path dataPath
+    ) {
+        this.configurationService = configurationService;
+        this.loggingService = loggingService;
+        this.storageAdapter = storageAdapter;
+        this.filePath = dataPath.resolve(FILE_NAME);
+    }
+
+    /**
+     * Set the block names to track, rebuilding the filters if they've changed.
+     *
+     * <p>The first call loads the filters saved at the last shutdown, if they tracked the same
+     * blocks, and then only catches up on newer placements from the database.</p>
+     *
+     * @param blockNames The block names, without namespace
+     */
+    public synchronized void track(Set<String> blockNames) {
+        if (!config().enabled()) {
+            blockNames = Set.of();
+        }
+
+        if (generation > 0 && blockNames.equals(trackedBlocks)) {
+            return;
+        }
+
+        int rebuild = ++generation;
+        trackedBlocks = Set.copyOf(blockNames);
+        filters.clear();
+        ready = false;
+
+        if (trackedBlocks.isEmpty()) {
+            ready = true;
+            return;
+        }
+
+        long savedAt = rebuild == 1 ? load() : 0;
+        Set<String> names = trackedBlocks;
+
+        Bukkit.getAsyncScheduler().runNow(PrismPaper.instance().loaderPlugin(), task -> build(rebuild, names, savedAt));
+    }
+
+    /**
+     * Add a recorded block placement.
+     *
+     * @param activity The activity
+     */
+    public synchronized void record(Activity activity) {
+        if (
+            trackedBlocks.isEmpty() ||
+            activity.worldUuid() == null ||
+            activity.coordinate() == null ||
+            !activity.action().type().key().equals(PaperActionTypeRegistry.BLOCK_PLACE.key()) ||
+            !(activity.action() instanceof BlockAction blockAction) ||
+            blockAction.blockContainer() == null
+        ) {
+            return;
+        }
+
+        String blockName = blockAction.blockContainer().blockName();
+        if (trackedBlocks.contains(blockName)) {
+            var coordinate = activity.coordinate();
+            put(activity.worldUuid(), key(coordinate.intX(), coordinate.intY(), coordinate.intZ(), blockName));
+        }
+    }
+
+    /**
+     * Check whether a block might have been placed by a player. False means it definitely wasn't.
+     *
+     * @param worldUuid The world uuid
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @param z The z coordinate
+     * @param blockName The block name, without namespace
+     * @return True if the block might have been placed
+     */
+    public synchronized boolean mightBePlaced(UUID worldUuid, int x, int y, int z, String blockName) {
+        if (!ready || !trackedBlocks.contains(blockName)) {
+            return true;
+        }
+
+        var filter = filters.get(worldUuid);
+        return filter != null && filter.mightContain(key(x, y, z, blockName));
+    }
+
+    /**
+     * Save the filters so the next startup only needs to catch up.
+     *
+     * <p>Should be called after recording has stopped.</p>
+     */
+    public synchronized void save() {
+        if (!ready || trackedBlocks.isEmpty()) {
+            return;
+        }
+
+        try (
+            var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(filePath)))
+        ) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(System.currentTimeMillis() / 1000);
+
+            var names = new TreeSet<>(trackedBlocks);
+            out.writeInt(names.size());
+            for (String name : names) {
+                out.writeUTF(name);
+            }
+
+            out.writeInt(filters.size());
+            for (var entry : filters.entrySet()) {
+                out.writeLong(entry.getKey().getMostSignificantBits());
+                out.writeLong(entry.getKey().getLeastSignificantBits());
+                entry.getValue().write(out);
+            }
+        } catch (IOException e) {
+            loggingService.handleException(e);
+        }
+    }
+
+    /**
+     * Load the saved filters, if they tracked the same blocks.
+     *
+     * <p>The file is removed once read, so filters left over from a crash are never trusted.</p>
+     *
+     * @return When the filters were saved, in seconds, or zero if nothing was loaded
+     */
+    protected long load() {
+        if (!Files.exists(filePath)) {
+            return 0;
+        }
+
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(filePath)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return 0;
+            }
+
+            long savedAt = in.readLong();
+
+            Set<String> names = new HashSet<>();
+            int nameCount = in.readInt();
+            for (int i = 0; i < nameCount; i++) {
+                names.add(in.readUTF());
+            }
+
+            if (!names.equals(trackedBlocks)) {
+                return 0;
+            }
+
+            Map<UUID, ScalableBloomFilter> loaded = new HashMap<>();
+            int worldCount = in.readInt();
+            for (int i = 0; i < worldCount; i++) {
+                var worldUuid = new UUID(in.readLong(), in.readLong());
+                loaded.put(worldUuid, ScalableBloomFilter.read(in));
+            }
+
+            filters.putAll(loaded);
+
+            return savedAt;
+        } catch (IOException e) {
+            loggingService.warn("Failed to load the placed block filter, it will be rebuilt: {0}", e.getMessage());
+
+            return 0;
+        } finally {
+            try {
+                Files.deleteIfExists(filePath);
+            } catch (IOException e) {
+                loggingService.handleException(e);
+            }
+        }
+    }
+
+    /**
+     * Add placements from the database.
+     *
+     * @param rebuild The rebuild generation
+     * @param blockNames The tracked block names
+     * @param savedAt When loaded filters were saved, in seconds, or zero for a full rebuild
+     */
+    protected void build(int rebuild, Set<String> blockNames, long savedAt) {
+        long start = System.currentTimeMillis();
+        long[] count = { 0 };
+
+        var builder = PaperActivityQuery.builder()
+            .lookup(false)
+            .grouped(false)
+            .actionType(PaperActionTypeRegistry.BLOCK_PLACE)
+            .affectedBlocks(blockNames);
+
+        // Placements in the same second as the save may not have been in it
+        if (savedAt > 0) {
+            builder.after(savedAt - 1);
+        }
+
+        try {
+            storageAdapter.streamActivityBlocks(builder.build(), (worldUuid, x, y, z, blockName) -> {
+                synchronized (this) {
+                    if (rebuild == generation) {
+                        put(worldUuid, key(x, y, z, blockName));
+                        count[0]++;
+                    }
+                }
+            });
+        } catch (Exception e) {
+            loggingService.handleException(e);
+
+            return;
+        }
+
+        synchronized (this) {
+            if (rebuild != generation) {
+                return;
+            }
+
+            ready = true;
+
+            long size = 0;
+            for (var filter : filters.values()) {
+                size += filter.sizeInBytes();
+            }
+
+            loggingService.info(
+                "Placed block filter {0} with {1} placements in {2}ms ({3} KB)",
+                savedAt > 0 ? "caught up" : "built",
+                count[0],
+                System.currentTimeMillis() - start,
+                size / 1024
+            );
+        }
+    }
+
+    /**
+     * Add a key to a world's filter. Must hold the lock.
+     *
+     * @param worldUuid The world uuid
+     * @param key The key
+     */
+    private void put(UUID worldUuid, long key) {
+        var config = config();
+        filters
+            .computeIfAbsent(worldUuid, uuid ->
+                new ScalableBloomFilter(config.expectedPlacements(), config.falsePositiveRate())
+            )
+            .put(key);
+    }
+
+    /**
+     * Get the filter configuration.
+     *
+     * @return The configuration
+     */
+    private PlacedBlockFilterConfiguration config() {
+        return configurationService.prismConfig().alerts().blockBreakAlerts().placedBlockFilter();
+    }
+
+    /**
+     * Create the filter key for a block position and name.
+     *
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @param z The z coordinate
+     * @param blockName The block name
+     * @return The key
+     */
+    private static long key(int x, int y, int z, String blockName) {
+        long position = ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+
+        return position ^ (blockName.hashCode() * 0x9E3779B97F4A7C15L);
+    }
+}
@@ -0,0 +1,316 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.prism_mc.prism.paper.services.alerts;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A bloom filter that grows by adding layers, keeping its overall false positive rate bounded.
+ *
+ * <p>Each new layer has twice the capacity and half the false positive rate of the last,
+ * so the rates of all layers sum to at most the configured rate. Not thread-safe.</p>
+ */
+public class ScalableBloomFilter {
+
+    /**
+     * The capacity growth of each new layer.
+     */
+    private static final int GROWTH = 2;
+
+    /**
+     * The false positive rate tightening of each new layer.
+     */
+    private static final double TIGHTENING = 0.5;
+
+    /**
+     * The layers, oldest first.
+     */
+    private final List<Layer> layers = new ArrayList<>();
+
+    /**
+     * Constructor.
+     *
+     * @param capacity The capacity of the first layer
+     * @param falsePositiveRate The overall false positive rate
+     */
+    public ScalableBloomFilter(int capacity, double falsePositiveRate) {
+        double rate = Math.min(Math.max(falsePositiveRate, 0.000001), 0.5);
+        layers.add(new Layer(Math.max(capacity, 1), rate * (1 - TIGHTENING)));
+    }
+
+    /**
+     * Constructor for a filter read from disk.
+     *
+     * @param layers The layers
+     */
+    private ScalableBloomFilter(List<Layer> layers) {
+        this.layers.addAll(layers);
+    }
+
+    /**
+     * Add a key.
+     *
+     * @param key The key
+     */
+    public void put(long key) {
+        long hash1 = mix(key);
+        long hash2 = mix(hash1 ^ key) | 1;
+
+        // Keys already present don't use up capacity
+        for (var layer : layers) {
+            if (layer.mightContain(hash1, hash2)) {
+                return;
+            }
+        }
+
+        var current = layers.get(layers.size() - 1);
+        if (current.count >= current.capacity) {
+            int capacity = (int) Math.min((long) current.capacity * GROWTH, Integer.MAX_VALUE / 2);
+            current = new Layer(capacity, current.rate * TIGHTENING);
+            layers.add(current);
+        }
+
+        current.put(hash1, hash2);
+    }
+
+    /**
+     * Check whether a key might have been added. False means it definitely wasn't.
+     *
+     * @param key The key
+     * @return True if the key might have been added
+     */
+    public boolean mightContain(long key) {
+        long hash1 = mix(key);
+        long hash2 = mix(hash1 ^ key) | 1;
+
+        for (var layer : layers) {
+            if (layer.mightContain(hash1, hash2)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Get the memory used by the filter's bits.
+     *
+     * @return The size in bytes
+     */
+    public long sizeInBytes() {
+        long size = 0;
+        for (var layer : layers) {
+            size += (long) layer.bits.length * Long.BYTES;
+        }
+
+        return size;
+    }
+
+    /**
+     * Write the filter.
+     *
+     * @param out The output
+     * @throws IOException Write exception
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(layers.size());
+        for (var layer : layers) {
+            out.writeInt(layer.capacity);
+            out.writeDouble(layer.rate);
+            out.writeInt(layer.count);
+            out.writeInt(layer.hashes);
+            out.writeInt(layer.bits.length);
+            for (long word : layer.bits) {
+                out.writeLong(word);
+            }
+        }
+    }
+
+    /**
+     * Read a filter written by {@link #write(DataOutput)}.
+     *
+     * @param in The input
+     * @return The filter
+     * @throws IOException Read exception
+     */
+    public static ScalableBloomFilter read(DataInput in) throws IOException {
+        int layerCount = in.readInt();
+        if (layerCount < 1) {
+            throw new IOException("Invalid bloom filter layer count: " + layerCount);
+        }
+
+        List<Layer> layers = new ArrayList<>(layerCount);
+        for (int i = 0; i < layerCount; i++) {
+            int capacity = in.readInt();
+            double rate = in.readDouble();
+            int count = in.readInt();
+            int hashes = in.readInt();
+            int words = in.readInt();
+            if (capacity < 1 || hashes < 1 || words < 1) {
+                throw new IOException("Invalid bloom filter layer");
+            }
+
+            long[] bits = new long[words];
+            for (int w = 0; w < words; w++) {
+                bits[w] = in.readLong();
+            }
+
+            layers.add(new Layer(capacity, rate, count, hashes, bits));
+        }
+
+        return new ScalableBloomFilter(layers);
+    }
+
+    /**
+     * Mix a key into a well-distributed hash (the splitmix64 finalizer).
+     *
+     * @param key The key
+     * @return The hash
+     */
+    private static long mix(long key) {
+        key = (key ^ (key >>> 30)) * 0xbf58476d1ce4e5b9L;
+        key = (key ^ (key >>> 27)) * 0x94d049bb133111ebL;
+        return key ^ (key >>> 31);
+    }
+
+    /**
+     * A fixed-size bloom filter layer.
+     */
+    private static class Layer {
+
+        /**
+         * The number of keys this layer is sized for.
+         */
+        private final int capacity;
+
+        /**
+         * The false positive rate this layer is sized for.
+         */
+        private final double rate;
+
+        /**
+         * The number of hash functions.
+         */
+        private final int hashes;
+
+        /**
+         * The bits.
+         */
+        private final long[] bits;
+
+        /**
+         * The number of bits.
+         */
+        private final long bitCount;
+
+        /**
+         * The number of keys added.
+         */
+        private int count;
+
+        /**
+         * Constructor.
+         *
+         * @param capacity The number of keys to size for
+         * @param rate The false positive rate to size for
+         */
+        private Layer(int capacity, double rate) {
+            this(capacity, rate, 0, hashes(rate), new long[words(capacity, rate)]);
+        }
+
+        /**
+         * Constructor.
+         *
+         * @param capacity The number of keys sized for
+         * @param rate The false positive rate sized for
+         * @param count The number of keys added
+         * @param hashes The number of hash functions
+         * @param bits The bits
+         */
+        private Layer(int capacity, double rate, int count, int hashes, long[] bits) {
+            this.capacity = capacity;
+            this.rate = rate;
+            this.count = count;
+            this.hashes = hashes;
+            this.bits = bits;
+            this.bitCount = (long) bits.length * Long.SIZE;
+        }
+
+        /**
+         * Set the bits for a key.
+         *
+         * @param hash1 The first hash
+         * @param hash2 The second hash
+         */
+        private void put(long hash1, long hash2) {
+            for (int i = 0; i < hashes; i++) {
+                long index = Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+                bits[(int) (index >>> 6)] |= 1L << index;
+            }
+
+            count++;
+        }
+
+        /**
+         * Check the bits for a key.
+         *
+         * @param hash1 The first hash
+         * @param hash2 The second hash
+         * @return True if all bits are set
+         */
+        private boolean mightContain(long hash1, long hash2) {
+            for (int i = 0; i < hashes; i++) {
+                long index = Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+                if ((bits[(int) (index >>> 6)] & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * Get the number of 64-bit words needed for a capacity and false positive rate.
+         *
+         * @param capacity The capacity
+         * @param rate The false positive rate
+         * @return The number of words
+         */
+        private static int words(int capacity, double rate) {
+            double bitsNeeded = -capacity * Math.log(rate) / (Math.log(2) * Math.log(2));
+            return (int) Math.min(Math.ceil(bitsNeeded / Long.SIZE), Integer.MAX_VALUE - 8);
+        }
+
+        /**
+         * Get the optimal number of hash functions for a false positive rate.
+         *
+         * @param rate The false positive rate
+         * @return The number of hash functions
+         */
+        private static int hashes(double rate) {
+            return Math.max(1, (int) Math.round(-Math.log(rate) / Math.log(2)));
+        }
+    }
+}
@@ -21,8 +21,10 @@
 package org.prism_mc.prism.paper.services.filters;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
-import org.bukkit.Bukkit;
+import java.util.Set;
 import org.bukkit.GameMode;
 import org.bukkit.Material;
 import org.bukkit.entity.EntityType;
@@ -49,7 +51,7 @@ public class ActivityFilter {
     /**
      * Actions.
      */
-    private final List<String> actions;
+    private final Set<String> actions;
 
     /**
      * The behavior of this filter.
@@ -84,7 +86,7 @@ public class ActivityFilter {
     /**
      * The player's game mode(s).
      */
-    private final List<GameMode> gameModes;
+    private final EnumSet<GameMode> gameModes = EnumSet.noneOf(GameMode.class);
 
     /**
      * The item tags.
@@ -99,7 +101,12 @@ public class ActivityFilter {
     /**
      * All world names.
      */
-    private final List<String> worldNames;
+    private final Set<String> worldNames;
+
+    /**
+     * The configured conditions, in the order they're checked.
+     */
+    private final Condition[] conditions;
 
     /**
      * Construct a new activity filter.
@@ -132,7 +139,7 @@ public class ActivityFilter {
         @NotNull List<String> worldNames
     ) {
         this.name = name;
-        this.actions = actions;
+        this.actions = new HashSet<>(actions);
         this.behavior = behavior;
         this.namedCauses = namedCauses;
         this.affectedBlockTags = affectedBlockTags;
@@ -140,91 +147,220 @@ public class ActivityFilter {
         this.affectedEntityTypeTags = affectedEntityTypeTags;
         this.causeEntityTypeTags = causeEntityTypeTags;
         this.itemTags = itemTags;
-        this.gameModes = gameModes;
+        this.gameModes.addAll(gameModes);
         this.permissions = permissions;
-        this.worldNames = worldNames;
+        this.worldNames = new HashSet<>(worldNames);
+
+        // Cheap checks first, so a mismatch skips the rest
+        List<Condition> configured = new ArrayList<>();
+        if (!actions.isEmpty()) {
+            configured.add(Condition.ACTIONS);
+        }
+
+        if (!worldNames.isEmpty()) {
+            configured.add(Condition.WORLDS);
+        }
+
+        if (!namedCauses.isEmpty()) {
+            configured.add(Condition.NAMED_CAUSES);
+        }
+
+        if (!affectedBlockTags.isEmpty()) {
+            configured.add(Condition.AFFECTED_BLOCKS);
+        }
+
+        if (!causeBlockTags.isEmpty()) {
+            configured.add(Condition.CAUSE_BLOCKS);
+        }
+
+        if (!affectedEntityTypeTags.isEmpty()) {
+            configured.add(Condition.AFFECTED_ENTITY_TYPES);
+        }
+
+        if (!causeEntityTypeTags.isEmpty()) {
+            configured.add(Condition.CAUSE_ENTITY_TYPES);
+        }
+
+        if (!gameModes.isEmpty()) {
+            configured.add(Condition.GAME_MODES);
+        }
+
+        if (!itemTags.isEmpty()) {
+            configured.add(Condition.ITEMS);
+        }
+
+        if (!permissions.isEmpty()) {
+            configured.add(Condition.PERMISSIONS);
+        }
+
+        this.conditions = configured.toArray(new Condition[0]);
+    }
+
+    /**
+     * Check whether this filter can affect activities of an action and world.
+     *
+     * <p>A filter whose actions or worlds don't match never rejects or allows anything.</p>
+     *
+     * @param actionKey The action key
+     * @param worldName The world name
+     * @return True if the filter applies
+     */
+    public boolean appliesTo(String actionKey, String worldName) {
+        return (
+            (actions.isEmpty() || actions.contains(actionKey)) &&
+            (worldNames.isEmpty() || (worldName != null && worldNames.contains(worldName)))
+        );
+    }
+
+    /**
+     * Get all permissions this filter checks.
+     *
+     * @return The permissions
+     */
+    public List<String> permissions() {
+        return permissions;
     }
 
     /**
      * Check if this filter allows the activity.
      *
+     * <p>Any condition that doesn't match decides the outcome, so checking stops there.</p>
+     *
      * @param activity The activity
+     * @param permissionCache The permission cache
      * @param loggingService The logging service
      * @param debug Whether filters are in debug mode
      * @return True if the filter allows it
      */
-    public boolean shouldRecord(Activity activity, LoggingService loggingService, boolean debug) {
-        List<ConditionResult> results = new ArrayList<>();
-
+    public boolean shouldRecord(
+        Activity activity,
+        FilterPermissionCache permissionCache,
+        LoggingService loggingService,
+        boolean debug
+    ) {
         if (debug) {
-            loggingService.debug("Filter ({0}) Check for Activity: {1}", name, activity);
-            loggingService.debug("Behavior: {0}", behavior);
+            return shouldRecordDebug(activity, permissionCache, loggingService);
+        }
+
+        boolean matched = false;
+        for (Condition condition : conditions) {
+            var result = evaluate(condition, activity, permissionCache);
+            if (result.equals(ConditionResult.NOT_MATCHED)) {
+                // Ignore filters need every applicable condition, allow filters reject on any mismatch
+                return ignoring();
+            }
+
+            if (result.equals(ConditionResult.MATCHED)) {
+                matched = true;
+            }
         }
 
+        return !(ignoring() && matched);
+    }
+
+    /**
+     * Evaluate a condition.
+     *
+     * @param condition The condition
+     * @param activity The activity
+     * @param permissionCache The permission cache
+     * @return ConditionResult
+     */
+    private ConditionResult evaluate(Condition condition, Activity activity, FilterPermissionCache permissionCache) {
+        return switch (condition) {
+            case ACTIONS -> actionsMatch(activity);
+            case WORLDS -> worldsMatch(activity);
+            case NAMED_CAUSES -> namedCausesMatch(activity);
+            case AFFECTED_BLOCKS -> affectedBlocksMatched(activity);
+            case CAUSE_BLOCKS -> causeBlocksMatched(activity);
+            case AFFECTED_ENTITY_TYPES -> affectedEntityTypesMatched(activity);
+            case CAUSE_ENTITY_TYPES -> causeEntityTypesMatched(activity);
+            case GAME_MODES -> gameModesMatched(activity);
+            case ITEMS -> itemsMatched(activity);
+            case PERMISSIONS -> permissionsMatch(activity, permissionCache);
+        };
+    }
+
+    /**
+     * Check if this filter allows the activity, logging every condition.
+     *
+     * @param activity The activity
+     * @param permissionCache The permission cache
+     * @param loggingService The logging service
+     * @return True if the filter allows it
+     */
+    private boolean shouldRecordDebug(
+        Activity activity,
+        FilterPermissionCache permissionCache,
+        LoggingService loggingService
+    ) {
+        List<ConditionResult> results = new ArrayList<>();
+
+        loggingService.debug("Filter ({0}) Check for Activity: {1}", name, activity);
+        loggingService.debug("Behavior: {0}", behavior);
+
         var actionResult = actionsMatch(activity);
         results.add(actionResult);
-        if (debug && !actions.isEmpty()) {
+        if (!actions.isEmpty()) {
             loggingService.debug("Action result: {0}", actionResult);
         }
 
         var namedCauseResult = namedCausesMatch(activity);
         results.add(namedCauseResult);
-        if (debug && !namedCauses.isEmpty()) {
+        if (!namedCauses.isEmpty()) {
             loggingService.debug("Named Cause result: {0}", namedCauseResult);
         }
 
         var affectedBlockResult = affectedBlocksMatched(activity);
         results.add(affectedBlockResult);
-        if (debug && !affectedBlockTags.isEmpty()) {
+        if (!affectedBlockTags.isEmpty()) {
             loggingService.debug("Affected Blocks result: {0}", affectedBlockResult);
         }
 
         var causeBlockResult = causeBlocksMatched(activity);
         results.add(causeBlockResult);
-        if (debug && !causeBlockTags.isEmpty()) {
+        if (!causeBlockTags.isEmpty()) {
             loggingService.debug("Cause Blocks result: {0}", causeBlockResult);
         }
 
         var affectedEntityTypeResult = affectedEntityTypesMatched(activity);
         results.add(affectedEntityTypeResult);
-        if (debug && !affectedEntityTypeTags.isEmpty()) {
+        if (!affectedEntityTypeTags.isEmpty()) {
             loggingService.debug("Affected Entity Type result: {0}", affectedEntityTypeResult);
         }
 
         var causeEntityTypeResult = causeEntityTypesMatched(activity);
         results.add(causeEntityTypeResult);
-        if (debug && !causeEntityTypeTags.isEmpty()) {
+        if (!causeEntityTypeTags.isEmpty()) {
             loggingService.debug("Cause Entity Type result: {0}", causeEntityTypeResult);
         }
 
         var gameModeResult = gameModesMatched(activity);
         results.add(gameModeResult);
-        if (debug && !gameModes.isEmpty()) {
+        if (!gameModes.isEmpty()) {
             loggingService.debug("Game mode result: {0}", gameModeResult);
         }
 
         var itemsResult = itemsMatched(activity);
         results.add(itemsResult);
-        if (debug && !itemTags.isEmpty()) {
+        if (!itemTags.isEmpty()) {
             loggingService.debug("Items result: {0}", itemsResult);
         }
 
-        var permissionResult = permissionsMatch(activity);
+        var permissionResult = permissionsMatch(activity, permissionCache);
         results.add(permissionResult);
-        if (debug && !permissions.isEmpty()) {
+        if (!permissions.isEmpty()) {
             loggingService.debug("Permission result: {0}", permissionResult);
         }
 
         var worldsResult = worldsMatch(activity);
         results.add(worldsResult);
-        if (debug && !worldNames.isEmpty()) {
+        if (!worldNames.isEmpty()) {
             loggingService.debug("Worlds result: {0}", worldsResult);
         }
 
-        var finalDecision = getFinalDecision(results, loggingService, debug);
-        if (debug) {
-            loggingService.debug("Final decision: {0}", finalDecision);
-        }
+        var finalDecision = getFinalDecision(results, loggingService);
+        loggingService.debug("Final decision: {0}", finalDecision);
 
         return finalDecision;
     }
@@ -235,7 +371,7 @@ public class ActivityFilter {
      * @param results All filter condition results
      * @return The decision
      */
-    private boolean getFinalDecision(List<ConditionResult> results, LoggingService loggingService, boolean debug) {
+    private boolean getFinalDecision(List<ConditionResult> results, LoggingService loggingService) {
         int nonApplicable = 0;
         int matched = 0;
         int notMatched = 0;
@@ -254,15 +390,13 @@ public class ActivityFilter {
         // Check if all were non-applicable
         var allNotApplicable = nonApplicable == results.size();
 
-        if (debug) {
-            loggingService.debug(
-                "All: {0}; Not Applicable: {1}; Matched: {2}; Not Matched: {3}",
-                results.size(),
-                nonApplicable,
-                matched,
-                notMatched
-            );
-        }
+        loggingService.debug(
+            "All: {0}; Not Applicable: {1}; Matched: {2}; Not Matched: {3}",
+            results.size(),
+            nonApplicable,
+            matched,
+            notMatched
+        );
 
         // No filters applied, allow
         if (allNotApplicable) {
@@ -271,18 +405,14 @@ public class ActivityFilter {
 
         // If ignoring and all applicable conditions matched, reject it
         if (ignoring() && matched > 0 && notMatched == 0) {
-            if (debug) {
-                loggingService.debug("Rejecting because we're ignoring and all applicable rules matched");
-            }
+            loggingService.debug("Rejecting because we're ignoring and all applicable rules matched");
 
             return false;
         }
 
         // If the filter is ALLOW but something didn't match, reject it
         if (allowing() && notMatched > 0) {
-            if (debug) {
-                loggingService.debug("Rejecting because we're allowing and one or more rules did not match");
-            }
+            loggingService.debug("Rejecting because we're allowing and one or more rules did not match");
 
             return false;
         }
@@ -501,21 +631,18 @@ public class ActivityFilter {
      * <p>If none listed, the filter will match all.</p>
      *
      * @param activity The activity
+     * @param permissionCache The permission cache
      * @return ConditionResult
      */
-    private ConditionResult permissionsMatch(Activity activity) {
+    private ConditionResult permissionsMatch(Activity activity, FilterPermissionCache permissionCache) {
         if (permissions.isEmpty()) {
             return ConditionResult.NOT_APPLICABLE;
         }
 
         if (activity.cause().container() instanceof PaperPlayerContainer paperPlayerContainer) {
-            var player = Bukkit.getServer().getPlayer(paperPlayerContainer.name());
-            if (player != null) {
-                for (String permission : permissions) {
-                    if (player.hasPermission(permission)) {
-                        return ConditionResult.MATCHED;
-                    }
-                }
+            var player = paperPlayerContainer.player();
+            if (player != null && player.isOnline() && permissionCache.hasAny(player, permissions)) {
+                return ConditionResult.MATCHED;
             }
         }
 
@@ -535,10 +662,26 @@ public class ActivityFilter {
             return ConditionResult.NOT_APPLICABLE;
         }
 
-        if (worldNames.contains(activity.world().value())) {
+        if (activity.world() != null && worldNames.contains(activity.world().value())) {
             return ConditionResult.MATCHED;
         }
 
         return ConditionResult.NOT_MATCHED;
     }
+
+    /**
+     * The conditions a filter can be configured with.
+     */
+    private enum Condition {
+        ACTIONS,
+        WORLDS,
+        NAMED_CAUSES,
+        AFFECTED_BLOCKS,
+        CAUSE_BLOCKS,
+        AFFECTED_ENTITY_TYPES,
+        CAUSE_ENTITY_TYPES,
+        GAME_MODES,
+        ITEMS,
+        PERMISSIONS,
+    }
 }
@@ -0,0 +1,152 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.prism_mc.prism.paper.services.filters;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.bukkit.entity.Player;
+
+/**
+ * Caches which filter permissions each player has, as bits.
+ *
+ * <p>Bukkit has no event for permission changes, so a player's bits are only trusted
+ * for a short time and are dropped when they quit.</p>
+ */
+public class FilterPermissionCache {
+
+    /**
+     * How long a player's permission bits are trusted, in milliseconds.
+     */
+    private static final long EXPIRES_AFTER = 1000;
+
+    /**
+     * The bit index of each permission. Only the first 64 permissions are cached.
+     */
+    private final Map<String, Integer> indexes = new HashMap<>();
+
+    /**
+     * The cached permission bits of each player.
+     */
+    private final Map<UUID, PermissionBits> players = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param permissions All permissions used by filters
+     */
+    public FilterPermissionCache(Collection<String> permissions) {
+        for (String permission : permissions) {
+            if (indexes.size() < Long.SIZE) {
+                indexes.putIfAbsent(permission, indexes.size());
+            }
+        }
+    }
+
+    /**
+     * Check whether a player has any of the permissions.
+     *
+     * @param player The player
+     * @param permissions The permissions
+     * @return True if the player has any
+     */
+    public boolean hasAny(Player player, List<String> permissions) {
+        long now = System.currentTimeMillis();
+
+        var bits = players.get(player.getUniqueId());
+        if (bits == null || bits.expiresAt < now) {
+            bits = new PermissionBits(now + EXPIRES_AFTER);
+            players.put(player.getUniqueId(), bits);
+        }
+
+        for (String permission : permissions) {
+            Integer index = indexes.get(permission);
+            if (index == null ? player.hasPermission(permission) : bits.has(player, permission, index)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Forget a player's cached permissions.
+     *
+     * @param uuid The player uuid
+     */
+    public void invalidate(UUID uuid) {
+        players.remove(uuid);
+    }
+
+    /**
+     * A player's known and granted permission bits.
+     */
+    private static class PermissionBits {
+
+        /**
+         * When these bits expire.
+         */
+        private final long expiresAt;
+
+        /**
+         * The permissions that have been checked.
+         */
+        private long known;
+
+        /**
+         * The permissions that were granted.
+         */
+        private long granted;
+
+        /**
+         * Constructor.
+         *
+         * @param expiresAt When these bits expire
+         */
+        private PermissionBits(long expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * Check a permission, asking the player the first time.
+         *
+         * @param player The player
+         * @param permission The permission
+         * @param index The permission's bit index
+         * @return True if the player has the permission
+         */
+        private synchronized boolean has(Player player, String permission, int index) {
+            long bit = 1L << index;
+            if ((known & bit) == 0) {
+                if (player.hasPermission(permission)) {
+                    granted |= bit;
+                }
+
+                known |= bit;
+            }
+
+            return (granted & bit) != 0;
+        }
+    }
+}
@@ -25,6 +25,9 @@ import com.google.inject.Singleton;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import org.bukkit.Bukkit;
 import org.bukkit.GameMode;
 import org.bukkit.Material;
@@ -65,6 +68,16 @@ public class PaperFilterService implements FilterService {
      */
     private final List<ActivityFilter> allowFilters = new ArrayList<>();
 
+    /**
+     * The filters that apply to each action key and world name, compiled on first use.
+     */
+    private final Map<String, Map<String, CompiledFilters>> compiledFilters = new ConcurrentHashMap<>();
+
+    /**
+     * The permission cache for the loaded filters.
+     */
+    private FilterPermissionCache permissionCache = new FilterPermissionCache(List.of());
+
     /**
      * Construct a new filter service.
      *
@@ -91,6 +104,27 @@ public class PaperFilterService implements FilterService {
             var name = config.name() == null || config.name().isEmpty() ? "Unnamed" : config.name();
             loadFilter(name, config.behavior(), config.conditions());
         }
+
+        List<String> permissions = new ArrayList<>();
+        for (var filter : ignoreFilters) {
+            permissions.addAll(filter.permissions());
+        }
+
+        for (var filter : allowFilters) {
+            permissions.addAll(filter.permissions());
+        }
+
+        permissionCache = new FilterPermissionCache(permissions);
+        compiledFilters.clear();
+    }
+
+    /**
+     * Forget a player's cached filter permissions.
+     *
+     * @param uuid The player uuid
+     */
+    public void invalidatePermissions(UUID uuid) {
+        permissionCache.invalidate(uuid);
     }
 
     /**
@@ -198,16 +232,26 @@ public class PaperFilterService implements FilterService {
      * @return True if filters rejected the activity
      */
     public boolean shouldRecord(Activity activity) {
+        if (ignoreFilters.isEmpty() && allowFilters.isEmpty()) {
+            return true;
+        }
+
+        var compiled = compiledFilters(
+            activity.action().type().key(),
+            activity.world() != null ? activity.world().value() : null
+        );
+        boolean debug = configurationService.prismConfig().debugFilters();
+
         // If ANY "IGNORE" filter rejects this activity, disallow recording and stop looking
-        for (ActivityFilter filter : ignoreFilters) {
-            if (!filter.shouldRecord(activity, loggingService, configurationService.prismConfig().debugFilters())) {
+        for (ActivityFilter filter : compiled.ignoreFilters()) {
+            if (!filter.shouldRecord(activity, permissionCache, loggingService, debug)) {
                 return false;
             }
         }
 
         // If ANY "ALLOW" filter rejects this activity, we have to keep looking to ensure no others do
-        for (ActivityFilter filter : allowFilters) {
-            if (filter.shouldRecord(activity, loggingService, configurationService.prismConfig().debugFilters())) {
+        for (ActivityFilter filter : compiled.allowFilters()) {
+            if (filter.shouldRecord(activity, permissionCache, loggingService, debug)) {
                 return true;
             }
         }
@@ -216,6 +260,53 @@ public class PaperFilterService implements FilterService {
         return allowFilters.isEmpty();
     }
 
+    /**
+     * Get the filters that apply to an action and world, compiling them the first time.
+     *
+     * @param actionKey The action key
+     * @param worldName The world name, if any
+     * @return The compiled filters
+     */
+    protected CompiledFilters compiledFilters(String actionKey, String worldName) {
+        String worldKey = worldName != null ? worldName : "";
+
+        var byWorld = compiledFilters.get(actionKey);
+        if (byWorld == null) {
+            byWorld = compiledFilters.computeIfAbsent(actionKey, key -> new ConcurrentHashMap<>());
+        }
+
+        var compiled = byWorld.get(worldKey);
+        if (compiled == null) {
+            compiled = new CompiledFilters(
+                applicableFilters(ignoreFilters, actionKey, worldName),
+                applicableFilters(allowFilters, actionKey, worldName)
+            );
+
+            byWorld.put(worldKey, compiled);
+        }
+
+        return compiled;
+    }
+
+    /**
+     * Get the filters that apply to an action and world.
+     *
+     * @param filters The filters
+     * @param actionKey The action key
+     * @param worldName The world name, if any
+     * @return The applicable filters
+     */
+    private ActivityFilter[] applicableFilters(List<ActivityFilter> filters, String actionKey, String worldName) {
+        List<ActivityFilter> applicable = new ArrayList<>();
+        for (var filter : filters) {
+            if (filter.appliesTo(actionKey, worldName)) {
+                applicable.add(filter);
+            }
+        }
+
+        return applicable.toArray(new ActivityFilter[0]);
+    }
+
     /**
      * Load cause entity type tags.
      *
@@ -308,4 +399,12 @@ public class PaperFilterService implements FilterService {
 
         return tags;
     }
+
+    /**
+     * The ignore and allow filters that apply to one action and world.
+     *
+     * @param ignoreFilters The applicable ignore filters
+     * @param allowFilters The applicable allow filters
+     */
+    protected record CompiledFilters(ActivityFilter[] ignoreFilters, ActivityFilter[] allowFilters) {}
 }
@@ -22,7 +22,10 @@ package org.prism_mc.prism.paper.services.lookup;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 import org.bukkit.command.CommandSender;
 import org.prism_mc.prism.api.activities.AbstractActivity;
@@ -30,8 +33,11 @@ import org.prism_mc.prism.api.activities.Activity;
 import org.prism_mc.prism.api.activities.ActivityQuery;
 import org.prism_mc.prism.api.activities.GroupedActivity;
 import org.prism_mc.prism.api.services.pagination.ListPaginationResult;
+import org.prism_mc.prism.api.services.pagination.PaginationCursor;
 import org.prism_mc.prism.api.services.pagination.PaginationHandler;
+import org.prism_mc.prism.api.services.pagination.PartialListPaginationResult;
 import org.prism_mc.prism.api.storage.StorageAdapter;
+import org.prism_mc.prism.loader.services.configuration.ConfigurationService;
 import org.prism_mc.prism.loader.services.logging.LoggingService;
 import org.prism_mc.prism.paper.providers.TaskChainProvider;
 import org.prism_mc.prism.paper.services.messages.MessageService;
@@ -40,6 +46,11 @@ import org.prism_mc.prism.paper.services.pagination.PaginationService;
 @Singleton
 public class LookupService {
 
+    /**
+     * The configuration service.
+     */
+    private final ConfigurationService configurationService;
+
     /**
      * The message service.
      */
@@ -65,50 +76,157 @@ public class LookupService {
      */
     private final PaginationService paginationService;
 
+    /**
+     * The recent activity index.
+     */
+    private final RecentActivityIndex recentActivityIndex;
+
     /**
      * Construct the lookup service.
      *
+     * @param configurationService The configuration service
      * @param messageService The message service
      * @param storageAdapter The storage adapter
      * @param taskChainProvider The task chain provider
      * @param loggingService The logging service
      * @param paginationService The pagination service
+     * @param recentActivityIndex The recent activity index
      */
     @Inject
     public LookupService(
+        ConfigurationService configurationService,
         MessageService messageService,
         StorageAdapter storageAdapter,
         TaskChainProvider taskChainProvider,
         LoggingService loggingService,
-        PaginationService paginationService
+        PaginationService paginationService,
+        RecentActivityIndex recentActivityIndex
     ) {
+        this.configurationService = configurationService;
         this.messageService = messageService;
         this.storageAdapter = storageAdapter;
         this.taskChainProvider = taskChainProvider;
         this.loggingService = loggingService;
         this.paginationService = paginationService;
+        this.recentActivityIndex = recentActivityIndex;
     }
 
     /**
      * Performs an async storage query and displays the results to the command sender in a paginated chat view.
      *
+     * <p>For ungrouped lookups, recent activities held in memory are listed first, and only
+     * older history is read from storage. Grouped lookups are left to storage.</p>
+     *
      * @param sender The command sender
      * @param query The activity query
      */
     public void lookup(CommandSender sender, ActivityQuery query) {
+        boolean countResults = configurationService.prismConfig().commands().exactLookupCounts();
+        ActivityQuery countedQuery = query.toBuilder().countResults(countResults).build();
+
+        var recent = recentActivityIndex.lookup(countedQuery);
+        if (recent.isPresent() && !recent.get().activities().isEmpty()) {
+            List<AbstractActivity> recentActivities = new ArrayList<>();
+            for (var activity : recent.get().activities()) {
+                recentActivities.add(new RecentActivityIndex.RecentActivity(activity));
+            }
+
+            lookup(sender, recent.get().historyQuery(), recentActivities, new HashMap<>(), null);
+        } else {
+            lookup(sender, countedQuery, List.of(), new HashMap<>(), null);
+        }
+    }
+
+    /**
+     * Performs an async storage query for a page and displays the results to the command sender.
+     *
+     * <p>Pages reached from a neighboring page seek from that page's cursor, and a total counted
+     * on the first page is reused so later pages never have to count again.</p>
+     *
+     * <p>Recent activities come before everything in storage, so a page starts with whichever
+     * of them fall in its range and storage fills the rest.</p>
+     *
+     * @param sender The command sender
+     * @param query The activity query
+     * @param recent The recent activities from memory, newer than anything the query finds
+     * @param pageCursors The cursors known for each page
+     * @param knownTotal The total result count, if already counted
+     */
+    private void lookup(
+        CommandSender sender,
+        ActivityQuery query,
+        List<AbstractActivity> recent,
+        Map<Integer, PaginationCursor> pageCursors,
+        Integer knownTotal
+    ) {
         taskChainProvider
             .newChain()
             .async(() -> {
                 try {
-                    var paginationResult = storageAdapter.queryActivitiesPaginated(query);
+                    int perPage = query.limit();
+                    int page = perPage > 0 ? (query.offset() / perPage) + 1 : 1;
+                    int start = query.offset();
+                    var recentPage = recent.subList(
+                        Math.min(start, recent.size()),
+                        Math.min(start + perPage, recent.size())
+                    );
+
+                    // Storage only has to fill what recent activities leave of the page
+                    ActivityQuery historyQuery = query;
+                    if (!recent.isEmpty()) {
+                        historyQuery = query
+                            .toBuilder()
+                            .offset(Math.max(0, start - recent.size()))
+                            .limit(Math.max(1, perPage - recentPage.size()))
+                            .build();
+                    }
+
+                    var result = storageAdapter.queryActivitiesPaginated(historyQuery);
+                    if (!recent.isEmpty()) {
+                        boolean filled = recentPage.size() >= perPage;
+
+                        List<AbstractActivity> results = new ArrayList<>(recentPage);
+                        if (!filled) {
+                            results.addAll(result.results());
+                        }
+
+                        result = new PartialListPaginationResult<>(
+                            results,
+                            result.totalResults() + recent.size(),
+                            perPage,
+                            page,
+                            filled ? null : result.nextCursor()
+                        );
+                    }
+
+                    if (knownTotal != null) {
+                        result = new PartialListPaginationResult<>(
+                            result.results(),
+                            knownTotal,
+                            result.perPage(),
+                            result.currentPage(),
+                            result.nextCursor()
+                        );
+                    }
+
+                    if (result.nextCursor() != null) {
+                        pageCursors.put(result.currentPage() + 1, result.nextCursor());
+                    }
+
+                    final var paginationResult = result;
+                    final Integer total = query.countResults() ? paginationResult.totalResults() : knownTotal;
                     var paginationHandler = createPaginationHandler(
                         sender,
                         paginationResult,
                         page -> {
-                            paginationResult.currentPage(page);
+                            final ActivityQuery newQuery = query
+                                .toBuilder()
+                                .offset(paginationResult.offsetForPage(page))
+                                .cursor(pageCursors.get(page))
+                                .countResults(false)
+                                .build();
 
-                            final ActivityQuery newQuery = query.toBuilder().offset(paginationResult.offset()).build();
-                            lookup(sender, newQuery);
+                            lookup(sender, newQuery, recent, pageCursors, total);
                         },
                         query
                     );
@@ -133,7 +251,7 @@ public class LookupService {
             .newChain()
             .async(() -> {
                 try {
-                    consumer.accept(storageAdapter.queryActivities(query));
+                    consumer.accept(queryActivities(query));
                 } catch (Exception ex) {
                     loggingService.handleException(ex);
                 }
@@ -141,6 +259,35 @@ public class LookupService {
             .execute();
     }
 
+    /**
+     * Query activities, reading recent ones from memory and only asking storage for older history.
+     *
+     * <p>Storage isn't queried at all when memory alone satisfies the limit.</p>
+     *
+     * @param query The activity query
+     * @return The activities
+     * @throws Exception Storage layer exception
+     */
+    private List<Activity> queryActivities(ActivityQuery query) throws Exception {
+        var recent = recentActivityIndex.lookup(query);
+        if (recent.isEmpty() || recent.get().activities().isEmpty()) {
+            return storageAdapter.queryActivities(query);
+        }
+
+        List<Activity> activities = new ArrayList<>();
+        for (var activity : recent.get().activities()) {
+            activities.add(new RecentActivityIndex.RecentActivity(activity));
+        }
+
+        if (query.limit() <= 0 || activities.size() < query.limit()) {
+            activities.addAll(storageAdapter.queryActivities(recent.get().historyQuery()));
+        }
+
+        return query.limit() > 0 && activities.size() > query.limit()
+            ? activities.subList(0, query.limit())
+            : activities;
+    }
+
     /**
      * Performs an async storage query, caches the query for the sender, and passes the result to the consumer.
      *
@@ -0,0 +1,479 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.prism_mc.prism.paper.services.lookup;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.bukkit.Bukkit;
+import org.prism_mc.prism.api.actions.BlockAction;
+import org.prism_mc.prism.api.actions.MaterialAction;
+import org.prism_mc.prism.api.activities.Activity;
+import org.prism_mc.prism.api.activities.ActivityQuery;
+import org.prism_mc.prism.api.util.Coordinate;
+import org.prism_mc.prism.loader.services.configuration.ConfigurationService;
+import org.prism_mc.prism.loader.services.configuration.cache.RecentActivityIndexConfiguration;
+import org.prism_mc.prism.paper.PrismPaper;
+
+/**
+ * Recently recorded activities held in memory, sharded by world and chunk.
+ *
+ * <p>The index holds every activity recorded since it started, for the retention period,
+ * so it can answer the newest part of a location lookup by itself. Anything older than
+ * what it's sure to hold completely is left to the database.</p>
+ */
+@Singleton
+public class RecentActivityIndex {
+
+    /**
+     * The index configuration.
+     */
+    private final RecentActivityIndexConfiguration config;
+
+    /**
+     * The retention period, in milliseconds.
+     */
+    private final long retention;
+
+    /**
+     * When the index started. Nothing older is held.
+     */
+    private final long startedAt = System.currentTimeMillis();
+
+    /**
+     * The chunk shards of each world.
+     */
+    private final Map<UUID, Map<Long, Shard>> worlds = new ConcurrentHashMap<>();
+
+    /**
+     * The task that drops expired activities.
+     */
+    private ScheduledTask sweepTask;
+
+    /**
+     * Whether the index has been closed.
+     */
+    private volatile boolean closed = false;
+
+    /**
+     * Construct the recent activity index.
+     *
+     * @param configurationService The configuration service
+     */
+    @Inject
+    public RecentActivityIndex(ConfigurationService configurationService) {
+        this.config = configurationService.prismConfig().cache().recentActivities();
+
+        var duration = config.retention();
+        this.retention = duration != null && duration.duration() != null && duration.timeUnit() != null
+            ? duration.timeUnit().toMillis(duration.duration())
+            : TimeUnit.MINUTES.toMillis(10);
+
+        if (config.enabled()) {
+            sweepTask = Bukkit.getAsyncScheduler()
+                .runAtFixedRate(PrismPaper.instance().loaderPlugin(), task -> sweep(), 1, 1, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Stop sweeping and drop every held activity.
+     */
+    public void close() {
+        closed = true;
+
+        if (sweepTask != null) {
+            sweepTask.cancel();
+            sweepTask = null;
+        }
+
+        worlds.clear();
+    }
+
+    /**
+     * Add a recorded activity.
+     *
+     * @param activity The activity
+     */
+    public void add(Activity activity) {
+        if (!config.enabled() || closed || activity.worldUuid() == null || activity.coordinate() == null) {
+            return;
+        }
+
+        var coordinate = activity.coordinate();
+        worlds
+            .computeIfAbsent(activity.worldUuid(), uuid -> new ConcurrentHashMap<>())
+            .computeIfAbsent(chunkKey(coordinate.intX() >> 4, coordinate.intZ() >> 4), key -> new Shard())
+            .add(activity, System.currentTimeMillis() - retention, Math.max(1, config.maxPerChunk()));
+    }
+
+    /**
+     * Answer the recent part of a lookup.
+     *
+     * <p>Only location lookups filtered by action, material, block and time are supported.
+     * The returned history query covers everything older than the activities found here.</p>
+     *
+     * @param query The activity query
+     * @return The recent activities and the query for older history, if this query is supported
+     */
+    public Optional<RecentActivities> lookup(ActivityQuery query) {
+        if (!config.enabled() || !supports(query)) {
+            return Optional.empty();
+        }
+
+        int minChunkX;
+        int maxChunkX;
+        int minChunkZ;
+        int maxChunkZ;
+        if (query.coordinate() != null) {
+            minChunkX = maxChunkX = query.coordinate().intX() >> 4;
+            minChunkZ = maxChunkZ = query.coordinate().intZ() >> 4;
+        } else {
+            minChunkX = query.minCoordinate().intX() >> 4;
+            maxChunkX = query.maxCoordinate().intX() >> 4;
+            minChunkZ = query.minCoordinate().intZ() >> 4;
+            maxChunkZ = query.maxCoordinate().intZ() >> 4;
+
+            int maxSpan = Math.max(0, config.maxChunkRadius()) * 2 + 1;
+            if (maxChunkX - minChunkX + 1 > maxSpan || maxChunkZ - minChunkZ + 1 > maxSpan) {
+                return Optional.empty();
+            }
+        }
+
+        // The index is only complete back to when it started, its retention, and any chunk overflow
+        long completeSince = Math.max(startedAt, System.currentTimeMillis() - retention);
+        Set<String> actionTypeKeys = query.allActionTypeKeys();
+        List<Activity> activities = new ArrayList<>();
+
+        var shards = worlds.get(query.worldUuid());
+        if (shards != null) {
+            for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+                for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                    var shard = shards.get(chunkKey(chunkX, chunkZ));
+                    if (shard != null) {
+                        completeSince = Math.max(completeSince, shard.collect(query, actionTypeKeys, activities));
+                    }
+                }
+            }
+        }
+
+        // Whole seconds, since that's what the database stores
+        long cutoff = (completeSince + 999) / 1000;
+        activities.removeIf(activity -> activity.timestamp() / 1000 < cutoff);
+
+        Comparator<Activity> order = Comparator.comparingLong(Activity::timestamp);
+        activities.sort(query.sort() == ActivityQuery.Sort.ASCENDING ? order : order.reversed());
+
+        // "before" is exclusive on its own but inclusive when paired with "after"
+        long historyBefore = query.after() != null ? cutoff - 1 : cutoff;
+        if (query.before() != null) {
+            historyBefore = Math.min(historyBefore, query.before());
+        }
+
+        return Optional.of(new RecentActivities(activities, query.toBuilder().before(historyBefore).build()));
+    }
+
+    /**
+     * Drop the held activities a rollback, restore or purge may have changed.
+     *
+     * <p>The affected chunks are treated as complete only from now on, so lookups read
+     * everything older from storage, which knows what's reversed or purged.</p>
+     *
+     * @param query The query that was modified or purged
+     */
+    public void invalidate(ActivityQuery query) {
+        if (!config.enabled()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+
+        var targets = query.worldUuid() != null
+            ? worlds.entrySet().stream().filter(entry -> entry.getKey().equals(query.worldUuid())).toList()
+            : List.copyOf(worlds.entrySet());
+
+        for (var world : targets) {
+            for (var entry : world.getValue().entrySet()) {
+                long key = entry.getKey();
+                int chunkX = (int) (key >> 32);
+                int chunkZ = (int) key;
+
+                if (inChunkBounds(query, chunkX, chunkZ)) {
+                    entry.getValue().invalidate(now);
+                }
+            }
+        }
+    }
+
+    /**
+     * Check whether a chunk is inside a query's area. Queries without an area cover every chunk.
+     *
+     * @param query The activity query
+     * @param chunkX The chunk x
+     * @param chunkZ The chunk z
+     * @return True if inside
+     */
+    private static boolean inChunkBounds(ActivityQuery query, int chunkX, int chunkZ) {
+        if (query.coordinate() != null) {
+            return chunkX == query.coordinate().intX() >> 4 && chunkZ == query.coordinate().intZ() >> 4;
+        } else if (query.minCoordinate() != null && query.maxCoordinate() != null) {
+            return (
+                chunkX >= query.minCoordinate().intX() >> 4 &&
+                chunkX <= query.maxCoordinate().intX() >> 4 &&
+                chunkZ >= query.minCoordinate().intZ() >> 4 &&
+                chunkZ <= query.maxCoordinate().intZ() >> 4
+            );
+        }
+
+        return true;
+    }
+
+    /**
+     * Check whether the index can answer a query.
+     *
+     * @param query The activity query
+     * @return True if supported
+     */
+    private boolean supports(ActivityQuery query) {
+        boolean located =
+            query.worldUuid() != null &&
+            (query.coordinate() != null || (query.minCoordinate() != null && query.maxCoordinate() != null));
+
+        return (
+            located &&
+            (query.activityIds() == null || query.activityIds().isEmpty()) &&
+            query.causeBlocks().isEmpty() &&
+            query.affectedEntityTypes().isEmpty() &&
+            query.causeEntityTypes().isEmpty() &&
+            query.affectedPlayerNames().isEmpty() &&
+            query.causePlayerNames().isEmpty() &&
+            query.namedCause() == null &&
+            query.descriptor() == null &&
+            query.reversed() == null &&
+            query.fromTimestamp() == null &&
+            query.cursor() == null &&
+            !query.grouped()
+        );
+    }
+
+    /**
+     * Drop expired activities and empty shards.
+     */
+    private void sweep() {
+        long expiresBefore = System.currentTimeMillis() - retention;
+
+        for (var shards : worlds.values()) {
+            shards.values().removeIf(shard -> shard.prune(expiresBefore));
+        }
+
+        worlds.values().removeIf(Map::isEmpty);
+    }
+
+    /**
+     * Pack chunk coordinates into a key.
+     *
+     * @param chunkX The chunk x
+     * @param chunkZ The chunk z
+     * @return The chunk key
+     */
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * A recent activity read from memory, in the form storage returns it (timestamp in seconds).
+     *
+     * <p>It may not be written yet, so it has no primary key.</p>
+     */
+    public static final class RecentActivity extends Activity {
+
+        /**
+         * Copy a recorded activity.
+         *
+         * @param activity The recorded activity
+         */
+        public RecentActivity(Activity activity) {
+            super(
+                null,
+                activity.action(),
+                activity.world(),
+                activity.coordinate(),
+                activity.cause(),
+                activity.timestamp() / 1000
+            );
+        }
+    }
+
+    /**
+     * The recent part of a lookup.
+     *
+     * @param activities The recent activities (timestamps in milliseconds), in query order
+     * @param historyQuery The query for everything older
+     */
+    public record RecentActivities(List<Activity> activities, ActivityQuery historyQuery) {}
+
+    /**
+     * The recent activities of one chunk, oldest first.
+     */
+    private static final class Shard {
+
+        /**
+         * The activities.
+         */
+        private final ArrayDeque<Activity> activities = new ArrayDeque<>();
+
+        /**
+         * The time since which this shard holds every activity, after overflow evictions.
+         */
+        private long completeSince = 0;
+
+        /**
+         * Add an activity, evicting expired and overflowing ones.
+         *
+         * @param activity The activity
+         * @param expiresBefore Activities older than this are dropped
+         * @param maxSize The max number of activities held
+         */
+        synchronized void add(Activity activity, long expiresBefore, int maxSize) {
+            activities.addLast(activity);
+            prune(expiresBefore);
+
+            while (activities.size() > maxSize) {
+                completeSince = Math.max(completeSince, activities.removeFirst().timestamp() + 1);
+            }
+        }
+
+        /**
+         * Drop expired activities.
+         *
+         * @param expiresBefore Activities older than this are dropped
+         * @return True if the shard is now empty and no longer limits completeness
+         */
+        synchronized boolean prune(long expiresBefore) {
+            while (!activities.isEmpty() && activities.peekFirst().timestamp() < expiresBefore) {
+                activities.removeFirst();
+            }
+
+            return activities.isEmpty() && completeSince <= expiresBefore;
+        }
+
+        /**
+         * Drop every activity, only holding those recorded from now on.
+         *
+         * @param now The current time
+         */
+        synchronized void invalidate(long now) {
+            activities.clear();
+            completeSince = Math.max(completeSince, now);
+        }
+
+        /**
+         * Collect the activities matching a query.
+         *
+         * @param query The activity query
+         * @param actionTypeKeys The query's action type keys
+         * @param results The list to add matches to
+         * @return The time since which this shard is complete
+         */
+        synchronized long collect(ActivityQuery query, Set<String> actionTypeKeys, List<Activity> results) {
+            for (var activity : activities) {
+                if (matches(query, actionTypeKeys, activity)) {
+                    results.add(activity);
+                }
+            }
+
+            return completeSince;
+        }
+    }
+
+    /**
+     * Check an activity against a query, the same way the database would.
+     *
+     * @param query The activity query
+     * @param actionTypeKeys The query's action type keys
+     * @param activity The activity
+     * @return True if matched
+     */
+    private static boolean matches(ActivityQuery query, Set<String> actionTypeKeys, Activity activity) {
+        Coordinate coordinate = activity.coordinate();
+        if (query.coordinate() != null) {
+            if (
+                coordinate.intX() != query.coordinate().intX() ||
+                coordinate.intY() != query.coordinate().intY() ||
+                coordinate.intZ() != query.coordinate().intZ()
+            ) {
+                return false;
+            }
+        } else if (
+            coordinate.intX() < query.minCoordinate().intX() ||
+            coordinate.intX() > query.maxCoordinate().intX() ||
+            coordinate.intY() < query.minCoordinate().intY() ||
+            coordinate.intY() > query.maxCoordinate().intY() ||
+            coordinate.intZ() < query.minCoordinate().intZ() ||
+            coordinate.intZ() > query.maxCoordinate().intZ()
+        ) {
+            return false;
+        }
+
+        if (!actionTypeKeys.isEmpty() && !actionTypeKeys.contains(activity.action().type().key())) {
+            return false;
+        }
+
+        if (!query.affectedMaterials().isEmpty()) {
+            if (
+                !(activity.action() instanceof MaterialAction materialAction) ||
+                !query.affectedMaterials().contains(materialAction.serializeMaterial())
+            ) {
+                return false;
+            }
+        }
+
+        if (!query.affectedBlocks().isEmpty()) {
+            if (
+                !(activity.action() instanceof BlockAction blockAction) ||
+                blockAction.blockContainer() == null ||
+                !query.affectedBlocks().contains(blockAction.blockContainer().blockName())
+            ) {
+                return false;
+            }
+        }
+
+        long timestamp = activity.timestamp() / 1000;
+        if (query.after() != null && query.before() != null) {
+            return timestamp >= query.after() && timestamp <= query.before();
+        } else if (query.after() != null) {
+            return timestamp > query.after();
+        } else if (query.before() != null) {
+            return timestamp < query.before();
+        }
+
+        return true;
+    }
+}
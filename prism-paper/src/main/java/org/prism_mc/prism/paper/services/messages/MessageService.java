@@ -78,6 +78,9 @@ public interface MessageService {
     @Message("prism.error.invalid-parameter")
     void errorInvalidParameter(CommandSender receiver);
 
+    @Message("prism.error.metrics-disabled")
+    void errorMetricsDisabled(CommandSender receiver);
+
     @Message("prism.error.no-blocks-removed")
     void errorNoBlocksRemoved(CommandSender receiver);
 
@@ -195,6 +198,57 @@ public interface MessageService {
     @Message("prism.hikari-file-written")
     void hikariFileWritten(CommandSender receiver);
 
+    @Message("prism.metrics-action-entry")
+    void metricsActionEntry(
+        CommandSender receiver,
+        @Placeholder String name,
+        @Placeholder Long count,
+        @Placeholder String tick,
+        @Placeholder String p50,
+        @Placeholder String p99,
+        @Placeholder String max,
+        @Placeholder Long rejected
+    );
+
+    @Message("prism.metrics-batches")
+    void metricsBatches(
+        CommandSender receiver,
+        @Placeholder Long count,
+        @Placeholder Long activities,
+        @Placeholder String p50,
+        @Placeholder String p99,
+        @Placeholder String max
+    );
+
+    @Message("prism.metrics-entry")
+    void metricsEntry(
+        CommandSender receiver,
+        @Placeholder String name,
+        @Placeholder Long count,
+        @Placeholder String tick,
+        @Placeholder String p50,
+        @Placeholder String p99,
+        @Placeholder String max
+    );
+
+    @Message("prism.metrics-header")
+    void metricsHeader(CommandSender receiver, @Placeholder Long seconds);
+
+    @Message("prism.metrics-queue")
+    void metricsQueue(
+        CommandSender receiver,
+        @Placeholder Integer depth,
+        @Placeholder Long enqueued,
+        @Placeholder String rate,
+        @Placeholder Long dropped
+    );
+
+    @Message("prism.metrics-reset")
+    void metricsReset(CommandSender receiver);
+
+    @Message("prism.metrics-section")
+    void metricsSection(CommandSender receiver, @Placeholder String section);
+
     @Message("prism.modifications-applied")
     void modificationsApplied(CommandSender receiver, @Placeholder Integer count);
 
@@ -229,6 +283,13 @@ public interface MessageService {
     @Message("prism.modifications-report-queue-entry")
     void modificationsReportQueueEntry(CommandSender receiver, @Placeholder Integer size, @Placeholder String owner);
 
+    @Message("prism.modifications-report-queue-throughput")
+    void modificationsReportQueueThroughput(
+        CommandSender receiver,
+        @Placeholder String rate,
+        @Placeholder String milliseconds
+    );
+
     @Message("prism.modifications-report-skipped-header")
     void modificationsReportSkippedHeader(CommandSender receiver);
 
@@ -261,7 +322,7 @@ public interface MessageService {
     void previewCancelled(CommandSender receiver);
 
     @Message("prism.purge-complete")
-    void purgeComplete(CommandSender receiver, @Placeholder Integer count);
+    void purgeComplete(CommandSender receiver, @Placeholder Long count);
 
     @Message("prism.purge-cycle")
     void purgeCycle(CommandSender receiver, @Placeholder PurgeCycleResult result);
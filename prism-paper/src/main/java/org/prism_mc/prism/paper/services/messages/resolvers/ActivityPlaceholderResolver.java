@@ -97,7 +97,8 @@ public class ActivityPlaceholderResolver implements IPlaceholderResolver<Command
         }
 
         Component activityId = Component.empty();
-        if (value instanceof Activity activity) {
+        // Recent activities read from memory may not be stored yet, so they have no id
+        if (value instanceof Activity activity && activity.primaryKey() != null) {
             activityId = Component.text(activity.primaryKey().toString());
         }
 
@@ -50,6 +50,7 @@ public class PurgeCycleResultPlaceholderResolver
         Component count = Component.text(value.deleted());
         Component lowerbound = Component.text(value.minPrimaryKey());
         Component upperbound = Component.text(value.maxPrimaryKey());
+        Component rate = Component.text(Math.round(value.rowsPerSecond()));
 
         return Map.of(
             placeholderName + "_count",
@@ -57,7 +58,9 @@ public class PurgeCycleResultPlaceholderResolver
             placeholderName + "_lowerbound",
             Either.left(ConclusionValue.conclusionValue(lowerbound)),
             placeholderName + "_upperbound",
-            Either.left(ConclusionValue.conclusionValue(upperbound))
+            Either.left(ConclusionValue.conclusionValue(upperbound)),
+            placeholderName + "_rate",
+            Either.left(ConclusionValue.conclusionValue(rate))
         );
     }
 }
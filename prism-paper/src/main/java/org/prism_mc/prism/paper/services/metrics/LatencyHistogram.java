@@ -0,0 +1,200 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.prism_mc.prism.paper.services.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free latency histogram with log-linear buckets, in the style of HdrHistogram.
+ *
+ * <p>Each power of two is split into 16 buckets, so recorded values are accurate to
+ * about 6%. Values past roughly 18 minutes share the last bucket.</p>
+ */
+public class LatencyHistogram {
+
+    /**
+     * The number of bits used for buckets within each power of two.
+     */
+    private static final int SUB_BUCKET_BITS = 4;
+
+    /**
+     * The number of buckets within each power of two.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * The highest power of two tracked.
+     */
+    private static final int MAX_EXPONENT = 40;
+
+    /**
+     * The bucket counts.
+     */
+    private final AtomicLongArray counts = new AtomicLongArray((MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS);
+
+    /**
+     * The number of recorded values.
+     */
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * The sum of recorded values.
+     */
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * The highest recorded value.
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Record a value.
+     *
+     * @param value The value, in nanoseconds
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+
+        counts.incrementAndGet(index(value));
+        count.increment();
+        sum.add(value);
+
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * Clear all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    /**
+     * Take a snapshot of the recorded values.
+     *
+     * @param name The name to report the values under
+     * @return The snapshot
+     */
+    public Snapshot snapshot(String name) {
+        long[] copy = new long[counts.length()];
+        long total = 0;
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+
+        return new Snapshot(
+            name,
+            total,
+            sum.sum(),
+            max.get(),
+            percentile(copy, total, 0.5),
+            percentile(copy, total, 0.9),
+            percentile(copy, total, 0.99)
+        );
+    }
+
+    /**
+     * Get the value at a percentile.
+     *
+     * @param copy The bucket counts
+     * @param total The total count
+     * @param percentile The percentile, from 0 to 1
+     * @return The highest value of the bucket the percentile falls in
+     */
+    private static long percentile(long[] copy, long total, double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(total * percentile));
+        long seen = 0;
+        for (int i = 0; i < copy.length; i++) {
+            seen += copy[i];
+            if (seen >= target) {
+                return highestValue(i);
+            }
+        }
+
+        return highestValue(copy.length - 1);
+    }
+
+    /**
+     * Get the bucket index for a value.
+     *
+     * @param value The value
+     * @return The index
+     */
+    private static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        int exponent = Math.min(63 - Long.numberOfLeadingZeros(value), MAX_EXPONENT);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) Math.min((value >>> shift) - SUB_BUCKETS, SUB_BUCKETS - 1);
+
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Get the highest value that falls in a bucket.
+     *
+     * @param index The bucket index
+     * @return The value
+     */
+    private static long highestValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        int shift = index / SUB_BUCKETS - 1;
+        long subBucket = index % SUB_BUCKETS;
+
+        return ((SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * Recorded values at a point in time, in nanoseconds.
+     *
+     * @param name The name
+     * @param count The number of values
+     * @param total The sum of the values
+     * @param max The highest value
+     * @param p50 The median
+     * @param p90 The 90th percentile
+     * @param p99 The 99th percentile
+     */
+    public record Snapshot(String name, long count, long total, long max, long p50, long p90, long p99) {}
+}
@@ -0,0 +1,551 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.prism_mc.prism.paper.services.metrics;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.Getter;
+import org.bukkit.Bukkit;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.EventExecutor;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginManager;
+import org.prism_mc.prism.api.services.recording.RecordingService;
+import org.prism_mc.prism.loader.services.configuration.ConfigurationService;
+import org.prism_mc.prism.loader.services.configuration.MetricsConfiguration;
+import org.prism_mc.prism.loader.services.logging.LoggingService;
+import org.prism_mc.prism.paper.PrismPaper;
+import org.prism_mc.prism.paper.actions.PaperAction;
+
+@Singleton
+public class MetricsService {
+
+    /**
+     * Whether metrics are collected.
+     */
+    @Getter
+    private final boolean enabled;
+
+    /**
+     * The logging service.
+     */
+    private final LoggingService loggingService;
+
+    /**
+     * The plugin data path.
+     */
+    private final Path dataPath;
+
+    /**
+     * The recording service, provided lazily because it records into this service.
+     */
+    private final Provider<RecordingService> recordingServiceProvider;
+
+    /**
+     * Time spent in each listener, by listener name.
+     */
+    private final Map<String, LatencyHistogram> listeners = new ConcurrentHashMap<>();
+
+    /**
+     * Metrics for each action type, by action key.
+     */
+    private final Map<String, ActionMetrics> actions = new ConcurrentHashMap<>();
+
+    /**
+     * The number of activities dropped because the queue was full.
+     */
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * Time spent writing batches to the database.
+     */
+    private final LatencyHistogram batches = new LatencyHistogram();
+
+    /**
+     * The number of activities written in batches.
+     */
+    private final LongAdder batchedActivities = new LongAdder();
+
+    /**
+     * The server tick metrics were last reset on.
+     */
+    private volatile int resetTick;
+
+    /**
+     * When metrics were last reset.
+     */
+    private volatile long resetTime;
+
+    /**
+     * Construct the metrics service.
+     *
+     * @param configurationService The configuration service
+     * @param loggingService The logging service
+     * @param dataPath The plugin data path
+     * @param recordingServiceProvider The recording service provider
+     */
+    @Inject
+    public MetricsService(
+        ConfigurationService configurationService,
+        LoggingService loggingService,
+        Path dataPath,
+        Provider<RecordingService> recordingServiceProvider
+    ) {
+        this.loggingService = loggingService;
+        this.dataPath = dataPath;
+        this.recordingServiceProvider = recordingServiceProvider;
+
+        MetricsConfiguration metricsConfig = configurationService.prismConfig().metrics();
+        this.enabled = metricsConfig.enabled();
+
+        reset();
+
+        if (enabled && metricsConfig.dumpInterval() > 0) {
+            Bukkit.getAsyncScheduler()
+                .runAtFixedRate(
+                    PrismPaper.instance().loaderPlugin(),
+                    task -> dump(),
+                    metricsConfig.dumpInterval(),
+                    metricsConfig.dumpInterval(),
+                    TimeUnit.MINUTES
+                );
+        }
+    }
+
+    /**
+     * Register a listener, timing each of its event handlers when metrics are enabled.
+     *
+     * @param listener The listener
+     * @param plugin The plugin
+     */
+    @SuppressWarnings("unchecked")
+    public void registerListener(Listener listener, Plugin plugin) {
+        PluginManager pluginManager = plugin.getServer().getPluginManager();
+        if (!enabled) {
+            pluginManager.registerEvents(listener, plugin);
+
+            return;
+        }
+
+        LatencyHistogram histogram = listeners.computeIfAbsent(
+            listener.getClass().getSimpleName(),
+            k -> new LatencyHistogram()
+        );
+
+        Set<Method> methods = new LinkedHashSet<>(List.of(listener.getClass().getMethods()));
+        methods.addAll(List.of(listener.getClass().getDeclaredMethods()));
+
+        for (Method method : methods) {
+            EventHandler eventHandler = method.getAnnotation(EventHandler.class);
+            if (
+                eventHandler == null ||
+                method.isBridge() ||
+                method.isSynthetic() ||
+                method.getParameterCount() != 1 ||
+                !Event.class.isAssignableFrom(method.getParameterTypes()[0])
+            ) {
+                continue;
+            }
+
+            Class<? extends Event> eventClass = (Class<? extends Event>) method.getParameterTypes()[0];
+            EventExecutor delegate = EventExecutor.create(method, eventClass);
+
+            EventExecutor executor = (l, event) -> {
+                // Handlers also receive subclasses of events they didn't register for
+                if (!eventClass.isInstance(event)) {
+                    return;
+                }
+
+                long start = System.nanoTime();
+                try {
+                    delegate.execute(l, event);
+                } finally {
+                    histogram.record(System.nanoTime() - start);
+                }
+            };
+
+            pluginManager.registerEvent(
+                eventClass,
+                listener,
+                eventHandler.priority(),
+                executor,
+                plugin,
+                eventHandler.ignoreCancelled()
+            );
+        }
+    }
+
+    /**
+     * Record the time taken to process an activity.
+     *
+     * @param actionKey The action key
+     * @param nanos The time taken
+     * @param queued Whether the activity was queued
+     */
+    public void recordActivity(String actionKey, long nanos, boolean queued) {
+        ActionMetrics metrics = actions.computeIfAbsent(actionKey, k -> new ActionMetrics());
+        metrics.histogram.record(nanos);
+
+        if (queued) {
+            metrics.queued.increment();
+        }
+    }
+
+    /**
+     * Count an activity rejected by a filter.
+     *
+     * @param actionKey The action key
+     */
+    public void filterRejected(String actionKey) {
+        actions.computeIfAbsent(actionKey, k -> new ActionMetrics()).rejected.increment();
+    }
+
+    /**
+     * Count an activity dropped because the queue was full.
+     */
+    public void dropped() {
+        dropped.increment();
+    }
+
+    /**
+     * Record a batch written to the database.
+     *
+     * @param size The number of activities
+     * @param nanos The time taken
+     */
+    public void recordBatch(int size, long nanos) {
+        batches.record(nanos);
+        batchedActivities.add(size);
+    }
+
+    /**
+     * Clear all metrics.
+     */
+    public void reset() {
+        listeners.values().forEach(LatencyHistogram::reset);
+        actions.values().forEach(ActionMetrics::reset);
+        dropped.reset();
+        batches.reset();
+        batchedActivities.reset();
+
+        resetTick = Bukkit.getCurrentTick();
+        resetTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Get listener timings, slowest total first.
+     *
+     * @return The listener snapshots
+     */
+    public List<LatencyHistogram.Snapshot> listenerSnapshots() {
+        List<LatencyHistogram.Snapshot> snapshots = new ArrayList<>();
+        listeners.forEach((name, histogram) -> snapshots.add(histogram.snapshot(name)));
+        snapshots.sort(Comparator.comparingLong(LatencyHistogram.Snapshot::total).reversed());
+
+        return snapshots;
+    }
+
+    /**
+     * Get action timings, slowest total first.
+     *
+     * @return The action snapshots
+     */
+    public List<ActionSnapshot> actionSnapshots() {
+        List<ActionSnapshot> snapshots = new ArrayList<>();
+        actions.forEach((key, metrics) ->
+            snapshots.add(
+                new ActionSnapshot(metrics.histogram.snapshot(key), metrics.queued.sum(), metrics.rejected.sum())
+            )
+        );
+        snapshots.sort(Comparator.comparingLong((ActionSnapshot s) -> s.timer().total()).reversed());
+
+        return snapshots;
+    }
+
+    /**
+     * Get the batch write timings.
+     *
+     * @return The batch snapshot
+     */
+    public LatencyHistogram.Snapshot batchSnapshot() {
+        return batches.snapshot("batches");
+    }
+
+    /**
+     * Get the number of activities written in batches.
+     *
+     * @return The count
+     */
+    public long batchedActivities() {
+        return batchedActivities.sum();
+    }
+
+    /**
+     * Get the number of activities dropped.
+     *
+     * @return The count
+     */
+    public long droppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Get the number of activities waiting in the queue.
+     *
+     * @return The queue depth
+     */
+    public int queueDepth() {
+        return recordingServiceProvider.get().queue().size();
+    }
+
+    /**
+     * Get the number of activities queued since the last reset.
+     *
+     * @return The count
+     */
+    public long queuedCount() {
+        return actions.values().stream().mapToLong(metrics -> metrics.queued.sum()).sum();
+    }
+
+    /**
+     * Get the number of server ticks since the last reset.
+     *
+     * @return The tick count, at least 1
+     */
+    public int elapsedTicks() {
+        return Math.max(1, Bukkit.getCurrentTick() - resetTick);
+    }
+
+    /**
+     * Get the number of seconds since the last reset.
+     *
+     * @return The seconds, at least 1
+     */
+    public double elapsedSeconds() {
+        return Math.max(1, (System.currentTimeMillis() - resetTime) / 1000d);
+    }
+
+    /**
+     * Write metrics.json and metrics.prom to the plugin folder.
+     */
+    public void dump() {
+        try {
+            List<LatencyHistogram.Snapshot> listenerSnapshots = listenerSnapshots();
+            List<ActionSnapshot> actionSnapshots = actionSnapshots();
+            LatencyHistogram.Snapshot batchSnapshot = batchSnapshot();
+
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("timestamp", System.currentTimeMillis());
+            json.put("elapsedSeconds", elapsedSeconds());
+            json.put("elapsedTicks", elapsedTicks());
+            json.put("queueDepth", queueDepth());
+            json.put("dropped", droppedCount());
+            json.put("listeners", listenerSnapshots);
+            json.put("actions", actionSnapshots);
+            json.put("batches", batchSnapshot);
+            json.put("batchedActivities", batchedActivities());
+
+            write("metrics.json", PaperAction.ObjectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(json));
+            write("metrics.prom", prometheus(listenerSnapshots, actionSnapshots, batchSnapshot));
+        } catch (Exception e) {
+            loggingService.handleException(e);
+        }
+    }
+
+    /**
+     * Format metrics in the Prometheus text format.
+     *
+     * @param listenerSnapshots The listener snapshots
+     * @param actionSnapshots The action snapshots
+     * @param batchSnapshot The batch snapshot
+     * @return The text
+     */
+    protected String prometheus(
+        List<LatencyHistogram.Snapshot> listenerSnapshots,
+        List<ActionSnapshot> actionSnapshots,
+        LatencyHistogram.Snapshot batchSnapshot
+    ) {
+        StringBuilder builder = new StringBuilder();
+
+        builder.append("# TYPE prism_listener_duration_seconds summary\n");
+        for (var snapshot : listenerSnapshots) {
+            summary(builder, "prism_listener_duration_seconds", "listener", snapshot);
+        }
+
+        builder.append("# TYPE prism_action_duration_seconds summary\n");
+        for (var snapshot : actionSnapshots) {
+            summary(builder, "prism_action_duration_seconds", "action", snapshot.timer());
+        }
+
+        builder.append("# TYPE prism_activities_queued_total counter\n");
+        for (var snapshot : actionSnapshots) {
+            sample(builder, "prism_activities_queued_total", "action", snapshot.timer().name(), snapshot.queued());
+        }
+
+        builder.append("# TYPE prism_activities_rejected_total counter\n");
+        for (var snapshot : actionSnapshots) {
+            sample(builder, "prism_activities_rejected_total", "action", snapshot.timer().name(), snapshot.rejected());
+        }
+
+        builder.append("# TYPE prism_activities_dropped_total counter\n");
+        builder.append("prism_activities_dropped_total ").append(droppedCount()).append('\n');
+
+        builder.append("# TYPE prism_queue_depth gauge\n");
+        builder.append("prism_queue_depth ").append(queueDepth()).append('\n');
+
+        builder.append("# TYPE prism_batch_write_duration_seconds summary\n");
+        summary(builder, "prism_batch_write_duration_seconds", null, batchSnapshot);
+
+        builder.append("# TYPE prism_batched_activities_total counter\n");
+        builder.append("prism_batched_activities_total ").append(batchedActivities()).append('\n');
+
+        return builder.toString();
+    }
+
+    /**
+     * Append a Prometheus summary.
+     *
+     * @param builder The builder
+     * @param metric The metric name
+     * @param label The label name, if any
+     * @param snapshot The snapshot
+     */
+    private void summary(StringBuilder builder, String metric, String label, LatencyHistogram.Snapshot snapshot) {
+        String labels = label != null ? label + "=\"" + snapshot.name() + "\"," : "";
+
+        String[] quantiles = { "0.5", "0.9", "0.99" };
+        long[] values = { snapshot.p50(), snapshot.p90(), snapshot.p99() };
+        for (int i = 0; i < quantiles.length; i++) {
+            builder.append(
+                String.format(
+                    Locale.ROOT,
+                    "%s{%squantile=\"%s\"} %.9f%n",
+                    metric,
+                    labels,
+                    quantiles[i],
+                    seconds(values[i])
+                )
+            );
+        }
+
+        String suffix = label != null ? "{" + label + "=\"" + snapshot.name() + "\"}" : "";
+        builder.append(String.format(Locale.ROOT, "%s_sum%s %.9f%n", metric, suffix, seconds(snapshot.total())));
+        builder.append(String.format(Locale.ROOT, "%s_count%s %d%n", metric, suffix, snapshot.count()));
+    }
+
+    /**
+     * Append a labelled Prometheus sample.
+     *
+     * @param builder The builder
+     * @param metric The metric name
+     * @param label The label name
+     * @param labelValue The label value
+     * @param value The value
+     */
+    private void sample(StringBuilder builder, String metric, String label, String labelValue, long value) {
+        builder.append(metric).append('{').append(label).append("=\"").append(labelValue).append("\"} ");
+        builder.append(value).append('\n');
+    }
+
+    /**
+     * Convert nanoseconds to seconds.
+     *
+     * @param nanos The nanoseconds
+     * @return The seconds
+     */
+    private static double seconds(long nanos) {
+        return nanos / 1_000_000_000d;
+    }
+
+    /**
+     * Write a file to the plugin folder, replacing it atomically.
+     *
+     * @param fileName The file name
+     * @param content The content
+     * @throws IOException If writing fails
+     */
+    private void write(String fileName, String content) throws IOException {
+        Path target = dataPath.resolve(fileName);
+        Path temp = dataPath.resolve(fileName + ".tmp");
+
+        Files.writeString(temp, content, StandardCharsets.UTF_8);
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Metrics for an action type.
+     */
+    private static class ActionMetrics {
+
+        /**
+         * Time spent processing activities.
+         */
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        /**
+         * The number of activities queued.
+         */
+        private final LongAdder queued = new LongAdder();
+
+        /**
+         * The number of activities rejected by filters.
+         */
+        private final LongAdder rejected = new LongAdder();
+
+        /**
+         * Clear all metrics.
+         */
+        private void reset() {
+            histogram.reset();
+            queued.reset();
+            rejected.reset();
+        }
+    }
+
+    /**
+     * Action metrics at a point in time.
+     *
+     * @param timer The processing times
+     * @param queued The number of activities queued
+     * @param rejected The number of activities rejected by filters
+     */
+    public record ActionSnapshot(LatencyHistogram.Snapshot timer, long queued, long rejected) {}
+}
@@ -20,16 +20,23 @@
 
 package org.prism_mc.prism.paper.services.modifications;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Iterator;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
+import java.util.function.IntSupplier;
 import lombok.Getter;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.World;
+import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.util.BoundingBox;
 import org.prism_mc.prism.api.activities.Activity;
@@ -39,14 +46,21 @@ import org.prism_mc.prism.api.services.modifications.ModificationQueueMode;
 import org.prism_mc.prism.api.services.modifications.ModificationQueueResult;
 import org.prism_mc.prism.api.services.modifications.ModificationResult;
 import org.prism_mc.prism.api.services.modifications.ModificationResultStatus;
+import org.prism_mc.prism.api.services.modifications.ModificationResults;
 import org.prism_mc.prism.api.services.modifications.ModificationRuleset;
 import org.prism_mc.prism.loader.services.logging.LoggingService;
 import org.prism_mc.prism.paper.PrismPaper;
+import org.prism_mc.prism.paper.services.lookup.RecentActivityIndex;
 import org.prism_mc.prism.paper.utils.BlockUtils;
 import org.prism_mc.prism.paper.utils.EntityUtils;
 
 public abstract class AbstractWorldModificationQueue implements ModificationQueue {
 
+    /**
+     * How many chunk groups to preload ahead of the one being applied.
+     */
+    protected static final int PRELOAD_AHEAD = 8;
+
     /**
      * The logging service.
      */
@@ -57,11 +71,31 @@ public abstract class AbstractWorldModificationQueue implements ModificationQueu
      */
     protected ModificationRuleset modificationRuleset;
 
+    /**
+     * Sizes each task by the time it may spend.
+     */
+    protected final ModificationTickBudget tickBudget;
+
     /**
      * Manage a queue of pending modifications.
      */
     protected final List<Activity> modificationsQueue = Collections.synchronizedList(new LinkedList<>());
 
+    /**
+     * Loads further chunks of modifications, if streaming.
+     */
+    protected ModificationChunkLoader chunkLoader;
+
+    /**
+     * The pending modifications of the current window, as runs of consecutive modifications in the same chunk.
+     */
+    protected final Deque<ModificationChunkGroup> chunkGroups = new ArrayDeque<>();
+
+    /**
+     * Count the modifications not yet handed out for application.
+     */
+    protected volatile int countPending;
+
     /**
      * The onEnd handler.
      */
@@ -88,34 +122,26 @@ public abstract class AbstractWorldModificationQueue implements ModificationQueu
     protected int taskId;
 
     /**
-     * Count how many were read from the queue.
-     */
-    protected int countModificationsRead;
-
-    /**
-     * Count how many were applied.
+     * Whether the repeating task is scheduled.
      */
-    protected int countApplied = 0;
-
-    /**
-     * Count how many were partially applied.
-     */
-    protected int countPartial = 0;
+    @Getter
+    protected volatile boolean running;
 
     /**
-     * Count how many were planned.
+     * Count how many were read from the queue.
      */
-    protected int countPlanned = 0;
+    protected int countModificationsRead;
 
     /**
-     * Count how many were skipped.
+     * The fake blocks shown to the owner while planning.
      */
-    protected int countSkipped = 0;
+    @Getter
+    protected final BlockPreview blockPreview = new BlockPreview();
 
     /**
-     * A list of all modification results.
+     * All modification results, along with their counts per status.
      */
-    protected final List<ModificationResult> results = new ArrayList<>();
+    protected final ModificationResults results = new ModificationResults();
 
     /**
      * Construct a new world modification.
@@ -135,8 +161,10 @@ public abstract class AbstractWorldModificationQueue implements ModificationQueu
         Consumer<ModificationQueueResult> onEndCallback
     ) {
         modificationsQueue.addAll(modifications);
+        this.countPending = modifications.size();
         this.loggingService = loggingService;
         this.modificationRuleset = modificationRuleset;
+        this.tickBudget = new ModificationTickBudget(modificationRuleset);
         this.owner = owner;
         this.query = query;
         this.onEndCallback = onEndCallback;
@@ -144,7 +172,115 @@ public abstract class AbstractWorldModificationQueue implements ModificationQueu
 
     @Override
     public int queueSize() {
-        return modificationsQueue.size();
+        return countPending;
+    }
+
+    @Override
+    public double modificationsPerSecond() {
+        return tickBudget.modificationsPerSecond();
+    }
+
+    @Override
+    public double millisecondsPerTask() {
+        return tickBudget.millisecondsPerTask();
+    }
+
+    /**
+     * Load the modifications following the initial ones in chunks as the queue progresses.
+     *
+     * @param chunkLoader The chunk loader, positioned after the initial modifications
+     */
+    public void streamFrom(ModificationChunkLoader chunkLoader) {
+        this.chunkLoader = chunkLoader;
+    }
+
+    /**
+     * Share the per-tick time budget with other queues.
+     *
+     * @param shares Counts the queues sharing the time
+     */
+    public void shareBudgetWith(IntSupplier shares) {
+        tickBudget.shareWith(shares);
+    }
+
+    /**
+     * Split the current window of modifications into runs of consecutive modifications in the same chunk.
+     *
+     * <p>Runs keep the query order, so hanging blocks still come last and attachments still follow
+     * what they're attached to, even across chunk borders. A chunk may have several runs.</p>
+     *
+     * <p>Previews keep the window so that a later apply can group it again.</p>
+     */
+    protected void groupWindow() {
+        Map<UUID, World> worlds = new HashMap<>();
+        ModificationChunkGroup group = null;
+
+        synchronized (modificationsQueue) {
+            for (Activity activity : modificationsQueue) {
+                World world = worlds.computeIfAbsent(activity.world().key(), Bukkit::getWorld);
+                int chunkX = activity.coordinate().intX() >> 4;
+                int chunkZ = activity.coordinate().intZ() >> 4;
+
+                if (group == null || !group.contains(world, chunkX, chunkZ)) {
+                    group = new ModificationChunkGroup(world, chunkX, chunkZ);
+                    chunkGroups.add(group);
+                }
+
+                group.add(activity);
+            }
+
+            countPending = modificationsQueue.size();
+
+            if (mode.equals(ModificationQueueMode.COMPLETING)) {
+                modificationsQueue.clear();
+            }
+        }
+    }
+
+    /**
+     * Release and drop all chunk groups.
+     */
+    protected void clearChunkGroups() {
+        JavaPlugin plugin = PrismPaper.instance().loaderPlugin();
+        for (ModificationChunkGroup group : chunkGroups) {
+            group.release(plugin);
+        }
+
+        chunkGroups.clear();
+    }
+
+    /**
+     * Check whether the current window has been fully applied.
+     *
+     * @return True if the current window is done
+     */
+    protected boolean windowDone() {
+        return chunkGroups.isEmpty();
+    }
+
+    /**
+     * Swap in the next window of modifications once the current one is done.
+     *
+     * @return False if the next window is still loading
+     */
+    protected boolean advanceWindow() {
+        if (chunkLoader == null || !windowDone() || !chunkLoader.hasMore()) {
+            return true;
+        }
+
+        List<Activity> chunk = chunkLoader.poll();
+        if (chunk == null) {
+            return false;
+        }
+
+        modificationsQueue.clear();
+        modificationsQueue.addAll(chunk);
+        groupWindow();
+
+        // Fetch the next window while this one is applied
+        chunkLoader.prefetch();
+
+        return true;
     }
 
     /**
@@ -159,8 +295,15 @@ public abstract class AbstractWorldModificationQueue implements ModificationQueu
 
     /**
      * Apply any pre-modification tasks.
+     *
+     * <p>Block removals are scanned asynchronously, so modifications wait for the returned future.</p>
+     *
+     * @param builder The queue result builder
+     * @return A future completed once all pre-modification tasks are done
      */
-    protected void preProcess(ModificationQueueResult.ModificationQueueResultBuilder builder) {
+    protected CompletableFuture<Void> preProcess(ModificationQueueResult.ModificationQueueResultBuilder builder) {
+        List<CompletableFuture<?>> tasks = new ArrayList<>();
+
         if (mode.equals(ModificationQueueMode.COMPLETING)) {
             if (
                 modificationRuleset.drainLava() &&
@@ -177,8 +320,10 @@ public abstract class AbstractWorldModificationQueue implements ModificationQueu
                 BoundingBox boundingBox = new BoundingBox(x1, y1, z1, x2, y2, z2);
 
                 World world = Bukkit.getWorld(query.worldUuid());
-                builder.drainedLava(
-                    BlockUtils.removeBlocksByMaterial(world, boundingBox, List.of(Material.LAVA)).size()
+                tasks.add(
+                    BlockUtils
+                        .removeBlocksByMaterial(world, boundingBox, List.of(Material.LAVA))
+                        .thenAccept(builder::drainedLava)
                 );
             }
 
@@ -223,9 +368,15 @@ public abstract class AbstractWorldModificationQueue implements ModificationQueu
                     .toList();
 
                 World world = Bukkit.getWorld(query.worldUuid());
-                builder.removedBlocks(BlockUtils.removeBlocksByMaterial(world, boundingBox, materials).size());
+                tasks.add(
+                    BlockUtils
+                        .removeBlocksByMaterial(world, boundingBox, materials)
+                        .thenAccept(builder::removedBlocks)
+                );
             }
         }
+
+        return CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0]));
     }
 
     /**
@@ -255,6 +406,17 @@ public abstract class AbstractWorldModificationQueue implements ModificationQueu
     @Override
     public void apply() {
         countModificationsRead = 0;
+        clearChunkGroups();
+
+        // Previews only read through the stream, so start it over
+        if (chunkLoader != null && this.mode.equals(ModificationQueueMode.PLANNING)) {
+            modificationsQueue.clear();
+            chunkLoader.restart();
+        }
+
+        // The previewed blocks are about to become real
+        blockPreview.clear();
+
         this.mode = ModificationQueueMode.COMPLETING;
         execute();
     }
@@ -263,109 +425,230 @@ public abstract class AbstractWorldModificationQueue implements ModificationQueu
         String queueSizeMsg = "Modification queue beginning application. Queue size: {0}";
         loggingService.debug(queueSizeMsg, modificationsQueue.size());
 
-        if (!modificationsQueue.isEmpty()) {
+        if (!modificationsQueue.isEmpty() || chunkLoader != null) {
+            if (chunkLoader != null) {
+                chunkLoader.prefetch();
+            }
+
             ModificationQueueResult.ModificationQueueResultBuilder builder = ModificationQueueResult.builder()
                 .queue(this);
 
             if (countModificationsRead == 0) {
-                preProcess(builder);
+                // Modifications start once lava and blocks are removed so they aren't removed again
+                preProcess(builder).whenComplete((v, e) -> {
+                    if (e != null) {
+                        loggingService.handleException(e instanceof Exception ex ? ex : new RuntimeException(e));
+                    }
+
+                    // Nothing may have been removed, leaving us on the async scanning thread
+                    if (Bukkit.isPrimaryThread()) {
+                        startTask(builder);
+                    } else {
+                        Bukkit.getScheduler().runTask(PrismPaper.instance().loaderPlugin(), () -> startTask(builder));
+                    }
+                });
+            } else {
+                startTask(builder);
             }
+        }
+    }
 
-            // Schedule a new sync task
-            JavaPlugin plugin = PrismPaper.instance().loaderPlugin();
-            taskId = Bukkit.getServer()
-                .getScheduler()
-                .scheduleSyncRepeatingTask(
-                    plugin,
-                    () -> {
-                        loggingService.debug("New modification run beginning...");
-
-                        int iterationCount = 0;
-                        final int currentQueueOffset = countModificationsRead;
-
-                        if (currentQueueOffset < modificationsQueue.size()) {
-                            for (
-                                final Iterator<Activity> iterator = modificationsQueue.listIterator(currentQueueOffset);
-                                iterator.hasNext();
-                            ) {
-                                final Activity activity = iterator.next();
-
-                                // Simulate queue pointer advancement for previews
-                                if (mode.equals(ModificationQueueMode.PLANNING)) {
-                                    countModificationsRead++;
-                                }
-
-                                // Limit the absolute max number of steps per execution of this task
-                                if (++iterationCount >= modificationRuleset.maxPerTask()) {
-                                    break;
-                                }
-
-                                ModificationResult result = ModificationResult.builder().activity(activity).build();
-
-                                // Delegate reversible modifications to the actions
-                                if (activity.action().type().reversible()) {
-                                    try {
-                                        result = applyModification(activity);
-                                    } catch (Throwable t) {
-                                        result = ModificationResult.builder().activity(activity).errored().build();
-
-                                        loggingService.handleThrowable(
-                                            String.format("A modification error occurred. %s", activity),
-                                            t
-                                        );
-                                    }
-                                }
-
-                                results.add(result);
-
-                                if (result.status().equals(ModificationResultStatus.PLANNED)) {
-                                    countPlanned++;
-                                } else if (result.status().equals(ModificationResultStatus.APPLIED)) {
-                                    countApplied++;
-                                } else if (result.status().equals(ModificationResultStatus.PARTIAL)) {
-                                    countPartial++;
-                                } else {
-                                    countSkipped++;
-                                }
-
-                                // Remove from the queue if we're not previewing
-                                if (mode.equals(ModificationQueueMode.COMPLETING)) {
-                                    iterator.remove();
-                                }
-                            }
-                        }
-
-                        // The task for this action is done being used
-                        if (modificationsQueue.isEmpty() || countModificationsRead >= modificationsQueue.size()) {
-                            loggingService.debug("Modification queue fully processed, finishing up.");
-
-                            // Cancel the repeating task
-                            Bukkit.getServer().getScheduler().cancelTask(taskId);
-
-                            // Post process
-                            postProcess(builder);
-
-                            ModificationQueueResult result = builder
-                                .mode(mode)
-                                .results(results)
-                                .applied(countApplied)
-                                .partial(countPartial)
-                                .planned(countPlanned)
-                                .skipped(countSkipped)
-                                .build();
-
-                            onEnd(result);
-                        }
-                    },
-                    0,
-                    modificationRuleset.taskDelay()
-                );
+    /**
+     * Group the current window and schedule the repeating modification task.
+     *
+     * @param builder The queue result builder
+     */
+    protected void startTask(ModificationQueueResult.ModificationQueueResultBuilder builder) {
+        groupWindow();
+
+        // Schedule a new repeating task
+        running = true;
+        taskId = Bukkit.getServer()
+            .getScheduler()
+            .scheduleSyncRepeatingTask(
+                PrismPaper.instance().loaderPlugin(),
+                () -> tick(builder),
+                0,
+                modificationRuleset.taskDelay()
+            );
+    }
+
+    /**
+     * Run one modification tick.
+     *
+     * <p>Chunks are loaded asynchronously ahead of the modifications that need them. Modifications
+     * are always applied in query order, so if the next chunk isn't loaded yet the tick ends early
+     * rather than applying anything after it.</p>
+     *
+     * <p>Each tick runs until its time budget is spent, taking as many modifications at a time as
+     * their measured cost says will fit.</p>
+     *
+     * @param builder The queue result builder
+     */
+    protected void tick(ModificationQueueResult.ModificationQueueResultBuilder builder) {
+        loggingService.debug("New modification run beginning...");
+
+        // Wait for the next window if it's still loading
+        if (!advanceWindow()) {
+            return;
+        }
+
+        JavaPlugin plugin = PrismPaper.instance().loaderPlugin();
+        long deadline = System.nanoTime() + tickBudget.startTask();
+        int remaining = modificationRuleset.maxPerTask();
+
+        while (remaining > 0 && !chunkGroups.isEmpty()) {
+            preloadAhead(plugin);
+
+            // Never apply later modifications before earlier ones, wait for the chunk instead
+            ModificationChunkGroup group = chunkGroups.peekFirst();
+            if (!group.ready()) {
+                break;
+            }
+
+            long left = deadline - System.nanoTime();
+            if (left <= 0) {
+                break;
+            }
+
+            List<Activity> batch = group.take(Math.min(remaining, tickBudget.estimate(left)));
+            remaining -= batch.size();
+            countPending -= batch.size();
+            countModificationsRead += batch.size();
+
+            applyBatch(batch);
+
+            if (group.isEmpty()) {
+                chunkGroups.pollFirst();
+                releaseChunk(plugin, group);
+            }
+        }
+
+        // Send this tick's preview blocks together
+        flushPreview();
+
+        // The task for this action is done being used
+        if (windowDone() && (chunkLoader == null || !chunkLoader.hasMore())) {
+            loggingService.debug("Modification queue fully processed, finishing up.");
+
+            // Cancel the repeating task
+            cancelTask();
+
+            // Post process
+            postProcess(builder);
+
+            ModificationQueueResult result = builder
+                .mode(mode)
+                .results(results)
+                .applied(results.count(ModificationResultStatus.APPLIED))
+                .partial(results.count(ModificationResultStatus.PARTIAL))
+                .planned(results.count(ModificationResultStatus.PLANNED))
+                .skipped(results.count(ModificationResultStatus.SKIPPED))
+                .build();
+
+            onEnd(result);
+        }
+    }
+
+    /**
+     * Start loading the chunks of the next few chunk groups.
+     *
+     * @param plugin The plugin holding the chunk tickets
+     */
+    protected void preloadAhead(JavaPlugin plugin) {
+        int ahead = 0;
+        for (ModificationChunkGroup group : chunkGroups) {
+            group.preload(plugin);
+
+            if (++ahead >= PRELOAD_AHEAD) {
+                break;
+            }
         }
     }
 
+    /**
+     * Release the chunk of a finished chunk group, unless a group about to be applied is in it too.
+     *
+     * <p>Chunk tickets are held per plugin, so releasing it would also release the later group's ticket.</p>
+     *
+     * @param plugin The plugin holding the chunk ticket
+     * @param finished The finished chunk group
+     */
+    protected void releaseChunk(JavaPlugin plugin, ModificationChunkGroup finished) {
+        int ahead = 0;
+        for (ModificationChunkGroup group : chunkGroups) {
+            if (group.contains(finished.world(), finished.chunkX(), finished.chunkZ())) {
+                // The later group releases it once it's done, loading it if it hasn't yet
+                group.preload(plugin);
+
+                return;
+            }
+
+            if (++ahead >= PRELOAD_AHEAD) {
+                break;
+            }
+        }
+
+        finished.release(plugin);
+    }
+
+    /**
+     * Apply a batch of modifications from a single chunk.
+     *
+     * @param batch The activities
+     */
+    protected void applyBatch(List<Activity> batch) {
+        for (Activity activity : batch) {
+            long start = System.nanoTime();
+            ModificationResult result = ModificationResult.builder().activity(activity).build();
+
+            // Delegate reversible modifications to the actions
+            if (activity.action().type().reversible()) {
+                try {
+                    result = applyModification(activity);
+                } catch (Throwable t) {
+                    result = ModificationResult.builder().activity(activity).errored().build();
+
+                    loggingService.handleThrowable(String.format("A modification error occurred. %s", activity), t);
+                }
+            }
+
+            tickBudget.measure(System.nanoTime() - start);
+            record(result);
+        }
+    }
+
+    /**
+     * Send any preview blocks not yet sent to the owner.
+     */
+    protected void flushPreview() {
+        if (mode.equals(ModificationQueueMode.PLANNING) && owner instanceof Player player) {
+            blockPreview.flush(player);
+        }
+    }
+
+    /**
+     * Record a modification result.
+     *
+     * @param result The modification result
+     */
+    protected void record(ModificationResult result) {
+        // Only the compact form is kept, so the activity and any state snapshots can be collected
+        results.add(result);
+    }
+
+    /**
+     * Cancel the repeating task.
+     */
+    protected void cancelTask() {
+        running = false;
+        Bukkit.getServer().getScheduler().cancelTask(taskId);
+    }
+
     @Override
     public void destroy() {
-        Bukkit.getServer().getScheduler().cancelTask(taskId);
+        cancelTask();
+        clearChunkGroups();
     }
 
     /**
@@ -374,6 +657,15 @@ public abstract class AbstractWorldModificationQueue implements ModificationQueu
      * @param result The result
      */
     protected void onEnd(ModificationQueueResult result) {
+        // Recent activities held in memory don't know they've been reversed
+        if (result.mode().equals(ModificationQueueMode.COMPLETING)) {
+            PrismPaper.instance()
+                .injectorProvider()
+                .injector()
+                .getInstance(RecentActivityIndex.class)
+                .invalidate(query);
+        }
+
         // Execute the callback, letting the caller know we've ended
         onEndCallback.accept(result);
     }
@@ -0,0 +1,261 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.prism_mc.prism.paper.services.modifications;
+
+import io.papermc.paper.math.Position;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.bukkit.World;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.entity.Player;
+
+/**
+ * The fake blocks shown to a player as a preview, grouped by chunk section.
+ *
+ * <p>Changes are sent as one multi-block change per flush rather than one packet per block,
+ * and only positions are kept per section, not block states.</p>
+ */
+public class BlockPreview {
+
+    /**
+     * The previewed sections, by world and section key.
+     */
+    private final Map<World, Map<Long, Section>> sections = new HashMap<>();
+
+    /**
+     * The number of previewed blocks.
+     */
+    private int size;
+
+    /**
+     * Add a fake block.
+     *
+     * @param world The world
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @param z The z coordinate
+     * @param blockData The block data to show
+     */
+    public synchronized void add(World world, int x, int y, int z, BlockData blockData) {
+        sections
+            .computeIfAbsent(world, w -> new HashMap<>())
+            .computeIfAbsent(sectionKey(x >> 4, y >> 4, z >> 4), k -> new Section(x >> 4, y >> 4, z >> 4))
+            .add(x, y, z, blockData);
+
+        size++;
+    }
+
+    /**
+     * Send any fake blocks not yet sent.
+     *
+     * @param player The player
+     */
+    public synchronized void flush(Player player) {
+        Map<Position, BlockData> changes = new HashMap<>();
+        for (Map.Entry<World, Map<Long, Section>> entry : sections.entrySet()) {
+            if (!entry.getKey().equals(player.getWorld())) {
+                continue;
+            }
+
+            for (Section section : entry.getValue().values()) {
+                section.unsent(changes);
+            }
+        }
+
+        if (!changes.isEmpty()) {
+            player.sendMultiBlockChange(changes);
+        }
+    }
+
+    /**
+     * Re-send the live blocks for every faked position, and forget them.
+     *
+     * @param player The player
+     */
+    public synchronized void revert(Player player) {
+        Map<Position, BlockData> changes = new HashMap<>();
+        for (Map.Entry<World, Map<Long, Section>> entry : sections.entrySet()) {
+            World world = entry.getKey();
+            if (!world.equals(player.getWorld())) {
+                continue;
+            }
+
+            for (Section section : entry.getValue().values()) {
+                // Unloaded chunks are sent fresh once the player loads them
+                if (world.isChunkLoaded(section.sectionX, section.sectionZ)) {
+                    section.live(world, changes);
+                }
+            }
+        }
+
+        if (!changes.isEmpty()) {
+            player.sendMultiBlockChange(changes);
+        }
+
+        clear();
+    }
+
+    /**
+     * Forget all fake blocks without re-sending anything.
+     */
+    public synchronized void clear() {
+        sections.clear();
+        size = 0;
+    }
+
+    /**
+     * Get the number of previewed blocks.
+     *
+     * @return The count
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Get the key for a chunk section.
+     *
+     * @param sectionX The section x coordinate
+     * @param sectionY The section y coordinate
+     * @param sectionZ The section z coordinate
+     * @return The section key
+     */
+    private static long sectionKey(int sectionX, int sectionY, int sectionZ) {
+        return ((sectionX & 0x3FFFFFL) << 42) | ((sectionZ & 0x3FFFFFL) << 20) | (sectionY & 0xFFFFFL);
+    }
+
+    /**
+     * The fake blocks inside a single chunk section.
+     */
+    private static class Section {
+
+        /**
+         * The section x coordinate.
+         */
+        private final int sectionX;
+
+        /**
+         * The section y coordinate.
+         */
+        private final int sectionY;
+
+        /**
+         * The section z coordinate.
+         */
+        private final int sectionZ;
+
+        /**
+         * The positions inside the section, packed as x, z, y nibbles.
+         */
+        private short[] positions = new short[16];
+
+        /**
+         * The block data shown at each position.
+         */
+        private BlockData[] blockData = new BlockData[16];
+
+        /**
+         * The number of positions.
+         */
+        private int size;
+
+        /**
+         * The number of positions already sent.
+         */
+        private int sent;
+
+        /**
+         * Constructor.
+         *
+         * @param sectionX The section x coordinate
+         * @param sectionY The section y coordinate
+         * @param sectionZ The section z coordinate
+         */
+        private Section(int sectionX, int sectionY, int sectionZ) {
+            this.sectionX = sectionX;
+            this.sectionY = sectionY;
+            this.sectionZ = sectionZ;
+        }
+
+        /**
+         * Add a fake block.
+         *
+         * @param x The x coordinate
+         * @param y The y coordinate
+         * @param z The z coordinate
+         * @param data The block data
+         */
+        private void add(int x, int y, int z, BlockData data) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+                blockData = Arrays.copyOf(blockData, size * 2);
+            }
+
+            positions[size] = (short) (((x & 15) << 8) | ((z & 15) << 4) | (y & 15));
+            blockData[size] = data;
+            size++;
+        }
+
+        /**
+         * Collect the fake blocks not yet sent.
+         *
+         * @param changes The changes to add to
+         */
+        private void unsent(Map<Position, BlockData> changes) {
+            // Later changes to the same position replace earlier ones
+            for (int i = sent; i < size; i++) {
+                changes.put(position(positions[i]), blockData[i]);
+            }
+
+            sent = size;
+        }
+
+        /**
+         * Collect the live blocks at every faked position.
+         *
+         * @param world The world
+         * @param changes The changes to add to
+         */
+        private void live(World world, Map<Position, BlockData> changes) {
+            for (int i = 0; i < size; i++) {
+                Position position = position(positions[i]);
+                if (!changes.containsKey(position)) {
+                    changes.put(position, world.getBlockData(position.blockX(), position.blockY(), position.blockZ()));
+                }
+            }
+        }
+
+        /**
+         * Unpack a position.
+         *
+         * @param packed The packed position
+         * @return The block position
+         */
+        private Position position(short packed) {
+            return Position.block(
+                (sectionX << 4) | ((packed >> 8) & 15),
+                (sectionY << 4) | (packed & 15),
+                (sectionZ << 4) | ((packed >> 4) & 15)
+            );
+        }
+    }
+}
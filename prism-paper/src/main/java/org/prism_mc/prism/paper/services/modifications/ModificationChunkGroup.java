@@ -0,0 +1,174 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.prism_mc.prism.paper.services.modifications;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import lombok.Getter;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+import org.prism_mc.prism.api.activities.Activity;
+
+/**
+ * A run of consecutive pending modifications inside a single world chunk.
+ */
+public class ModificationChunkGroup {
+
+    /**
+     * The world, or null if it isn't loaded.
+     */
+    @Getter
+    private final World world;
+
+    /**
+     * The chunk x coordinate.
+     */
+    @Getter
+    private final int chunkX;
+
+    /**
+     * The chunk z coordinate.
+     */
+    @Getter
+    private final int chunkZ;
+
+    /**
+     * The pending activities, in modification order.
+     */
+    private final Deque<Activity> activities = new ArrayDeque<>();
+
+    /**
+     * The async chunk load, once started.
+     */
+    private CompletableFuture<Chunk> chunkLoad;
+
+    /**
+     * Construct a chunk group.
+     *
+     * @param world The world
+     * @param chunkX The chunk x coordinate
+     * @param chunkZ The chunk z coordinate
+     */
+    public ModificationChunkGroup(World world, int chunkX, int chunkZ) {
+        this.world = world;
+        this.chunkX = chunkX;
+        this.chunkZ = chunkZ;
+    }
+
+    /**
+     * Check whether this group is in a chunk.
+     *
+     * @param world The world
+     * @param chunkX The chunk x coordinate
+     * @param chunkZ The chunk z coordinate
+     * @return True if this group is in the chunk
+     */
+    public boolean contains(World world, int chunkX, int chunkZ) {
+        return this.world == world && this.chunkX == chunkX && this.chunkZ == chunkZ;
+    }
+
+    /**
+     * Add an activity.
+     *
+     * @param activity The activity
+     */
+    public void add(Activity activity) {
+        activities.add(activity);
+    }
+
+    /**
+     * Load the chunk asynchronously and keep it loaded until released.
+     *
+     * @param plugin The plugin holding the chunk ticket
+     */
+    public void preload(Plugin plugin) {
+        if (chunkLoad != null || world == null) {
+            return;
+        }
+
+        chunkLoad = world
+            .getChunkAtAsync(chunkX, chunkZ)
+            .thenApply(chunk -> {
+                chunk.addPluginChunkTicket(plugin);
+
+                return chunk;
+            });
+    }
+
+    /**
+     * Check whether the chunk is ready for modifications.
+     *
+     * <p>Failed loads count as ready, the modifications load the chunk themselves.</p>
+     *
+     * @return True if ready
+     */
+    public boolean ready() {
+        return world == null || (chunkLoad != null && chunkLoad.isDone());
+    }
+
+    /**
+     * Take up to a number of pending activities.
+     *
+     * @param max The max activities
+     * @return The activities
+     */
+    public List<Activity> take(int max) {
+        List<Activity> taken = new ArrayList<>(Math.min(max, activities.size()));
+        while (taken.size() < max && !activities.isEmpty()) {
+            taken.add(activities.poll());
+        }
+
+        return taken;
+    }
+
+    /**
+     * Get the number of pending activities.
+     *
+     * @return The number of pending activities
+     */
+    public int size() {
+        return activities.size();
+    }
+
+    /**
+     * Check whether every activity has been taken.
+     *
+     * @return True if empty
+     */
+    public boolean isEmpty() {
+        return activities.isEmpty();
+    }
+
+    /**
+     * Release the chunk ticket.
+     *
+     * @param plugin The plugin holding the chunk ticket
+     */
+    public void release(Plugin plugin) {
+        if (chunkLoad != null) {
+            chunkLoad.thenAccept(chunk -> chunk.removePluginChunkTicket(plugin));
+        }
+    }
+}
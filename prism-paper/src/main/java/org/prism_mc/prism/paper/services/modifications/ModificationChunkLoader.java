@@ -0,0 +1,225 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.prism_mc.prism.paper.services.modifications;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.bukkit.Bukkit;
+import org.prism_mc.prism.api.activities.Activity;
+import org.prism_mc.prism.api.activities.ActivityQuery;
+import org.prism_mc.prism.api.storage.ActivityChunk;
+import org.prism_mc.prism.api.storage.StorageAdapter;
+import org.prism_mc.prism.loader.services.logging.LoggingService;
+import org.prism_mc.prism.paper.PrismPaper;
+
+/**
+ * Loads the activities of a modification query in fixed-size chunks.
+ *
+ * <p>Chunks follow the modification sort order. Each chunk resumes from the timestamp of the last
+ * activity read, skipping the activities already read at that timestamp, so chunks never overlap
+ * and deep chunks cost no more than the first. The next chunk is fetched asynchronously while the
+ * current one is being applied.</p>
+ */
+public class ModificationChunkLoader {
+
+    /**
+     * The storage adapter.
+     */
+    private final StorageAdapter storageAdapter;
+
+    /**
+     * The logging service.
+     */
+    private final LoggingService loggingService;
+
+    /**
+     * The modification query.
+     */
+    private final ActivityQuery query;
+
+    /**
+     * The max activities per chunk.
+     */
+    private final int chunkSize;
+
+    /**
+     * The position of the next chunk.
+     */
+    private Position position = Position.START;
+
+    /**
+     * The chunk being fetched, if any.
+     */
+    private CompletableFuture<Chunk> pending;
+
+    /**
+     * The position to resume reading from.
+     *
+     * @param fromTimestamp The timestamp of the last activity read
+     * @param offset The number of activities already read at that timestamp
+     * @param hasMore Whether more activities may follow
+     */
+    private record Position(Long fromTimestamp, int offset, boolean hasMore) {
+        /**
+         * The position before anything has been read.
+         */
+        static final Position START = new Position(null, 0, true);
+    }
+
+    /**
+     * A loaded chunk and the position after it.
+     *
+     * @param activities The activities
+     * @param next The next position
+     */
+    private record Chunk(List<Activity> activities, Position next) {}
+
+    /**
+     * Construct a chunk loader.
+     *
+     * @param storageAdapter The storage adapter
+     * @param loggingService The logging service
+     * @param query The modification query
+     * @param chunkSize The max activities per chunk
+     */
+    public ModificationChunkLoader(
+        StorageAdapter storageAdapter,
+        LoggingService loggingService,
+        ActivityQuery query,
+        int chunkSize
+    ) {
+        this.storageAdapter = storageAdapter;
+        this.loggingService = loggingService;
+        this.query = query;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Load the next chunk on the current thread.
+     *
+     * @return The activities
+     * @throws Exception On query failure
+     */
+    public List<Activity> load() throws Exception {
+        Chunk chunk = fetch(position);
+        position = chunk.next();
+
+        return chunk.activities();
+    }
+
+    /**
+     * Start fetching the next chunk in the background, if it isn't already.
+     */
+    public void prefetch() {
+        if (pending != null || !position.hasMore()) {
+            return;
+        }
+
+        final Position from = position;
+        final CompletableFuture<Chunk> future = new CompletableFuture<>();
+        pending = future;
+
+        Bukkit.getScheduler()
+            .runTaskAsynchronously(PrismPaper.instance().loaderPlugin(), () -> {
+                try {
+                    future.complete(fetch(from));
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            });
+    }
+
+    /**
+     * Take the prefetched chunk if it's ready.
+     *
+     * <p>A failed fetch ends the stream so the queue can finish with what it has.</p>
+     *
+     * @return The activities, or null if the chunk is still loading
+     */
+    public List<Activity> poll() {
+        if (pending == null) {
+            prefetch();
+
+            return null;
+        }
+
+        if (!pending.isDone()) {
+            return null;
+        }
+
+        try {
+            Chunk chunk = pending.join();
+            position = chunk.next();
+
+            return chunk.activities();
+        } catch (Exception e) {
+            loggingService.handleException(e);
+            position = new Position(position.fromTimestamp(), position.offset(), false);
+
+            return List.of();
+        } finally {
+            pending = null;
+        }
+    }
+
+    /**
+     * Check whether more chunks may follow.
+     *
+     * @return True if there may be more activities
+     */
+    public boolean hasMore() {
+        return position.hasMore() || pending != null;
+    }
+
+    /**
+     * Start over from the first chunk.
+     */
+    public void restart() {
+        pending = null;
+        position = Position.START;
+    }
+
+    /**
+     * Fetch the chunk at a position.
+     *
+     * @param from The position
+     * @return The chunk
+     * @throws Exception On query failure
+     */
+    private Chunk fetch(Position from) throws Exception {
+        var chunkQuery = query.toBuilder().fromTimestamp(from.fromTimestamp()).offset(from.offset()).limit(chunkSize);
+
+        // Page by the rows the query read, some may not map to an activity
+        ActivityChunk chunk = storageAdapter.queryActivityChunk(chunkQuery.build());
+        if (chunk.rowCount() == 0) {
+            return new Chunk(chunk.activities(), new Position(from.fromTimestamp(), from.offset(), false));
+        }
+
+        // The rows that share the last timestamp are skipped by the next chunk
+        long lastTimestamp = chunk.lastTimestamp();
+        int offset = chunk.rowsAtLastTimestamp();
+        if (from.fromTimestamp() != null && from.fromTimestamp() == lastTimestamp) {
+            offset += from.offset();
+        }
+
+        return new Chunk(chunk.activities(), new Position(lastTimestamp, offset, chunk.rowCount() >= chunkSize));
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.prism_mc.prism.paper.services.modifications;
+
+import java.util.function.IntSupplier;
+import org.bukkit.Bukkit;
+import org.prism_mc.prism.api.services.modifications.ModificationRuleset;
+
+/**
+ * Sizes modification tasks by time rather than count.
+ *
+ * <p>Each task gets whatever is left of the target tick time given the current average
+ * tick time, and the measured cost of recent modifications decides how many fit in it.</p>
+ *
+ * <p>When several queues run at once, the time is split evenly between them.</p>
+ */
+public class ModificationTickBudget {
+
+    /**
+     * How much each new measurement moves the average modification cost.
+     */
+    private static final double SMOOTHING = 0.1;
+
+    /**
+     * The modification ruleset.
+     */
+    private final ModificationRuleset modificationRuleset;
+
+    /**
+     * Counts the queues sharing the time.
+     */
+    private IntSupplier shares = () -> 1;
+
+    /**
+     * The moving average cost of a single modification, in nanoseconds.
+     */
+    private volatile double averageCost = 50_000;
+
+    /**
+     * The total number of modifications measured.
+     */
+    private long countMeasured;
+
+    /**
+     * The total time spent applying modifications, in nanoseconds.
+     */
+    private long totalCost;
+
+    /**
+     * The number of tasks run.
+     */
+    private long countTasks;
+
+    /**
+     * When the first task ran, in nanoseconds.
+     */
+    private long startedAt;
+
+    /**
+     * Construct a tick budget.
+     *
+     * @param modificationRuleset The modification ruleset
+     */
+    public ModificationTickBudget(ModificationRuleset modificationRuleset) {
+        this.modificationRuleset = modificationRuleset;
+    }
+
+    /**
+     * Share the time with other queues.
+     *
+     * @param shares Counts the queues sharing the time
+     */
+    public void shareWith(IntSupplier shares) {
+        this.shares = shares;
+    }
+
+    /**
+     * Start a task and get the time it may spend.
+     *
+     * @return The budget in nanoseconds
+     */
+    public synchronized long startTask() {
+        if (startedAt == 0) {
+            startedAt = System.nanoTime();
+        }
+
+        countTasks++;
+
+        double available = (modificationRuleset.targetMspt() - Bukkit.getAverageTickTime()) /
+            Math.max(1, shares.getAsInt());
+        double millis = Math.clamp(available, modificationRuleset.minTickBudget(), modificationRuleset.maxTickBudget());
+
+        return (long) (millis * 1_000_000);
+    }
+
+    /**
+     * Estimate how many modifications fit in the remaining time.
+     *
+     * @param remaining The remaining time in nanoseconds
+     * @return The number of modifications, at least one
+     */
+    public int estimate(long remaining) {
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, remaining / averageCost));
+    }
+
+    /**
+     * Measure the cost of a modification.
+     *
+     * @param cost The time it took, in nanoseconds
+     */
+    public synchronized void measure(long cost) {
+        averageCost += SMOOTHING * (cost - averageCost);
+        countMeasured++;
+        totalCost += cost;
+    }
+
+    /**
+     * Get the throughput since the first task.
+     *
+     * @return Modifications per second
+     */
+    public synchronized double modificationsPerSecond() {
+        if (startedAt == 0) {
+            return 0;
+        }
+
+        double seconds = (System.nanoTime() - startedAt) / 1_000_000_000d;
+
+        return seconds > 0 ? countMeasured / seconds : 0;
+    }
+
+    /**
+     * Get the average time spent applying modifications per task.
+     *
+     * @return Milliseconds per task
+     */
+    public synchronized double millisecondsPerTask() {
+        return countTasks > 0 ? totalCost / (countTasks * 1_000_000d) : 0;
+    }
+}
@@ -25,31 +25,30 @@ import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import dev.triumphteam.cmd.core.argument.keyed.Arguments;
-import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
-import org.bukkit.Location;
-import org.bukkit.block.data.BlockData;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
+import org.bukkit.util.BoundingBox;
 import org.prism_mc.prism.api.activities.Activity;
 import org.prism_mc.prism.api.activities.ActivityQuery;
 import org.prism_mc.prism.api.services.modifications.ModificationQueue;
 import org.prism_mc.prism.api.services.modifications.ModificationQueueMode;
 import org.prism_mc.prism.api.services.modifications.ModificationQueueResult;
 import org.prism_mc.prism.api.services.modifications.ModificationQueueService;
-import org.prism_mc.prism.api.services.modifications.ModificationResult;
 import org.prism_mc.prism.api.services.modifications.ModificationRuleset;
 import org.prism_mc.prism.api.services.modifications.Previewable;
+import org.prism_mc.prism.api.storage.StorageAdapter;
 import org.prism_mc.prism.core.injection.factories.RestoreFactory;
 import org.prism_mc.prism.core.injection.factories.RollbackFactory;
 import org.prism_mc.prism.core.services.cache.CacheService;
 import org.prism_mc.prism.loader.services.configuration.ConfigurationService;
 import org.prism_mc.prism.loader.services.logging.LoggingService;
 import org.prism_mc.prism.paper.services.messages.MessageService;
-import org.prism_mc.prism.paper.services.modifications.state.BlockStateChange;
 
 @Singleton
 public class PaperModificationQueueService implements ModificationQueueService {
@@ -59,15 +58,25 @@ public class PaperModificationQueueService implements ModificationQueueService {
      */
     private final ConfigurationService configurationService;
 
+    /**
+     * The logging service.
+     */
+    private final LoggingService loggingService;
+
     /**
      * The message service.
      */
     private final MessageService messageService;
 
     /**
-     * Cache the current queue, if any.
+     * The storage adapter.
+     */
+    private final StorageAdapter storageAdapter;
+
+    /**
+     * The current queues, by owner.
      */
-    private ModificationQueue currentQueue = null;
+    private final Map<Object, ModificationQueue> queues = new ConcurrentHashMap<>();
 
     /**
      * The restore factory.
@@ -93,6 +102,7 @@ public class PaperModificationQueueService implements ModificationQueueService {
      * @param messageService The message service
      * @param restoreFactory The restore factory
      * @param rollbackFactory The rollback factory.
+     * @param storageAdapter The storage adapter
      */
     @Inject
     public PaperModificationQueueService(
@@ -101,10 +111,13 @@ public class PaperModificationQueueService implements ModificationQueueService {
         LoggingService loggingService,
         MessageService messageService,
         RestoreFactory restoreFactory,
-        RollbackFactory rollbackFactory
+        RollbackFactory rollbackFactory,
+        StorageAdapter storageAdapter
     ) {
         this.configurationService = configurationService;
+        this.loggingService = loggingService;
         this.messageService = messageService;
+        this.storageAdapter = storageAdapter;
         this.restoreFactory = restoreFactory;
         this.rollbackFactory = rollbackFactory;
 
@@ -146,14 +159,117 @@ public class PaperModificationQueueService implements ModificationQueueService {
 
     @Override
     public boolean queueAvailable() {
-        return currentQueue == null;
+        return queues.size() < configurationService.prismConfig().modifications().maxConcurrentQueues();
+    }
+
+    @Override
+    public boolean queueAvailable(Object owner, ActivityQuery query) {
+        int others = 0;
+        for (ModificationQueue queue : queues.values()) {
+            // The owner's own queue is replaced, so it never conflicts
+            if (queue.owner().equals(owner)) {
+                continue;
+            }
+
+            others++;
+
+            if (!(queue instanceof AbstractWorldModificationQueue worldQueue) || overlaps(worldQueue.query(), query)) {
+                return false;
+            }
+        }
+
+        return others < configurationService.prismConfig().modifications().maxConcurrentQueues();
+    }
+
+    /**
+     * Check whether two queries may modify the same area.
+     *
+     * <p>Queries without a world or bounds could touch anything, so they overlap everything in their scope.</p>
+     *
+     * @param first The first query
+     * @param second The second query
+     * @return True if the areas may overlap
+     */
+    protected static boolean overlaps(ActivityQuery first, ActivityQuery second) {
+        if (first.worldUuid() == null || second.worldUuid() == null) {
+            return true;
+        }
+
+        if (!first.worldUuid().equals(second.worldUuid())) {
+            return false;
+        }
+
+        BoundingBox firstBounds = bounds(first);
+        BoundingBox secondBounds = bounds(second);
+
+        return firstBounds == null || secondBounds == null || firstBounds.overlaps(secondBounds);
+    }
+
+    /**
+     * Get the blocks a query is bounded to.
+     *
+     * @param query The query
+     * @return The bounds, or null if unbounded
+     */
+    @Nullable
+    protected static BoundingBox bounds(ActivityQuery query) {
+        if (query.coordinate() != null) {
+            int x = query.coordinate().intX();
+            int y = query.coordinate().intY();
+            int z = query.coordinate().intZ();
+
+            return new BoundingBox(x, y, z, x + 1, y + 1, z + 1);
+        }
+
+        if (query.minCoordinate() == null || query.maxCoordinate() == null) {
+            return null;
+        }
+
+        // Block coordinates are inclusive, so the box covers the max block too
+        return new BoundingBox(
+            query.minCoordinate().x(),
+            query.minCoordinate().y(),
+            query.minCoordinate().z(),
+            query.maxCoordinate().x() + 1,
+            query.maxCoordinate().y() + 1,
+            query.maxCoordinate().z() + 1
+        );
+    }
+
+    /**
+     * Count the queues currently applying or previewing modifications.
+     *
+     * @return The number of running queues
+     */
+    protected int countRunning() {
+        return (int) queues
+            .values()
+            .stream()
+            .filter(queue -> queue instanceof AbstractWorldModificationQueue worldQueue && worldQueue.running())
+            .count();
+    }
+
+    /**
+     * Track a new queue.
+     *
+     * @param queue The queue
+     * @return The queue
+     */
+    protected ModificationQueue register(ModificationQueue queue) {
+        if (queue instanceof AbstractWorldModificationQueue worldQueue) {
+            worldQueue.shareBudgetWith(this::countRunning);
+        }
+
+        queues.put(queue.owner(), queue);
+
+        return queue;
     }
 
     @Override
     public boolean cancelQueueForOwner(Object owner) {
-        if (currentQueue != null && currentQueue.owner().equals(owner)) {
-            this.currentQueue.destroy();
-            this.currentQueue = null;
+        ModificationQueue queue = queues.remove(owner);
+        if (queue != null) {
+            queue.destroy();
 
             return true;
         }
@@ -188,36 +304,22 @@ public class PaperModificationQueueService implements ModificationQueueService {
         }
 
         if (owner instanceof Player player) {
-            for (
-                final Iterator<ModificationResult> iterator = queueResult.results().listIterator();
-                iterator.hasNext();
-            ) {
-                final ModificationResult result = iterator.next();
-
-                if (result.stateChange() instanceof BlockStateChange blockStateChange) {
-                    Location loc = blockStateChange.oldState().getLocation();
-                    BlockData liveBlockData = loc.getWorld().getBlockData(loc);
-                    player.sendBlockChange(loc, liveBlockData);
-                }
-
-                iterator.remove();
+            if (queueResult.queue() instanceof AbstractWorldModificationQueue queue) {
+                queue.blockPreview().revert(player);
             }
+
+            queueResult.results().clear();
         }
     }
 
-    @Nullable
     @Override
-    public ModificationQueue currentQueue() {
-        return currentQueue;
+    public List<ModificationQueue> queues() {
+        return List.copyOf(queues.values());
     }
 
     @Override
     public Optional<ModificationQueue> currentQueueForOwner(Object owner) {
-        if (currentQueue != null && currentQueue.owner().equals(owner)) {
-            return Optional.of(currentQueue);
-        }
-
-        return Optional.empty();
+        return Optional.ofNullable(queues.get(owner));
     }
 
     @Override
@@ -237,6 +339,45 @@ public class PaperModificationQueueService implements ModificationQueueService {
         throw new IllegalArgumentException("Invalid modification queue.");
     }
 
+    /**
+     * Create a new modification queue that streams the rest of its modifications.
+     *
+     * @param clazz The queue class
+     * @param modificationRuleset The ruleset
+     * @param owner The owner
+     * @param query The query
+     * @param modifications The first chunk of modifications
+     * @param chunkLoader The chunk loader positioned after the first chunk
+     * @return The queue
+     */
+    public ModificationQueue newQueue(
+        Class<? extends ModificationQueue> clazz,
+        ModificationRuleset modificationRuleset,
+        Object owner,
+        ActivityQuery query,
+        List<Activity> modifications,
+        ModificationChunkLoader chunkLoader
+    ) {
+        ModificationQueue queue = newQueue(clazz, modificationRuleset, owner, query, modifications);
+        if (queue instanceof AbstractWorldModificationQueue worldModificationQueue) {
+            worldModificationQueue.streamFrom(chunkLoader);
+        }
+
+        return queue;
+    }
+
+    /**
+     * Create a loader that reads a modification query in chunks.
+     *
+     * @param query The modification query
+     * @return The chunk loader
+     */
+    public ModificationChunkLoader newChunkLoader(ActivityQuery query) {
+        int chunkSize = configurationService.prismConfig().modifications().chunkSize();
+
+        return new ModificationChunkLoader(storageAdapter, loggingService, query, chunkSize);
+    }
+
     @Override
     public ModificationQueue newRollbackQueue(
         ModificationRuleset modificationRuleset,
@@ -244,16 +385,14 @@ public class PaperModificationQueueService implements ModificationQueueService {
         ActivityQuery query,
         List<Activity> modifications
     ) {
-        if (!queueAvailable()) {
-            throw new IllegalStateException("No queue available until current queue finished.");
+        if (!queueAvailable(owner, query)) {
+            throw new IllegalStateException("No queue available until overlapping queues finish.");
         }
 
         // Cancel any existing queues/results
         clearEverythingForOwner(owner);
 
-        this.currentQueue = rollbackFactory.create(modificationRuleset, owner, query, modifications, this::onEnd);
-
-        return this.currentQueue;
+        return register(rollbackFactory.create(modificationRuleset, owner, query, modifications, this::onEnd));
     }
 
     @Override
@@ -263,16 +402,14 @@ public class PaperModificationQueueService implements ModificationQueueService {
         ActivityQuery query,
         List<Activity> modifications
     ) {
-        if (!queueAvailable()) {
-            throw new IllegalStateException("No queue available until current queue finished.");
+        if (!queueAvailable(owner, query)) {
+            throw new IllegalStateException("No queue available until overlapping queues finish.");
         }
 
         // Cancel any existing queues/results
         clearEverythingForOwner(owner);
 
-        this.currentQueue = restoreFactory.create(modificationRuleset, owner, query, modifications, this::onEnd);
-
-        return this.currentQueue;
+        return register(restoreFactory.create(modificationRuleset, owner, query, modifications, this::onEnd));
     }
 
     /**
@@ -281,11 +418,12 @@ public class PaperModificationQueueService implements ModificationQueueService {
      * @param result Modification queue result
      */
     protected void onEnd(ModificationQueueResult result) {
-        queueResults.put(currentQueue.owner(), result);
+        Object owner = result.queue().owner();
+        queueResults.put(owner, result);
 
         if (result.mode().equals(ModificationQueueMode.COMPLETING)) {
             // Message the user with results
-            if (currentQueue.owner() instanceof CommandSender sender) {
+            if (owner instanceof CommandSender sender) {
                 messageService.modificationsAppliedSuccess(sender);
                 messageService.modificationsApplied(sender, result.applied());
                 messageService.modificationsPartial(sender, result);
@@ -309,10 +447,10 @@ public class PaperModificationQueueService implements ModificationQueueService {
             }
 
             // Clear and destroy the queue if completing
-            cancelQueueForOwner(currentQueue.owner());
+            cancelQueueForOwner(owner);
         } else if (result.mode().equals(ModificationQueueMode.PLANNING)) {
             // Message the user with results
-            if (currentQueue.owner() instanceof CommandSender sender) {
+            if (owner instanceof CommandSender sender) {
                 messageService.modificationsAppliedSuccess(sender, result.planned());
             }
         }
@@ -76,12 +76,7 @@ public class PaperRollback extends AbstractWorldModificationQueue implements Rol
     protected void onEnd(ModificationQueueResult result) {
         if (result.mode().equals(ModificationQueueMode.COMPLETING)) {
             // Get PKs of all applied activities
-            List<Long> primarykeys = result
-                .results()
-                .stream()
-                .filter(r -> r.status().equals(ModificationResultStatus.APPLIED))
-                .map(r -> (long) ((Activity) r.activity()).primaryKey())
-                .toList();
+            List<Long> primarykeys = result.results().activityIds(ModificationResultStatus.APPLIED);
 
             try {
                 storageAdapter.markReversed(primarykeys, true);
@@ -0,0 +1,342 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.prism_mc.prism.paper.services.modifications;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.bukkit.Bukkit;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.block.data.Levelled;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.util.BoundingBox;
+
+/**
+ * Finds and removes blocks of given materials inside a volume without scanning it on the main thread.
+ *
+ * <p>Chunks are loaded asynchronously and captured as snapshots, which are scanned on an async
+ * thread. Chunks whose palettes can't contain the materials, and empty sections, are skipped.
+ * Matching positions are then set to air a few milliseconds at a time on the main thread.</p>
+ */
+public class VolumeScanner {
+
+    /**
+     * How long removals may run each tick, in nanoseconds.
+     */
+    private static final long TICK_BUDGET = 5_000_000;
+
+    /**
+     * The world.
+     */
+    private final World world;
+
+    /**
+     * The bounding box.
+     */
+    private final BoundingBox boundingBox;
+
+    /**
+     * The materials to find.
+     */
+    private final Set<Material> materials;
+
+    /**
+     * Every block state of the materials, or null if they can't be listed.
+     */
+    private final List<BlockData> states;
+
+    /**
+     * Constructor.
+     *
+     * @param world The world
+     * @param boundingBox The bounding box
+     * @param materials The materials
+     */
+    public VolumeScanner(World world, BoundingBox boundingBox, Collection<Material> materials) {
+        this.world = world;
+        this.boundingBox = boundingBox;
+        this.materials = materials.isEmpty() ? EnumSet.noneOf(Material.class) : EnumSet.copyOf(materials);
+        this.states = listStates(this.materials);
+    }
+
+    /**
+     * List every block state of the materials so chunk palettes can be checked for them.
+     *
+     * <p>Only materials without properties, or with just a fluid level, are listed.</p>
+     *
+     * @param materials The materials
+     * @return The block states, or null if any material has other properties
+     */
+    private static List<BlockData> listStates(Set<Material> materials) {
+        List<BlockData> states = new ArrayList<>();
+        for (Material material : materials) {
+            if (!material.isBlock()) {
+                continue;
+            }
+
+            BlockData blockData = material.createBlockData();
+            if (blockData instanceof Levelled levelled) {
+                for (int level = 0; level <= levelled.getMaximumLevel(); level++) {
+                    Levelled state = (Levelled) levelled.clone();
+                    state.setLevel(level);
+                    states.add(state);
+                }
+            } else if (blockData.getAsString().contains("[")) {
+                return null;
+            } else {
+                states.add(blockData);
+            }
+        }
+
+        return states;
+    }
+
+    /**
+     * Find and remove all matching blocks.
+     *
+     * @param plugin The plugin
+     * @return The number of blocks removed
+     */
+    public CompletableFuture<Integer> remove(Plugin plugin) {
+        return scan(plugin).thenCompose(positions -> apply(plugin, positions));
+    }
+
+    /**
+     * Find all matching blocks.
+     *
+     * @param plugin The plugin
+     * @return The matching positions, grouped by chunk
+     */
+    public CompletableFuture<long[]> scan(Plugin plugin) {
+        if (world == null || materials.isEmpty()) {
+            return CompletableFuture.completedFuture(new long[0]);
+        }
+
+        int minChunkX = (int) Math.floor(boundingBox.getMinX()) >> 4;
+        int maxChunkX = ((int) Math.ceil(boundingBox.getMaxX()) - 1) >> 4;
+        int minChunkZ = (int) Math.floor(boundingBox.getMinZ()) >> 4;
+        int maxChunkZ = ((int) Math.ceil(boundingBox.getMaxZ()) - 1) >> 4;
+
+        List<CompletableFuture<ChunkSnapshot>> snapshots = new ArrayList<>();
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                // Chunks that were never generated can't hold anything to remove
+                snapshots.add(
+                    world
+                        .getChunkAtAsync(chunkX, chunkZ, false)
+                        .thenApply(chunk -> chunk != null ? chunk.getChunkSnapshot(false, false, false) : null)
+                );
+            }
+        }
+
+        return CompletableFuture.allOf(snapshots.toArray(new CompletableFuture[0])).thenApplyAsync(
+            v -> {
+                Positions positions = new Positions();
+                for (CompletableFuture<ChunkSnapshot> snapshot : snapshots) {
+                    scanChunk(snapshot.join(), positions);
+                }
+
+                return positions.toArray();
+            },
+            task -> Bukkit.getAsyncScheduler().runNow(plugin, t -> task.run())
+        );
+    }
+
+    /**
+     * Find matching blocks in a chunk snapshot.
+     *
+     * @param snapshot The chunk snapshot
+     * @param positions The positions to add matches to
+     */
+    private void scanChunk(ChunkSnapshot snapshot, Positions positions) {
+        if (snapshot == null || (states != null && states.stream().noneMatch(snapshot::contains))) {
+            return;
+        }
+
+        int baseX = snapshot.getX() << 4;
+        int baseZ = snapshot.getZ() << 4;
+        int minX = Math.max(baseX, (int) Math.floor(boundingBox.getMinX()));
+        int maxX = Math.min(baseX + 16, (int) Math.ceil(boundingBox.getMaxX()));
+        int minZ = Math.max(baseZ, (int) Math.floor(boundingBox.getMinZ()));
+        int maxZ = Math.min(baseZ + 16, (int) Math.ceil(boundingBox.getMaxZ()));
+        int minY = Math.max(world.getMinHeight(), (int) Math.floor(boundingBox.getMinY()));
+        int maxY = Math.min(world.getMaxHeight(), (int) Math.ceil(boundingBox.getMaxY()));
+
+        for (int sectionY = minY & ~15; sectionY < maxY; sectionY += 16) {
+            if (snapshot.isSectionEmpty((sectionY - world.getMinHeight()) >> 4)) {
+                continue;
+            }
+
+            int fromY = Math.max(minY, sectionY);
+            int toY = Math.min(maxY, sectionY + 16);
+            for (int y = fromY; y < toY; y++) {
+                for (int x = minX; x < maxX; x++) {
+                    for (int z = minZ; z < maxZ; z++) {
+                        if (materials.contains(snapshot.getBlockType(x & 15, y, z & 15))) {
+                            positions.add(x, y, z);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Set matching positions to air.
+     *
+     * @param plugin The plugin
+     * @param positions The positions, grouped by chunk
+     * @return The number of blocks removed
+     */
+    public CompletableFuture<Integer> apply(Plugin plugin, long[] positions) {
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        if (positions.length == 0) {
+            future.complete(0);
+
+            return future;
+        }
+
+        AtomicInteger removed = new AtomicInteger();
+
+        int[] next = { 0 };
+        Bukkit.getScheduler()
+            .runTaskTimer(
+                plugin,
+                task -> {
+                    long deadline = System.nanoTime() + TICK_BUDGET;
+                    while (next[0] < positions.length && System.nanoTime() < deadline) {
+                        int to = Math.min(positions.length, next[0] + 64);
+                        removeRange(positions, next[0], to, removed);
+                        next[0] = to;
+                    }
+
+                    if (next[0] >= positions.length) {
+                        task.cancel();
+                        future.complete(removed.get());
+                    }
+                },
+                0,
+                1
+            );
+
+        return future;
+    }
+
+    /**
+     * Set a range of positions to air, if they still match.
+     *
+     * @param positions The positions
+     * @param from The first index
+     * @param to The index after the last
+     * @param removed Counts the blocks removed
+     */
+    private void removeRange(long[] positions, int from, int to, AtomicInteger removed) {
+        for (int i = from; i < to; i++) {
+            long position = positions[i];
+            Block block = world.getBlockAt(Positions.x(position), Positions.y(position), Positions.z(position));
+
+            // The block may have changed since the snapshot
+            if (materials.contains(block.getType())) {
+                block.setType(Material.AIR);
+                removed.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * A growable list of block positions, each packed into a long.
+     */
+    private static class Positions {
+
+        /**
+         * The packed positions.
+         */
+        private long[] values = new long[256];
+
+        /**
+         * The number of positions.
+         */
+        private int size;
+
+        /**
+         * Add a position.
+         *
+         * @param x The x coordinate
+         * @param y The y coordinate
+         * @param z The z coordinate
+         */
+        private void add(int x, int y, int z) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+
+            values[size++] = ((x & 0x3FFFFFFL) << 38) | ((z & 0x3FFFFFFL) << 12) | (y & 0xFFFL);
+        }
+
+        /**
+         * Get the positions.
+         *
+         * @return The packed positions
+         */
+        private long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+
+        /**
+         * Unpack the x coordinate.
+         *
+         * @param position The packed position
+         * @return The x coordinate
+         */
+        private static int x(long position) {
+            return (int) (position >> 38);
+        }
+
+        /**
+         * Unpack the y coordinate.
+         *
+         * @param position The packed position
+         * @return The y coordinate
+         */
+        private static int y(long position) {
+            return (int) ((position << 52) >> 52);
+        }
+
+        /**
+         * Unpack the z coordinate.
+         *
+         * @param position The packed position
+         * @return The z coordinate
+         */
+        private static int z(long position) {
+            return (int) ((position << 26) >> 38);
+        }
+    }
+}
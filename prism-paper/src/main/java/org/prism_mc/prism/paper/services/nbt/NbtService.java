@@ -27,7 +27,6 @@ import com.google.inject.Singleton;
 import de.tr7zw.nbtapi.NBT;
 import de.tr7zw.nbtapi.iface.ReadWriteNBT;
 import de.tr7zw.nbtapi.iface.ReadableNBT;
-import java.util.function.Consumer;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.EntitySnapshot;
@@ -106,71 +105,83 @@ public class NbtService {
     }
 
     /**
-     * Trims the entity nbt by removing the defaults.
+     * Capture an entity's nbt, along with the defaults for its type.
+     *
+     * <p>Must be called on the main thread. Trimming the defaults is left to
+     * {@link #trimEntityNbt(String, ReadableNBT, ReadableNBT)}, which is safe to call elsewhere.</p>
      *
      * @param entity The entity
-     * @param consumer The consumer
+     * @return The captured nbt
      */
-    public void processEntityNbt(Entity entity, Consumer<ReadableNBT> consumer) {
+    public CapturedEntityNbt captureEntityNbt(Entity entity) {
         String key = entity.getType().getKey().getKey();
 
-        var cachedDefaultNbt = entityNbtDefaults.getIfPresent(key);
-        if (cachedDefaultNbt != null) {
-            trimEntityNbt(entity, cachedDefaultNbt, consumer);
-        } else {
+        var defaultNbt = entityNbtDefaults.getIfPresent(key);
+        if (defaultNbt == null) {
             EntitySnapshot entitySnapshot = Bukkit.getEntityFactory()
                 .createEntitySnapshot(String.format("{id:\"%s\"}", key));
 
             Entity dummyEntity = entitySnapshot.createEntity(Bukkit.getWorlds().getFirst());
-            NBT.get(dummyEntity, defaultNbt -> {
-                // Create a nbt container not attached to the entity so we can reuse it
-                ReadWriteNBT cacheNbt = NBT.createNBTObject();
-                cacheNbt.mergeCompound(defaultNbt);
 
-                // Cache the default nbt for this entity
-                entityNbtDefaults.put(key, cacheNbt);
+            // Create a nbt container not attached to the entity so we can reuse it
+            ReadWriteNBT cacheNbt = NBT.createNBTObject();
+            NBT.get(dummyEntity, cacheNbt::mergeCompound);
 
-                loggingService.debug(
-                    "Caching default entity nbt for {0}. Byte length: {1}",
-                    key,
-                    StringUtils.getUtf8Mb4Length(defaultNbt.toString())
-                );
+            // Cache the default nbt for this entity
+            entityNbtDefaults.put(key, cacheNbt);
 
-                trimEntityNbt(entity, defaultNbt, consumer);
-            });
+            loggingService.debug(
+                "Caching default entity nbt for {0}. Byte length: {1}",
+                key,
+                StringUtils.getUtf8Mb4Length(cacheNbt.toString())
+            );
+
+            defaultNbt = cacheNbt;
         }
+
+        // Copied so the entity can change or unload before it's trimmed
+        ReadWriteNBT nbt = NBT.createNBTObject();
+        NBT.get(entity, nbt::mergeCompound);
+
+        return new CapturedEntityNbt(key, nbt, defaultNbt);
     }
 
     /**
-     * Trim the entity nbt by removing the defaults.
+     * Trim captured entity nbt by removing the defaults.
      *
-     * @param entity The entity
+     * @param key The entity type key
+     * @param nbt The entity nbt
      * @param defaultNbt The default nbt values
-     * @param consumer The consumer
+     * @return The trimmed nbt
      */
-    protected void trimEntityNbt(Entity entity, ReadableNBT defaultNbt, Consumer<ReadableNBT> consumer) {
-        String key = entity.getType().getKey().getKey();
+    public ReadWriteNBT trimEntityNbt(String key, ReadableNBT nbt, ReadableNBT defaultNbt) {
+        var originalByteLength = StringUtils.getUtf8Mb4Length(nbt.toString());
 
-        NBT.get(entity, nbt -> {
-            var originalByteLength = StringUtils.getUtf8Mb4Length(nbt.toString());
+        // First, filter by extracting differences with the default
+        var filtered = nbt.extractDifference(defaultNbt);
 
-            // First, filter by extracting differences with the default
-            var filtered = nbt.extractDifference(defaultNbt);
-
-            // Next, reject stuff *we* don't want to track
-            for (String reject : entityRejectKeys) {
-                filtered.removeKey(reject);
-            }
+        // Next, reject stuff *we* don't want to track
+        for (String reject : entityRejectKeys) {
+            filtered.removeKey(reject);
+        }
 
-            consumer.accept(filtered);
+        var filteredByteLength = StringUtils.getUtf8Mb4Length(filtered.toString());
+        loggingService.debug(
+            "Filtered {0} entity nbt. Original Byte length: {1} Filtered: {2}",
+            key,
+            originalByteLength,
+            filteredByteLength
+        );
 
-            var filteredByteLength = StringUtils.getUtf8Mb4Length(filtered.toString());
-            loggingService.debug(
-                "Filtered entity nbt. Original Byte length: {1} Filtered: {2}",
-                key,
-                originalByteLength,
-                filteredByteLength
-            );
-        });
+        return filtered;
     }
+
+    /**
+     * Entity nbt captured on the main thread, waiting to be trimmed.
+     *
+     * @param key The entity type key
+     * @param nbt The entity nbt
+     * @param defaultNbt The default nbt for the entity type
+     */
+    public record CapturedEntityNbt(String key, ReadWriteNBT nbt, ReadableNBT defaultNbt) {}
 }
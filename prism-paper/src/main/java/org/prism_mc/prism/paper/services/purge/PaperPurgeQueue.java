@@ -23,10 +23,17 @@ package org.prism_mc.prism.paper.services.purge;
 import co.aikar.taskchain.TaskChain;
 import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import lombok.Getter;
 import org.prism_mc.prism.api.activities.ActivityQuery;
@@ -38,9 +45,20 @@ import org.prism_mc.prism.api.util.Pair;
 import org.prism_mc.prism.loader.services.configuration.ConfigurationService;
 import org.prism_mc.prism.loader.services.logging.LoggingService;
 import org.prism_mc.prism.paper.providers.TaskChainProvider;
+import org.prism_mc.prism.paper.services.lookup.RecentActivityIndex;
 
 public class PaperPurgeQueue implements PurgeQueue {
 
+    /**
+     * The prism meta key holding the last completed primary key of an interrupted purge.
+     */
+    private static final String CHECKPOINT_KEY = "purge_checkpoint";
+
+    /**
+     * The smallest a purge window is allowed to shrink to.
+     */
+    private static final int MIN_WINDOW_SIZE = 100;
+
     /**
      * The configuration service.
      */
@@ -66,6 +84,11 @@ public class PaperPurgeQueue implements PurgeQueue {
      */
     private final StorageAdapter storageAdapter;
 
+    /**
+     * The recent activity index.
+     */
+    private final RecentActivityIndex recentActivityIndex;
+
     /**
      * The cycle callback.
      */
@@ -81,6 +104,11 @@ public class PaperPurgeQueue implements PurgeQueue {
      */
     private final List<ActivityQuery> purgeQueue = Collections.synchronizedList(new LinkedList<>());
 
+    /**
+     * The executor running each cycle's windows in parallel.
+     */
+    private ExecutorService deleteExecutor;
+
     /**
      * The running flag.
      */
@@ -90,7 +118,12 @@ public class PaperPurgeQueue implements PurgeQueue {
     /**
      * The total deletions count.
      */
-    private int deleted = 0;
+    private long deleted = 0;
+
+    /**
+     * The primary key window size each connection deletes per cycle. Adapts to delete latency.
+     */
+    private int windowSize;
 
     /**
      * Constructor.
@@ -99,6 +132,7 @@ public class PaperPurgeQueue implements PurgeQueue {
      * @param loggingService The logging service
      * @param taskChainProvider The task chain provider
      * @param storageAdapter The storage adapter
+     * @param recentActivityIndex The recent activity index
      * @param onCycle The cycle callback
      * @param onEnd The end callback
      */
@@ -108,6 +142,7 @@ public class PaperPurgeQueue implements PurgeQueue {
         LoggingService loggingService,
         TaskChainProvider taskChainProvider,
         StorageAdapter storageAdapter,
+        RecentActivityIndex recentActivityIndex,
         @Assisted Consumer<PurgeCycleResult> onCycle,
         @Assisted Consumer<PurgeResult> onEnd
     ) {
@@ -115,6 +150,7 @@ public class PaperPurgeQueue implements PurgeQueue {
         this.loggingService = loggingService;
         this.taskChainProvider = taskChainProvider;
         this.storageAdapter = storageAdapter;
+        this.recentActivityIndex = recentActivityIndex;
         this.onCycle = onCycle;
         this.onEnd = onEnd;
     }
@@ -127,47 +163,110 @@ public class PaperPurgeQueue implements PurgeQueue {
     @Override
     public void start() {
         running = true;
+        windowSize = Math.max(MIN_WINDOW_SIZE, configurationService.prismConfig().purges().limit());
 
-        taskChain = taskChainProvider
-            .newChain()
-            .asyncFirst(() -> {
-                Pair<Integer, Integer> keys = storageAdapter.getActivitiesPkBounds(purgeQueue.getFirst());
-
-                loggingService.debug("Absolute purge lower/bound primary keys: {0}, {1}", keys.key(), keys.value());
+        var threadCount = new AtomicInteger();
+        deleteExecutor = Executors.newFixedThreadPool(parallelism(), runnable -> {
+            var thread = new Thread(runnable, "prism-purge-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
 
-                return keys;
-            })
-            .syncLast(keys -> executeNext(keys.key(), keys.value()));
+            return thread;
+        });
 
-        taskChain.execute();
+        startNextQuery();
     }
 
     @Override
     public void stop() {
         running = false;
         taskChain = null;
+
+        if (deleteExecutor != null) {
+            deleteExecutor.shutdown();
+        }
     }
 
     /**
-     * Execute the next purge query or cycle.
+     * Begin purging the query at the head of the queue.
      *
-     * @param cycleMinPrimaryKey The minimum primary key for this cycle
-     * @param maxPrimaryKey The absolute upper bound primary key
+     * <p>Whole partitions are dropped first, then the primary key bounds are read so
+     * row deletes only have to cover what's left. A purge interrupted part-way through
+     * resumes from its last checkpoint.</p>
      */
-    protected void executeNext(int cycleMinPrimaryKey, int maxPrimaryKey) {
+    protected void startNextQuery() {
         if (!running) {
             return;
         }
 
         if (purgeQueue.isEmpty()) {
-            running = false;
+            finish();
 
-            loggingService.info("Purge queue now empty, finishing.");
+            return;
+        }
 
-            onEnd.accept(PurgeResult.builder().deleted(deleted).build());
+        ActivityQuery query = purgeQueue.getFirst();
 
-            taskChain = null;
+        // Lookups read anything this may purge from storage instead of memory
+        recentActivityIndex.invalidate(query);
 
+        taskChain = taskChainProvider
+            .newChain()
+            .asyncFirst(() -> {
+                try {
+                    long dropped = storageAdapter.dropActivityPartitions(query);
+                    if (dropped > 0) {
+                        deleted += dropped;
+
+                        onCycle.accept(PurgeCycleResult.builder().deleted(dropped).windowSize(windowSize).build());
+                        loggingService.info("Purged {0} activity records by dropping partitions", dropped);
+                    }
+
+                    Pair<Integer, Integer> keys = storageAdapter.getActivitiesPkBounds(query);
+                    loggingService.debug(
+                        "Absolute purge lower/bound primary keys: {0}, {1}",
+                        keys.key(),
+                        keys.value()
+                    );
+
+                    // A checkpoint outside the current bounds was left by some other purge
+                    int minPrimaryKey = keys.key();
+                    var checkpoint = checkpoint(query);
+                    if (checkpoint != null && checkpoint >= minPrimaryKey && checkpoint < keys.value()) {
+                        minPrimaryKey = checkpoint + 1;
+
+                        loggingService.info("Resuming interrupted purge after primary key {0}", checkpoint);
+                    }
+
+                    return new Pair<>(minPrimaryKey, keys.value());
+                } catch (Exception e) {
+                    loggingService.handleException(e);
+
+                    return null;
+                }
+            })
+            .syncLast(keys -> {
+                if (keys == null) {
+                    finish();
+                } else {
+                    executeNext(query, keys.key(), keys.value());
+                }
+            });
+
+        taskChain.execute();
+    }
+
+    /**
+     * Execute the next purge cycle.
+     *
+     * <p>Each cycle deletes one window per connection in parallel, then resizes the
+     * window so a delete takes about as long as the configured target.</p>
+     *
+     * @param query The query being purged
+     * @param cycleMinPrimaryKey The minimum primary key for this cycle
+     * @param maxPrimaryKey The absolute upper bound primary key
+     */
+    protected void executeNext(ActivityQuery query, int cycleMinPrimaryKey, int maxPrimaryKey) {
+        if (!running) {
             return;
         }
 
@@ -187,59 +286,197 @@ public class PaperPurgeQueue implements PurgeQueue {
             cycleTimeUnit = TimeUnit.SECONDS;
         }
 
-        // Get the query
-        ActivityQuery query = purgeQueue.get(0);
         taskChainProvider
             .newChain()
             .asyncFirst(() -> {
                 loggingService.info("Executing next purge for query {0}...", query);
 
-                /*
-                 * Calculate the cycle upper bound.
-                 * If it exceeds the max primary key, use that instead so we're not including keys incorrectly.
-                 * Otherwise, subtract one so each cycle's max key can be each subsequent cycle's min key.
-                 */
-                int cycleMaxPrimaryKey = Math.min(
-                    cycleMinPrimaryKey + configurationService.prismConfig().purges().limit() - 1,
-                    maxPrimaryKey
-                );
+                // Split the next stretch of primary keys into one window per connection
+                List<Pair<Integer, Integer>> windows = new ArrayList<>();
+                long nextMinPrimaryKey = cycleMinPrimaryKey;
+                while (windows.size() < parallelism() && nextMinPrimaryKey <= maxPrimaryKey) {
+                    int windowMax = (int) Math.min(nextMinPrimaryKey + windowSize - 1, maxPrimaryKey);
+                    windows.add(new Pair<>((int) nextMinPrimaryKey, windowMax));
+                    nextMinPrimaryKey = (long) windowMax + 1;
+                }
+
+                int cycleMaxPrimaryKey = (int) nextMinPrimaryKey - 1;
                 loggingService.debug(
-                    "Limiting cycle to primary keys {0} - {1}",
+                    "Limiting cycle to primary keys {0} - {1} across {2} windows",
                     cycleMinPrimaryKey,
-                    cycleMaxPrimaryKey
+                    cycleMaxPrimaryKey,
+                    windows.size()
                 );
 
-                // Delete this batch and store the count
-                int count = storageAdapter.deleteActivities(query, cycleMinPrimaryKey, cycleMaxPrimaryKey);
+                // Delete every window in parallel, timing each one
+                long cycleStart = System.nanoTime();
+                List<CompletableFuture<long[]>> futures = windows
+                    .stream()
+                    .map(window ->
+                        CompletableFuture.supplyAsync(
+                            () -> {
+                                long start = System.nanoTime();
+                                int count = storageAdapter.deleteActivities(query, window.key(), window.value());
+
+                                return new long[] { count, System.nanoTime() - start };
+                            },
+                            deleteExecutor
+                        )
+                    )
+                    .toList();
+
+                long count = 0;
+                long slowestNanos = 0;
+                try {
+                    for (var future : futures) {
+                        var result = future.join();
+                        count += result[0];
+                        slowestNanos = Math.max(slowestNanos, result[1]);
+                    }
+                } catch (Exception e) {
+                    loggingService.handleException(e);
+
+                    // Keep the checkpoint so the purge can resume from here
+                    return null;
+                }
+
+                long cycleNanos = Math.max(1, System.nanoTime() - cycleStart);
                 deleted += count;
 
+                adaptWindowSize(slowestNanos);
+
+                // Every window below here is done, so an interrupted purge can pick up after it
+                boolean complete = nextMinPrimaryKey > maxPrimaryKey;
+                saveCheckpoint(query, complete ? null : cycleMaxPrimaryKey);
+
                 // Emit information to the cycle callback
                 onCycle.accept(
                     PurgeCycleResult.builder()
                         .deleted(count)
                         .minPrimaryKey(cycleMinPrimaryKey)
                         .maxPrimaryKey(cycleMaxPrimaryKey)
+                        .rowsPerSecond(count / (cycleNanos / 1_000_000_000d))
+                        .windowSize(windowSize)
                         .build()
                 );
                 loggingService.info("Purged {0} activity records", count);
 
-                // Advance our starting pk for the next cycle
-                int nextCycleMinPrimaryKey = cycleMinPrimaryKey + configurationService.prismConfig().purges().limit();
+                // Move on to the next query once this one has covered its bounds
+                if (complete) {
+                    purgeQueue.remove(query);
 
-                // If we deleted less than our limit, or our next pk exceeds the max,
-                // remove this query from the queue
-                if (nextCycleMinPrimaryKey >= maxPrimaryKey) {
-                    purgeQueue.remove(0);
+                    return Integer.MIN_VALUE;
                 }
 
                 loggingService.info("Scheduling next cycle (and any configured delay)");
 
-                return nextCycleMinPrimaryKey;
+                return (int) nextMinPrimaryKey;
             })
             .delay(cycleDuration.intValue(), cycleTimeUnit)
             .syncLast(nextCycleMinPrimaryKey -> {
-                this.executeNext(nextCycleMinPrimaryKey, maxPrimaryKey);
+                if (nextCycleMinPrimaryKey == null) {
+                    finish();
+                } else if (nextCycleMinPrimaryKey == Integer.MIN_VALUE) {
+                    startNextQuery();
+                } else {
+                    executeNext(query, nextCycleMinPrimaryKey, maxPrimaryKey);
+                }
             })
             .execute();
     }
+
+    /**
+     * Finish the purge and emit the result.
+     */
+    protected void finish() {
+        if (!running) {
+            return;
+        }
+
+        stop();
+
+        if (purgeQueue.isEmpty()) {
+            loggingService.info("Purge queue now empty, finishing.");
+        }
+
+        onEnd.accept(PurgeResult.builder().deleted(deleted).build());
+    }
+
+    /**
+     * Grow or shrink the window so the slowest delete takes about the target time.
+     *
+     * @param slowestNanos The slowest window's delete time
+     */
+    private void adaptWindowSize(long slowestNanos) {
+        var purges = configurationService.prismConfig().purges();
+        if (purges.targetBatchTime() <= 0) {
+            return;
+        }
+
+        // Limit each step to halving/doubling so one odd cycle can't swing the size too far
+        double ratio = (purges.targetBatchTime() * 1_000_000d) / Math.max(1, slowestNanos);
+        ratio = Math.max(0.5, Math.min(2, ratio));
+
+        int maxWindowSize = Math.max(MIN_WINDOW_SIZE, purges.maxLimit());
+        windowSize = (int) Math.max(MIN_WINDOW_SIZE, Math.min(maxWindowSize, windowSize * ratio));
+    }
+
+    /**
+     * Get how many windows to delete at once.
+     *
+     * @return The parallelism
+     */
+    private int parallelism() {
+        return Math.max(1, configurationService.prismConfig().purges().parallelism());
+    }
+
+    /**
+     * Read the checkpoint left by an interrupted purge of the same query.
+     *
+     * @param query The query
+     * @return The last completed primary key, or null
+     */
+    private Integer checkpoint(ActivityQuery query) {
+        var value = storageAdapter.getMeta(CHECKPOINT_KEY);
+        if (value == null) {
+            return null;
+        }
+
+        var parts = value.split(":", 2);
+        if (parts.length != 2 || !parts[0].equals(checkpointId(query))) {
+            return null;
+        }
+
+        return Integer.parseInt(parts[1]);
+    }
+
+    /**
+     * Persist (or clear) the checkpoint for a query.
+     *
+     * @param query The query
+     * @param primaryKey The last completed primary key, or null to clear
+     */
+    private void saveCheckpoint(ActivityQuery query, Integer primaryKey) {
+        try {
+            storageAdapter.setMeta(CHECKPOINT_KEY, primaryKey != null ? checkpointId(query) + ":" + primaryKey : null);
+        } catch (Exception e) {
+            loggingService.handleException(e);
+        }
+    }
+
+    /**
+     * Identify a query for checkpoints.
+     *
+     * <p>The time range is part of the id, so purges of different ranges never share a
+     * checkpoint. A re-run of a relative range won't resume, but its lower primary key
+     * bound already starts after whatever the interrupted run deleted.</p>
+     *
+     * @param query The query
+     * @return The checkpoint id
+     */
+    private String checkpointId(ActivityQuery query) {
+        var filters = query.toString();
+
+        return UUID.nameUUIDFromBytes(filters.getBytes(StandardCharsets.UTF_8)).toString();
+    }
 }
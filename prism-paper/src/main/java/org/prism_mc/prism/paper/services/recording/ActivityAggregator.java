@@ -0,0 +1,315 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.prism_mc.prism.paper.services.recording;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.inventory.ItemStack;
+import org.prism_mc.prism.api.activities.Activity;
+import org.prism_mc.prism.api.containers.Container;
+import org.prism_mc.prism.api.containers.IdentityContainer;
+import org.prism_mc.prism.paper.actions.PaperBlockAction;
+import org.prism_mc.prism.paper.actions.PaperItemStackAction;
+import org.prism_mc.prism.paper.api.activities.PaperActivity;
+import org.prism_mc.prism.paper.api.containers.PaperBlockContainer;
+import org.prism_mc.prism.paper.api.containers.PaperEntityContainer;
+
+/**
+ * Coalesces repeated, identical activities within a per-action window.
+ *
+ * <p>Activities match when their action, block location, cause, and item or block change are the
+ * same. Matching item activities are merged into a single activity with their quantities summed,
+ * up to a full stack so that rollbacks can still restore them. Matching block activities are
+ * recorded once, since repeating the same change leaves nothing else to roll back. The merged
+ * activity keeps the timestamp of the first occurrence.</p>
+ */
+public class ActivityAggregator {
+
+    /**
+     * The aggregation windows (in milliseconds) by action key.
+     */
+    private final Map<String, Long> windows = new HashMap<>();
+
+    /**
+     * Receives activities once their window closes.
+     */
+    private final Consumer<Activity> sink;
+
+    /**
+     * The activities still inside their window.
+     */
+    private final Map<Key, Pending> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Construct the aggregator.
+     *
+     * @param windows The aggregation windows (in milliseconds) by action key
+     * @param sink Receives activities once their window closes
+     */
+    public ActivityAggregator(Map<String, Integer> windows, Consumer<Activity> sink) {
+        this.sink = sink;
+
+        windows.forEach((actionKey, window) -> {
+            if (window != null && window > 0) {
+                this.windows.put(actionKey, (long) window);
+            }
+        });
+    }
+
+    /**
+     * Whether any action is aggregated.
+     *
+     * @return True if any action has a window
+     */
+    public boolean enabled() {
+        return !windows.isEmpty();
+    }
+
+    /**
+     * Offer an activity for aggregation.
+     *
+     * @param activity The activity
+     * @return True if the activity was taken, false if it should be queued as-is
+     */
+    public boolean offer(Activity activity) {
+        Long window = windows.get(activity.action().type().key());
+        if (window == null) {
+            return false;
+        }
+
+        Key key = key(activity);
+        if (key == null) {
+            return false;
+        }
+
+        Activity[] closed = new Activity[1];
+        pending.compute(key, (k, current) -> {
+            if (current != null && current.merge(activity)) {
+                return current;
+            }
+
+            // Either nothing is pending or the pending activity can't hold any more
+            if (current != null) {
+                closed[0] = current.toActivity();
+            }
+
+            return new Pending(activity, activity.timestamp() + window);
+        });
+
+        if (closed[0] != null) {
+            sink.accept(closed[0]);
+        }
+
+        return true;
+    }
+
+    /**
+     * Send any activities whose window has closed.
+     */
+    public void flushExpired() {
+        long now = System.currentTimeMillis();
+        pending.forEach((key, current) -> {
+            if (current.deadline <= now && pending.remove(key, current)) {
+                sink.accept(current.toActivity());
+            }
+        });
+    }
+
+    /**
+     * Send all pending activities, regardless of their window.
+     */
+    public void flushAll() {
+        pending.forEach((key, current) -> {
+            if (pending.remove(key, current)) {
+                sink.accept(current.toActivity());
+            }
+        });
+    }
+
+    /**
+     * Build the aggregation key for an activity.
+     *
+     * @param activity The activity
+     * @return The key, or null if the activity can't be aggregated
+     */
+    private static Key key(Activity activity) {
+        if (activity.world() == null || activity.coordinate() == null || activity.cause() == null) {
+            return null;
+        }
+
+        Object subject;
+        if (activity.action() instanceof PaperItemStackAction itemStackAction) {
+            subject = itemStackAction.material();
+        } else if (activity.action() instanceof PaperBlockAction blockAction && blockAction.blockContainer() != null) {
+            // Keyed on the whole change, so a flow that replaces something else isn't merged away
+            var replaced = blockAction.replacedBlockContainer();
+            subject = new BlockChange(
+                blockAction.blockContainer().blockData(),
+                replaced != null ? replaced.blockData() : null
+            );
+        } else {
+            return null;
+        }
+
+        var coordinate = activity.coordinate();
+
+        return new Key(
+            activity.action().type().key(),
+            activity.worldUuid(),
+            coordinate.intX(),
+            coordinate.intY(),
+            coordinate.intZ(),
+            causeKey(activity.cause().container()),
+            subject
+        );
+    }
+
+    /**
+     * Get a comparable value for a cause container.
+     *
+     * @param container The container
+     * @return The value
+     */
+    private static Object causeKey(Container container) {
+        if (container instanceof PaperBlockContainer blockContainer) {
+            return blockContainer.blockData();
+        } else if (container instanceof PaperEntityContainer entityContainer) {
+            return entityContainer.entityType();
+        } else if (container instanceof IdentityContainer identityContainer) {
+            return identityContainer.uuid();
+        }
+
+        // String containers compare by value, anything else only matches itself
+        return container;
+    }
+
+    /**
+     * A block change.
+     *
+     * @param blockData The new block data
+     * @param replacedBlockData The replaced block data, if any
+     */
+    private record BlockChange(BlockData blockData, BlockData replacedBlockData) {}
+
+    /**
+     * The aggregation key.
+     *
+     * @param actionKey The action key
+     * @param world The world uuid
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @param z The z coordinate
+     * @param cause The cause
+     * @param subject The item material or block change
+     */
+    private record Key(String actionKey, UUID world, int x, int y, int z, Object cause, Object subject) {}
+
+    /**
+     * An activity still inside its window.
+     */
+    private static class Pending {
+
+        /**
+         * The first activity.
+         */
+        private final Activity first;
+
+        /**
+         * When the window closes.
+         */
+        private final long deadline;
+
+        /**
+         * The summed item quantity, if an item activity.
+         */
+        private int quantity;
+
+        /**
+         * Construct a pending activity.
+         *
+         * @param first The first activity
+         * @param deadline When the window closes
+         */
+        private Pending(Activity first, long deadline) {
+            this.first = first;
+            this.deadline = deadline;
+
+            if (first.action() instanceof PaperItemStackAction itemStackAction) {
+                this.quantity = itemStackAction.quantity();
+            }
+        }
+
+        /**
+         * Merge a matching activity into this one.
+         *
+         * @param activity The activity
+         * @return False if it can't be merged and this should be closed
+         */
+        private boolean merge(Activity activity) {
+            if (activity.timestamp() > deadline) {
+                return false;
+            }
+
+            if (
+                first.action() instanceof PaperItemStackAction firstAction &&
+                activity.action() instanceof PaperItemStackAction itemStackAction
+            ) {
+                ItemStack itemStack = firstAction.itemStack();
+                int merged = quantity + itemStackAction.quantity();
+                if (merged > itemStack.getMaxStackSize() || !itemStack.isSimilar(itemStackAction.itemStack())) {
+                    return false;
+                }
+
+                quantity = merged;
+            }
+
+            return true;
+        }
+
+        /**
+         * Build the activity to record.
+         *
+         * @return The activity
+         */
+        private Activity toActivity() {
+            if (
+                !(first.action() instanceof PaperItemStackAction itemStackAction) ||
+                quantity == itemStackAction.quantity()
+            ) {
+                return first;
+            }
+
+            ItemStack itemStack = itemStackAction.itemStack().clone();
+            itemStack.setAmount(quantity);
+
+            return PaperActivity.builder()
+                .action(new PaperItemStackAction(itemStackAction.type(), itemStack))
+                .world(first.world())
+                .coordinate(first.coordinate())
+                .cause(first.cause())
+                .timestamp(first.timestamp())
+                .build();
+        }
+    }
+}
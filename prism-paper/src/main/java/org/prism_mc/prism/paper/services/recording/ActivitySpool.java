@@ -0,0 +1,571 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.prism_mc.prism.paper.services.recording;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import lombok.Getter;
+
+/**
+ * An append-only, memory-mapped spool of serialized activities.
+ *
+ * <p>The spool is split into segment files named after the global position of their first byte.
+ * Each record is stored as its length, a CRC32C checksum, and the payload. Readers take records
+ * from the committed position and only move it forward once they've been written to the database,
+ * so anything not committed is replayed after a restart.</p>
+ */
+public class ActivitySpool implements Closeable {
+
+    /**
+     * The size of a record header (length and checksum).
+     */
+    private static final int HEADER_SIZE = 8;
+
+    /**
+     * The length written when the rest of a segment is unused.
+     */
+    private static final int END_OF_SEGMENT = -1;
+
+    /**
+     * The segment file extension.
+     */
+    private static final String SEGMENT_EXTENSION = ".spool";
+
+    /**
+     * The spool directory.
+     */
+    private final Path directory;
+
+    /**
+     * The size of new segments.
+     */
+    private final int segmentSize;
+
+    /**
+     * The open segments, keyed by their base position.
+     */
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+
+    /**
+     * The checkpoint file channel.
+     */
+    private final FileChannel checkpointChannel;
+
+    /**
+     * The lock held by the single reader between reading and committing.
+     */
+    private final ReentrantLock readLock = new ReentrantLock();
+
+    /**
+     * The segment currently written to.
+     */
+    private volatile Segment writeSegment;
+
+    /**
+     * The position after the last fully written record.
+     */
+    private volatile long writePosition;
+
+    /**
+     * The position of the first record not yet committed to the database.
+     */
+    private volatile long committedPosition;
+
+    /**
+     * Whether the spool has been closed.
+     */
+    private volatile boolean closed = false;
+
+    /**
+     * A spooled segment file.
+     *
+     * @param base The global position of the first byte
+     * @param path The file path
+     * @param buffer The mapped buffer
+     */
+    private record Segment(long base, Path path, MappedByteBuffer buffer) {
+        /**
+         * Get the capacity.
+         *
+         * @return The capacity
+         */
+        int capacity() {
+            return buffer.capacity();
+        }
+
+        /**
+         * Get the global position after the last byte.
+         *
+         * @return The end position
+         */
+        long end() {
+            return base + buffer.capacity();
+        }
+    }
+
+    /**
+     * Records read from the spool but not yet committed.
+     */
+    public static final class SpoolBatch {
+
+        /**
+         * The record payloads.
+         */
+        @Getter
+        private final List<byte[]> payloads;
+
+        /**
+         * The position to commit once the records are stored.
+         */
+        @Getter
+        private final long endPosition;
+
+        /**
+         * Whether the batch has been committed or released, so the reader lock is only unlocked once.
+         */
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        /**
+         * Construct a spool batch.
+         *
+         * @param payloads The record payloads
+         * @param endPosition The position to commit once the records are stored
+         */
+        private SpoolBatch(List<byte[]> payloads, long endPosition) {
+            this.payloads = payloads;
+            this.endPosition = endPosition;
+        }
+    }
+
+    /**
+     * Open (or create) a spool and recover its read and write positions.
+     *
+     * @param directory The spool directory
+     * @param segmentSize The size of new segments in bytes
+     * @throws IOException On failure to read or map the spool files
+     */
+    public ActivitySpool(Path directory, int segmentSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+
+        Files.createDirectories(directory);
+
+        checkpointChannel = FileChannel.open(
+            directory.resolve("checkpoint"),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE
+        );
+
+        Map<Long, Path> existing = new TreeMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : files.toList()) {
+                String fileName = path.getFileName().toString();
+                if (fileName.endsWith(SEGMENT_EXTENSION)) {
+                    try {
+                        existing.put(Long.parseLong(fileName.replace(SEGMENT_EXTENSION, "")), path);
+                    } catch (NumberFormatException e) {
+                        // Not one of ours
+                    }
+                }
+            }
+        }
+
+        long checkpoint = readCheckpoint();
+
+        for (var entry : existing.entrySet()) {
+            long size = Files.size(entry.getValue());
+            if (entry.getKey() + size <= checkpoint) {
+                Files.deleteIfExists(entry.getValue());
+            } else {
+                segments.put(entry.getKey(), map(entry.getKey(), entry.getValue(), size));
+            }
+        }
+
+        if (segments.isEmpty()) {
+            committedPosition = checkpoint;
+            writeSegment = createSegment(checkpoint, segmentSize);
+            writePosition = checkpoint;
+        } else {
+            committedPosition = Math.max(checkpoint, segments.firstKey());
+            writeSegment = segments.lastEntry().getValue();
+            writePosition = recoverWritePosition(writeSegment, Math.max(committedPosition, writeSegment.base()));
+        }
+    }
+
+    /**
+     * Append a record.
+     *
+     * @param payload The payload
+     * @throws IOException On failure to create a new segment
+     */
+    public synchronized void append(byte[] payload) throws IOException {
+        ensureOpen();
+        write(payload);
+    }
+
+    /**
+     * Append several records under a single lock, stopping at the first one that can't be written.
+     *
+     * @param payloads The payloads
+     * @return The number of leading payloads appended
+     * @throws IOException If not even the first payload could be appended
+     */
+    public synchronized int appendAll(List<byte[]> payloads) throws IOException {
+        ensureOpen();
+
+        int appended = 0;
+        for (byte[] payload : payloads) {
+            try {
+                write(payload);
+            } catch (IOException e) {
+                // What's appended stays appended, the next append reports the failure again
+                if (appended == 0) {
+                    throw e;
+                }
+
+                break;
+            }
+
+            appended++;
+        }
+
+        return appended;
+    }
+
+    /**
+     * Write a record at the write position, moving to a new segment when it doesn't fit.
+     *
+     * @param payload The payload
+     * @throws IOException On failure to create a new segment
+     */
+    private void write(byte[] payload) throws IOException {
+        int recordSize = HEADER_SIZE + payload.length;
+        int offset = (int) (writePosition - writeSegment.base());
+
+        if (offset + recordSize > writeSegment.capacity()) {
+            if (offset + 4 <= writeSegment.capacity()) {
+                writeSegment.buffer().putInt(offset, END_OF_SEGMENT);
+            }
+
+            writeSegment.buffer().force();
+            writeSegment = createSegment(writeSegment.end(), Math.max(segmentSize, recordSize));
+            offset = 0;
+        }
+
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+
+        // The length goes last so a torn write never looks like a complete record
+        ByteBuffer buffer = writeSegment.buffer();
+        buffer.put(offset + HEADER_SIZE, payload);
+        buffer.putInt(offset + 4, (int) crc.getValue());
+        buffer.putInt(offset, payload.length);
+
+        writePosition = writeSegment.base() + offset + recordSize;
+    }
+
+    /**
+     * Read uncommitted records, starting at the committed position.
+     *
+     * <p>Only one reader may hold records at a time. The returned batch must be passed
+     * to either {@link #commit(SpoolBatch)} or {@link #release(SpoolBatch)}.</p>
+     *
+     * @param limit The max number of records
+     * @return The batch, or null if the spool is empty or another reader holds it
+     * @throws IOException If the spool is closed
+     */
+    public SpoolBatch read(int limit) throws IOException {
+        ensureOpen();
+
+        if (limit <= 0 || committedPosition >= writePosition || !readLock.tryLock()) {
+            return null;
+        }
+
+        List<byte[]> payloads = new ArrayList<>();
+        long position = committedPosition;
+        long end = writePosition;
+
+        while (position < end && payloads.size() < limit) {
+            var entry = segments.floorEntry(position);
+            if (entry == null) {
+                Long next = segments.ceilingKey(position);
+                if (next == null) {
+                    break;
+                }
+
+                position = next;
+                continue;
+            }
+
+            Segment segment = entry.getValue();
+            int offset = (int) (position - segment.base());
+            if (offset + HEADER_SIZE > segment.capacity()) {
+                position = segment.end();
+                continue;
+            }
+
+            ByteBuffer buffer = segment.buffer();
+            int length = buffer.getInt(offset);
+            if (length <= 0 || offset + HEADER_SIZE + length > segment.capacity()) {
+                position = segment.end();
+                continue;
+            }
+
+            byte[] payload = new byte[length];
+            buffer.get(offset + HEADER_SIZE, payload);
+            position += HEADER_SIZE + length;
+
+            CRC32C crc = new CRC32C();
+            crc.update(payload);
+            if ((int) crc.getValue() == buffer.getInt(offset + 4)) {
+                payloads.add(payload);
+            }
+        }
+
+        if (payloads.isEmpty() && position == committedPosition) {
+            readLock.unlock();
+
+            return null;
+        }
+
+        return new SpoolBatch(payloads, position);
+    }
+
+    /**
+     * Mark a batch as stored, releasing the reader lock and removing consumed segments.
+     *
+     * <p>Does nothing if the batch was already committed or released.</p>
+     *
+     * @param batch The batch
+     * @throws IOException On failure to write the checkpoint
+     */
+    public void commit(SpoolBatch batch) throws IOException {
+        if (!batch.released.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            ensureOpen();
+
+            writeCheckpoint(batch.endPosition());
+            committedPosition = batch.endPosition();
+
+            for (Segment segment : segments.headMap(committedPosition, true).values()) {
+                if (segment.end() <= committedPosition && segment != writeSegment) {
+                    segments.remove(segment.base());
+
+                    try {
+                        Files.deleteIfExists(segment.path());
+                    } catch (IOException e) {
+                        // Still mapped on some platforms, removed after the next restart
+                    }
+                }
+            }
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Release a batch without committing it, so its records are read again.
+     *
+     * <p>Does nothing if the batch was already committed or released.</p>
+     *
+     * @param batch The batch
+     */
+    public void release(SpoolBatch batch) {
+        if (batch.released.compareAndSet(false, true)) {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Check whether every record has been committed.
+     *
+     * @return True if nothing is waiting to be read
+     */
+    public boolean isEmpty() {
+        return committedPosition >= writePosition;
+    }
+
+    /**
+     * Get the number of bytes waiting to be read.
+     *
+     * @return The pending bytes
+     */
+    public long pendingBytes() {
+        return Math.max(0, writePosition - committedPosition);
+    }
+
+    /**
+     * Force written records to disk.
+     */
+    public synchronized void flush() {
+        if (!closed) {
+            writeSegment.buffer().force();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        flush();
+        closed = true;
+        checkpointChannel.close();
+    }
+
+    /**
+     * Throw if the spool has been closed.
+     *
+     * @throws IOException If closed
+     */
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("The activity spool is closed.");
+        }
+    }
+
+    /**
+     * Create and map a new segment.
+     *
+     * @param base The base position
+     * @param capacity The capacity
+     * @return The segment
+     * @throws IOException On failure to map the file
+     */
+    private Segment createSegment(long base, int capacity) throws IOException {
+        Path path = directory.resolve(String.format("%020d%s", base, SEGMENT_EXTENSION));
+        Segment segment = map(base, path, capacity);
+        segments.put(base, segment);
+
+        return segment;
+    }
+
+    /**
+     * Map a segment file.
+     *
+     * @param base The base position
+     * @param path The file path
+     * @param capacity The capacity
+     * @return The segment
+     * @throws IOException On failure to map the file
+     */
+    private Segment map(long base, Path path, long capacity) throws IOException {
+        try (
+            FileChannel channel = FileChannel.open(
+                path,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+            )
+        ) {
+            return new Segment(base, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity));
+        }
+    }
+
+    /**
+     * Find the end of the last valid record in a segment.
+     *
+     * @param segment The segment
+     * @param from The position to start scanning at
+     * @return The write position
+     */
+    private long recoverWritePosition(Segment segment, long from) {
+        ByteBuffer buffer = segment.buffer();
+        int offset = (int) (from - segment.base());
+
+        while (offset + HEADER_SIZE <= segment.capacity()) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || offset + HEADER_SIZE + length > segment.capacity()) {
+                break;
+            }
+
+            byte[] payload = new byte[length];
+            buffer.get(offset + HEADER_SIZE, payload);
+
+            CRC32C crc = new CRC32C();
+            crc.update(payload);
+            if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                break;
+            }
+
+            offset += HEADER_SIZE + length;
+        }
+
+        // Clear any torn record so it can't be mistaken for data later
+        if (offset + 4 <= segment.capacity()) {
+            buffer.putInt(offset, 0);
+        }
+
+        return segment.base() + offset;
+    }
+
+    /**
+     * Read the committed position from the checkpoint file.
+     *
+     * @return The committed position, or zero if missing or invalid
+     * @throws IOException On failure to read the file
+     */
+    private long readCheckpoint() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        if (checkpointChannel.read(buffer, 0) < 16) {
+            return 0;
+        }
+
+        buffer.flip();
+        long position = buffer.getLong();
+
+        return buffer.getLong() == ~position ? position : 0;
+    }
+
+    /**
+     * Write the committed position to the checkpoint file.
+     *
+     * @param position The committed position
+     * @throws IOException On failure to write the file
+     */
+    private void writeCheckpoint(long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        buffer.putLong(position).putLong(~position).flip();
+
+        checkpointChannel.write(buffer, 0);
+        checkpointChannel.force(false);
+    }
+}
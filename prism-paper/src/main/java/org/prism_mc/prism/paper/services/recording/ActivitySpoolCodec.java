@@ -0,0 +1,401 @@
+/*
+ * prism
+ *
+ * Copyright (c) 2022 M Botsko (viveleroi)
+ *                    Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.prism_mc.prism.paper.services.recording;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.UUID;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.EntityType;
+import org.prism_mc.prism.api.actions.ActionData;
+import org.prism_mc.prism.api.actions.BlockAction;
+import org.prism_mc.prism.api.actions.CustomData;
+import org.prism_mc.prism.api.actions.EntityAction;
+import org.prism_mc.prism.api.actions.ItemAction;
+import org.prism_mc.prism.api.actions.MaterialAction;
+import org.prism_mc.prism.api.actions.PlayerAction;
+import org.prism_mc.prism.api.actions.types.ActionTypeRegistry;
+import org.prism_mc.prism.api.activities.Activity;
+import org.prism_mc.prism.api.activities.Cause;
+import org.prism_mc.prism.api.containers.BlockContainer;
+import org.prism_mc.prism.api.containers.Container;
+import org.prism_mc.prism.api.containers.EntityContainer;
+import org.prism_mc.prism.api.containers.PlayerContainer;
+import org.prism_mc.prism.api.containers.StringContainer;
+import org.prism_mc.prism.api.containers.TranslatableContainer;
+import org.prism_mc.prism.api.util.Coordinate;
+import org.prism_mc.prism.api.util.Pair;
+import org.prism_mc.prism.paper.api.containers.PaperBlockContainer;
+import org.prism_mc.prism.paper.api.containers.PaperEntityContainer;
+
+/**
+ * Converts activities to and from the compact binary form stored in the activity spool.
+ *
+ * <p>Actions are stored as the same fields the database holds and rebuilt through their
+ * action type, exactly like activities loaded for a rollback.</p>
+ */
+@Singleton
+public class ActivitySpoolCodec {
+
+    /**
+     * The record format version.
+     */
+    private static final byte FORMAT_VERSION = 1;
+
+    /**
+     * Cause container types.
+     */
+    private static final byte CAUSE_NONE = 0;
+    private static final byte CAUSE_PLAYER = 1;
+    private static final byte CAUSE_BLOCK = 2;
+    private static final byte CAUSE_ENTITY = 3;
+    private static final byte CAUSE_STRING = 4;
+    private static final byte CAUSE_TRANSLATABLE = 5;
+
+    /**
+     * The action type registry.
+     */
+    private final ActionTypeRegistry actionTypeRegistry;
+
+    /**
+     * The serializer version.
+     */
+    private final short serializerVersion;
+
+    /**
+     * Construct the codec.
+     *
+     * @param actionTypeRegistry The action type registry
+     * @param serializerVersion The serializer version
+     */
+    @Inject
+    public ActivitySpoolCodec(
+        ActionTypeRegistry actionTypeRegistry,
+        @Named("serializerVersion") short serializerVersion
+    ) {
+        this.actionTypeRegistry = actionTypeRegistry;
+        this.serializerVersion = serializerVersion;
+    }
+
+    /**
+     * Encode an activity.
+     *
+     * @param activity The activity
+     * @return The encoded bytes
+     * @throws Exception On failure to serialize the action
+     */
+    public byte[] encode(Activity activity) throws Exception {
+        var action = activity.action();
+        var bytes = new ByteArrayOutputStream(256);
+        var out = new DataOutputStream(bytes);
+
+        out.writeByte(FORMAT_VERSION);
+        writeString(out, action.type().key());
+        writeUuid(out, activity.world().key());
+        writeString(out, activity.world().value());
+        out.writeDouble(activity.coordinate().x());
+        out.writeDouble(activity.coordinate().y());
+        out.writeDouble(activity.coordinate().z());
+        out.writeLong(activity.timestamp());
+
+        writeCause(out, activity.cause() != null ? activity.cause().container() : null);
+
+        // Action data, in the order of ActionData
+        writeString(
+            out,
+            action instanceof MaterialAction materialAction
+                ? materialAction.serializeMaterial().toUpperCase(Locale.ENGLISH)
+                : null
+        );
+
+        if (action instanceof ItemAction itemAction) {
+            out.writeShort(itemAction.quantity());
+            writeString(out, itemAction.serializeItemData());
+        } else {
+            out.writeShort(0);
+            writeString(out, null);
+        }
+
+        BlockContainer blockContainer = null;
+        BlockContainer replacedBlockContainer = null;
+        if (action instanceof BlockAction blockAction) {
+            blockContainer = blockAction.blockContainer();
+            replacedBlockContainer = blockAction.replacedBlockContainer();
+        }
+
+        writeBlock(out, blockContainer);
+        writeBlock(out, replacedBlockContainer);
+
+        writeString(
+            out,
+            action instanceof EntityAction entityAction
+                ? entityAction.entityContainer().serializeEntityType().toUpperCase(Locale.ENGLISH)
+                : null
+        );
+
+        boolean hasCustomData = action instanceof CustomData customData && customData.hasCustomData();
+        writeString(out, hasCustomData ? ((CustomData) action).serializeCustomData() : null);
+        writeString(out, action.descriptor());
+        writeString(out, action.metadata() != null ? action.serializeMetadata() : null);
+        out.writeShort(hasCustomData ? serializerVersion : 0);
+
+        if (action instanceof PlayerAction playerAction) {
+            writeString(out, playerAction.playerContainer().name());
+            writeUuid(out, playerAction.playerContainer().uuid());
+        } else {
+            writeString(out, null);
+            writeUuid(out, null);
+        }
+
+        out.flush();
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decode an activity.
+     *
+     * @param payload The encoded bytes
+     * @return The activity
+     * @throws Exception On failure to read the record or rebuild the action
+     */
+    public Activity decode(byte[] payload) throws Exception {
+        var in = new DataInputStream(new ByteArrayInputStream(payload));
+
+        byte version = in.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported spool record version: " + version);
+        }
+
+        String actionKey = readString(in);
+        var actionType = actionTypeRegistry
+            .actionType(actionKey)
+            .orElseThrow(() -> new IOException("Failed to find action type: " + actionKey));
+
+        var world = new Pair<>(readUuid(in), readString(in));
+        var coordinate = new Coordinate(in.readDouble(), in.readDouble(), in.readDouble());
+        long timestamp = in.readLong();
+
+        Container causeContainer = readCause(in);
+
+        String material = readString(in);
+        short itemQuantity = in.readShort();
+        String itemData = readString(in);
+        String blockNamespace = readString(in);
+        String blockName = readString(in);
+        String blockData = readString(in);
+        String translationKey = readString(in);
+        String replacedBlockNamespace = readString(in);
+        String replacedBlockName = readString(in);
+        String replacedBlockData = readString(in);
+        String replacedBlockTranslationKey = readString(in);
+        String entityType = readString(in);
+        String customData = readString(in);
+        String descriptor = readString(in);
+        String metadata = readString(in);
+        short customDataVersion = in.readShort();
+        String affectedPlayerName = readString(in);
+        UUID affectedPlayerUuid = readUuid(in);
+
+        ActionData actionData = new ActionData(
+            material,
+            itemQuantity,
+            itemData,
+            blockNamespace,
+            blockName,
+            blockData,
+            replacedBlockNamespace,
+            replacedBlockName,
+            replacedBlockData,
+            entityType,
+            customData,
+            descriptor,
+            metadata,
+            customDataVersion,
+            translationKey,
+            replacedBlockTranslationKey,
+            affectedPlayerName,
+            affectedPlayerUuid
+        );
+
+        return new Activity(
+            null,
+            actionType.createAction(actionData),
+            world,
+            coordinate,
+            causeContainer != null ? new Cause(causeContainer) : null,
+            timestamp
+        );
+    }
+
+    /**
+     * Write a cause container.
+     *
+     * @param out The output
+     * @param container The container
+     * @throws IOException On write failure
+     */
+    private void writeCause(DataOutputStream out, Container container) throws IOException {
+        if (container instanceof PlayerContainer playerContainer) {
+            out.writeByte(CAUSE_PLAYER);
+            writeString(out, playerContainer.name());
+            writeUuid(out, playerContainer.uuid());
+        } else if (container instanceof BlockContainer blockContainer) {
+            out.writeByte(CAUSE_BLOCK);
+            writeBlock(out, blockContainer);
+        } else if (container instanceof EntityContainer entityContainer) {
+            out.writeByte(CAUSE_ENTITY);
+            writeString(out, entityContainer.serializeEntityType().toUpperCase(Locale.ENGLISH));
+        } else if (container instanceof StringContainer stringContainer) {
+            out.writeByte(CAUSE_STRING);
+            writeString(out, stringContainer.value());
+        } else if (container instanceof TranslatableContainer translatableContainer) {
+            out.writeByte(CAUSE_TRANSLATABLE);
+            writeString(out, translatableContainer.translationKey());
+        } else {
+            out.writeByte(CAUSE_NONE);
+        }
+    }
+
+    /**
+     * Read a cause container.
+     *
+     * @param in The input
+     * @return The container, if any
+     * @throws IOException On read failure
+     */
+    private Container readCause(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+
+        return switch (type) {
+            case CAUSE_PLAYER -> new PlayerContainer(readString(in), readUuid(in));
+            case CAUSE_BLOCK -> {
+                String namespace = readString(in);
+                String name = readString(in);
+                String data = readString(in);
+                String translationKey = readString(in);
+
+                yield new PaperBlockContainer(
+                    namespace,
+                    name,
+                    Bukkit.createBlockData(namespace + ":" + name + (data != null ? data : "")),
+                    translationKey
+                );
+            }
+            case CAUSE_ENTITY -> new PaperEntityContainer(EntityType.valueOf(readString(in)));
+            case CAUSE_STRING -> new StringContainer(readString(in));
+            case CAUSE_TRANSLATABLE -> new TranslatableContainer(readString(in));
+            default -> null;
+        };
+    }
+
+    /**
+     * Write a block container's namespace, name, data, and translation key.
+     *
+     * @param out The output
+     * @param blockContainer The block container, if any
+     * @throws IOException On write failure
+     */
+    private void writeBlock(DataOutputStream out, BlockContainer blockContainer) throws IOException {
+        if (blockContainer == null) {
+            for (int i = 0; i < 4; i++) {
+                writeString(out, null);
+            }
+
+            return;
+        }
+
+        writeString(out, blockContainer.blockNamespace());
+        writeString(out, blockContainer.blockName());
+        writeString(out, blockContainer.serializeBlockData());
+        writeString(out, blockContainer.translationKey());
+    }
+
+    /**
+     * Write a nullable string.
+     *
+     * @param out The output
+     * @param value The value
+     * @throws IOException On write failure
+     */
+    private void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Read a nullable string.
+     *
+     * @param in The input
+     * @return The value
+     * @throws IOException On read failure
+     */
+    private String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Write a nullable uuid.
+     *
+     * @param out The output
+     * @param uuid The uuid
+     * @throws IOException On write failure
+     */
+    private void writeUuid(DataOutputStream out, UUID uuid) throws IOException {
+        out.writeBoolean(uuid != null);
+
+        if (uuid != null) {
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        }
+    }
+
+    /**
+     * Read a nullable uuid.
+     *
+     * @param in The input
+     * @return The uuid
+     * @throws IOException On read failure
+     */
+    private UUID readUuid(DataInputStream in) throws IOException {
+        return in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+    }
+}
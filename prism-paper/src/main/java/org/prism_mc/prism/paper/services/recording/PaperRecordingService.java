@@ -22,21 +22,55 @@ package org.prism_mc.prism.paper.services.recording;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import org.bukkit.Bukkit;
 import org.bukkit.GameMode;
 import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.Nullable;
 import org.prism_mc.prism.api.activities.Activity;
 import org.prism_mc.prism.api.services.recording.RecordingService;
 import org.prism_mc.prism.loader.services.configuration.ConfigurationService;
+import org.prism_mc.prism.loader.services.configuration.RecordingConfiguration;
+import org.prism_mc.prism.loader.services.configuration.RecordingOverflowPolicy;
+import org.prism_mc.prism.loader.services.configuration.RecordingSpoolConfiguration;
+import org.prism_mc.prism.loader.services.logging.LoggingService;
+import org.prism_mc.prism.loader.storage.StorageType;
 import org.prism_mc.prism.paper.PrismPaper;
 import org.prism_mc.prism.paper.api.activities.PaperActivity;
 import org.prism_mc.prism.paper.api.containers.PaperPlayerContainer;
+import org.prism_mc.prism.paper.services.alerts.PlacedBlockFilter;
 import org.prism_mc.prism.paper.services.filters.PaperFilterService;
+import org.prism_mc.prism.paper.services.lookup.RecentActivityIndex;
+import org.prism_mc.prism.paper.services.metrics.MetricsService;
 
 @Singleton
 public class PaperRecordingService implements RecordingService {
 
+    /**
+     * How often (in milliseconds) dropped activities are reported.
+     */
+    private static final long DROP_WARNING_INTERVAL = 10000;
+
+    /**
+     * How long (in milliseconds) to wait for each worker to finish its batch when stopping.
+     */
+    private static final long WORKER_STOP_TIMEOUT = 30000;
+
+    /**
+     * How often (in milliseconds) aggregated activities are checked for a closed window.
+     */
+    private static final long AGGREGATION_FLUSH_INTERVAL = 250;
+
     /**
      * The configuration service.
      */
@@ -47,25 +81,91 @@ public class PaperRecordingService implements RecordingService {
      */
     private final PaperFilterService filterService;
 
+    /**
+     * The logging service.
+     */
+    private final LoggingService loggingService;
+
     /**
      * The recording task.
      */
     private final RecordingTask recordingTask;
 
+    /**
+     * The recent activity index.
+     */
+    private final RecentActivityIndex recentActivityIndex;
+
+    /**
+     * The placed block filter.
+     */
+    private final PlacedBlockFilter placedBlockFilter;
+
+    /**
+     * The metrics service.
+     */
+    private final MetricsService metricsService;
+
+    /**
+     * The activity spool codec.
+     */
+    private final ActivitySpoolCodec spoolCodec;
+
+    /**
+     * The activity spool, if enabled or used for overflow.
+     */
+    @Nullable
+    private final ActivitySpool spool;
+
     /**
      * Set the recording mode.
      */
-    private RecordMode recordMode = RecordMode.NORMAL;
+    private volatile RecordMode recordMode = RecordMode.NORMAL;
 
     /**
      * Queue of activities.
      */
-    private final LinkedBlockingQueue<Activity> queue = new LinkedBlockingQueue<>();
+    private final LinkedBlockingQueue<Activity> queue;
+
+    /**
+     * Action keys dropped first when the queue is full.
+     */
+    private final Set<String> lowPriorityActions;
+
+    /**
+     * The queue capacity kept free of low priority actions.
+     */
+    private final int lowPriorityReserve;
+
+    /**
+     * The number of activities dropped since the last warning.
+     */
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    /**
+     * When dropped activities were last reported.
+     */
+    private final AtomicLong lastDropWarning = new AtomicLong();
+
+    /**
+     * The running recording workers.
+     */
+    private final List<RecordingTask> workers = new ArrayList<>();
+
+    /**
+     * Cache the scheduled worker tasks.
+     */
+    private final List<BukkitTask> tasks = new ArrayList<>();
+
+    /**
+     * Coalesces repeated high-frequency activities before they're queued.
+     */
+    private final ActivityAggregator aggregator;
 
     /**
-     * Cache the scheduled task.
+     * The task that queues aggregated activities once their window closes.
      */
-    private BukkitTask task;
+    private ScheduledTask aggregationTask;
 
     /**
      * The drain mode.
@@ -81,19 +181,65 @@ public class PaperRecordingService implements RecordingService {
      *
      * @param configurationService The configuration service
      * @param filterService The filter service
+     * @param loggingService The logging service
      * @param recordingTask The recording task
+     * @param spoolCodec The activity spool codec
+     * @param dataPath The plugin data path
+     * @param recentActivityIndex The recent activity index
+     * @param placedBlockFilter The placed block filter
+     * @param metricsService The metrics service
      */
     @Inject
     public PaperRecordingService(
         ConfigurationService configurationService,
         PaperFilterService filterService,
-        RecordingTask recordingTask
+        LoggingService loggingService,
+        RecordingTask recordingTask,
+        ActivitySpoolCodec spoolCodec,
+        Path dataPath,
+        RecentActivityIndex recentActivityIndex,
+        PlacedBlockFilter placedBlockFilter,
+        MetricsService metricsService
     ) {
         this.configurationService = configurationService;
         this.filterService = filterService;
+        this.loggingService = loggingService;
         this.recordingTask = recordingTask;
+        this.spoolCodec = spoolCodec;
+        this.recentActivityIndex = recentActivityIndex;
+        this.placedBlockFilter = placedBlockFilter;
+        this.metricsService = metricsService;
+
+        RecordingConfiguration recordingConfig = configurationService.prismConfig().recording();
+        this.queue = new LinkedBlockingQueue<>(Math.max(1, recordingConfig.queueCapacity()));
+        this.lowPriorityActions = new HashSet<>(recordingConfig.lowPriorityActions());
+        this.lowPriorityReserve = Math.max(1, recordingConfig.queueCapacity()) / 10;
+        this.spool = openSpool(recordingConfig, dataPath);
 
-        queueNextRecording(recordingTask);
+        this.aggregator = new ActivityAggregator(
+            configurationService.prismConfig().actions().aggregationWindows(),
+            this::record
+        );
+        if (aggregator.enabled()) {
+            this.aggregationTask = Bukkit.getAsyncScheduler()
+                .runAtFixedRate(
+                    PrismPaper.instance().loaderPlugin(),
+                    task -> aggregator.flushExpired(),
+                    AGGREGATION_FLUSH_INTERVAL,
+                    AGGREGATION_FLUSH_INTERVAL,
+                    TimeUnit.MILLISECONDS
+                );
+        }
+
+        // File-based databases only allow a single writer, and only one worker reads the spool at a time
+        StorageType storageType = configurationService.storageConfig().primaryStorageType();
+        boolean singleWriter = storageType.equals(StorageType.SQLITE) || storageType.equals(StorageType.H2);
+        boolean spooled = spool != null && recordingConfig.spool().enabled();
+        int workerCount = singleWriter || spooled ? 1 : Math.max(1, recordingConfig.workers());
+
+        for (int i = 0; i < workerCount; i++) {
+            queueNextRecording(recordingTask.toNew(spool));
+        }
     }
 
     @Override
@@ -102,6 +248,89 @@ public class PaperRecordingService implements RecordingService {
             return false;
         }
 
+        if (!metricsService.enabled()) {
+            return queueActivity(activity);
+        }
+
+        long start = System.nanoTime();
+        boolean queued = queueActivity(activity);
+        metricsService.recordActivity(activity.action().type().key(), System.nanoTime() - start, queued);
+
+        return queued;
+    }
+
+    @Override
+    public int addAllToQueue(final Collection<? extends Activity> activities) {
+        long start = metricsService.enabled() ? System.nanoTime() : 0;
+
+        // Filter everything first so the rest reach the queue or spool in one hand-off
+        List<Activity> batch = new ArrayList<>(activities.size());
+        List<Activity> rejected = new ArrayList<>();
+        List<Activity> aggregated = new ArrayList<>();
+        for (Activity activity : activities) {
+            if (activity == null) {
+                continue;
+            }
+
+            if (!shouldRecord(activity)) {
+                rejected.add(activity);
+            } else if (aggregator.offer(activity)) {
+                aggregated.add(activity);
+            } else {
+                batch.add(activity);
+            }
+        }
+
+        boolean[] queued = enqueueAll(batch);
+
+        int queuedCount = aggregated.size();
+        for (int i = 0; i < batch.size(); i++) {
+            if (queued[i]) {
+                queuedCount++;
+                recentActivityIndex.add(batch.get(i));
+                placedBlockFilter.record(batch.get(i));
+            }
+        }
+
+        if (metricsService.enabled() && !activities.isEmpty()) {
+            // The batch is timed as a whole, so each activity is charged an equal share
+            long nanos = (System.nanoTime() - start) / activities.size();
+            rejected.forEach(activity -> metricsService.recordActivity(activity.action().type().key(), nanos, false));
+            aggregated.forEach(activity -> metricsService.recordActivity(activity.action().type().key(), nanos, true));
+            for (int i = 0; i < batch.size(); i++) {
+                metricsService.recordActivity(batch.get(i).action().type().key(), nanos, queued[i]);
+            }
+        }
+
+        return queuedCount;
+    }
+
+    /**
+     * Filter an activity and add it to the queue.
+     *
+     * @param activity The activity
+     * @return True if added to queue
+     */
+    private boolean queueActivity(Activity activity) {
+        if (!shouldRecord(activity)) {
+            return false;
+        }
+
+        // Repeated activities are held back and queued together once their window closes
+        if (aggregator.offer(activity)) {
+            return true;
+        }
+
+        return record(activity);
+    }
+
+    /**
+     * Check whether an activity passes the creative rule and the filters.
+     *
+     * @param activity The activity
+     * @return True if it should be recorded
+     */
+    private boolean shouldRecord(Activity activity) {
         // Ignore players in creative if disabled globally
         if (
             configurationService.prismConfig().activities().ignoreCreative() &&
@@ -113,31 +342,273 @@ public class PaperRecordingService implements RecordingService {
         }
 
         if (!filterService.shouldRecord(activity)) {
+            if (metricsService.enabled()) {
+                metricsService.filterRejected(activity.action().type().key());
+            }
+
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Queue a filtered activity.
+     *
+     * @param activity The activity
+     * @return True if added to queue
+     */
+    private boolean record(Activity activity) {
+        if (!enqueue(activity)) {
             return false;
         }
 
-        queue.add(activity);
+        // Lookups see it right away, even while it's still waiting to be written
+        recentActivityIndex.add(activity);
+        placedBlockFilter.record(activity);
 
         return true;
     }
 
-    @Override
-    public void clearTask() {
-        if (task != null) {
-            task.cancel();
-            task = null;
+    /**
+     * Add an activity to the queue, applying the overflow policy when it's full.
+     *
+     * <p>This runs on the server thread, so it never waits for room. Activities that don't
+     * fit are spilled or dropped, and the workers catch up at their own pace.</p>
+     *
+     * @param activity The activity
+     * @return True if added to queue
+     */
+    protected boolean enqueue(Activity activity) {
+        RecordingConfiguration recordingConfig = configurationService.prismConfig().recording();
+        if (spool != null && recordingConfig.spool().enabled()) {
+            return spool(activity);
+        }
+
+        // Low priority actions leave the last part of the queue for everything else
+        if (
+            recordingConfig.overflowPolicy().equals(RecordingOverflowPolicy.DROP_LOW_PRIORITY) &&
+            queue.remainingCapacity() <= lowPriorityReserve &&
+            lowPriorityActions.contains(activity.action().type().key())
+        ) {
+            dropped();
+
+            return false;
         }
+
+        if (queue.offer(activity)) {
+            return true;
+        }
+
+        if (spool != null && recordingConfig.overflowPolicy().equals(RecordingOverflowPolicy.SPILL)) {
+            return spool(activity);
+        }
+
+        dropped();
+
+        return false;
+    }
+
+    /**
+     * Add several activities to the queue, applying the overflow policy like {@link #enqueue(Activity)}.
+     *
+     * <p>Anything bound for the spool, whether it's enabled or taking the overflow, is
+     * appended in a single call.</p>
+     *
+     * @param activities The activities
+     * @return Whether each activity was queued, by position
+     */
+    protected boolean[] enqueueAll(List<Activity> activities) {
+        boolean[] queued = new boolean[activities.size()];
+        if (activities.isEmpty()) {
+            return queued;
+        }
+
+        RecordingConfiguration recordingConfig = configurationService.prismConfig().recording();
+        if (spool != null && recordingConfig.spool().enabled()) {
+            spoolAll(activities, queued, null);
+
+            return queued;
+        }
+
+        boolean dropLowPriority = recordingConfig.overflowPolicy().equals(RecordingOverflowPolicy.DROP_LOW_PRIORITY);
+        boolean spill = spool != null && recordingConfig.overflowPolicy().equals(RecordingOverflowPolicy.SPILL);
+
+        List<Activity> overflow = new ArrayList<>();
+        List<Integer> overflowIndexes = new ArrayList<>();
+        for (int i = 0; i < activities.size(); i++) {
+            Activity activity = activities.get(i);
+
+            // Low priority actions leave the last part of the queue for everything else
+            if (
+                dropLowPriority &&
+                queue.remainingCapacity() <= lowPriorityReserve &&
+                lowPriorityActions.contains(activity.action().type().key())
+            ) {
+                dropped();
+            } else if (queue.offer(activity)) {
+                queued[i] = true;
+            } else if (spill) {
+                overflow.add(activity);
+                overflowIndexes.add(i);
+            } else {
+                dropped();
+            }
+        }
+
+        if (!overflow.isEmpty()) {
+            spoolAll(overflow, queued, overflowIndexes);
+        }
+
+        return queued;
+    }
+
+    /**
+     * Append several activities to the spool at once.
+     *
+     * @param activities The activities
+     * @param queued The flags to set for each spooled activity
+     * @param indexes The flag position of each activity, or null if they line up
+     */
+    private void spoolAll(List<Activity> activities, boolean[] queued, @Nullable List<Integer> indexes) {
+        List<byte[]> payloads = new ArrayList<>(activities.size());
+        List<Integer> encoded = new ArrayList<>(activities.size());
+        for (int i = 0; i < activities.size(); i++) {
+            try {
+                payloads.add(spoolCodec.encode(activities.get(i)));
+                encoded.add(indexes != null ? indexes.get(i) : i);
+            } catch (Exception e) {
+                loggingService.handleException(e);
+                dropped();
+            }
+        }
+
+        int appended = 0;
+        try {
+            appended = spool.appendAll(payloads);
+        } catch (IOException e) {
+            loggingService.handleException(e);
+        }
+
+        for (int i = 0; i < payloads.size(); i++) {
+            if (i < appended) {
+                queued[encoded.get(i)] = true;
+            } else {
+                dropped();
+            }
+        }
+    }
+
+    /**
+     * Open the activity spool, if it's enabled or used for overflow.
+     *
+     * @param recordingConfig The recording config
+     * @param dataPath The plugin data path
+     * @return The spool, or null if unused or it failed to open
+     */
+    private ActivitySpool openSpool(RecordingConfiguration recordingConfig, Path dataPath) {
+        RecordingSpoolConfiguration spoolConfig = recordingConfig.spool();
+        if (!spoolConfig.enabled() && !recordingConfig.overflowPolicy().equals(RecordingOverflowPolicy.SPILL)) {
+            return null;
+        }
+
+        try {
+            var activitySpool = new ActivitySpool(
+                dataPath.resolve("spool"),
+                Math.max(1, spoolConfig.segmentSize()) * 1024 * 1024
+            );
+
+            if (!activitySpool.isEmpty()) {
+                loggingService.info(
+                    "Replaying {0} bytes of spooled activities not yet recorded.",
+                    activitySpool.pendingBytes()
+                );
+            }
+
+            return activitySpool;
+        } catch (IOException e) {
+            loggingService.handleException(e);
+
+            return null;
+        }
+    }
+
+    /**
+     * Append an activity to the spool.
+     *
+     * @param activity The activity
+     * @return True if spooled
+     */
+    private boolean spool(Activity activity) {
+        try {
+            spool.append(spoolCodec.encode(activity));
+
+            return true;
+        } catch (Exception e) {
+            loggingService.handleException(e);
+            dropped();
+
+            return false;
+        }
+    }
+
+    /**
+     * Count a dropped activity and periodically warn about it.
+     */
+    private void dropped() {
+        droppedCount.incrementAndGet();
+        metricsService.dropped();
+
+        long now = System.currentTimeMillis();
+        long last = lastDropWarning.get();
+        if (now - last >= DROP_WARNING_INTERVAL && lastDropWarning.compareAndSet(last, now)) {
+            loggingService.warn(
+                "Recording queue is full, dropped {0} activities. Consider more workers or a larger queue.",
+                droppedCount.getAndSet(0)
+            );
+        }
+    }
+
+    /**
+     * Stop the workers and wait for them to finish their current batch,
+     * so nothing is still reading the queue or spool afterward.
+     */
+    private void stopWorkers() {
+        List<RecordingTask> stopping;
+        synchronized (this) {
+            stopping = new ArrayList<>(workers);
+        }
+
+        clearTask();
+
+        for (RecordingTask worker : stopping) {
+            if (!worker.awaitStop(WORKER_STOP_TIMEOUT)) {
+                loggingService.warn("Recorder: A recording worker didn't finish its batch in time.");
+            }
+        }
+    }
+
+    @Override
+    public synchronized void clearTask() {
+        workers.forEach(RecordingTask::stop);
+        workers.clear();
+
+        tasks.forEach(BukkitTask::cancel);
+        tasks.clear();
     }
 
     /**
      * Drains the queue sync.
      */
     public void drainSync() {
+        aggregator.flushAll();
+
         recordMode = RecordMode.DRAIN_SYNC;
+        stopWorkers();
 
-        RecordingTask recordingTask = this.recordingTask.toNew();
-        while (!queue.isEmpty()) {
-            recordingTask.save();
+        RecordingTask recordingTask = this.recordingTask.toNew(spool);
+        while (recordingTask.save() > 0) {
+            // Keep saving until the queue and spool are empty or the database fails
         }
     }
 
@@ -147,32 +618,55 @@ public class PaperRecordingService implements RecordingService {
     }
 
     @Override
-    public void queueNextRecording(Runnable recordingTask) {
-        long delay = configurationService.prismConfig().recording().delay();
-        queueNextRecording(delay);
-    }
-
-    /**
-     * Queue the next recording with a specific delay.
-     *
-     * @param delay The delay
-     */
-    public void queueNextRecording(long delay) {
-        if (task != null) {
-            throw new IllegalStateException("Recording tasks must be cleared before scheduling a new one.");
+    public synchronized void queueNextRecording(Runnable recordingTask) {
+        if (!recordMode.equals(RecordMode.NORMAL)) {
+            return;
         }
 
-        if (recordMode.equals(RecordMode.NORMAL)) {
-            task = Bukkit.getServer()
-                .getScheduler()
-                .runTaskLaterAsynchronously(PrismPaper.instance().loaderPlugin(), recordingTask, delay);
+        if (recordingTask instanceof RecordingTask worker) {
+            workers.add(worker);
         }
+
+        tasks.add(
+            Bukkit.getServer().getScheduler().runTaskAsynchronously(PrismPaper.instance().loaderPlugin(), recordingTask)
+        );
     }
 
     @Override
     public void stop() {
-        this.clearTask();
-
         recordMode = RecordMode.STOPPED;
+
+        if (aggregationTask != null) {
+            aggregationTask.cancel();
+        }
+
+        // Nothing is looked up any more, so pending activities don't need indexing
+        recentActivityIndex.close();
+
+        // Queued while the workers still run, so they're written with everything else
+        aggregator.flushAll();
+
+        stopWorkers();
+
+        if (spool == null) {
+            // Nothing reads the queue after this, so write what's left now
+            RecordingTask recordingTask = this.recordingTask.toNew(null);
+            while (recordingTask.save() > 0) {
+                // Keep saving until the queue is empty or the database fails
+            }
+
+            return;
+        }
+
+        // Anything still queued is spooled and recorded after the next start
+        List<Activity> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        remaining.forEach(this::spool);
+
+        try {
+            spool.close();
+        } catch (IOException e) {
+            loggingService.handleException(e);
+        }
     }
 }
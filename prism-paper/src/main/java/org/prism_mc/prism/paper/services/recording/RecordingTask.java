@@ -21,14 +21,28 @@
 package org.prism_mc.prism.paper.services.recording;
 
 import com.google.inject.Inject;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.jetbrains.annotations.Nullable;
+import org.prism_mc.prism.api.activities.Activity;
 import org.prism_mc.prism.api.services.recording.RecordingService;
 import org.prism_mc.prism.api.storage.ActivityBatch;
 import org.prism_mc.prism.api.storage.StorageAdapter;
+import org.prism_mc.prism.loader.services.configuration.ConfigurationService;
 import org.prism_mc.prism.loader.services.configuration.storage.StorageConfiguration;
 import org.prism_mc.prism.loader.services.logging.LoggingService;
+import org.prism_mc.prism.paper.services.metrics.MetricsService;
 
 public class RecordingTask implements Runnable {
 
+    /**
+     * The configuration service.
+     */
+    private final ConfigurationService configurationService;
+
     /**
      * The storage config.
      */
@@ -49,71 +63,305 @@ public class RecordingTask implements Runnable {
      */
     private final LoggingService loggingService;
 
+    /**
+     * The activity spool codec.
+     */
+    private final ActivitySpoolCodec spoolCodec;
+
+    /**
+     * The metrics service.
+     */
+    private final MetricsService metricsService;
+
+    /**
+     * The activity spool, if enabled.
+     */
+    private final ActivitySpool spool;
+
+    /**
+     * Monitor used to idle between batches.
+     */
+    private final Object idleMonitor = new Object();
+
+    /**
+     * Whether this worker should keep draining the queue.
+     */
+    private volatile boolean running = true;
+
+    /**
+     * Whether this worker has started running, guarded by the idle monitor.
+     */
+    private boolean started = false;
+
+    /**
+     * Counted down once this worker has finished running.
+     */
+    private final CountDownLatch finished = new CountDownLatch(1);
+
     /**
      * Construct a new recording task.
      *
+     * @param configurationService The configuration service
      * @param storageConfig The storage config
      * @param storageAdapter The storage adapter
      * @param recordingService The recording service
      * @param loggingService The logging service
+     * @param spoolCodec The activity spool codec
+     * @param metricsService The metrics service
      */
     @Inject
     public RecordingTask(
+        ConfigurationService configurationService,
+        StorageConfiguration storageConfig,
+        StorageAdapter storageAdapter,
+        RecordingService recordingService,
+        LoggingService loggingService,
+        ActivitySpoolCodec spoolCodec,
+        MetricsService metricsService
+    ) {
+        this(
+            configurationService,
+            storageConfig,
+            storageAdapter,
+            recordingService,
+            loggingService,
+            spoolCodec,
+            metricsService,
+            null
+        );
+    }
+
+    /**
+     * Construct a new recording task that also drains the activity spool.
+     *
+     * @param configurationService The configuration service
+     * @param storageConfig The storage config
+     * @param storageAdapter The storage adapter
+     * @param recordingService The recording service
+     * @param loggingService The logging service
+     * @param spoolCodec The activity spool codec
+     * @param metricsService The metrics service
+     * @param spool The activity spool
+     */
+    public RecordingTask(
+        ConfigurationService configurationService,
         StorageConfiguration storageConfig,
         StorageAdapter storageAdapter,
         RecordingService recordingService,
-        LoggingService loggingService
+        LoggingService loggingService,
+        ActivitySpoolCodec spoolCodec,
+        MetricsService metricsService,
+        @Nullable ActivitySpool spool
     ) {
+        this.configurationService = configurationService;
         this.storageConfig = storageConfig;
         this.storageAdapter = storageAdapter;
         this.recordingService = recordingService;
         this.loggingService = loggingService;
+        this.spoolCodec = spoolCodec;
+        this.metricsService = metricsService;
+        this.spool = spool;
     }
 
     @Override
     public void run() {
-        save();
+        synchronized (idleMonitor) {
+            if (!running) {
+                return;
+            }
 
-        // Schedule the next recording
-        recordingService.queueNextRecording(
-            new RecordingTask(storageConfig, storageAdapter, recordingService, loggingService)
-        );
+            started = true;
+        }
+
+        try {
+            while (running) {
+                int batchMax = storageConfig.primaryDataSource().batchMax();
+
+                // Keep draining while there's a backlog, otherwise idle until the next delay
+                if (save() < batchMax) {
+                    if (spool != null) {
+                        spool.flush();
+                    }
+
+                    idle();
+                }
+            }
+        } finally {
+            finished.countDown();
+        }
     }
 
     /**
-     * Saves anything in the queue, or as many as we can.
+     * Waits for the configured delay, or until this worker is stopped.
      */
-    public void save() {
-        if (!recordingService.queue().isEmpty()) {
+    private void idle() {
+        long delay = configurationService.prismConfig().recording().delay() * 50;
+
+        synchronized (idleMonitor) {
+            if (!running || delay <= 0) {
+                return;
+            }
+
             try {
-                int batchCount = 0;
-                int batchMax = storageConfig.primaryDataSource().batchMax();
+                idleMonitor.wait(delay);
+            } catch (InterruptedException e) {
+                running = false;
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
 
-                ActivityBatch batch = storageAdapter.createActivityBatch();
-                batch.startBatch();
+    /**
+     * Saves a batch of activities from the queue, topped up from the spool.
+     *
+     * @return The number of activities saved
+     */
+    public int save() {
+        int batchMax = storageConfig.primaryDataSource().batchMax();
 
-                while (!recordingService.queue().isEmpty()) {
-                    batchCount++;
-                    batch.add(recordingService.queue().poll());
+        List<Activity> activities = new ArrayList<>();
+        recordingService.queue().drainTo(activities, batchMax);
 
-                    // Batch max exceeded, break
-                    if (batchCount > batchMax) {
-                        loggingService.debug(
-                            "Recorder: Batch max exceeded, running insert. Queue remaining: {0}",
-                            recordingService.queue().size()
-                        );
+        int queued = activities.size();
+        ActivitySpool.SpoolBatch spoolBatch = readSpool(activities, batchMax - queued);
 
-                        break;
-                    }
-                }
+        if (activities.isEmpty() && spoolBatch == null) {
+            return 0;
+        }
+
+        try {
+            long start = System.nanoTime();
+            ActivityBatch batch = storageAdapter.createActivityBatch();
+            batch.startBatch();
+
+            for (Activity activity : activities) {
+                batch.add(activity);
+            }
+
+            batch.commitBatch();
+
+            if (metricsService.enabled()) {
+                metricsService.recordBatch(activities.size(), System.nanoTime() - start);
+            }
+        } catch (Exception e) {
+            loggingService.handleException(e);
+
+            if (spoolBatch != null) {
+                spool.release(spoolBatch);
+            }
+
+            // Keep what came from the queue so it's retried along with the spool
+            spill(activities.subList(0, queued));
+
+            return 0;
+        }
 
-                batch.commitBatch();
+        // The activities are stored now, so a failed checkpoint must not spill them again.
+        // At worst the spooled records are replayed after a restart.
+        if (spoolBatch != null) {
+            try {
+                spool.commit(spoolBatch);
             } catch (Exception e) {
                 loggingService.handleException(e);
             }
         }
 
-        recordingService.clearTask();
+        if (activities.size() == batchMax) {
+            loggingService.debug(
+                "Recorder: Batch max reached, continuing. Queue remaining: {0}",
+                recordingService.queue().size()
+            );
+        }
+
+        return activities.size();
+    }
+
+    /**
+     * Read activities from the spool into the batch.
+     *
+     * @param activities The activities in the batch
+     * @param limit The max number to read
+     * @return The spool batch to commit, if anything was read
+     */
+    private ActivitySpool.SpoolBatch readSpool(List<Activity> activities, int limit) {
+        if (spool == null) {
+            return null;
+        }
+
+        try {
+            ActivitySpool.SpoolBatch spoolBatch = spool.read(limit);
+            if (spoolBatch == null) {
+                return null;
+            }
+
+            for (byte[] payload : spoolBatch.payloads()) {
+                try {
+                    activities.add(spoolCodec.decode(payload));
+                } catch (Exception e) {
+                    loggingService.warn("Recorder: Skipping unreadable spooled activity: {0}", e.getMessage());
+                }
+            }
+
+            return spoolBatch;
+        } catch (IOException e) {
+            loggingService.handleException(e);
+
+            return null;
+        }
+    }
+
+    /**
+     * Write activities to the spool so they're retried later.
+     *
+     * @param activities The activities
+     */
+    private void spill(List<Activity> activities) {
+        if (spool == null || activities.isEmpty()) {
+            return;
+        }
+
+        try {
+            for (Activity activity : activities) {
+                spool.append(spoolCodec.encode(activity));
+            }
+
+            spool.flush();
+        } catch (Exception e) {
+            loggingService.handleException(e);
+        }
+    }
+
+    /**
+     * Stop this worker once its current batch is written.
+     */
+    public void stop() {
+        running = false;
+
+        synchronized (idleMonitor) {
+            idleMonitor.notifyAll();
+        }
+    }
+
+    /**
+     * Wait for a stopped worker to finish its current batch.
+     *
+     * @param timeout The max time to wait in milliseconds
+     * @return True if the worker finished (or never started)
+     */
+    public boolean awaitStop(long timeout) {
+        synchronized (idleMonitor) {
+            if (!started) {
+                return true;
+            }
+        }
+
+        try {
+            return finished.await(timeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            return false;
+        }
     }
 
     /**
@@ -122,6 +370,25 @@ public class RecordingTask implements Runnable {
      * @return The recording task
      */
     public RecordingTask toNew() {
-        return new RecordingTask(storageConfig, storageAdapter, recordingService, loggingService);
+        return toNew(spool);
+    }
+
+    /**
+     * Create a new recording task that drains the given spool.
+     *
+     * @param spool The activity spool, if any
+     * @return The recording task
+     */
+    public RecordingTask toNew(@Nullable ActivitySpool spool) {
+        return new RecordingTask(
+            configurationService,
+            storageConfig,
+            storageAdapter,
+            recordingService,
+            loggingService,
+            spoolCodec,
+            metricsService,
+            spool
+        );
     }
 }
@@ -104,8 +104,8 @@ public abstract class AbstractModificationWand {
      * @param clazz The modification class
      */
     protected void use(ActivityQuery query, Class<? extends ModificationQueue> clazz) {
-        // Ensure a queue is free
-        if (!modificationQueueService.queueAvailable()) {
+        // Ensure no queue is modifying the same area
+        if (!modificationQueueService.queueAvailable(owner, query)) {
             messageService.errorQueueNotFree((CommandSender) owner);
 
             return;
@@ -20,15 +20,17 @@
 
 package org.prism_mc.prism.paper.utils;
 
-import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import lombok.experimental.UtilityClass;
-import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
-import org.bukkit.block.BlockState;
 import org.bukkit.block.data.Bisected;
 import org.bukkit.block.data.BlockData;
 import org.bukkit.block.data.Directional;
@@ -37,7 +39,8 @@ import org.bukkit.block.data.type.Bed;
 import org.bukkit.block.data.type.Stairs;
 import org.bukkit.block.data.type.TrapDoor;
 import org.bukkit.util.BoundingBox;
-import org.prism_mc.prism.paper.services.modifications.state.BlockStateChange;
+import org.prism_mc.prism.paper.PrismPaper;
+import org.prism_mc.prism.paper.services.modifications.VolumeScanner;
 
 @UtilityClass
 public class BlockUtils {
@@ -99,38 +102,20 @@ public class BlockUtils {
     /**
      * Remove blocks matching a list of materials.
      *
+     * <p>The volume is scanned from chunk snapshots off the main thread, and the removals
+     * are spread over as many ticks as needed.</p>
+     *
      * @param world The world
      * @param boundingBox The bounding box
      * @param materials The materials
-     * @return A list of block state changes
+     * @return The number of blocks removed
      */
-    public static List<BlockStateChange> removeBlocksByMaterial(
+    public static CompletableFuture<Integer> removeBlocksByMaterial(
         World world,
         BoundingBox boundingBox,
         List<Material> materials
     ) {
-        List<BlockStateChange> stateChanges = new ArrayList<>();
-        for (int x = (int) boundingBox.getMinX(); x < boundingBox.getMaxX(); x++) {
-            for (int y = (int) boundingBox.getMinY(); y < boundingBox.getMaxY(); y++) {
-                for (int z = (int) boundingBox.getMinZ(); z < boundingBox.getMaxZ(); z++) {
-                    Block block = world.getBlockAt(x, y, z);
-                    if (materials.contains(block.getType())) {
-                        // Capture the old state
-                        BlockState oldState = block.getState();
-
-                        // Set to air
-                        block.setType(Material.AIR);
-
-                        // Capture the new state
-                        BlockState newState = block.getState();
-
-                        stateChanges.add(new BlockStateChange(oldState, newState));
-                    }
-                }
-            }
-        }
-
-        return stateChanges;
+        return new VolumeScanner(world, boundingBox, materials).remove(PrismPaper.instance().loaderPlugin());
     }
 
     /**
@@ -157,17 +142,20 @@ public class BlockUtils {
     /**
      * Query all gravity-affected blocks on top of a given block.
      *
-     * @param accumulator Accumulation list as there may be recursion
+     * <p>Blocks already in the visited set are not accumulated again, which lets callers
+     * share one set across many start blocks (e.g. every block of an explosion).</p>
+     *
+     * @param accumulator Accumulation list
+     * @param visited The block keys of blocks already accounted for
      * @param startBlock The start block
      * @return A list of any blocks that are considered "fallers"
      */
-    public static List<Block> gravityAffectedBlocksAbove(List<Block> accumulator, Block startBlock) {
+    public static List<Block> gravityAffectedBlocksAbove(List<Block> accumulator, Set<Long> visited, Block startBlock) {
         Block neighbor = startBlock.getRelative(BlockFace.UP);
-        if (TagLib.GRAVITY_AFFECTED.isTagged(neighbor.getType())) {
+        while (TagLib.GRAVITY_AFFECTED.isTagged(neighbor.getType()) && visited.add(neighbor.getBlockKey())) {
             accumulator.add(neighbor);
 
-            // Recurse upwards
-            gravityAffectedBlocksAbove(accumulator, neighbor);
+            neighbor = neighbor.getRelative(BlockFace.UP);
         }
 
         return accumulator;
@@ -176,20 +164,23 @@ public class BlockUtils {
     /**
      * Query all blocks that can detach from a given start block.
      *
-     * @param accumulator Accumulation list as there may be recursion
+     * <p>Blocks already in the visited set are not accumulated again.</p>
+     *
+     * @param accumulator Accumulation list
+     * @param visited The block keys of blocks already accounted for
      * @param startBlock The start block
      * @return A list of any detachable blocks
      */
-    public static List<Block> detachables(List<Block> accumulator, Block startBlock) {
+    public static List<Block> detachables(List<Block> accumulator, Set<Long> visited, Block startBlock) {
         // We can avoid a ton of useless checks by checking for the limited number
         // of materials that can have "recursive detachables on all sides" at all.
         if (TagLib.RECURSIVE_DETACHABLE_HOLDERS.isTagged(startBlock.getType())) {
-            allSideDetachables(accumulator, new ArrayList<>(), startBlock);
+            allSideDetachables(accumulator, visited, startBlock);
         }
 
-        sideDetachables(accumulator, startBlock);
-        topDetachables(accumulator, startBlock);
-        bottomDetachables(accumulator, startBlock);
+        sideDetachables(accumulator, visited, startBlock);
+        topDetachables(accumulator, visited, startBlock);
+        bottomDetachables(accumulator, visited, startBlock);
 
         return accumulator;
     }
@@ -200,52 +191,62 @@ public class BlockUtils {
      * <p>This only checks recursive materials because any all-side
      * detachable that is not recursive is checked in side-specific methods.</p>
      *
-     * @param matchAccumulator Accumulation list as there may be recursion
+     * @param accumulator Accumulation list
+     * @param visited The block keys of blocks already accounted for
      * @param startBlock The start block
      * @return A list of any blocks that are considered "detachable"
      */
-    protected static List<Block> allSideDetachables(
-        List<Block> matchAccumulator,
-        List<Location> rejectAccumulator,
-        Block startBlock
-    ) {
-        for (BlockFace face : BlockFace.values()) {
-            Block neighbor = startBlock.getRelative(face);
-
-            // Skip visited
-            if (matchAccumulator.contains(neighbor) || rejectAccumulator.contains(neighbor.getLocation())) {
-                continue;
-            }
-
-            if (TagLib.RECURSIVE_DETACHABLES.isTagged(neighbor.getType())) {
-                matchAccumulator.add(neighbor);
+    protected static List<Block> allSideDetachables(List<Block> accumulator, Set<Long> visited, Block startBlock) {
+        // Rejections stay local, a block that can't detach on all sides may still detach from one
+        Set<Long> rejected = new HashSet<>();
+        Deque<Block> pending = new ArrayDeque<>();
+        pending.add(startBlock);
+
+        while (!pending.isEmpty()) {
+            Block block = pending.poll();
+            for (BlockFace face : BlockFace.values()) {
+                Block neighbor = block.getRelative(face);
+                long key = neighbor.getBlockKey();
+
+                // Skip visited
+                if (visited.contains(key) || rejected.contains(key)) {
+                    continue;
+                }
 
-                // Recurse
-                allSideDetachables(matchAccumulator, rejectAccumulator, neighbor);
-            } else {
-                rejectAccumulator.add(neighbor.getLocation());
+                if (TagLib.RECURSIVE_DETACHABLES.isTagged(neighbor.getType())) {
+                    visited.add(key);
+                    accumulator.add(neighbor);
+                    pending.add(neighbor);
+                } else {
+                    rejected.add(key);
+                }
             }
         }
 
-        return matchAccumulator;
+        return accumulator;
     }
 
     /**
      * Query all "detachable" blocks on the bottom of a given block.
      *
-     * @param accumulator Accumulation list as there may be recursion
+     * @param accumulator Accumulation list
+     * @param visited The block keys of blocks already accounted for
      * @param startBlock The start block
      * @return A list of any blocks that are considered "detachable"
      */
-    protected static List<Block> bottomDetachables(List<Block> accumulator, Block startBlock) {
+    protected static List<Block> bottomDetachables(List<Block> accumulator, Set<Long> visited, Block startBlock) {
         Block neighbor = startBlock.getRelative(BlockFace.DOWN);
-        if (TagLib.BOTTOM_DETACHABLES.isTagged(neighbor.getType())) {
-            accumulator.add(neighbor);
+        while (TagLib.BOTTOM_DETACHABLES.isTagged(neighbor.getType())) {
+            if (visited.add(neighbor.getBlockKey())) {
+                accumulator.add(neighbor);
+            }
 
-            // Recurse downwards
-            if (TagLib.RECURSIVE_BOTTOM_DETACHABLES.isTagged(neighbor.getType())) {
-                bottomDetachables(accumulator, neighbor);
+            // Continue downwards
+            if (!TagLib.RECURSIVE_BOTTOM_DETACHABLES.isTagged(neighbor.getType())) {
+                break;
             }
+
+            neighbor = neighbor.getRelative(BlockFace.DOWN);
         }
 
         return accumulator;
@@ -254,25 +255,29 @@ public class BlockUtils {
     /**
      * Query all "detachable" blocks on top of a given block.
      *
-     * @param accumulator Accumulation list as there may be recursion
+     * @param accumulator Accumulation list
+     * @param visited The block keys of blocks already accounted for
      * @param startBlock The start block
      * @return A list of any blocks that are considered "detachable"
      */
-    protected static List<Block> topDetachables(List<Block> accumulator, Block startBlock) {
+    protected static List<Block> topDetachables(List<Block> accumulator, Set<Long> visited, Block startBlock) {
         Block neighbor = startBlock.getRelative(BlockFace.UP);
-        if (TagLib.TOP_DETACHABLES.isTagged(neighbor.getType())) {
+        while (TagLib.TOP_DETACHABLES.isTagged(neighbor.getType())) {
             // Some detachables are also bisected so only count this if the neighbor is the bottom half
             if (
-                !(neighbor.getBlockData() instanceof Bisected bisected) ||
-                bisected.getHalf().equals(Bisected.Half.BOTTOM)
+                (!(neighbor.getBlockData() instanceof Bisected bisected) ||
+                    bisected.getHalf().equals(Bisected.Half.BOTTOM)) &&
+                visited.add(neighbor.getBlockKey())
             ) {
                 accumulator.add(neighbor);
             }
 
-            // Recurse upwards
-            if (TagLib.RECURSIVE_TOP_DETACHABLES.isTagged(neighbor.getType())) {
-                topDetachables(accumulator, neighbor);
+            // Continue upwards
+            if (!TagLib.RECURSIVE_TOP_DETACHABLES.isTagged(neighbor.getType())) {
+                break;
             }
+
+            neighbor = neighbor.getRelative(BlockFace.UP);
         }
 
         return accumulator;
@@ -281,35 +286,40 @@ public class BlockUtils {
     /**
      * Query all "detachable" blocks on the sides of a given block.
      *
-     * @param accumulator Accumulation list as there may be recursion
+     * @param accumulator Accumulation list
+     * @param visited The block keys of blocks already accounted for
      * @param startBlock The start block
      * @return A list of any blocks that are considered "detachable"
      */
-    protected static List<Block> sideDetachables(List<Block> accumulator, Block startBlock) {
+    protected static List<Block> sideDetachables(List<Block> accumulator, Set<Long> visited, Block startBlock) {
         if (startBlock.getType().isSolid()) {
             for (BlockFace face : attachmentFacesSides) {
                 Block neighbor = startBlock.getRelative(face);
-                if (TagLib.SIDE_DETACHABLES.isTagged(neighbor.getType())) {
-                    if (neighbor.getBlockData() instanceof Directional directional) {
-                        // Only record if the detachable, directional block is attached to us
-                        if (directional.getFacing().equals(face)) {
-                            accumulator.add(neighbor);
-                        }
-                    } else if (neighbor.getBlockData() instanceof MultipleFacing multipleFacing) {
-                        for (var facing : multipleFacing.getFaces()) {
-                            if (facing.getOppositeFace().equals(face)) {
-                                accumulator.add(neighbor);
-
-                                // Vines can extend down from a side attachment
-                                if (neighbor.getType().equals(Material.VINE)) {
-                                    bottomDetachables(accumulator, neighbor);
-                                }
-
-                                break;
-                            }
+                if (!TagLib.SIDE_DETACHABLES.isTagged(neighbor.getType())) {
+                    continue;
+                }
+
+                boolean attached = false;
+                if (neighbor.getBlockData() instanceof Directional directional) {
+                    // Only record if the detachable, directional block is attached to us
+                    attached = directional.getFacing().equals(face);
+                } else if (neighbor.getBlockData() instanceof MultipleFacing multipleFacing) {
+                    for (var facing : multipleFacing.getFaces()) {
+                        if (facing.getOppositeFace().equals(face)) {
+                            attached = true;
+                            break;
                         }
-                    } else {
-                        accumulator.add(neighbor);
+                    }
+                } else {
+                    attached = true;
+                }
+
+                if (attached && visited.add(neighbor.getBlockKey())) {
+                    accumulator.add(neighbor);
+
+                    // Vines can extend down from a side attachment
+                    if (neighbor.getType().equals(Material.VINE)) {
+                        bottomDetachables(accumulator, visited, neighbor);
                     }
                 }
             }